@@ -1,24 +1,20 @@
 package org.restheart.accounts;
 
-import com.codahale.metrics.Histogram;
-import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SharedMetricRegistries;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import org.restheart.exchange.ServiceRequest;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.metrics.Metrics;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.WildcardInterceptor;
+import org.restheart.security.interceptors.FailedAuthCounters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Feeds token-validation failures from restheart-accounts endpoints into the
- * shared {@code AUTH} metric registry so that {@code bruteForceAttackGuard} can
+ * {@link FailedAuthCounters} so that {@code bruteForceAttackGuard} can
  * detect and block repeated attempts.
  *
  * <h2>Covered endpoints and failure signals</h2>
@@ -34,21 +30,19 @@ import java.util.concurrent.TimeUnit;
  * intentionally NOT counted here — only genuine token-guess failures are tracked.</p>
  *
  * <p>The update logic mirrors {@code FailedAuthMetricsCollector} exactly:
- * it uses the same {@code AUTH} shared registry and the same histogram name derived from
- * {@link Metrics#failedAuthHistogramName}, so the counter read by
+ * it increments the counter of the same source derived from
+ * {@link Metrics#failedAuthHistogramName}, so the count read by
  * {@code BruteForceAttackGuard} at {@code REQUEST_BEFORE_AUTH} stays accurate.</p>
  */
 @RegisterPlugin(
         name = "tokenFailedAuthInterceptor",
-        description = "Counts token-validation failures into the AUTH metric registry for bruteForceAttackGuard",
+        description = "Counts token-validation failures into the failed auth counters for bruteForceAttackGuard",
         interceptPoint = InterceptPoint.RESPONSE,
         enabledByDefault = false)
 public class TokenFailedAuthInterceptor implements WildcardInterceptor {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(TokenFailedAuthInterceptor.class);
 
-    private static final MetricRegistry AUTH_REGISTRY = SharedMetricRegistries.getOrCreate("AUTH");
-
     private static final Set<String> JSON_TOKEN_PATHS = Set.of(
             "/auth/activate",
             "/auth/reset-password"
@@ -77,10 +71,8 @@ public class TokenFailedAuthInterceptor implements WildcardInterceptor {
 
     @Override
     public void handle(ServiceRequest<?> request, ServiceResponse<?> response) {
-        var histoName = Metrics.failedAuthHistogramName(request.getExchange());
-        var histo = AUTH_REGISTRY.histogram(histoName,
-                () -> new Histogram(new SlidingTimeWindowArrayReservoir(10, TimeUnit.SECONDS)));
-        histo.update(histo.getSnapshot().getMax() + 1);
+        var source = Metrics.failedAuthHistogramName(request.getExchange());
+        FailedAuthCounters.instance().increment(source);
 
         LOGGER.debug("Token failure counted for bruteForceAttackGuard — path={} status={}",
                 request.getPath(), response.getStatusCode());
@@ -0,0 +1,85 @@
+package org.restheart.accounts;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetSocketAddress;
+
+import org.junit.jupiter.api.Test;
+import org.restheart.exchange.ServiceRequest;
+import org.restheart.exchange.ServiceResponse;
+import org.restheart.security.interceptors.BruteForceAttackGuard;
+import org.restheart.utils.HttpStatus;
+
+import io.undertow.server.HttpServerExchange;
+
+public class TokenFailedAuthInterceptorTest {
+    private static ServiceRequest<?> request(String path, String remoteIp) {
+        var exchange = mock(HttpServerExchange.class);
+        when(exchange.getSourceAddress()).thenReturn(new InetSocketAddress(remoteIp, 0));
+
+        var request = mock(ServiceRequest.class);
+        when(request.getPath()).thenReturn(path);
+        when(request.getExchange()).thenReturn(exchange);
+        return request;
+    }
+
+    private static ServiceResponse<?> response(int status) {
+        var response = mock(ServiceResponse.class);
+        when(response.getStatusCode()).thenReturn(status);
+        return response;
+    }
+
+    @Test
+    void testRepeatedTokenFailuresAreBlocked() throws Exception {
+        var guard = new BruteForceAttackGuard();
+        guard.init();
+
+        var interceptor = new TokenFailedAuthInterceptor();
+        var failed = response(HttpStatus.SC_UNAUTHORIZED);
+
+        for (var i = 0; i < 5; i++) {
+            var request = request("/auth/activate", "10.0.28.1");
+            assertTrue(interceptor.resolve(request, failed));
+            interceptor.handle(request, failed);
+        }
+
+        var next = response(HttpStatus.SC_OK);
+        guard.handle(request("/auth/activate", "10.0.28.1"), next);
+
+        verify(next).setInError(anyInt(), anyString());
+        verify(next).setInError(HttpStatus.SC_TOO_MANY_REQUESTS, "Too many failed authentication attempts. Please try again later.");
+    }
+
+    @Test
+    void testOtherSourcesAreNotBlocked() throws Exception {
+        var guard = new BruteForceAttackGuard();
+        guard.init();
+
+        var interceptor = new TokenFailedAuthInterceptor();
+        var failed = response(HttpStatus.SC_UNAUTHORIZED);
+
+        for (var i = 0; i < 5; i++) {
+            var request = request("/auth/reset-password", "10.0.28.2");
+            interceptor.handle(request, failed);
+        }
+
+        var next = response(HttpStatus.SC_OK);
+        guard.handle(request("/auth/reset-password", "10.0.28.3"), next);
+
+        verify(next, never()).setInError(anyInt(), anyString());
+    }
+
+    @Test
+    void testMissingFieldsAreNotCounted() {
+        var interceptor = new TokenFailedAuthInterceptor();
+
+        assertFalse(interceptor.resolve(request("/auth/activate", "10.0.28.4"), response(HttpStatus.SC_BAD_REQUEST)));
+    }
+}
@@ -155,4 +155,24 @@ public interface Cache<K, V> {
      * @return a view of this cache as a {@link Map} from keys to {@link Optional} values
      */
     public Map<K, Optional<V>> asMap();
+
+    /**
+     * Changes the maximum size and the time-to-live of the cache, retaining the
+     * cached entries.
+     *
+     * <p>This allows to tune the cache at runtime, e.g. when the configuration is
+     * reloaded, without the cold start of a new cache. Entries are evicted if the
+     * cache exceeds the new size.</p>
+     *
+     * <p>The expiration policy cannot be changed: if the new ttl enables the
+     * expiration of a cache created without it, or vice versa, the cache is not
+     * changed and must be recreated.</p>
+     *
+     * @param size the new maximum number of entries
+     * @param ttl the new time-to-live in milliseconds
+     * @return true if the cache has been reconfigured, false if the cache must be recreated
+     */
+    public default boolean reconfigure(long size, long ttl) {
+        return false;
+    }
 }
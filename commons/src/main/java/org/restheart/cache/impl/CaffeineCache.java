@@ -237,4 +237,22 @@ public class CaffeineCache<K, V> implements org.restheart.cache.Cache<K, V> {
     public void cleanUp() {
         wrapped.cleanUp();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reconfigure(long size, long ttl) {
+        var policy = wrapped.policy();
+        var expiration = policy.expireAfterWrite().or(policy::expireAfterAccess);
+
+        if (expiration.isPresent() != ttl > 0) {
+            return false;
+        }
+
+        policy.eviction().ifPresent(eviction -> eviction.setMaximum(size));
+        expiration.ifPresent(e -> e.setExpiresAfter(ttl, TimeUnit.MILLISECONDS));
+
+        return true;
+    }
 }
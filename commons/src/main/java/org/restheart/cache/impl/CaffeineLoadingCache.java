@@ -297,4 +297,22 @@ public class CaffeineLoadingCache<K, V> implements org.restheart.cache.LoadingCa
     public void cleanUp() {
         wrapped.cleanUp();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reconfigure(long size, long ttl) {
+        var policy = wrapped.policy();
+        var expiration = policy.expireAfterWrite().or(policy::expireAfterAccess);
+
+        if (expiration.isPresent() != ttl > 0) {
+            return false;
+        }
+
+        policy.eviction().ifPresent(eviction -> eviction.setMaximum(size));
+        expiration.ifPresent(e -> e.setExpiresAfter(ttl, TimeUnit.MILLISECONDS));
+
+        return true;
+    }
 }
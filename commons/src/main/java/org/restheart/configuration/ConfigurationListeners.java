@@ -0,0 +1,96 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.configuration;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of the listeners notified when the configuration is reloaded.
+ *
+ * <p>When {@code core.reload-configuration} is true, RESTHeart watches the
+ * configuration file (and the override file, if any) and, when it changes,
+ * reloads the configuration and notifies the listeners. This allows the
+ * subsystems to apply the new settings, e.g. resizing the caches, without a
+ * restart and its cold caches.</p>
+ *
+ * <p>Listeners should only apply the settings that can safely change at runtime;
+ * the other ones, e.g. listeners, mounts and connection settings, still require
+ * a restart.</p>
+ *
+ * <p>Example usage from a plugin:</p>
+ * <pre>{@code
+ * @OnInit
+ * public void init() {
+ *     configure(this.config);
+ *     ConfigurationListeners.onReload(conf -> configure(conf.getOrDefault("myPlugin", null)));
+ * }
+ * }</pre>
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ConfigurationListeners {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationListeners.class);
+
+    private static final List<Consumer<Configuration>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    private ConfigurationListeners() {
+    }
+
+    /**
+     * Registers a listener notified with the new configuration when it is reloaded.
+     *
+     * @param listener the listener
+     */
+    public static void onReload(Consumer<Configuration> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public static void remove(Consumer<Configuration> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners that the configuration has been reloaded.
+     *
+     * <p>A failing listener is logged and does not prevent the other listeners
+     * from being notified.</p>
+     *
+     * @param conf the reloaded configuration
+     */
+    public static void reloaded(Configuration conf) {
+        for (var listener : LISTENERS) {
+            try {
+                listener.accept(conf);
+            } catch (Throwable t) {
+                LOGGER.error("Error applying the reloaded configuration", t);
+            }
+        }
+    }
+}
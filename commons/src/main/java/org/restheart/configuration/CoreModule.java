@@ -61,6 +61,7 @@ import static org.restheart.configuration.Utils.getOrDefault;
  * @param directBuffers if true, uses direct (off-heap) buffers
  * @param forceGzipEncoding if true, forces GZIP encoding for all responses
  * @param allowUnescapedCharsInUrl if true, allows unescaped characters in URLs
+ * @param reloadConfiguration if true, reloads the configuration when the configuration file changes
  * 
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  * @since 1.0
@@ -77,7 +78,8 @@ public record CoreModule(String name,
                          int bufferSize,
                          boolean directBuffers,
                          boolean forceGzipEncoding,
-                         boolean allowUnescapedCharsInUrl) {
+                         boolean allowUnescapedCharsInUrl,
+                         boolean reloadConfiguration) {
 
     /**
      * Configuration key for the core section in the configuration file.
@@ -149,6 +151,11 @@ public record CoreModule(String name,
      */
     public static final String ALLOW_UNESCAPED_CHARS_IN_ULR_KEY = "allow-unescaped-characters-in-url";
 
+    /**
+     * Configuration key for reloading the configuration when the configuration file changes.
+     */
+    public static final String RELOAD_CONFIGURATION_KEY = "reload-configuration";
+
     /**
      * Default CoreModule configuration used when no configuration is provided.
      * 
@@ -164,9 +171,46 @@ public record CoreModule(String name,
      *   <li>direct-buffers: true</li>
      *   <li>force-gzip-encoding: false</li>
      *   <li>allow-unescaped-characters-in-url: true</li>
+     *   <li>reload-configuration: false</li>
      * </ul>
      */
-    private static final CoreModule DEFAULT_CORE_MODULE = new CoreModule("default", "plugins", new ArrayList<>(), false, null, 0, 0, 256, true, 16364, true, false, true);
+    private static final CoreModule DEFAULT_CORE_MODULE = new CoreModule("default", "plugins", new ArrayList<>(), false, null, 0, 0, 256, true, 16364, true, false, true, false);
+
+    /**
+     * Creates a CoreModule that does not reload the configuration when the
+     * configuration file changes.
+     *
+     * @param name the instance name for this RESTHeart server
+     * @param pluginsDirectory path to the directory containing plugin JARs
+     * @param pluginsPackages list of Java packages to scan for plugins
+     * @param pluginsScanningVerbose if true, enables verbose logging during plugin scanning
+     * @param baseUrl the base URL for this instance (optional, for URL construction)
+     * @param ioThreads number of I/O threads (0 for automatic based on CPU cores)
+     * @param workersSchedulerParallelism parallelism level for the workers thread pool
+     * @param workersSchedulerMaxPoolSize maximum size of the workers thread pool
+     * @param buffersPooling if true, enables buffer pooling for better performance
+     * @param bufferSize size of I/O buffers in bytes
+     * @param directBuffers if true, uses direct (off-heap) buffers
+     * @param forceGzipEncoding if true, forces GZIP encoding for all responses
+     * @param allowUnescapedCharsInUrl if true, allows unescaped characters in URLs
+     */
+    public CoreModule(String name,
+                      String pluginsDirectory,
+                      List<String> pluginsPackages,
+                      boolean pluginsScanningVerbose,
+                      String baseUrl,
+                      int ioThreads,
+                      int workersSchedulerParallelism,
+                      int workersSchedulerMaxPoolSize,
+                      boolean buffersPooling,
+                      int bufferSize,
+                      boolean directBuffers,
+                      boolean forceGzipEncoding,
+                      boolean allowUnescapedCharsInUrl) {
+        this(name, pluginsDirectory, pluginsPackages, pluginsScanningVerbose, baseUrl, ioThreads,
+                workersSchedulerParallelism, workersSchedulerMaxPoolSize, buffersPooling, bufferSize,
+                directBuffers, forceGzipEncoding, allowUnescapedCharsInUrl, false);
+    }
 
     /**
      * Creates a CoreModule from a configuration map.
@@ -193,7 +237,9 @@ public record CoreModule(String name,
                 // following is optional, so get it always in silent mode
                 getOrDefault(conf, FORCE_GZIP_ENCODING_KEY, DEFAULT_CORE_MODULE.forceGzipEncoding(), true),
                 // following is optional, so get it always in silent mode
-                getOrDefault(conf, ALLOW_UNESCAPED_CHARS_IN_ULR_KEY, DEFAULT_CORE_MODULE.allowUnescapedCharsInUrl(), true));
+                getOrDefault(conf, ALLOW_UNESCAPED_CHARS_IN_ULR_KEY, DEFAULT_CORE_MODULE.allowUnescapedCharsInUrl(), true),
+                // following is optional, so get it always in silent mode
+                getOrDefault(conf, RELOAD_CONFIGURATION_KEY, DEFAULT_CORE_MODULE.reloadConfiguration(), true));
     }
 
     /**
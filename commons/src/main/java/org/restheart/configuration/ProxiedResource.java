@@ -25,7 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static org.restheart.configuration.Utils.asBoolean;
 import static org.restheart.configuration.Utils.asListOfMaps;
+import static org.restheart.configuration.Utils.asLong;
+import static org.restheart.configuration.Utils.asMap;
 
 /**
  * Configuration for proxied resources (reverse proxy).
@@ -50,7 +53,8 @@ import static org.restheart.configuration.Utils.asListOfMaps;
  * 
  * <h2>Load Balancing</h2>
  * <p>When multiple proxy-pass URLs are configured, RESTHeart will load balance
- * requests across them using a round-robin algorithm.</p>
+ * requests across them using a round-robin algorithm, unless another
+ * load-balancing-policy is configured.</p>
  * 
  * <h2>Connection Pooling</h2>
  * <p>The proxy maintains a connection pool to backend services for efficiency.
@@ -60,6 +64,33 @@ import static org.restheart.configuration.Utils.asListOfMaps;
  *   <li>soft-max-connections-per-thread: Soft limit before creating new connections</li>
  *   <li>connections-ttl: Time-to-live for idle connections (seconds)</li>
  * </ul>
+ *
+ * <h2>Health Checking and Balancing Policy</h2>
+ * <p>Backends can be actively probed and passively ejected on consecutive failures;
+ * the balancing policy can take into account outstanding requests and latency:</p>
+ * <pre>{@code
+ *     load-balancing-policy: ewma # round-robin (default), least-outstanding, ewma
+ *     health-check:
+ *       path: /health
+ *       interval: 5_000 # milliseconds
+ *       timeout: 2_000  # milliseconds
+ *       unhealthy-threshold: 3
+ *       healthy-threshold: 2
+ *     outlier-detection:
+ *       consecutive-failures: 5
+ *       ejection-time: 30_000 # milliseconds
+ * }</pre>
+ *
+ * <h2>Response Caching</h2>
+ * <p>GET and HEAD responses can be cached according to their {@code Cache-Control},
+ * {@code Expires}, {@code Vary} and {@code ETag} headers:</p>
+ * <pre>{@code
+ *     cache:
+ *       enabled: true
+ *       max-size: 67_108_864     # bytes
+ *       max-entry-size: 1_048_576 # bytes
+ *       coalescing-timeout: 5_000 # milliseconds
+ * }</pre>
  * 
  * @param name a descriptive name for this proxy configuration
  * @param location the URL path pattern to match for proxying
@@ -70,6 +101,10 @@ import static org.restheart.configuration.Utils.asListOfMaps;
  * @param softMaxConnectionsPerThread soft limit for connections per thread
  * @param connectionsTTL time-to-live for idle connections in seconds (-1 for no limit)
  * @param problemServerRetry seconds to wait before retrying a failed backend
+ * @param cache the response cache configuration
+ * @param loadBalancingPolicy the balancing policy: round-robin, least-outstanding or ewma
+ * @param healthCheck the active health check configuration
+ * @param outlierDetection the passive outlier detection configuration
  * 
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  * @since 1.0
@@ -82,7 +117,11 @@ public record ProxiedResource(String name,
                               int maxQueueSize,
                               int softMaxConnectionsPerThread,
                               int connectionsTTL,
-                              int problemServerRetry) {
+                              int problemServerRetry,
+                              ResponseCache cache,
+                              String loadBalancingPolicy,
+                              HealthCheck healthCheck,
+                              OutlierDetection outlierDetection) {
 
     /**
      * Configuration key for the proxies list in the main configuration.
@@ -134,6 +173,128 @@ public record ProxiedResource(String name,
      */
     public static final String PROXY_PROBLEM_SERVER_RETRY = "problem-server-retry";
 
+    /**
+     * Configuration key for the response cache section.
+     */
+    public static final String PROXY_CACHE = "cache";
+
+    /**
+     * Configuration key for the load balancing policy.
+     */
+    public static final String PROXY_LOAD_BALANCING_POLICY = "load-balancing-policy";
+
+    /**
+     * Configuration key for the health check section.
+     */
+    public static final String PROXY_HEALTH_CHECK = "health-check";
+
+    /**
+     * Configuration key for the outlier detection section.
+     */
+    public static final String PROXY_OUTLIER_DETECTION = "outlier-detection";
+
+    /**
+     * Configuration of the active health check of the backends of a proxied resource.
+     *
+     * @param enabled true to probe the backends
+     * @param path the path probed on each backend, resolved against its proxy-pass URL
+     * @param interval the time between probes in milliseconds
+     * @param timeout the probe timeout in milliseconds
+     * @param unhealthyThreshold consecutive failed probes to take a backend out of rotation
+     * @param healthyThreshold consecutive successful probes to put it back
+     */
+    public record HealthCheck(boolean enabled, String path, long interval, long timeout, int unhealthyThreshold, int healthyThreshold) {
+        /**
+         * Creates a HealthCheck from the health-check section of a proxy configuration.
+         * The health check is enabled when the section is present, unless {@code enabled: false}.
+         *
+         * @param conf the health-check section, can be null
+         */
+        public HealthCheck(Map<String, Object> conf) {
+            this(conf != null && asBoolean(conf, "enabled", true, true),
+                    getOrDefault(conf, "path", "/", true),
+                    asLong(conf, "interval", 5_000L, true),
+                    asLong(conf, "timeout", 2_000L, true),
+                    getOrDefault(conf, "unhealthy-threshold", 3, true),
+                    getOrDefault(conf, "healthy-threshold", 2, true));
+        }
+    }
+
+    /**
+     * Configuration of the passive outlier detection of the backends of a proxied resource.
+     *
+     * @param enabled true to eject failing backends
+     * @param consecutiveFailures consecutive failed requests (connection errors or 5xx) to eject a backend
+     * @param ejectionTime the time a backend stays out of rotation in milliseconds
+     */
+    public record OutlierDetection(boolean enabled, int consecutiveFailures, long ejectionTime) {
+        /**
+         * Creates an OutlierDetection from the outlier-detection section of a proxy configuration.
+         * The detection is enabled when the section is present, unless {@code enabled: false}.
+         *
+         * @param conf the outlier-detection section, can be null
+         */
+        public OutlierDetection(Map<String, Object> conf) {
+            this(conf != null && asBoolean(conf, "enabled", true, true),
+                    getOrDefault(conf, "consecutive-failures", 5, true),
+                    asLong(conf, "ejection-time", 30_000L, true));
+        }
+    }
+
+    /**
+     * Configuration of the response cache of a proxied resource.
+     *
+     * @param enabled true to cache the responses
+     * @param maxSize the max total size of the cached responses in bytes
+     * @param maxEntrySize the max size of a cached response in bytes, bigger responses are not cached
+     * @param coalescingTimeout max time in milliseconds a request waits for a concurrent identical request to fetch the response
+     */
+    public record ResponseCache(boolean enabled, long maxSize, long maxEntrySize, long coalescingTimeout) {
+        /**
+         * Creates a ResponseCache from the cache section of a proxy configuration.
+         * The cache is enabled when the section is present, unless {@code enabled: false}.
+         *
+         * @param conf the cache section, can be null
+         */
+        public ResponseCache(Map<String, Object> conf) {
+            this(conf != null && asBoolean(conf, "enabled", true, true),
+                    asLong(conf, "max-size", 64L * 1024 * 1024, true),
+                    asLong(conf, "max-entry-size", 1024L * 1024, true),
+                    asLong(conf, "coalescing-timeout", 5_000L, true));
+        }
+    }
+
+    /**
+     * Creates a ProxiedResource without response cache, with the round-robin
+     * balancing policy and without health check and outlier detection.
+     *
+     * @param name a descriptive name for this proxy configuration
+     * @param location the URL path pattern to match for proxying
+     * @param proxyPass list of backend URLs to forward requests to
+     * @param rewriteHostHeader if true, rewrites the Host header to match the backend
+     * @param connectionPerThread maximum connections per I/O thread
+     * @param maxQueueSize maximum number of queued requests (0 for unlimited)
+     * @param softMaxConnectionsPerThread soft limit for connections per thread
+     * @param connectionsTTL time-to-live for idle connections in seconds (-1 for no limit)
+     * @param problemServerRetry seconds to wait before retrying a failed backend
+     */
+    public ProxiedResource(String name,
+                           String location,
+                           List<String> proxyPass,
+                           boolean rewriteHostHeader,
+                           int connectionPerThread,
+                           int maxQueueSize,
+                           int softMaxConnectionsPerThread,
+                           int connectionsTTL,
+                           int problemServerRetry) {
+        this(name, location, proxyPass, rewriteHostHeader, connectionPerThread, maxQueueSize,
+                softMaxConnectionsPerThread, connectionsTTL, problemServerRetry,
+                new ResponseCache(null),
+                "round-robin",
+                new HealthCheck(null),
+                new OutlierDetection(null));
+    }
+
     /**
      * Creates a ProxiedResource from a configuration map.
      * 
@@ -154,7 +315,11 @@ public record ProxiedResource(String name,
                 getOrDefault(conf, PROXY_MAX_QUEUE_SIZE, 0, true),
                 getOrDefault(conf, PROXY_SOFT_MAX_CONNECTIONS_PER_THREAD, 5, true),
                 getOrDefault(conf, PROXY_TTL, -1, true),
-                getOrDefault(conf, PROXY_PROBLEM_SERVER_RETRY, 10, true));
+                getOrDefault(conf, PROXY_PROBLEM_SERVER_RETRY, 10, true),
+                new ResponseCache(asMap(conf, PROXY_CACHE, null, true)),
+                getOrDefault(conf, PROXY_LOAD_BALANCING_POLICY, "round-robin", true),
+                new HealthCheck(asMap(conf, PROXY_HEALTH_CHECK, null, true)),
+                new OutlierDetection(asMap(conf, PROXY_OUTLIER_DETECTION, null, true)));
     }
 
     /**
@@ -21,6 +21,7 @@ package org.restheart.exchange;
 
 import io.undertow.server.HttpServerExchange;
 import org.bson.BsonValue;
+import org.restheart.utils.BsonJsonWriter;
 import static org.restheart.utils.BsonUtils.ArrayBuilder;
 import static org.restheart.utils.BsonUtils.DocumentBuilder;
 import static org.restheart.utils.BsonUtils.document;
@@ -110,6 +111,23 @@ public class BsonResponse extends ServiceResponse<BsonValue> {
         }
     }
 
+    /**
+     * Sends the BSON content as JSON to the client.
+     * <p>
+     * The content is written directly to UTF-8 encoded output buffers by
+     * {@link BsonJsonWriter}, producing the same JSON of {@link #readContent()}.
+     * If a subclass overrides {@link #readContent()}, its string is sent instead.
+     * </p>
+     */
+    @Override
+    public void sendContent() {
+        if (overridesReadContent(BsonResponse.class)) {
+            sendReadContent();
+        } else if (content != null) {
+            BsonJsonWriter.send(wrapped, content, null);
+        }
+    }
+
     /**
      * Sets the response content using a BSON ArrayBuilder.
      * <p>
@@ -59,6 +59,12 @@ public abstract class Exchange<T> {
     /** MIME type for standard JSON content. */
     public static final String JSON_MEDIA_TYPE = "application/json";
 
+    /** MIME type for newline-delimited JSON, one JSON document per line. */
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
+    /** MIME type for raw BSON, a sequence of BSON documents. */
+    public static final String BSON_MEDIA_TYPE = "application/bson";
+
     /** MIME type for XHTML content. */
     public static final String XHTML_MEDIA_TYPE = "application/xhtml+xml";
 
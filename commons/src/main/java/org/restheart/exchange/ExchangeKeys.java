@@ -48,6 +48,9 @@ public interface ExchangeKeys {
     /** Query parameter for specifying the number of items per page. */
     public static final String PAGESIZE_QPARAM_KEY = "pagesize";
 
+    /** Query parameter with the continuation token of the previous page, for keyset pagination. */
+    public static final String AFTER_QPARAM_KEY = "after";
+
     /** Query parameter for requesting document count information. */
     public static final String COUNT_QPARAM_KEY = "count";
 
@@ -108,6 +111,12 @@ public interface ExchangeKeys {
     /** Short form query parameter for write mode. */
     public static final String WRITE_MODE_SHORT_QPARAM_KEY = "wm";
 
+    /** Query parameter for writing documents without returning the old and new data (lean write mode). */
+    public static final String LEAN_WRITE_QPARAM_KEY = "lean";
+
+    /** Query parameter with the resume token of the last change event received, to resume a change stream. */
+    public static final String LAST_EVENT_ID_QPARAM_KEY = "lastEventId";
+
     /** Query parameter for specifying MongoDB write concern level. */
     public static final String WRITE_CONCERN_QPARAM_KEY = "writeConcern";
 
@@ -125,6 +134,12 @@ public interface ExchangeKeys {
     /** Metadata key for ETag policy configuration at the collection level. */
     public static final String ETAG_POLICY_METADATA_KEY = "etagPolicy";
 
+    /** Metadata key for enabling the lean write mode on all the documents of a collection. */
+    public static final String LEAN_WRITES_METADATA_KEY = "leanWrites";
+
+    /** Metadata key for enabling the document cache of a collection, bounded by bytes. */
+    public static final String DOCS_CACHE_METADATA_KEY = "docsCache";
+
     // Special resource names used by MongoDB and RESTHeart
 
     /** Prefix for MongoDB system collections. */
@@ -0,0 +1,86 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.exchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.bson.BsonDocument;
+
+import io.undertow.util.AttachmentKey;
+
+/**
+ * Holds the filters to apply to each document of a streaming export.
+ *
+ * The documents of a streaming export are read from the cursor and sent by the
+ * response sender, after the response interceptors have been executed, so the
+ * response content is not available to them. Interceptors that filter the
+ * response content register here the filters to apply to each exported
+ * document, see {@link MongoRequest#isStreamingExport()}
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ExportedDocumentFilters {
+    private static final AttachmentKey<List<UnaryOperator<BsonDocument>>> FILTERS_KEY = AttachmentKey.create(List.class);
+
+    private ExportedDocumentFilters() {
+    }
+
+    /**
+     * adds a filter to apply to each document of the streaming export
+     *
+     * @param request
+     * @param filter the filter, that can modify the document or return a new one
+     */
+    public static void add(MongoRequest request, UnaryOperator<BsonDocument> filter) {
+        var exchange = request.getExchange();
+        var filters = exchange.getAttachment(FILTERS_KEY);
+
+        if (filters == null) {
+            filters = new ArrayList<>();
+            exchange.putAttachment(FILTERS_KEY, filters);
+        }
+
+        filters.add(filter);
+    }
+
+    /**
+     * @param request
+     * @return the composition of the registered filters, in order of registration
+     */
+    public static UnaryOperator<BsonDocument> of(MongoRequest request) {
+        var filters = request.getExchange().getAttachment(FILTERS_KEY);
+
+        if (filters == null || filters.isEmpty()) {
+            return UnaryOperator.identity();
+        }
+
+        var _filters = List.copyOf(filters);
+
+        return doc -> {
+            for (var filter : _filters) {
+                doc = filter.apply(doc);
+            }
+
+            return doc;
+        };
+    }
+}
@@ -133,9 +133,18 @@ public class MongoRequest extends BsonRequest {
     /** Whether the count should be computed via estimatedDocumentCount (metadata-based, fast) instead of the exact countDocuments. Falls back to exact when a filter is present. */
     private boolean estimatedCount = false;
 
+    /** Whether the count is computed in background and returned by a following request once available. */
+    private boolean asyncCount = false;
+
     /** Whether ETag validation is required for this request. */
     private boolean etagCheckRequired = false;
 
+    /** Whether the document before a write must be returned in the OperationResult. */
+    private boolean oldDataRequired = false;
+
+    /** Whether the document is written without returning the old and new data. */
+    private boolean leanWrite = false;
+
     /** The write mode for document operations (insert, update, upsert). */
     private WRITE_MODE writeMode = null;
 
@@ -154,6 +163,9 @@ public class MongoRequest extends BsonRequest {
     /** Sort criteria for MongoDB queries. */
     private Deque<String> sortBy = null;
 
+    /** Continuation token of the previous page, for keyset pagination. */
+    private String after = null;
+
     /** Query optimization hints for MongoDB operations. */
     private Deque<String> hint = null;
 
@@ -203,7 +215,10 @@ public class MongoRequest extends BsonRequest {
     final boolean noCache;
 
     /** Optional MongoDB resource operations helper. */
-    private final Optional<RSOps> rsOps;
+    private Optional<RSOps> rsOps;
+
+    /** Delay after which a hedged read is issued, 0 disables hedged reads. */
+    private long hedgeDelay = 0;
 
     /** Resolved MongoDB context (database, collection, permissions). Lazily initialized. */
     private ResolvedContext resolvedContext;
@@ -281,6 +296,8 @@ public class MongoRequest extends BsonRequest {
 
         this.noCache = exchange.getQueryParameters().get(NO_CACHE_QPARAM_KEY) != null;
 
+        this.leanWrite = exchange.getQueryParameters().get(LEAN_WRITE_QPARAM_KEY) != null;
+
         // writeMode
         var _writeMode = exchange.getQueryParameters().containsKey(WRITE_MODE_QPARAM_KEY)
                 ? exchange.getQueryParameters().get(WRITE_MODE_QPARAM_KEY).getFirst().toUpperCase()
@@ -809,6 +826,21 @@ public class MongoRequest extends BsonRequest {
         this.page = page;
     }
 
+    /**
+     * @return the continuation token passed via the after query parameter,
+     * or null for page based pagination
+     */
+    public String getAfter() {
+        return after;
+    }
+
+    /**
+     * @param after the continuation token to set
+     */
+    public void setAfter(String after) {
+        this.after = after;
+    }
+
     /**
      * @return the pagesize
      */
@@ -875,6 +907,20 @@ public class MongoRequest extends BsonRequest {
         this.estimatedCount = estimatedCount;
     }
 
+    /**
+     * @return true if the caller asked to compute the count in background (count=async query param)
+     */
+    public boolean isAsyncCount() {
+        return asyncCount;
+    }
+
+    /**
+     * @param asyncCount whether to compute the count in background
+     */
+    public void setAsyncCount(boolean asyncCount) {
+        this.asyncCount = asyncCount;
+    }
+
     /**
      * @return the filter
      */
@@ -1605,6 +1651,57 @@ public class MongoRequest extends BsonRequest {
                 && (isCollection() || isFilesBucket() || isSchemaStore()));
     }
 
+    /**
+     * helper method to check if a request is a POST on a collection with
+     * newline-delimited JSON content, whose documents are read from the
+     * request channel and written in batches while streaming
+     *
+     * @return true if the request is a streaming ingest
+     */
+    public boolean isStreamingIngest() {
+        var contentType = getContentType();
+
+        return isPost()
+                && isCollection()
+                && contentType != null
+                && contentType.startsWith(Exchange.NDJSON_MEDIA_TYPE);
+    }
+
+    /**
+     * helper method to check if a request is a GET on a collection or an
+     * aggregation whose preferred media type, i.e. the first one of the
+     * Accept header, is newline-delimited JSON or raw BSON. In this case the
+     * whole result is streamed to the client via a single cursor, ignoring
+     * the page and pagesize query parameters
+     *
+     * @return the media type of the export, application/x-ndjson or
+     * application/bson, or null if the request is not a streaming export
+     */
+    public String getExportMediaType() {
+        if (!isGet() || !(isCollection() || isAggregation())) {
+            return null;
+        }
+
+        var accept = getHeader(Headers.ACCEPT_STRING);
+
+        if (accept == null) {
+            return null;
+        }
+
+        var preferred = accept.split(",")[0].split(";")[0].strip();
+
+        return Exchange.NDJSON_MEDIA_TYPE.equals(preferred) || Exchange.BSON_MEDIA_TYPE.equals(preferred)
+                ? preferred
+                : null;
+    }
+
+    /**
+     * @return true if the request is a streaming export, see {@link #getExportMediaType()}
+     */
+    public boolean isStreamingExport() {
+        return getExportMediaType() != null;
+    }
+
     /**
      * @return the isETagCheckRequired
      */
@@ -1619,6 +1716,54 @@ public class MongoRequest extends BsonRequest {
         this.etagCheckRequired = etagCheckRequired;
     }
 
+    /**
+     * Returns true if the document before the write must be fetched and made
+     * available via {@code MongoResponse.getDbOperationResult().getOldData()}.
+     * <p>
+     * Fetching it can cost an additional round trip for PATCH requests, so
+     * MongoService sets it only when a response interceptor declares it via
+     * {@link org.restheart.plugins.MongoInterceptor#requiresOldData(MongoRequest)}.
+     * </p>
+     *
+     * @return true if the old data is required
+     */
+    public boolean isOldDataRequired() {
+        return oldDataRequired;
+    }
+
+    /**
+     * @param oldDataRequired true if the document before the write must be returned
+     */
+    public void setOldDataRequired(boolean oldDataRequired) {
+        this.oldDataRequired = oldDataRequired;
+    }
+
+    /**
+     * Returns true if the document is written in lean mode, i.e. with
+     * insertOne, updateOne or replaceOne, without returning the old and new
+     * data: {@code getDbOperationResult()} only contains the status code, the
+     * etag and the id of the document.
+     * <p>
+     * The lean mode is requested with the {@code ?lean} query parameter, with
+     * the {@code leanWrites} collection metadata or by a request interceptor
+     * calling {@link #setLeanWrite(boolean)}; MongoService disables it when a
+     * response interceptor requires the old or new data, see
+     * {@link org.restheart.plugins.MongoInterceptor#requiresNewData(MongoRequest)}.
+     * </p>
+     *
+     * @return true if the document is written in lean mode
+     */
+    public boolean isLeanWrite() {
+        return leanWrite;
+    }
+
+    /**
+     * @param leanWrite true to write the document without returning the old and new data
+     */
+    public void setLeanWrite(boolean leanWrite) {
+        this.leanWrite = leanWrite;
+    }
+
     /**
      * @return the write mode
      */
@@ -1656,6 +1801,33 @@ public class MongoRequest extends BsonRequest {
         return rsOps;
     }
 
+    /**
+     * Sets the ReplicaSet connection options, for instance to route the
+     * request to the secondaries
+     *
+     * @param rsOps the ReplicaSet connection options
+     */
+    public void setRsOps(Optional<RSOps> rsOps) {
+        this.rsOps = rsOps;
+    }
+
+    /**
+     * A read not completed within the hedge delay is raced by a second read
+     * on the nearest member; the first one to complete wins.
+     *
+     * @return the hedge delay in milliseconds, 0 if hedged reads are disabled
+     */
+    public long getHedgeDelay() {
+        return hedgeDelay;
+    }
+
+    /**
+     * @param hedgeDelay the hedge delay in milliseconds, 0 to disable hedged reads
+     */
+    public void setHedgeDelay(long hedgeDelay) {
+        this.hedgeDelay = hedgeDelay;
+    }
+
     /**
      * Gets the resolved MongoDB context for this request.
      * Lazily initializes the context on first access if resolver is available.
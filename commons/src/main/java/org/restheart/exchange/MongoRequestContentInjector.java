@@ -25,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.Deque;
 import java.util.stream.StreamSupport;
 
+import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonNull;
 import org.bson.BsonString;
@@ -62,6 +63,8 @@ import io.undertow.util.Headers;
  *   <li><strong>application/json</strong> and <strong>application/hal+json</strong> - for JSON document operations</li>
  *   <li><strong>application/x-www-form-urlencoded</strong> - for form-based document creation</li>
  *   <li><strong>multipart/form-data</strong> - for file uploads with metadata</li>
+ *   <li><strong>application/x-ndjson</strong> - for streaming ingest on collections, see
+ *   {@link MongoRequest#isStreamingIngest()}</li>
  * </ul>
  * </p>
  * <p>
@@ -215,6 +218,12 @@ public class MongoRequestContentInjector {
             return null;
         }
 
+        // the content of a streaming ingest is not buffered: the handler reads
+        // it line by line and checks each document before writing it
+        if (request.isStreamingIngest()) {
+            return new BsonArray();
+        }
+
         BsonValue content;
 
         final var contentType = request.getHeaders().get(Headers.CONTENT_TYPE);
@@ -30,6 +30,7 @@ import org.bson.conversions.Bson;
 import org.bson.json.JsonParseException;
 import org.restheart.utils.HttpStatus;
 import org.restheart.mongodb.db.OperationResult;
+import org.restheart.utils.BsonJsonWriter;
 import org.restheart.utils.BsonUtils;
 import java.io.PrintWriter;
 import java.io.StringWriter;
@@ -151,13 +152,7 @@ public class MongoResponse extends BsonResponse {
     @Override
     public String readContent() {
         var request = Request.of(wrapped);
-        BsonValue tosend;
-
-        if (!request.isGet() && (content == null || content.isDocument())) {
-            tosend = addWarnings(content == null ? null : content.asDocument());
-        } else {
-            tosend = content;
-        }
+        var tosend = contentToSend(request);
 
         if (tosend != null) {
             if (request instanceof MongoRequest) {
@@ -170,6 +165,41 @@ public class MongoResponse extends BsonResponse {
         }
     }
 
+    /**
+     * Sends the content as JSON to the client.
+     * <p>
+     * The content, with the same warnings and JSON mode of {@link #readContent()},
+     * is written directly to UTF-8 encoded output buffers by {@link BsonJsonWriter}.
+     * If a subclass overrides {@link #readContent()}, its string is sent instead.
+     * </p>
+     */
+    @Override
+    public void sendContent() {
+        if (overridesReadContent(MongoResponse.class)) {
+            sendReadContent();
+            return;
+        }
+
+        var request = Request.of(wrapped);
+        var tosend = contentToSend(request);
+
+        if (tosend != null) {
+            BsonJsonWriter.send(wrapped, tosend, request instanceof MongoRequest mreq ? mreq.getJsonMode() : null);
+        }
+    }
+
+    /**
+     * @param request the request
+     * @return the content to send, including the warnings for non-GET requests
+     */
+    private BsonValue contentToSend(Request<?> request) {
+        if (!request.isGet() && (content == null || content.isDocument())) {
+            return addWarnings(content == null ? null : content.asDocument());
+        } else {
+            return content;
+        }
+    }
+
     /**
      * Adds warning messages to the response content.
      * <p>
@@ -466,10 +496,18 @@ public class MongoResponse extends BsonResponse {
      * <strong>Note:</strong> rollback() does not support bulk updates due to the
      * complexity of tracking multiple document states.
      * </p>
+     * <p>
+     * <strong>Note:</strong> updated documents can only be restored if the document
+     * before the write was fetched, i.e. the interceptor calling rollback() must
+     * return true from {@code MongoInterceptor.requiresOldData()}. Otherwise, unless
+     * the document was created, rollback() throws IllegalStateException and leaves
+     * the document untouched.
+     * </p>
      *
      * @param mclient the MongoClient instance to use for the rollback operation
      * @throws Exception if any error occurs during the rollback operation
      * @throws UnsupportedOperationException if called on bulk update operations
+     * @throws IllegalStateException if the document was updated but the old data was not fetched
      */
     public void rollback(MongoClient mclient) throws Exception {
         var request = MongoRequest.of(getExchange());
@@ -479,6 +517,10 @@ public class MongoResponse extends BsonResponse {
             throw new UnsupportedOperationException("rollback() does not support bulk updates");
         }
 
+        if (!getDbOperationResult().isOldDataFetched() && getDbOperationResult().getHttpCode() != HttpStatus.SC_CREATED) {
+            throw new IllegalStateException("rollback() requires the old data, the interceptor must declare it with requiresOldData()");
+        }
+
         var mdb = mclient.getDatabase(request.getDBName());
 
         var coll = mdb.getCollection(request.getCollectionName(), BsonDocument.class);
@@ -517,7 +559,7 @@ public class MongoResponse extends BsonResponse {
 
         } else {
             // document was created, delete it
-            var newId = getDbOperationResult().getNewData().get("_id");
+            var newId = getDbOperationResult().getNewId();
 
             coll.deleteOne(and(eq("_id", newId), eq("_etag", newEtag)));
 
@@ -222,6 +222,55 @@ public abstract class ServiceResponse<T> extends Response<T> {
      */
     public abstract String readContent();
 
+    /**
+     * Sends the content to the client.
+     * <p>
+     * This method is used by ResponseSender when no custom sender is set. The
+     * default implementation sends the string returned by {@link #readContent()};
+     * subclasses can override it to write the content directly to the output
+     * buffers, avoiding the intermediate string. Such an override must fall back
+     * to {@link #sendReadContent()} when {@link #overridesReadContent(Class)}
+     * returns true, so that the content of the subclasses that override
+     * {@link #readContent()} is honored.
+     * </p>
+     */
+    public void sendContent() {
+        sendReadContent();
+    }
+
+    /**
+     * Sends the string returned by {@link #readContent()} to the client.
+     */
+    protected final void sendReadContent() {
+        var _content = readContent();
+        if (_content != null) {
+            wrapped.getResponseSender().send(_content);
+        }
+    }
+
+    private static final ClassValue<Class<?>> READ_CONTENT_DECLARING_CLASS = new ClassValue<>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            try {
+                return type.getMethod("readContent").getDeclaringClass();
+            } catch (NoSuchMethodException nsme) {
+                return ServiceResponse.class;
+            }
+        }
+    };
+
+    /**
+     * Checks whether the runtime class of this response overrides
+     * {@link #readContent()} as declared by the given class.
+     *
+     * @param type the class that declares the {@link #readContent()} matching
+     *             an optimized {@link #sendContent()}
+     * @return true if {@link #readContent()} is overridden by a subclass of type
+     */
+    protected boolean overridesReadContent(Class<?> type) {
+        return READ_CONTENT_DECLARING_CLASS.get(getClass()) != type;
+    }
+
     /**
      * Sets a custom sender for specialized response delivery.
      * <p>
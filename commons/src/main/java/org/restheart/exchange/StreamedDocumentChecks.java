@@ -0,0 +1,93 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.exchange;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.BsonDocument;
+
+import io.undertow.util.AttachmentKey;
+
+/**
+ * Holds the checks to apply to each document of a streaming ingest.
+ *
+ * The content of a streaming ingest is read by the handler, after the request
+ * interceptors have been executed. Interceptors that check or modify the
+ * request content register here the checks to apply to each streamed
+ * document and declare it via
+ * {@link org.restheart.plugins.MongoInterceptor#supportsStreamingIngest(MongoRequest)},
+ * see {@link MongoRequest#isStreamingIngest()}
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class StreamedDocumentChecks {
+    private static final AttachmentKey<List<Check>> CHECKS_KEY = AttachmentKey.create(List.class);
+
+    /**
+     * A check of a streamed document, that can also modify it
+     */
+    @FunctionalInterface
+    public interface Check {
+        /**
+         * @param document the streamed document
+         * @throws BadRequestException if the document must be rejected
+         */
+        void check(BsonDocument document) throws BadRequestException;
+    }
+
+    private StreamedDocumentChecks() {
+    }
+
+    /**
+     * adds a check to apply to each document of the streaming ingest
+     *
+     * @param request
+     * @param check
+     */
+    public static void add(MongoRequest request, Check check) {
+        var exchange = request.getExchange();
+        var checks = exchange.getAttachment(CHECKS_KEY);
+
+        if (checks == null) {
+            checks = new ArrayList<>();
+            exchange.putAttachment(CHECKS_KEY, checks);
+        }
+
+        checks.add(check);
+    }
+
+    /**
+     * applies the registered checks to a streamed document
+     *
+     * @param request
+     * @param document
+     * @throws BadRequestException if a check rejects the document
+     */
+    public static void check(MongoRequest request, BsonDocument document) throws BadRequestException {
+        var checks = request.getExchange().getAttachment(CHECKS_KEY);
+
+        if (checks != null) {
+            for (var check : checks) {
+                check.check(document);
+            }
+        }
+    }
+}
@@ -63,6 +63,7 @@ public class OperationResult {
     private final BsonDocument oldData;
     private final BsonValue newId;
     private final Throwable cause;
+    private final boolean oldDataFetched;
 
     /**
      * Constructs a new OperationResult with only an HTTP status code.
@@ -82,6 +83,7 @@ public class OperationResult {
         this.oldData = null;
         this.newId = null;
         this.cause = null;
+        this.oldDataFetched = true;
     }
 
     /**
@@ -104,6 +106,7 @@ public class OperationResult {
         this.oldData = oldData;
         this.newId = newData == null ? null : newData.get("_id");
         this.cause = null;
+        this.oldDataFetched = true;
     }
 
     /**
@@ -124,6 +127,7 @@ public class OperationResult {
         this.oldData = null;
         this.newId = null;
         this.cause = null;
+        this.oldDataFetched = true;
     }
 
     /**
@@ -144,6 +148,26 @@ public class OperationResult {
         this.newData = null;
         this.oldData = null;
         this.cause = null;
+        this.oldDataFetched = true;
+    }
+
+    /**
+     * Constructs a new OperationResult with HTTP status code, ETag, and new document ID
+     * of a write that might not have fetched the old document.
+     *
+     * @param httpCode the HTTP status code representing the outcome of the operation
+     * @param etag the entity tag for cache validation and optimistic concurrency control
+     * @param newId the ID of the newly created or modified document, can be null
+     * @param oldDataFetched false if the document before the operation was not fetched
+     */
+    public OperationResult(int httpCode, Object etag, BsonValue newId, boolean oldDataFetched) {
+        this.httpCode = httpCode;
+        this.etag = etag;
+        this.newId = newId;
+        this.newData = null;
+        this.oldData = null;
+        this.cause = null;
+        this.oldDataFetched = oldDataFetched;
     }
 
     /**
@@ -166,6 +190,7 @@ public class OperationResult {
         this.oldData = oldData;
         this.newId = newData == null ? null : newData.get("_id");
         this.cause = null;
+        this.oldDataFetched = true;
     }
 
     /**
@@ -188,6 +213,7 @@ public class OperationResult {
         this.oldData = oldData;
         this.newId = newData == null ? null : newData.get("_id");
         this.cause = cause;
+        this.oldDataFetched = true;
     }
 
     /**
@@ -208,6 +234,33 @@ public class OperationResult {
         this.oldData = oldData;
         this.newId = null;
         this.cause = cause;
+        this.oldDataFetched = true;
+    }
+
+    /**
+     * Constructs a new OperationResult of a write that might not have fetched the old document.
+     * <p>
+     * Writes return the document before the write only when it is required,
+     * see {@code MongoInterceptor.requiresOldData()}. When it is not fetched,
+     * a null oldData does not mean that the document was created.
+     * </p>
+     *
+     * @param httpCode the HTTP status code representing the outcome of the operation
+     * @param etag the entity tag for cache validation and optimistic concurrency control
+     * @param oldData the document state before the operation, can be null
+     * @param newData the document state after the operation, can be null.
+     *                If present and contains an "_id" field, it will be used as the newId
+     * @param cause the exception or error that occurred during the operation, can be null
+     * @param oldDataFetched false if the document before the operation was not fetched
+     */
+    public OperationResult(int httpCode, Object etag, BsonDocument oldData, BsonDocument newData, Throwable cause, boolean oldDataFetched) {
+        this.httpCode = httpCode;
+        this.etag = etag;
+        this.newData = newData;
+        this.oldData = oldData;
+        this.newId = newData == null ? null : newData.get("_id");
+        this.cause = cause;
+        this.oldDataFetched = oldDataFetched;
     }
 
     /**
@@ -265,11 +318,26 @@ public class OperationResult {
      * 
      * @return the document before the operation, or null if not applicable
      *         (e.g., for insert operations or when the document didn't exist)
+     *         or not fetched, see {@link #isOldDataFetched()}
      */
     public BsonDocument getOldData() {
         return oldData;
     }
 
+    /**
+     * Returns whether the document before the operation was fetched.
+     * <p>
+     * Document writes fetch the old document only when a response interceptor
+     * requires it via {@code MongoInterceptor.requiresOldData()}. If this
+     * returns false, {@link #getOldData()} is null even if the document existed.
+     * </p>
+     *
+     * @return true if the document before the operation was fetched
+     */
+    public boolean isOldDataFetched() {
+        return oldDataFetched;
+    }
+
     /**
      * Returns the ID of the newly created or modified document.
      * <p>
@@ -40,5 +40,60 @@ import org.restheart.exchange.MongoResponse;
  * @see MongoResponse
  */
 public interface MongoInterceptor extends Interceptor<MongoRequest, MongoResponse> {
+    /**
+     * Declares that the interceptor reads the document as it was before a write,
+     * via {@code response.getDbOperationResult().getOldData()}, or uses
+     * {@code response.rollback()}.
+     * <p>
+     * It is evaluated before the write, when the response is not yet available,
+     * so it can only depend on the request. The old document is not returned
+     * unless a response interceptor requires it: in that case
+     * {@code getOldData()} is null and {@code isOldDataFetched()} is false
+     * even if the document existed, and {@code rollback()} of an updated
+     * document throws IllegalStateException.
+     * </p>
+     *
+     * @param request the request
+     * @return true if the interceptor requires the document before the write
+     */
+    default boolean requiresOldData(MongoRequest request) {
+        return false;
+    }
 
+    /**
+     * Declares that the interceptor reads the document as it is after a write,
+     * via {@code response.getDbOperationResult().getNewData()}.
+     * <p>
+     * Like {@link #requiresOldData(MongoRequest)}, it is evaluated before the
+     * write. Documents are always returned unless the request asks for the lean
+     * write mode (see {@link MongoRequest#isLeanWrite()}); the lean mode is not
+     * applied when a response interceptor requires the old or the new data.
+     * </p>
+     *
+     * @param request the request
+     * @return true if the interceptor requires the document after the write
+     */
+    default boolean requiresNewData(MongoRequest request) {
+        return false;
+    }
+
+    /**
+     * Declares that the interceptor supports streaming ingest, see
+     * {@link MongoRequest#isStreamingIngest()}.
+     * <p>
+     * The documents of a streaming ingest are read after the request
+     * interceptors have been executed, so {@code request.getContent()} is an
+     * empty array. An interceptor supports it when it does not use the
+     * request content or when it registers the checks to apply to each
+     * streamed document via {@link org.restheart.exchange.StreamedDocumentChecks}.
+     * A streaming ingest is rejected with 415 Unsupported Media Type if a
+     * request interceptor that resolves for it does not declare the support.
+     * </p>
+     *
+     * @param request the request
+     * @return true if the interceptor supports streaming ingest
+     */
+    default boolean supportsStreamingIngest(MongoRequest request) {
+        return false;
+    }
 }
@@ -42,6 +42,8 @@ import com.jayway.jsonpath.JsonPath;
 
 import io.undertow.attribute.ExchangeAttributes;
 import io.undertow.predicate.Predicate;
+import io.undertow.security.idm.Account;
+import io.undertow.util.AttachmentKey;
 import io.undertow.predicate.PredicateParser;
 
 /**
@@ -514,18 +516,44 @@ public class AclVarsInterpolator {
      * @return the interpolated predicate
      */
     public static Predicate interpolatePredicate(Request<?> request, String predicate, ClassLoader classLoader) throws ConfigurationException {
-        var a = getAccountDocument(request);
-
         try {
             // Normalize quotes in the predicate by replacing them with placeholder
-            var interpolatedPredicate = normalizeQuotes(predicate);
+            return PredicateParser.parse(bindPredicate(request, normalizeQuotes(predicate)), classLoader);
+        } catch (Throwable t) {
+            throw new ConfigurationException("Wrong permission: invalid predicate " + predicate, t);
+        }
+    }
+
+    /**
+     * @param predicate the predicate with normalized quotes
+     * @return true if the predicate contains @user or @request.body variables
+     */
+    static boolean hasVariables(String predicate) {
+        return predicate.contains("@user.") || predicate.contains("@request.body.");
+    }
+
+    /**
+     * substitutes the @user and @request.body variables of the predicate
+     * with the values from the request
+     *
+     * @param request the request
+     * @param predicate the predicate with normalized quotes
+     * @return the predicate with the variables substituted
+     */
+    static String bindPredicate(Request<?> request, String predicate) {
+        var interpolatedPredicate = predicate;
+
+        // Interpolate @user variables
+        if (interpolatedPredicate.contains("@user.")) {
+            var a = getAccountDocument(request);
 
-            // Interpolate @user variables
             if (a != null && !a.isEmpty()) {
                 interpolatedPredicate = interpolatePredicate(interpolatedPredicate, "@user.", a);
             }
+        }
 
-            // Interpolate @request.body variables
+        // Interpolate @request.body variables
+        if (interpolatedPredicate.contains("@request.body.")) {
             BsonDocument requestBody = null;
             try {
                 requestBody = getRequestBodyDocument(request);
@@ -536,19 +564,44 @@ public class AclVarsInterpolator {
             if (requestBody != null && !requestBody.isEmpty()) {
                 interpolatedPredicate = interpolatePredicate(interpolatedPredicate, "@request.body.", requestBody);
             }
-
-            return PredicateParser.parse(interpolatedPredicate, classLoader);
-        } catch (Throwable t) {
-            throw new ConfigurationException("Wrong permission: invalid predicate " + predicate, t);
         }
+
+        return interpolatedPredicate;
     }
 
+    /**
+     * The account properties as BSON, computed once per request since
+     * converting the properties of FileRealmAccount and JwtAccount is costly
+     */
+    private record AccountDocument(Account account, BsonDocument document) {
+    }
+
+    private static final AttachmentKey<AccountDocument> ACCOUNT_DOCUMENT_KEY = AttachmentKey.create(AccountDocument.class);
+
     private static BsonDocument getAccountDocument(Request<?> request) {
         if (request == null || request.getAuthenticatedAccount() == null) {
             return null;
         }
 
-        return switch (request.getAuthenticatedAccount()) {
+        var account = request.getAuthenticatedAccount();
+        var exchange = request.getExchange();
+        var memo = exchange == null ? null : exchange.getAttachment(ACCOUNT_DOCUMENT_KEY);
+
+        if (memo != null && memo.account() == account) {
+            return memo.document();
+        }
+
+        var document = accountDocument(account);
+
+        if (exchange != null) {
+            exchange.putAttachment(ACCOUNT_DOCUMENT_KEY, new AccountDocument(account, document));
+        }
+
+        return document;
+    }
+
+    private static BsonDocument accountDocument(Account account) {
+        return switch (account) {
             case MongoRealmAccount maccount -> maccount.properties();
             case FileRealmAccount faccount -> toBson(faccount.properties()).asDocument();
             case JwtAccount jwtAccount -> toBson(jwtAccount.propertiesAsMap()).asDocument();
@@ -868,7 +921,7 @@ public class AclVarsInterpolator {
      * @param predicate The predicate string to normalize
      * @return The predicate with all quotes replaced by placeholders
      */
-    private static String normalizeQuotes(String predicate) {
+    static String normalizeQuotes(String predicate) {
         if (predicate == null) {
             return predicate;
         }
@@ -87,6 +87,9 @@ public abstract class BaseAclPermission {
     private final int priority;
     private final Object raw;
 
+    // the MongoPermissions parsed from raw, see MongoPermissions.from(BaseAclPermission)
+    volatile MongoPermissions mongoPermissions = null;
+
     public BaseAclPermission(Predicate<Request<?>> predicate, Set<String> roles, int priority, Object raw) {
         this.predicate = predicate;
         this.roles = roles;
@@ -0,0 +1,82 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security;
+
+import java.util.function.Predicate;
+
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.cache.LoadingCache;
+import org.restheart.configuration.ConfigurationException;
+import org.restheart.exchange.Request;
+
+import io.undertow.predicate.PredicateParser;
+
+/**
+ * The predicate of an ACL permission, parsed once.
+ *
+ * <p>
+ * A predicate without {@code @user.} and {@code @request.body.} variables is
+ * parsed when the permission is built. Otherwise the variables are bound to
+ * the values of the request at evaluation time and the resulting predicates
+ * are parsed once and cached, so that the requests of the same user with the
+ * same bound values share the same parsed predicate.
+ * </p>
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CompiledAclPredicate implements Predicate<Request<?>> {
+    private static final int MAX_BOUND_PREDICATES = 1_000;
+
+    private final String predicate;
+    private final io.undertow.predicate.Predicate compiled;
+    private final LoadingCache<String, io.undertow.predicate.Predicate> bound;
+
+    /**
+     * @param predicate the predicate of the permission
+     * @param classLoader the classloader to resolve the predicates, see java.util.ServiceLoader
+     * @throws ConfigurationException if the predicate is invalid
+     */
+    public CompiledAclPredicate(String predicate, ClassLoader classLoader) throws ConfigurationException {
+        this.predicate = AclVarsInterpolator.normalizeQuotes(predicate);
+
+        try {
+            if (AclVarsInterpolator.hasVariables(this.predicate)) {
+                this.compiled = null;
+                this.bound = CacheFactory.createLocalLoadingCache(MAX_BOUND_PREDICATES, Cache.EXPIRE_POLICY.NEVER, 0,
+                    p -> PredicateParser.parse(p, classLoader));
+            } else {
+                this.compiled = PredicateParser.parse(this.predicate, classLoader);
+                this.bound = null;
+            }
+        } catch (Throwable t) {
+            throw new ConfigurationException("Wrong permission: invalid predicate " + predicate, t);
+        }
+    }
+
+    @Override
+    public boolean test(Request<?> request) {
+        var p = this.compiled != null
+            ? this.compiled
+            : this.bound.getLoading(AclVarsInterpolator.bindPredicate(request, this.predicate)).get();
+
+        return p.resolve(request.getExchange());
+    }
+}
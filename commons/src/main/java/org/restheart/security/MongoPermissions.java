@@ -96,6 +96,8 @@ public class MongoPermissions {
     private final boolean allowBulkPatch;
     private final boolean allowBulkDelete;
     private final boolean allowWriteMode;
+    private final boolean allowStreamingIngest;
+    private final boolean allowStreamingExport;
     private final BsonDocument mergeRequest;
     private final BsonDocument projectResponse;
     private final BsonDocument readFilter;
@@ -120,7 +122,7 @@ public class MongoPermissions {
      */
     public static final MongoPermissions ALLOW_ALL_MONGO_PERMISSIONS = new MongoPermissions(
             null, null,
-            true, true, true, true,
+            true, true, true, true, true, true,
             null, null);
 
     /**
@@ -144,6 +146,8 @@ public class MongoPermissions {
         this.allowBulkPatch = false;
         this.allowBulkDelete = false;
         this.allowWriteMode = false;
+        this.allowStreamingIngest = false;
+        this.allowStreamingExport = false;
         this.readFilter = null;
         this.writeFilter = null;
         this.mergeRequest = null;
@@ -178,12 +182,14 @@ public class MongoPermissions {
      * @see BaseAclPermission#getRaw(Request)
      */
     public static MongoPermissions of(Request<?> request) throws ConfigurationException, IllegalArgumentException {
-        return from(BaseAclPermission.getRaw(request));
+        var permission = BaseAclPermission.of(request);
+
+        return permission == null ? new MongoPermissions() : from(permission);
     }
 
     MongoPermissions(BsonDocument readFilter, BsonDocument writeFilter, boolean allowManagementRequests,
                      boolean allowBulkPatch, boolean allowBulkDelete, boolean allowWriteMode,
-                     BsonDocument mergeRequest, BsonDocument projectResponse) {
+                     boolean allowStreamingIngest, boolean allowStreamingExport, BsonDocument mergeRequest, BsonDocument projectResponse) {
         this.readFilter = readFilter == null
                 ? null
                 : readFilter.isNull()
@@ -200,6 +206,8 @@ public class MongoPermissions {
         this.allowBulkPatch = allowBulkPatch;
         this.allowBulkDelete = allowBulkDelete;
         this.allowWriteMode = allowWriteMode;
+        this.allowStreamingIngest = allowStreamingIngest;
+        this.allowStreamingExport = allowStreamingExport;
 
         this.mergeRequest = mergeRequest;
         this.projectResponse = projectResponse;
@@ -224,7 +232,15 @@ public class MongoPermissions {
      * @see #from(Object)
      */
     public static MongoPermissions from(BaseAclPermission p) throws ConfigurationException, IllegalArgumentException {
-        return from(p.getRaw());
+        // the raw permission does not change, parse it once
+        var mp = p.mongoPermissions;
+
+        if (mp == null) {
+            mp = from(p.getRaw());
+            p.mongoPermissions = mp;
+        }
+
+        return mp;
     }
 
     /**
@@ -391,7 +407,8 @@ public class MongoPermissions {
 
             return new MongoPermissions(readFilter, writeFilter, parseBooleanArg(mongoDoc, "allowManagementRequests"),
                     parseBooleanArg(mongoDoc, "allowBulkPatch"), parseBooleanArg(mongoDoc, "allowBulkDelete"),
-                    parseBooleanArg(mongoDoc, "allowWriteMode"),
+                    parseBooleanArg(mongoDoc, "allowWriteMode"), parseBooleanArg(mongoDoc, "allowStreamingIngest"),
+                    parseBooleanArg(mongoDoc, "allowStreamingExport"),
                     mergeRequest, projectResponse);
         }
     }
@@ -414,6 +431,8 @@ public class MongoPermissions {
         map.put("allowBulkPatch", this.allowBulkPatch);
         map.put("allowBulkDelete", this.allowBulkDelete);
         map.put("allowWriteMode", this.allowWriteMode);
+        map.put("allowStreamingIngest", this.allowStreamingIngest);
+        map.put("allowStreamingExport", this.allowStreamingExport);
         map.put("readFilter", this.readFilter);
         map.put("writeFilter", this.writeFilter);
 
@@ -483,6 +502,18 @@ public class MongoPermissions {
      * <td>Allow ?wm query parameter</td>
      * <td>false</td>
      * </tr>
+     * <tr>
+     * <td>allowStreamingIngest</td>
+     * <td>Boolean</td>
+     * <td>Allow POST of application/x-ndjson content</td>
+     * <td>false</td>
+     * </tr>
+     * <tr>
+     * <td>allowStreamingExport</td>
+     * <td>Boolean</td>
+     * <td>Allow GET with Accept application/x-ndjson or application/bson</td>
+     * <td>false</td>
+     * </tr>
      * </table>
      *
      * <p>
@@ -664,7 +695,8 @@ public class MongoPermissions {
 
             return new MongoPermissions(readFilter, writeFilter, parseBooleanArg(args, "allowManagementRequests"),
                     parseBooleanArg(args, "allowBulkPatch"), parseBooleanArg(args, "allowBulkDelete"),
-                    parseBooleanArg(args, "allowWriteMode"),
+                    parseBooleanArg(args, "allowWriteMode"), parseBooleanArg(args, "allowStreamingIngest"),
+                    parseBooleanArg(args, "allowStreamingExport"),
                     mergeRequest, projectResponse);
         }
     }
@@ -893,4 +925,36 @@ public class MongoPermissions {
     public boolean isAllowWriteMode() {
         return this.allowWriteMode;
     }
+
+    /**
+     * Checks if streaming ingest is allowed, i.e. POST on collections
+     * with newline-delimited JSON content.
+     *
+     * <p>
+     * The documents of a streaming ingest are checked one by one after the
+     * request has been authorized, so permission predicates on the request
+     * content cannot inspect them.
+     * </p>
+     *
+     * @return true if streaming ingest is allowed, false otherwise
+     */
+    public boolean isAllowStreamingIngest() {
+        return this.allowStreamingIngest;
+    }
+
+    /**
+     * Checks if streaming export is allowed, i.e. GET on collections and
+     * aggregations with Accept application/x-ndjson or application/bson.
+     *
+     * <p>
+     * The documents of a streaming export are written directly to the client,
+     * so response interceptors cannot inspect them. Only projectResponse is
+     * applied to each document.
+     * </p>
+     *
+     * @return true if streaming export is allowed, false otherwise
+     */
+    public boolean isAllowStreamingExport() {
+        return this.allowStreamingExport;
+    }
 }
@@ -0,0 +1,515 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+
+import io.undertow.connector.ByteBufferPool;
+import io.undertow.connector.PooledByteBuffer;
+import io.undertow.io.IoCallback;
+import io.undertow.io.Sender;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+/**
+ * Writes a BsonValue as JSON directly to UTF-8 encoded ByteBuffers, without
+ * building the intermediate String of {@link BsonUtils#toJson(BsonValue, JsonMode)}
+ * and its encoding.
+ *
+ * The output is the same of {@link BsonUtils#toJson(BsonValue, JsonMode)}. The
+ * common types (documents, arrays, strings, numbers, booleans, nulls, ObjectIds
+ * and dates) are written by the writer, the other ones are delegated to the
+ * driver.
+ *
+ * The buffers are taken from the ByteBufferPool of the connection, if any, and
+ * must be released with {@link #close()}.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class BsonJsonWriter implements AutoCloseable {
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final int SCRATCH_SIZE = 8 * 1024;
+
+    // the encoded field names "<name>": are cached, since they repeat across documents
+    private static final int MAX_CACHED_NAMES = 4096;
+    private static final int MAX_CACHED_NAME_LENGTH = 64;
+    private static final Map<String, byte[]> NAMES = new ConcurrentHashMap<>();
+
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    private static final byte[] TRUE = ascii("true");
+    private static final byte[] FALSE = ascii("false");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] SEPARATOR = ascii(", ");
+    private static final byte[] OID = ascii("{\"$oid\": \"");
+    private static final byte[] DATE = ascii("{\"$date\": ");
+    private static final byte[] DATE_END = ascii(" }");
+    private static final byte[] DATE_NUMBER_LONG = ascii("{\"$date\": {\"$numberLong\": \"");
+    private static final byte[] NUMBER_INT = ascii("{\"$numberInt\": \"");
+    private static final byte[] NUMBER_LONG = ascii("{\"$numberLong\": \"");
+    private static final byte[] NUMBER_DOUBLE = ascii("{\"$numberDouble\": \"");
+    private static final byte[] NUMBER_DECIMAL = ascii("{\"$numberDecimal\": \"");
+    private static final byte[] STRING_END = ascii("\"}");
+    private static final byte[] NESTED_STRING_END = ascii("\"}}");
+
+    // ESCAPES[c] is the escape sequence of the ascii char c, or null if c is written as is
+    private static final byte[][] ESCAPES = new byte[128][];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            ESCAPES[c] = switch (c) {
+                case '"' -> ascii("\\\"");
+                case '\\' -> ascii("\\\\");
+                case '\b' -> ascii("\\b");
+                case '\f' -> ascii("\\f");
+                case '\n' -> ascii("\\n");
+                case '\r' -> ascii("\\r");
+                case '\t' -> ascii("\\t");
+                default -> isPrintable(c) ? null : ascii(unicodeEscape(c));
+            };
+        }
+    }
+
+    private final ByteBufferPool pool;
+    private final List<PooledByteBuffer> pooled = new ArrayList<>();
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private final byte[] scratch = new byte[SCRATCH_SIZE];
+    private int pos = 0;
+    private long length = 0;
+
+    /**
+     *
+     * @param pool the pool to take the buffers from, if null heap buffers are allocated
+     */
+    public BsonJsonWriter(ByteBufferPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * sends the bson value as JSON to the client, ending the exchange
+     *
+     * @param exchange the exchange
+     * @param value the value to send
+     * @param mode the JsonMode, null for the RESTHeart default mode
+     */
+    public static void send(HttpServerExchange exchange, BsonValue value, JsonMode mode) {
+        var writer = new BsonJsonWriter(exchange.getConnection().getByteBufferPool());
+        ByteBuffer[] content;
+
+        try {
+            content = writer.write(value, mode).buffers();
+        } catch (RuntimeException | Error e) {
+            writer.close();
+            throw e;
+        }
+
+        // the Sender sets the Content-Length only with the END_EXCHANGE callback
+        if (!exchange.isResponseStarted()
+            && exchange.getResponseContentLength() < 0
+            && !exchange.getResponseHeaders().contains(Headers.TRANSFER_ENCODING)) {
+            exchange.setResponseContentLength(writer.length());
+        }
+
+        exchange.getResponseSender().send(content, new IoCallback() {
+            @Override
+            public void onComplete(HttpServerExchange exchange, Sender sender) {
+                writer.close();
+                IoCallback.END_EXCHANGE.onComplete(exchange, sender);
+            }
+
+            @Override
+            public void onException(HttpServerExchange exchange, Sender sender, IOException exception) {
+                writer.close();
+                IoCallback.END_EXCHANGE.onException(exchange, sender, exception);
+            }
+        });
+    }
+
+    /**
+     * writes the value as JSON
+     *
+     * @param value the value
+     * @param mode the JsonMode, null for the RESTHeart default mode
+     * @return this writer
+     */
+    public BsonJsonWriter write(BsonValue value, JsonMode mode) {
+        writeValue(value, mode);
+        return this;
+    }
+
+    /**
+     * @return the buffers holding the written JSON, ready to be read
+     */
+    public ByteBuffer[] buffers() {
+        flush();
+        var ret = new ByteBuffer[buffers.size()];
+
+        for (var i = 0; i < ret.length; i++) {
+            ret[i] = buffers.get(i).duplicate().flip();
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the written JSON
+     */
+    public byte[] toByteArray() {
+        var ret = new byte[(int) length()];
+        var offset = 0;
+
+        for (var buffer : buffers()) {
+            var remaining = buffer.remaining();
+            buffer.get(ret, offset, remaining);
+            offset += remaining;
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return the number of bytes written
+     */
+    public long length() {
+        return length + pos;
+    }
+
+    /**
+     * releases the pooled buffers
+     */
+    @Override
+    public void close() {
+        pooled.forEach(PooledByteBuffer::close);
+        pooled.clear();
+        buffers.clear();
+    }
+
+    private void writeValue(BsonValue value, JsonMode mode) {
+        switch (value.getBsonType()) {
+            case DOCUMENT -> writeDocument(value.asDocument(), mode);
+            case ARRAY -> {
+                put((byte) '[');
+                var first = true;
+                for (var element : value.asArray()) {
+                    if (first) {
+                        first = false;
+                    } else {
+                        put(SEPARATOR);
+                    }
+                    writeValue(element, mode);
+                }
+                put((byte) ']');
+            }
+            case STRING -> writeString(value.asString().getValue());
+            case BOOLEAN -> put(value.asBoolean().getValue() ? TRUE : FALSE);
+            case NULL -> put(NULL);
+            case INT32 -> {
+                if (mode == JsonMode.EXTENDED) {
+                    put(NUMBER_INT);
+                    writeLong(value.asInt32().getValue());
+                    put(STRING_END);
+                } else {
+                    writeLong(value.asInt32().getValue());
+                }
+            }
+            case INT64 -> {
+                if (mode == null || mode == JsonMode.RELAXED) {
+                    writeLong(value.asInt64().getValue());
+                } else if (mode == JsonMode.EXTENDED) {
+                    put(NUMBER_LONG);
+                    writeLong(value.asInt64().getValue());
+                    put(STRING_END);
+                } else {
+                    writeWithDriver(value, mode);
+                }
+            }
+            case DOUBLE -> {
+                var d = value.asDouble().getValue();
+                if (!Double.isFinite(d)) {
+                    writeWithDriver(value, mode);
+                } else if (mode == null || mode == JsonMode.RELAXED) {
+                    putAscii(Double.toString(d));
+                } else if (mode == JsonMode.EXTENDED) {
+                    put(NUMBER_DOUBLE);
+                    putAscii(Double.toString(d));
+                    put(STRING_END);
+                } else {
+                    writeWithDriver(value, mode);
+                }
+            }
+            case DECIMAL128 -> {
+                if (mode == null || mode == JsonMode.RELAXED || mode == JsonMode.EXTENDED) {
+                    put(NUMBER_DECIMAL);
+                    putAscii(value.asDecimal128().getValue().toString());
+                    put(STRING_END);
+                } else {
+                    writeWithDriver(value, mode);
+                }
+            }
+            case OBJECT_ID -> {
+                if (mode == null || mode == JsonMode.RELAXED || mode == JsonMode.EXTENDED) {
+                    put(OID);
+                    for (var b : value.asObjectId().getValue().toByteArray()) {
+                        ensure(2);
+                        scratch[pos++] = HEX[(b >> 4) & 0xf];
+                        scratch[pos++] = HEX[b & 0xf];
+                    }
+                    put(STRING_END);
+                } else {
+                    writeWithDriver(value, mode);
+                }
+            }
+            case DATE_TIME -> {
+                if (mode == null) {
+                    put(DATE);
+                    writeLong(value.asDateTime().getValue());
+                    put(DATE_END);
+                } else if (mode == JsonMode.EXTENDED) {
+                    put(DATE_NUMBER_LONG);
+                    writeLong(value.asDateTime().getValue());
+                    put(NESTED_STRING_END);
+                } else {
+                    // the relaxed mode formats the dates as ISO-8601 strings
+                    writeWithDriver(value, mode);
+                }
+            }
+            default -> writeWithDriver(value, mode);
+        }
+    }
+
+    private void writeDocument(BsonDocument doc, JsonMode mode) {
+        put((byte) '{');
+        var first = true;
+
+        for (var entry : doc.entrySet()) {
+            if (first) {
+                first = false;
+            } else {
+                put(SEPARATOR);
+            }
+
+            writeName(entry.getKey());
+            writeValue(entry.getValue(), mode);
+        }
+
+        put((byte) '}');
+    }
+
+    private void writeName(String name) {
+        var cached = NAMES.get(name);
+
+        if (cached != null) {
+            put(cached);
+        } else if (name.length() <= MAX_CACHED_NAME_LENGTH && NAMES.size() < MAX_CACHED_NAMES) {
+            // a char is at most 6 bytes, reserve the space so that the name is not flushed
+            ensure(MAX_CACHED_NAME_LENGTH * 6 + 4);
+            var start = pos;
+            writeString(name);
+            put((byte) ':');
+            put((byte) ' ');
+            NAMES.putIfAbsent(name, Arrays.copyOfRange(scratch, start, pos));
+        } else {
+            writeString(name);
+            put((byte) ':');
+            put((byte) ' ');
+        }
+    }
+
+    /**
+     * writes the string quoted and escaped as the driver does: the chars that
+     * are not letters, digits, punctuation, symbols or spaces are escaped as
+     * unicode sequences
+     */
+    private void writeString(String s) {
+        put((byte) '"');
+
+        for (int i = 0, len = s.length(); i < len; i++) {
+            ensure(6);
+            var c = s.charAt(i);
+
+            if (c < 128) {
+                var escape = ESCAPES[c];
+                if (escape == null) {
+                    scratch[pos++] = (byte) c;
+                } else {
+                    System.arraycopy(escape, 0, scratch, pos, escape.length);
+                    pos += escape.length;
+                }
+            } else if (!isPrintable(c)) {
+                scratch[pos++] = '\\';
+                scratch[pos++] = 'u';
+                scratch[pos++] = HEX[(c >> 12) & 0xf];
+                scratch[pos++] = HEX[(c >> 8) & 0xf];
+                scratch[pos++] = HEX[(c >> 4) & 0xf];
+                scratch[pos++] = HEX[c & 0xf];
+            } else if (c < 0x800) {
+                scratch[pos++] = (byte) (0xc0 | (c >> 6));
+                scratch[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else {
+                // surrogates are escaped, so a char is at most 3 bytes
+                scratch[pos++] = (byte) (0xe0 | (c >> 12));
+                scratch[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                scratch[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+
+        put((byte) '"');
+    }
+
+    private void writeLong(long value) {
+        ensure(20);
+
+        if (value == Long.MIN_VALUE) {
+            putAscii(Long.toString(value));
+            return;
+        }
+
+        if (value < 0) {
+            scratch[pos++] = '-';
+            value = -value;
+        }
+
+        var start = pos;
+
+        do {
+            scratch[pos++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        // reverse the digits
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            var t = scratch[i];
+            scratch[i] = scratch[j];
+            scratch[j] = t;
+        }
+    }
+
+    private void writeWithDriver(BsonValue value, JsonMode mode) {
+        put(BsonUtils.toJson(value, mode).getBytes(UTF_8));
+    }
+
+    private void putAscii(String s) {
+        ensure(s.length());
+        for (int i = 0, len = s.length(); i < len; i++) {
+            scratch[pos++] = (byte) s.charAt(i);
+        }
+    }
+
+    private void put(byte b) {
+        ensure(1);
+        scratch[pos++] = b;
+    }
+
+    private void put(byte[] bytes) {
+        var offset = 0;
+
+        while (offset < bytes.length) {
+            ensure(1);
+            var n = Math.min(bytes.length - offset, scratch.length - pos);
+            System.arraycopy(bytes, offset, scratch, pos, n);
+            pos += n;
+            offset += n;
+        }
+    }
+
+    private void ensure(int n) {
+        if (pos + n > scratch.length) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        var offset = 0;
+
+        while (offset < pos) {
+            var buffer = buffers.isEmpty() ? null : buffers.get(buffers.size() - 1);
+
+            if (buffer == null || !buffer.hasRemaining()) {
+                buffer = allocate();
+                buffers.add(buffer);
+            }
+
+            var n = Math.min(pos - offset, buffer.remaining());
+            buffer.put(scratch, offset, n);
+            offset += n;
+        }
+
+        length += pos;
+        pos = 0;
+    }
+
+    private ByteBuffer allocate() {
+        if (pool == null) {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        } else {
+            var buffer = pool.allocate();
+            pooled.add(buffer);
+            return buffer.getBuffer().clear();
+        }
+    }
+
+    /**
+     * @return true if the driver writes the char as is, i.e. its type is
+     * letter, digit, punctuation, symbol or space separator
+     */
+    private static boolean isPrintable(char c) {
+        return switch (Character.getType(c)) {
+            case Character.UPPERCASE_LETTER,
+                Character.LOWERCASE_LETTER,
+                Character.TITLECASE_LETTER,
+                Character.OTHER_LETTER,
+                Character.DECIMAL_DIGIT_NUMBER,
+                Character.LETTER_NUMBER,
+                Character.OTHER_NUMBER,
+                Character.SPACE_SEPARATOR,
+                Character.CONNECTOR_PUNCTUATION,
+                Character.DASH_PUNCTUATION,
+                Character.START_PUNCTUATION,
+                Character.END_PUNCTUATION,
+                Character.INITIAL_QUOTE_PUNCTUATION,
+                Character.FINAL_QUOTE_PUNCTUATION,
+                Character.OTHER_PUNCTUATION,
+                Character.MATH_SYMBOL,
+                Character.CURRENCY_SYMBOL,
+                Character.MODIFIER_SYMBOL,
+                Character.OTHER_SYMBOL -> true;
+            default -> false;
+        };
+    }
+
+    private static String unicodeEscape(char c) {
+        return String.format("\\u%04x", (int) c);
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(UTF_8);
+    }
+}
@@ -61,6 +61,9 @@ public class DirectoryWatcher implements Runnable {
     /** Callback function executed when file system events occur. */
     private final BiConsumer<Path, Kind<Path>> onEvent;
 
+    /** If true, subdirectories are watched as well. */
+    private final boolean recursive;
+
     /**
      * Creates a new DirectoryWatcher for the specified root directory.
      * The watcher will monitor the root directory and all its subdirectories
@@ -72,10 +75,33 @@ public class DirectoryWatcher implements Runnable {
      * @throws IOException if an I/O error occurs while setting up the watch service
      */
     public DirectoryWatcher(Path rootDir, BiConsumer<Path, Kind<Path>> onEvent) throws IOException {
+        this(rootDir, true, onEvent);
+    }
+
+    /**
+     * Creates a new DirectoryWatcher for the specified directory.
+     *
+     * <p>If recursive is false, only the files of the directory are watched and
+     * the callback is also executed when a file is created, as it happens when
+     * a file is saved by renaming a temporary file.</p>
+     *
+     * @param rootDir the directory to watch
+     * @param recursive if true, the subdirectories are watched as well
+     * @param onEvent callback function to execute when events occur, receives the
+     *               affected path and the event kind
+     * @throws IOException if an I/O error occurs while setting up the watch service
+     */
+    public DirectoryWatcher(Path rootDir, boolean recursive, BiConsumer<Path, Kind<Path>> onEvent) throws IOException {
         this.watchService = FileSystems.getDefault().newWatchService();
         this.keys = new HashMap<>(); // Mapping WatchKeys to the corresponding directory
         this.onEvent = onEvent;
-        registerDirectoryAndSubdirectories(rootDir);
+        this.recursive = recursive;
+
+        if (recursive) {
+            registerDirectoryAndSubdirectories(rootDir);
+        } else {
+            keys.put(rootDir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), rootDir);
+        }
     }
 
     /**
@@ -146,7 +172,12 @@ public class DirectoryWatcher implements Runnable {
                 var name = ev.context();
                 var child = dir.resolve(name);
 
-                if (kind.equals(ENTRY_CREATE) && Files.isDirectory(child)) {
+                if (kind.equals(ENTRY_CREATE) && !recursive) {
+                    if (Files.isRegularFile(child)) {
+                        LOGGER.debug("File created: {}", child);
+                        this.onEvent.accept(child, ENTRY_CREATE);
+                    }
+                } else if (kind.equals(ENTRY_CREATE) && Files.isDirectory(child)) {
                     LOGGER.debug("Directory created: {}", child);
                     try {
                         if (!child.getFileName().toString().equals("node_modules")) {
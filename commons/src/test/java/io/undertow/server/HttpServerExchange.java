@@ -29,6 +29,7 @@ import java.util.TreeMap;
 
 import org.xnio.channels.StreamSourceChannel;
 
+import io.undertow.io.Sender;
 import io.undertow.security.api.SecurityContext;
 import io.undertow.util.AbstractAttachable;
 import io.undertow.util.HeaderMap;
@@ -49,6 +50,7 @@ public class HttpServerExchange extends AbstractAttachable {
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final HeaderMap responseHeaders = new HeaderMap();
 
     public HttpServerExchange() {
     }
@@ -161,6 +163,14 @@ public class HttpServerExchange extends AbstractAttachable {
         return ret;
     }
 
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public Sender getResponseSender() {
+        return null;
+    }
+
     public SecurityContext getSecurityContext() {
         return null;
     }
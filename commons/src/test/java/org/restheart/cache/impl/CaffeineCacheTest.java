@@ -66,6 +66,30 @@ public class CaffeineCacheTest {
         assertFalse(result.isPresent());
     }
 
+    @Test
+    public void testReconfigure() {
+        CaffeineCache<String, Integer> instance = new CaffeineCache<>(100, Cache.EXPIRE_POLICY.AFTER_WRITE, 10000);
+
+        for (var i = 0; i < 10; i++) {
+            instance.put("k" + i, i);
+        }
+
+        assertTrue(instance.reconfigure(5, 20000));
+        instance.cleanUp();
+
+        // the cache has been resized retaining the entries
+        var size = instance.asMap().size();
+        assertTrue(size > 0 && size <= 5);
+
+        // the expiration cannot be disabled
+        assertFalse(instance.reconfigure(100, 0));
+
+        // nor enabled
+        CaffeineCache<String, Integer> notExpiring = new CaffeineCache<>(100, Cache.EXPIRE_POLICY.NEVER, 0);
+        assertFalse(notExpiring.reconfigure(100, 10000));
+        assertTrue(notExpiring.reconfigure(50, 0));
+    }
+
     @Test
     @Disabled // this is time dependant and can fail during CI
     public void testRemoval() {
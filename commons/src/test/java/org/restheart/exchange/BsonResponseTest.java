@@ -0,0 +1,96 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.exchange;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.undertow.io.Sender;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Methods;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class BsonResponseTest {
+    private HttpServerExchange exchange;
+    private Sender sender;
+
+    @BeforeEach
+    public void setUp() {
+        exchange = spy(new HttpServerExchange());
+        exchange.setRequestPath("/db/coll");
+        exchange.setRequestMethod(Methods.GET);
+
+        sender = mock(Sender.class);
+        doReturn(sender).when(exchange).getResponseSender();
+    }
+
+    static class CustomBsonResponse extends BsonResponse {
+        CustomBsonResponse(HttpServerExchange exchange) {
+            super(exchange);
+        }
+
+        @Override
+        public String readContent() {
+            return "custom:" + super.readContent();
+        }
+    }
+
+    static class CustomMongoResponse extends MongoResponse {
+        CustomMongoResponse(HttpServerExchange exchange) {
+            super(exchange);
+        }
+
+        @Override
+        public String readContent() {
+            return "custom";
+        }
+    }
+
+    @Test
+    public void testSendContentUsesOverriddenReadContent() {
+        var response = new CustomBsonResponse(exchange);
+        response.setContent(new BsonDocument("a", new BsonString("b")));
+
+        response.sendContent();
+
+        verify(sender).send("custom:{\"a\": \"b\"}");
+    }
+
+    @Test
+    public void testMongoResponseSendContentUsesOverriddenReadContent() {
+        MongoRequest.init(exchange, "/", "*");
+        var response = new CustomMongoResponse(exchange);
+        response.setContent(new BsonDocument("a", new BsonString("b")));
+
+        response.sendContent();
+
+        verify(sender).send("custom");
+    }
+}
@@ -0,0 +1,132 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.exchange;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.restheart.mongodb.db.OperationResult;
+import org.restheart.utils.HttpStatus;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.result.UpdateResult;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.Methods;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class MongoResponseTest {
+    private MongoClient mclient;
+    private MongoCollection<BsonDocument> coll;
+    private MongoResponse response;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        var exchange = new HttpServerExchange();
+        exchange.setRequestPath("/db/coll/doc");
+        exchange.setRequestMethod(Methods.PATCH);
+
+        MongoRequest.init(exchange, "/", "*");
+        response = MongoResponse.init(exchange);
+
+        mclient = mock(MongoClient.class);
+        var mdb = mock(MongoDatabase.class);
+        coll = mock(MongoCollection.class);
+        when(mclient.getDatabase("db")).thenReturn(mdb);
+        when(mdb.getCollection("coll", BsonDocument.class)).thenReturn(coll);
+    }
+
+    @Test
+    public void testRollbackWithoutOldDataThrows() {
+        var etag = new ObjectId();
+        var newData = new BsonDocument("_id", new BsonString("doc")).append("n", new BsonInt32(2));
+        response.setDbOperationResult(new OperationResult(HttpStatus.SC_OK, etag, null, newData, null, false));
+
+        assertThrows(IllegalStateException.class, () -> response.rollback(mclient));
+
+        // the updated document must not be mistaken for a created one and deleted
+        verifyNoInteractions(mclient);
+    }
+
+    @Test
+    public void testRollbackOfLeanWriteThrows() {
+        response.setDbOperationResult(new OperationResult(HttpStatus.SC_OK, new ObjectId(), new BsonString("doc"), false));
+
+        assertThrows(IllegalStateException.class, () -> response.rollback(mclient));
+        verifyNoInteractions(mclient);
+    }
+
+    @Test
+    public void testRollbackOfCreatedDocumentWithoutOldData() throws Exception {
+        var etag = new ObjectId();
+        var newData = new BsonDocument("_id", new BsonString("doc")).append("n", new BsonInt32(2));
+        response.setDbOperationResult(new OperationResult(HttpStatus.SC_CREATED, etag, null, newData, null, false));
+        response.getHeaders().put(Headers.LOCATION, "/db/coll/doc");
+
+        response.rollback(mclient);
+
+        var filter = ArgumentCaptor.forClass(Bson.class);
+        verify(coll).deleteOne(filter.capture());
+        assertEquals(Filters.and(Filters.eq("_id", new BsonString("doc")), Filters.eq("_etag", etag)).toBsonDocument(),
+            filter.getValue().toBsonDocument());
+        assertNull(response.getHeaders().get(Headers.LOCATION));
+    }
+
+    @Test
+    public void testRollbackWithOldData() throws Exception {
+        var etag = new ObjectId();
+        var oldData = new BsonDocument("_id", new BsonString("doc")).append("n", new BsonInt32(1));
+        var newData = new BsonDocument("_id", new BsonString("doc")).append("n", new BsonInt32(2));
+        response.setDbOperationResult(new OperationResult(HttpStatus.SC_OK, etag, oldData, newData, null, true));
+
+        when(coll.replaceOne(any(Bson.class), any(BsonDocument.class), any(ReplaceOptions.class)))
+            .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        response.rollback(mclient);
+
+        verify(coll).replaceOne(any(Bson.class), eq(oldData), any(ReplaceOptions.class));
+        verify(coll, never()).deleteOne(any(Bson.class));
+    }
+}
@@ -0,0 +1,90 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.restheart.configuration.ConfigurationException;
+import org.restheart.exchange.MongoRequest;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Methods;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CompiledAclPredicateTest {
+    private static MongoRequest request(String method, String userName) {
+        var request = mock(MongoRequest.class);
+        var exchange = mock(HttpServerExchange.class);
+
+        when(request.getExchange()).thenReturn(exchange);
+        when(exchange.getRequestMethod()).thenReturn(Methods.fromString(method));
+
+        if (userName != null) {
+            var account = new MongoRealmAccount("restheart", userName, "secret".toCharArray(), Set.of("user"),
+                    new BsonDocument("name", new BsonString(userName)));
+            when(request.getAuthenticatedAccount()).thenReturn(account);
+        }
+
+        return request;
+    }
+
+    @Test
+    public void testPredicateWithoutVariables() throws Exception {
+        var predicate = new CompiledAclPredicate("method(GET)", getClass().getClassLoader());
+
+        assertTrue(predicate.test(request("GET", null)));
+        assertFalse(predicate.test(request("POST", null)));
+    }
+
+    @Test
+    public void testPredicateWithUserVariables() throws Exception {
+        var predicate = new CompiledAclPredicate("method(GET) and equals(@user.name, \"uji\")", getClass().getClassLoader());
+
+        assertTrue(predicate.test(request("GET", "uji")));
+        assertFalse(predicate.test(request("GET", "other")));
+        // the parsed predicate bound to uji is reused
+        assertTrue(predicate.test(request("GET", "uji")));
+        assertFalse(predicate.test(request("POST", "uji")));
+    }
+
+    @Test
+    public void testInvalidPredicate() {
+        assertThrows(ConfigurationException.class, () -> new CompiledAclPredicate("method(GET) and", getClass().getClassLoader()));
+    }
+
+    @Test
+    public void testHasVariables() {
+        assertTrue(AclVarsInterpolator.hasVariables("equals(@user.name, 'uji')"));
+        assertTrue(AclVarsInterpolator.hasVariables("equals(@request.body.a, 1)"));
+        assertFalse(AclVarsInterpolator.hasVariables("path-prefix('/coll')"));
+    }
+}
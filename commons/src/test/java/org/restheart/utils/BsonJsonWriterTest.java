@@ -0,0 +1,100 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-commons
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.utils;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonMode;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class BsonJsonWriterTest {
+    private static final BsonDocument DOC = BsonDocument.parse("""
+        {
+            "_id": { "$oid": "5d0b4e325beb2029a8d1bd5e" },
+            "s": "a \\"quoted\\" \\\\ string\\n\\t\\u0001 àè€ 😀 \\u2028 \\u007f",
+            "i": 1, "neg": -12345, "l": { "$numberLong": "-9223372036854775808" }, "lmax": { "$numberLong": "9223372036854775807" },
+            "d": 1.5, "dint": 2.0, "big": 1e300, "nan": { "$numberDouble": "NaN" }, "inf": { "$numberDouble": "-Infinity" },
+            "dec": { "$numberDecimal": "1.10" },
+            "b": true, "f": false, "n": null,
+            "date": { "$date": 1577836800123 }, "old": { "$date": -1000 },
+            "bin": { "$binary": { "base64": "AQID", "subType": "00" } },
+            "ts": { "$timestamp": { "t": 1, "i": 2 } },
+            "re": { "$regularExpression": { "pattern": "^a", "options": "i" } },
+            "min": { "$minKey": 1 }, "max": { "$maxKey": 1 },
+            "empty": {}, "emptyArray": [],
+            "nested": { "a": [1, { "b": [ "x", null, { "$oid": "5d0b4e325beb2029a8d1bd5f" } ] }, []] },
+            "ünïcödé\\n name": 1
+        }
+        """);
+
+    private static String write(BsonValue value, JsonMode mode) {
+        try (var writer = new BsonJsonWriter(null)) {
+            return new String(writer.write(value, mode).toByteArray(), UTF_8);
+        }
+    }
+
+    @Test
+    public void testSameJsonOfBsonUtils() {
+        assertEquals(BsonUtils.toJson(DOC), write(DOC, null));
+
+        for (var mode : JsonMode.values()) {
+            assertEquals(BsonUtils.toJson(DOC, mode), write(DOC, mode), "mode " + mode);
+        }
+    }
+
+    @Test
+    public void testArraysAndScalars() {
+        var array = new BsonArray();
+        array.add(DOC);
+        array.add(new BsonString("x"));
+
+        assertEquals(BsonUtils.toJson(array), write(array, null));
+        assertEquals(BsonUtils.toJson(new BsonString("x\"y")), write(new BsonString("x\"y"), null));
+        assertEquals(BsonUtils.toJson(DOC.get("date")), write(DOC.get("date"), null));
+    }
+
+    @Test
+    public void testSpansMultipleBuffers() {
+        var large = new BsonArray();
+
+        for (var i = 0; i < 1_000; i++) {
+            large.add(DOC);
+        }
+
+        try (var writer = new BsonJsonWriter(null)) {
+            writer.write(large, null);
+            var json = BsonUtils.toJson(large);
+
+            assertTrue(writer.buffers().length > 1);
+            assertEquals(json.getBytes(UTF_8).length, writer.length());
+            assertEquals(json, new String(writer.toByteArray(), UTF_8));
+        }
+    }
+}
@@ -67,8 +67,14 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
@@ -79,6 +85,7 @@ import org.fusesource.jansi.AnsiConsole;
 import org.restheart.buffers.ThreadAwareByteBufferPool;
 import org.restheart.configuration.Configuration;
 import org.restheart.configuration.ConfigurationException;
+import org.restheart.configuration.ConfigurationListeners;
 import org.restheart.configuration.ProxiedResource;
 import org.restheart.configuration.Utils;
 import org.restheart.exchange.Exchange;
@@ -101,12 +108,14 @@ import org.restheart.plugins.security.Authorizer.TYPE;
 import org.restheart.plugins.security.TokenManager;
 import org.restheart.security.handlers.SecurityHandler;
 import org.restheart.utils.BootstrapLogger;
+import org.restheart.utils.DirectoryWatcher;
 import org.restheart.utils.FileUtils;
 import org.restheart.utils.LoggingInitializer;
 import org.restheart.utils.OSChecker;
 import org.restheart.utils.PluginUtils;
 import org.restheart.utils.RESTHeartDaemon;
 import org.restheart.utils.ResourcesExtractor;
+import org.restheart.utils.ThreadsUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xnio.OptionMap;
@@ -114,6 +123,7 @@ import org.xnio.Xnio;
 
 import io.undertow.Undertow;
 import io.undertow.UndertowOptions;
+import io.undertow.client.UndertowClient;
 import io.undertow.protocols.ssl.UndertowXnioSsl;
 import io.undertow.server.handlers.AllowedMethodsHandler;
 import io.undertow.server.handlers.GracefulShutdownHandler;
@@ -145,7 +155,10 @@ public final class Bootstrapper {
     private static boolean standaloneConfiguration = false;
 
     private static GracefulShutdownHandler HANDLERS = null;
-    private static Configuration configuration;
+    private static volatile Configuration configuration;
+
+    // editors write a file with several events, the configuration is reloaded once they are done
+    private static final long CONFIGURATION_RELOAD_DELAY = 500;
     private static Undertow undertowServer;
 
     private static final String EXITING = ", exiting...";
@@ -514,6 +527,72 @@ public final class Bootstrapper {
         }
 
         BootstrapLogger.standalone(LOGGER, ansi().fg(GREEN).bold().a("RESTHeart started").reset().toString());
+
+        watchConfiguration();
+    }
+
+    /**
+     * watches the configuration file and the override file, if
+     * core.reload-configuration is true, and reloads the configuration when
+     * they change
+     */
+    private static void watchConfiguration() {
+        if (!configuration.coreModule().reloadConfiguration()) {
+            return;
+        }
+
+        final var files = Stream.of(CONFIGURATION_FILE_PATH, CONF_OVERRIDES_FILE_PATH)
+                .filter(Objects::nonNull)
+                .map(Path::normalize)
+                .toList();
+
+        if (files.isEmpty()) {
+            LOGGER.warn("Cannot reload the default configuration, core.reload-configuration requires a configuration file");
+            return;
+        }
+
+        final var scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+        final var pending = new AtomicReference<ScheduledFuture<?>>();
+
+        files.stream().map(Path::getParent).distinct().forEach(dir -> {
+            try {
+                final var watcher = new DirectoryWatcher(dir, false, (path, kind) -> {
+                    if (files.contains(path.normalize())) {
+                        final var previous = pending.getAndSet(scheduler.schedule(Bootstrapper::reloadConfiguration,
+                                CONFIGURATION_RELOAD_DELAY, TimeUnit.MILLISECONDS));
+
+                        if (previous != null) {
+                            previous.cancel(false);
+                        }
+                    }
+                });
+
+                ThreadsUtils.virtualThreadsExecutor().execute(watcher);
+                LOGGER.info("Watching {} to reload the configuration", dir);
+            } catch (final IOException ioe) {
+                LOGGER.error("Error watching {} to reload the configuration", dir, ioe);
+            }
+        });
+    }
+
+    /**
+     * reloads the configuration and notifies the ConfigurationListeners; if the
+     * configuration is not valid, the current one is kept
+     */
+    private static synchronized void reloadConfiguration() {
+        final Configuration reloaded;
+
+        try {
+            reloaded = Configuration.Builder.build(CONFIGURATION_FILE_PATH, CONF_OVERRIDES_FILE_PATH,
+                    standaloneConfiguration, true);
+        } catch (final Throwable t) {
+            LOGGER.error("Error reloading the configuration, keeping the current one: {}", t.getMessage());
+            return;
+        }
+
+        configuration = reloaded;
+        LOGGER.info("Configuration reloaded");
+        ConfigurationListeners.reloaded(reloaded);
     }
 
     /**
@@ -992,7 +1071,11 @@ public final class Bootstrapper {
                 return;
             }
 
-            final var proxyClient = new LoadBalancingProxyClient()
+            final var balancer = ProxyLoadBalancer.of(proxy);
+
+            final var proxyClient = (balancer == null
+                    ? new LoadBalancingProxyClient()
+                    : new LoadBalancingProxyClient(UndertowClient.getInstance(), null, balancer))
                     .setConnectionsPerThread(proxy.connectionPerThread())
                     .setSoftMaxConnectionsPerThread(proxy.softMaxConnectionsPerThread())
                     .setMaxQueueSize(proxy.maxQueueSize())
@@ -1009,6 +1092,9 @@ public final class Bootstrapper {
                     final var xnioSsl = new UndertowXnioSsl(Xnio.getInstance(), OptionMap.EMPTY, byteBufferPool);
                     final var uri = new URI(pp);
                     proxyClient.addHost(uri, xnioSsl);
+                    if (balancer != null) {
+                        balancer.addBackend(uri, xnioSsl);
+                    }
                 } catch (final URISyntaxException t) {
                     BootstrapLogger.item(LOGGER, "✗ Invalid location URI {}, resource {} not bound ", proxy.location(),
                             pp);
@@ -1017,9 +1103,13 @@ public final class Bootstrapper {
                 }
             });
 
+            if (balancer != null) {
+                balancer.start(proxyClient);
+            }
+
             final var proxyHandler = ProxyHandler.builder()
                     .setRewriteHostHeader(proxy.rewriteHostHeader())
-                    .setProxyClient(proxyClient)
+                    .setProxyClient(balancer == null ? proxyClient : balancer)
                     .build();
 
             final var rhProxy = pipe(
@@ -1038,6 +1128,7 @@ public final class Bootstrapper {
                     new RequestContentInjector(ON_REQUIRES_CONTENT_AFTER_AUTH),
                     new RequestInterceptorsExecutor(REQUEST_AFTER_AUTH),
                     new QueryStringRebuilder(),
+                    proxy.cache().enabled() ? new ProxyResponseCacheHandler(proxy.cache()) : null, // Must be before ConduitInjector
                     new ConduitInjector(),
                     PipelinedWrappingHandler.wrap(new ConfigurableEncodingHandler(proxyHandler))); // Must be after
             // ConduitInjector
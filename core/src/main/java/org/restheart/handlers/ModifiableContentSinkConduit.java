@@ -159,8 +159,11 @@ public class ModifiableContentSinkConduit extends AbstractStreamSinkConduit<Stre
 
         exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, length);
 
+        // the proxy response cache copies the content between this and the actual conduit
+        var _next = next instanceof ProxyResponseCacheHandler.CapturingSinkConduit csc ? csc.delegate() : next;
+
         // need also to update lenght of ServerFixedLengthStreamSinkConduit
-        if (next instanceof ServerFixedLengthStreamSinkConduit) {
+        if (_next instanceof ServerFixedLengthStreamSinkConduit) {
             Method m;
 
             try {
@@ -172,13 +175,13 @@ public class ModifiableContentSinkConduit extends AbstractStreamSinkConduit<Stre
             }
 
             try {
-                m.invoke(next, length, exchange);
+                m.invoke(_next, length, exchange);
             } catch (Throwable ex) {
                 LOGGER.error("could not access BUFFERED_REQUEST_DATA field", ex);
                 throw new RuntimeException("could not access BUFFERED_REQUEST_DATA field", ex);
             }
         } else {
-            LOGGER.warn("updateContentLenght() next is {}", next.getClass().getSimpleName());
+            LOGGER.warn("updateContentLenght() next is {}", _next.getClass().getSimpleName());
         }
     }
 }
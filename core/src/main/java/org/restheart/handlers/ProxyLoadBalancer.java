@@ -0,0 +1,436 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restheart.configuration.ProxiedResource;
+import org.restheart.metrics.MetricNameAndLabels;
+import org.restheart.metrics.Metrics;
+import org.restheart.utils.ThreadsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.ssl.XnioSsl;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.handlers.proxy.LoadBalancingProxyClient;
+import io.undertow.server.handlers.proxy.ProxyCallback;
+import io.undertow.server.handlers.proxy.ProxyClient;
+import io.undertow.server.handlers.proxy.ProxyConnection;
+
+/**
+ * Health and latency aware balancing of the backends of a proxied resource.
+ * <p>
+ * Wraps the {@link LoadBalancingProxyClient} of the proxied resource acting
+ * as its {@link LoadBalancingProxyClient.HostSelector}: each connection request
+ * is accounted to the selected backend, that keeps its outstanding requests and
+ * the exponentially weighted moving average of its response time.
+ * <p>
+ * Backends that fail the active health check or that fail consecutive
+ * requests (outlier detection) are taken out of rotation removing them from
+ * the proxy client and put back when they recover. The last backend in
+ * rotation is never removed.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ProxyLoadBalancer implements ProxyClient, LoadBalancingProxyClient.HostSelector {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProxyLoadBalancer.class);
+
+    // weight of the last sample in the response time moving average
+    static final double EWMA_ALPHA = 0.2;
+
+    // the connection request being served by the current thread, set around LoadBalancingProxyClient.getConnection()
+    private static final ThreadLocal<Tracker> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The backend selection policy.
+     */
+    public enum Policy {
+        /** cycles through the backends */
+        ROUND_ROBIN,
+        /** picks the one with less outstanding requests between two random backends */
+        LEAST_OUTSTANDING,
+        /** picks the one with lower latency * (outstanding + 1) between two random backends */
+        EWMA;
+
+        /**
+         * @param value the value of the load-balancing-policy option
+         * @return the policy, ROUND_ROBIN if value is null or unknown
+         */
+        public static Policy of(String value) {
+            if (value == null) {
+                return ROUND_ROBIN;
+            }
+
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException iae) {
+                LOGGER.warn("Unknown load-balancing-policy {}, using round-robin", value);
+                return ROUND_ROBIN;
+            }
+        }
+    }
+
+    private final String name;
+    private final Policy policy;
+    private final ProxiedResource.HealthCheck healthCheck;
+    private final ProxiedResource.OutlierDetection outlierDetection;
+    private final Map<URI, Backend> backends = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private LoadBalancingProxyClient client;
+    private HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+
+    ProxyLoadBalancer(String name, Policy policy, ProxiedResource.HealthCheck healthCheck, ProxiedResource.OutlierDetection outlierDetection) {
+        this.name = name;
+        this.policy = policy;
+        this.healthCheck = healthCheck;
+        this.outlierDetection = outlierDetection;
+    }
+
+    /**
+     * @param proxy the proxied resource
+     * @return the balancer of the proxied resource, or null if it uses plain round-robin without health checks
+     */
+    public static ProxyLoadBalancer of(ProxiedResource proxy) {
+        var policy = Policy.of(proxy.loadBalancingPolicy());
+        var hc = proxy.healthCheck();
+        var od = proxy.outlierDetection();
+
+        if (policy == Policy.ROUND_ROBIN && (hc == null || !hc.enabled()) && (od == null || !od.enabled())) {
+            return null;
+        }
+
+        return new ProxyLoadBalancer(proxy.name() != null ? proxy.name() : proxy.location(), policy, hc, od);
+    }
+
+    /**
+     * Registers a backend; it must be also added to the proxy client.
+     *
+     * @param uri the backend URI
+     * @param ssl the ssl used to connect the backend
+     */
+    public void addBackend(URI uri, XnioSsl ssl) {
+        var backend = new Backend(uri, ssl);
+        this.backends.put(uri, backend);
+
+        var backendName = uri.toString();
+        Metrics.registerGauge(MetricNameAndLabels.of("proxy_backend_outstanding").label("proxy", name).label("backend", backendName), backend.outstanding::get);
+        Metrics.registerGauge(MetricNameAndLabels.of("proxy_backend_latency_ewma_ms").label("proxy", name).label("backend", backendName), backend::latency);
+        Metrics.registerGauge(MetricNameAndLabels.of("proxy_backend_up").label("proxy", name).label("backend", backendName), () -> backend.inRotation ? 1 : 0);
+    }
+
+    /**
+     * Starts the health checks and the readmission of ejected backends.
+     *
+     * @param client the proxy client, created with this balancer as host selector
+     */
+    public void start(LoadBalancingProxyClient client) {
+        this.client = client;
+
+        var probing = healthCheck != null && healthCheck.enabled();
+        var ejecting = outlierDetection != null && outlierDetection.enabled();
+
+        if (!probing && !ejecting) {
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("proxy-health-" + name).factory());
+
+        if (probing) {
+            this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(healthCheck.timeout()))
+                .executor(ThreadsUtils.virtualThreadsExecutor())
+                .build();
+            this.scheduler.scheduleWithFixedDelay(this::probe, 0, healthCheck.interval(), TimeUnit.MILLISECONDS);
+        }
+
+        if (ejecting) {
+            this.scheduler.scheduleWithFixedDelay(this::readmit, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Override
+    public int selectHost(LoadBalancingProxyClient.Host[] availableHosts) {
+        final int selected;
+
+        if (availableHosts.length == 1) {
+            selected = 0;
+        } else if (policy == Policy.ROUND_ROBIN) {
+            selected = Math.floorMod(next.getAndIncrement(), availableHosts.length);
+        } else {
+            // power of two choices
+            var rnd = ThreadLocalRandom.current();
+            int a = rnd.nextInt(availableHosts.length);
+            int b = rnd.nextInt(availableHosts.length - 1);
+            if (b >= a) {
+                b++;
+            }
+
+            selected = score(availableHosts[a]) <= score(availableHosts[b]) ? a : b;
+        }
+
+        // LoadBalancingProxyClient can move on to the next host if the selected one is in problem state,
+        // in that case the request is accounted to the selected host
+        var tracker = CURRENT.get();
+        if (tracker != null) {
+            tracker.start(backends.get(availableHosts[selected].getUri()));
+        }
+
+        return selected;
+    }
+
+    private double score(LoadBalancingProxyClient.Host host) {
+        var backend = backends.get(host.getUri());
+        if (backend == null) {
+            return 0;
+        }
+
+        return policy == Policy.EWMA
+            ? backend.latency() * (backend.outstanding.get() + 1)
+            : backend.outstanding.get();
+    }
+
+    @Override
+    public ProxyTarget findTarget(HttpServerExchange exchange) {
+        return client.findTarget(exchange);
+    }
+
+    @Override
+    public void getConnection(ProxyTarget target, HttpServerExchange exchange, ProxyCallback<ProxyConnection> callback, long timeout, TimeUnit timeUnit) {
+        var tracker = new Tracker();
+        exchange.addExchangeCompleteListener((ex, nextListener) -> {
+            tracker.complete(ex.getStatusCode() < 500);
+            nextListener.proceed();
+        });
+
+        CURRENT.set(tracker);
+        try {
+            client.getConnection(target, exchange, new ProxyCallback<>() {
+                @Override
+                public void completed(HttpServerExchange ex, ProxyConnection result) {
+                    callback.completed(ex, result);
+                }
+
+                @Override
+                public void failed(HttpServerExchange ex) {
+                    tracker.complete(false);
+                    callback.failed(ex);
+                }
+
+                @Override
+                public void couldNotResolveBackend(HttpServerExchange ex) {
+                    callback.couldNotResolveBackend(ex);
+                }
+
+                @Override
+                public void queuedRequestFailed(HttpServerExchange ex) {
+                    tracker.complete(false);
+                    callback.queuedRequestFailed(ex);
+                }
+            }, timeout, timeUnit);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private void probe() {
+        backends.values().forEach(backend -> {
+            var request = HttpRequest.newBuilder(backend.uri.resolve(healthCheck.path()))
+                .timeout(Duration.ofMillis(healthCheck.timeout()))
+                .GET()
+                .build();
+
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    var ok = error == null && response.statusCode() < 400;
+                    if (backend.probed(ok, healthCheck.unhealthyThreshold(), healthCheck.healthyThreshold()) && !ok) {
+                        LOGGER.warn("Proxy {} backend {} failed the health check", name, backend.uri);
+                    }
+
+                    reconcile(backend);
+                });
+        });
+    }
+
+    private void readmit() {
+        var now = System.currentTimeMillis();
+        backends.values().stream()
+            .filter(backend -> !backend.inRotation || backend.ejectedUntil > 0)
+            .forEach(backend -> {
+                if (backend.ejectedUntil > 0 && backend.ejectedUntil <= now) {
+                    backend.ejectedUntil = 0;
+                    backend.consecutiveFailures.set(0);
+                }
+                reconcile(backend);
+            });
+    }
+
+    private void failed(Backend backend) {
+        if (outlierDetection != null && outlierDetection.enabled()
+            && backend.consecutiveFailures.incrementAndGet() >= outlierDetection.consecutiveFailures()
+            && backend.ejectedUntil == 0) {
+            backend.ejectedUntil = System.currentTimeMillis() + outlierDetection.ejectionTime();
+            LOGGER.warn("Proxy {} backend {} failed {} consecutive requests, ejecting it for {} ms", name, backend.uri, backend.consecutiveFailures.get(), outlierDetection.ejectionTime());
+            reconcile(backend);
+        }
+    }
+
+    /**
+     * Adds or removes the backend from the proxy client according to its state.
+     */
+    private synchronized void reconcile(Backend backend) {
+        var serve = backend.healthy && backend.ejectedUntil == 0;
+
+        if (serve && !backend.inRotation) {
+            client.addHost(backend.uri, backend.ssl);
+            backend.inRotation = true;
+            LOGGER.info("Proxy {} backend {} back in rotation", name, backend.uri);
+        } else if (!serve && backend.inRotation) {
+            if (backends.values().stream().filter(b -> b.inRotation).count() <= 1) {
+                LOGGER.warn("Proxy {} backend {} is failing but it is the last one in rotation, keeping it", name, backend.uri);
+                return;
+            }
+
+            client.removeHost(backend.uri);
+            backend.inRotation = false;
+            Metrics.incrementCounter(MetricNameAndLabels.of("proxy_backend_ejections").label("proxy", name).label("backend", backend.uri.toString()));
+            LOGGER.warn("Proxy {} backend {} out of rotation", name, backend.uri);
+        }
+    }
+
+    /**
+     * @param uri the backend URI
+     * @return the backend, null if not registered
+     */
+    Backend backend(URI uri) {
+        return backends.get(uri);
+    }
+
+    /**
+     * The state of a backend.
+     */
+    static final class Backend {
+        final URI uri;
+        final XnioSsl ssl;
+        final AtomicInteger outstanding = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        // response time moving average in nanoseconds, -1 until the first sample
+        private double ewma = -1;
+
+        // updated by the health check
+        private int probeFailures = 0;
+        private int probeSuccesses = 0;
+        volatile boolean healthy = true;
+
+        // 0 if not ejected by outlier detection
+        volatile long ejectedUntil = 0;
+
+        volatile boolean inRotation = true;
+
+        Backend(URI uri, XnioSsl ssl) {
+            this.uri = uri;
+            this.ssl = ssl;
+        }
+
+        synchronized void sample(long nanos) {
+            this.ewma = this.ewma < 0 ? nanos : this.ewma + EWMA_ALPHA * (nanos - this.ewma);
+        }
+
+        /**
+         * @return the response time moving average in milliseconds, 0 until the first sample
+         */
+        synchronized double latency() {
+            return this.ewma < 0 ? 0 : this.ewma / 1_000_000d;
+        }
+
+        /**
+         * Records the result of a health check probe.
+         *
+         * @return true if the healthy state changed
+         */
+        synchronized boolean probed(boolean ok, int unhealthyThreshold, int healthyThreshold) {
+            if (ok) {
+                probeFailures = 0;
+                if (!healthy && ++probeSuccesses >= healthyThreshold) {
+                    healthy = true;
+                    return true;
+                }
+            } else {
+                probeSuccesses = 0;
+                if (healthy && ++probeFailures >= unhealthyThreshold) {
+                    healthy = false;
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Accounts a connection request to the selected backend.
+     */
+    private class Tracker {
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile Backend backend = null;
+        private long startedAt;
+
+        void start(Backend backend) {
+            if (backend != null) {
+                this.startedAt = System.nanoTime();
+                this.backend = backend;
+                backend.outstanding.incrementAndGet();
+            }
+        }
+
+        void complete(boolean ok) {
+            var _backend = this.backend;
+            if (_backend == null || !done.compareAndSet(false, true)) {
+                return;
+            }
+
+            _backend.outstanding.decrementAndGet();
+
+            if (ok) {
+                _backend.sample(System.nanoTime() - startedAt);
+                _backend.consecutiveFailures.set(0);
+            } else {
+                failed(_backend);
+            }
+        }
+    }
+}
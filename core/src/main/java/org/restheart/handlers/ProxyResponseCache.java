@@ -0,0 +1,367 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import io.undertow.util.DateUtils;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.HeaderValues;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+
+/**
+ * Byte-bounded LRU store of the responses of a proxied resource.
+ * <p>
+ * Responses are stored per URL; each URL can have several variants, selected
+ * by the request headers listed in the response {@code Vary} header and by
+ * the authenticated account.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ProxyResponseCache {
+    private final long maxSize;
+    private final long maxEntrySize;
+
+    // access-ordered, the first entry is the least recently used
+    private final LinkedHashMap<String, List<Entry>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+
+    /**
+     * @param maxSize the max total size of the stored responses in bytes
+     * @param maxEntrySize the max size of a stored response in bytes
+     */
+    public ProxyResponseCache(final long maxSize, final long maxEntrySize) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * @return the max size of a stored response in bytes
+     */
+    public long maxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * @param url the request URL
+     * @param requestHeaders the request headers
+     * @param account the authenticated account id, null if not authenticated
+     * @return the stored response matching the request, or null
+     */
+    public synchronized Entry lookup(final String url, final HeaderMap requestHeaders, final String account) {
+        final var variants = entries.get(url);
+
+        if (variants == null) {
+            return null;
+        }
+
+        for (var e : variants) {
+            if (e.matches(requestHeaders, account)) {
+                return e;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * stores the response, replacing the stored variant for the same request if any
+     *
+     * @param url the request URL
+     * @param entry the response
+     */
+    public synchronized void store(final String url, final Entry entry) {
+        if (entry.size() > maxEntrySize || entry.size() > maxSize) {
+            return;
+        }
+
+        final var variants = entries.computeIfAbsent(url, k -> new ArrayList<>(1));
+
+        for (final Iterator<Entry> it = variants.iterator(); it.hasNext();) {
+            final var e = it.next();
+            if (e.sameVariant(entry)) {
+                it.remove();
+                size -= e.size();
+            }
+        }
+
+        variants.add(entry);
+        size += entry.size();
+
+        evict();
+    }
+
+    /**
+     * removes all the variants stored for the URL
+     *
+     * @param url the request URL
+     */
+    public synchronized void invalidate(final String url) {
+        final var variants = entries.remove(url);
+
+        if (variants != null) {
+            variants.forEach(e -> size -= e.size());
+        }
+    }
+
+    /**
+     * @return the total size of the stored responses in bytes
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void evict() {
+        final var it = entries.entrySet().iterator();
+
+        while (size > maxSize && it.hasNext()) {
+            final var lru = it.next();
+            lru.getValue().forEach(e -> size -= e.size());
+            it.remove();
+        }
+    }
+
+    /**
+     * A stored response.
+     *
+     * @param status the status code
+     * @param headers the response headers, excluding hop-by-hop headers
+     * @param body the response body
+     * @param storedAt the time the response was received or revalidated, in epoch millis
+     * @param freshUntil the time the response becomes stale, in epoch millis
+     * @param vary the request header names the response varies on
+     * @param varyValues the values of the vary request headers
+     * @param account the account the response is stored for, null if not authenticated
+     */
+    public record Entry(int status,
+            List<Map.Entry<HttpString, String>> headers,
+            byte[] body,
+            long storedAt,
+            long freshUntil,
+            List<HttpString> vary,
+            List<String> varyValues,
+            String account) {
+
+        /**
+         * @param now the current time in epoch millis
+         * @return true if the response can be served without revalidation
+         */
+        public boolean isFresh(final long now) {
+            return now < freshUntil;
+        }
+
+        /**
+         * @param now the current time in epoch millis
+         * @return the age of the response in seconds
+         */
+        public long age(final long now) {
+            return Math.max(0, (now - storedAt) / 1_000);
+        }
+
+        /**
+         * @return the ETag header, or null
+         */
+        public String etag() {
+            return header(Headers.ETAG);
+        }
+
+        /**
+         * @return the Last-Modified header, or null
+         */
+        public String lastModified() {
+            return header(Headers.LAST_MODIFIED);
+        }
+
+        /**
+         * @param name the header name
+         * @return the first value of the header, or null
+         */
+        public String header(final HttpString name) {
+            return headers.stream().filter(h -> h.getKey().equals(name)).map(Map.Entry::getValue).findFirst().orElse(null);
+        }
+
+        /**
+         * @return the size of the response in bytes, approximated for the headers
+         */
+        public long size() {
+            return body.length + headers.stream().mapToLong(h -> h.getKey().length() + h.getValue().length() + 4).sum();
+        }
+
+        /**
+         * @param validationHeaders the headers of the 304 response of the revalidation
+         * @param now the current time in epoch millis
+         * @return this response, updated with the headers and the freshness of the 304 response
+         */
+        public Entry revalidated(final HeaderMap validationHeaders, final long now) {
+            final var updated = new ArrayList<Map.Entry<HttpString, String>>(headers.size());
+
+            for (var h : headers) {
+                if (!validationHeaders.contains(h.getKey())) {
+                    updated.add(h);
+                }
+            }
+
+            for (var hv : validationHeaders) {
+                if (!Headers.CONTENT_LENGTH.equals(hv.getHeaderName()) && !isUnstorableHeader(hv.getHeaderName())) {
+                    hv.forEach(v -> updated.add(Map.entry(hv.getHeaderName(), v)));
+                }
+            }
+
+            final var cc = CacheControl.parse(validationHeaders.get(Headers.CACHE_CONTROL));
+            final var freshness = cc.freshness(validationHeaders, now);
+
+            return new Entry(status, updated, body, now, freshness < 0 ? freshUntil - storedAt + now : now + freshness, vary, varyValues, account);
+        }
+
+        boolean matches(final HeaderMap requestHeaders, final String account) {
+            if (!Objects.equals(this.account, account)) {
+                return false;
+            }
+
+            for (var i = 0; i < vary.size(); i++) {
+                if (!Objects.equals(varyValues.get(i), joined(requestHeaders.get(vary.get(i))))) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        boolean sameVariant(final Entry other) {
+            return Objects.equals(account, other.account) && vary.equals(other.vary) && varyValues.equals(other.varyValues);
+        }
+    }
+
+    /**
+     * @param values the header values
+     * @return the values joined with commas, or null if there are no values
+     */
+    static String joined(final HeaderValues values) {
+        return values == null || values.isEmpty() ? null : String.join(",", values);
+    }
+
+    /**
+     * @param name the header name
+     * @return true if the header must not be stored, e.g. hop-by-hop headers
+     */
+    static boolean isUnstorableHeader(final HttpString name) {
+        return Headers.CONNECTION.equals(name)
+            || Headers.KEEP_ALIVE.equals(name)
+            || Headers.TRANSFER_ENCODING.equals(name)
+            || Headers.UPGRADE.equals(name)
+            || Headers.PROXY_AUTHENTICATE.equals(name)
+            || Headers.TE.equals(name)
+            || Headers.TRAILER.equals(name)
+            || Headers.SET_COOKIE.equals(name);
+    }
+
+    /**
+     * The directives of a Cache-Control header relevant for the cache.
+     *
+     * @param noStore the no-store directive
+     * @param noCache the no-cache directive
+     * @param isPrivate the private directive
+     * @param isPublic the public directive
+     * @param mustRevalidate the must-revalidate or proxy-revalidate directive
+     * @param maxAge the max-age directive in seconds, -1 if missing
+     * @param sMaxAge the s-maxage directive in seconds, -1 if missing
+     */
+    public record CacheControl(boolean noStore, boolean noCache, boolean isPrivate, boolean isPublic, boolean mustRevalidate, long maxAge, long sMaxAge) {
+        private static final CacheControl EMPTY = new CacheControl(false, false, false, false, false, -1, -1);
+
+        /**
+         * @param values the values of the Cache-Control header, can be null
+         * @return the parsed directives
+         */
+        public static CacheControl parse(final HeaderValues values) {
+            if (values == null || values.isEmpty()) {
+                return EMPTY;
+            }
+
+            boolean noStore = false, noCache = false, isPrivate = false, isPublic = false, mustRevalidate = false;
+            long maxAge = -1, sMaxAge = -1;
+
+            for (var value : values) {
+                for (var directive : value.split(",")) {
+                    final var d = directive.strip().toLowerCase(Locale.ROOT);
+
+                    if (d.equals("no-store")) {
+                        noStore = true;
+                    } else if (d.startsWith("no-cache")) {
+                        noCache = true;
+                    } else if (d.startsWith("private")) {
+                        isPrivate = true;
+                    } else if (d.equals("public")) {
+                        isPublic = true;
+                    } else if (d.equals("must-revalidate") || d.equals("proxy-revalidate")) {
+                        mustRevalidate = true;
+                    } else if (d.startsWith("max-age=")) {
+                        maxAge = seconds(d.substring(8));
+                    } else if (d.startsWith("s-maxage=")) {
+                        sMaxAge = seconds(d.substring(9));
+                    }
+                }
+            }
+
+            return new CacheControl(noStore, noCache, isPrivate, isPublic, mustRevalidate, maxAge, sMaxAge);
+        }
+
+        /**
+         * @param responseHeaders the response headers
+         * @param now the current time in epoch millis
+         * @return the freshness lifetime of the response in millis, -1 if not specified
+         */
+        public long freshness(final HeaderMap responseHeaders, final long now) {
+            if (noCache) {
+                return 0;
+            } else if (sMaxAge >= 0) {
+                return sMaxAge * 1_000;
+            } else if (maxAge >= 0) {
+                return maxAge * 1_000;
+            }
+
+            final var expires = responseHeaders.getFirst(Headers.EXPIRES);
+
+            if (expires != null) {
+                final var date = DateUtils.parseDate(expires);
+                // an invalid date, e.g. "0", means already expired
+                return date == null ? 0 : Math.max(0, date.getTime() - now);
+            }
+
+            return -1;
+        }
+
+        private static long seconds(final String value) {
+            try {
+                return Long.parseLong(value.replace("\"", "").strip());
+            } catch (final NumberFormatException nfe) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,562 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.restheart.configuration.ProxiedResource;
+import org.restheart.exchange.Request;
+import org.restheart.handlers.ProxyResponseCache.CacheControl;
+import org.restheart.handlers.ProxyResponseCache.Entry;
+import org.restheart.utils.ThreadsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSourceChannel;
+import org.xnio.conduits.AbstractStreamSinkConduit;
+import org.xnio.conduits.ConduitWritableByteChannel;
+import org.xnio.conduits.Conduits;
+import org.xnio.conduits.StreamSinkConduit;
+
+import io.undertow.server.ConduitWrapper;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.ConduitFactory;
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+import io.undertow.util.Methods;
+import io.undertow.util.SameThreadExecutor;
+
+/**
+ * Caches the responses of a proxied resource following the HTTP caching
+ * semantics.
+ * <p>
+ * It must be placed after the security handler, so that every request is
+ * authorized even when served from the cache. GET responses with status 200
+ * are stored unless marked {@code no-store} or {@code private}, and only if
+ * they have an explicit freshness ({@code Cache-Control: max-age/s-maxage} or
+ * {@code Expires}) or a validator ({@code ETag} or {@code Last-Modified}).
+ * Stale responses are revalidated with a conditional request to the backend.
+ * Responses are only served to the account that received them, also when
+ * marked {@code public}, since the response interceptors might depend on it.
+ * <p>
+ * Concurrent misses for the same resource are coalesced: only the first
+ * request goes to the backend, the others wait for its response up to
+ * {@code coalescing-timeout}. The waiting exchanges are dispatched and do not
+ * hold a thread; they are resumed on a virtual thread. Unsafe requests (POST, PUT, PATCH, DELETE)
+ * invalidate the stored responses of their URL.
+ * <p>
+ * The stored response is the one sent to the client, i.e. after the response
+ * interceptors; responses served from the cache do not execute them again.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ProxyResponseCacheHandler extends PipelinedHandler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProxyResponseCacheHandler.class);
+    private static final Executor VIRTUAL_THREADS_EXECUTOR = ThreadsUtils.virtualThreadsExecutor();
+
+    /**
+     * response header reporting HIT, MISS or REVALIDATED
+     */
+    public static final HttpString X_CACHE = HttpString.tryFromString("X-Cache");
+
+    private final ProxyResponseCache cache;
+    private final long coalescingTimeout;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance of ProxyResponseCacheHandler
+     *
+     * @param conf the response cache configuration
+     */
+    public ProxyResponseCacheHandler(final ProxiedResource.ResponseCache conf) {
+        this(null, conf);
+    }
+
+    /**
+     * Creates a new instance of ProxyResponseCacheHandler
+     *
+     * @param next
+     * @param conf the response cache configuration
+     */
+    public ProxyResponseCacheHandler(final PipelinedHandler next, final ProxiedResource.ResponseCache conf) {
+        super(next);
+        this.cache = new ProxyResponseCache(conf.maxSize(), conf.maxEntrySize());
+        this.coalescingTimeout = conf.coalescingTimeout();
+    }
+
+    /**
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    @Override
+    public void handleRequest(final HttpServerExchange exchange) throws Exception {
+        final var method = exchange.getRequestMethod();
+        final var url = url(exchange);
+
+        if (!Methods.GET.equals(method) && !Methods.HEAD.equals(method)) {
+            if (!Methods.OPTIONS.equals(method) && !Methods.TRACE.equals(method)) {
+                // unsafe methods invalidate the stored responses, see RFC 9111 section 4.4
+                cache.invalidate(url);
+            }
+
+            next(exchange);
+            return;
+        }
+
+        final var requestHeaders = exchange.getRequestHeaders();
+        final var requestCC = CacheControl.parse(requestHeaders.get(Headers.CACHE_CONTROL));
+
+        if (requestCC.noStore()) {
+            next(exchange);
+            return;
+        }
+
+        final var isGet = Methods.GET.equals(method);
+        final var account = account(exchange);
+        final var clientConditional = requestHeaders.contains(Headers.IF_NONE_MATCH) || requestHeaders.contains(Headers.IF_MODIFIED_SINCE);
+
+        var entry = cache.lookup(url, requestHeaders, account);
+
+        if (entry != null && usable(entry, requestCC, System.currentTimeMillis())) {
+            serve(exchange, entry);
+            return;
+        }
+
+        if (entry == null && isGet && !clientConditional && coalescingTimeout > 0) {
+            final var flightKey = account == null ? url : url.concat(" ").concat(account);
+            final var flight = new CompletableFuture<Void>();
+            final var leader = inFlight.putIfAbsent(flightKey, flight);
+
+            if (leader == null) {
+                exchange.addExchangeCompleteListener((completeExchange, nextListener) -> {
+                    inFlight.remove(flightKey, flight);
+                    flight.complete(null);
+                    nextListener.proceed();
+                });
+            } else {
+                // wait for the concurrent identical request to get the response without holding a thread:
+                // the exchange is dispatched and resumed when the leader completes or the timeout expires
+                exchange.dispatch(SameThreadExecutor.INSTANCE, () -> leader.copy()
+                    .completeOnTimeout(null, coalescingTimeout, TimeUnit.MILLISECONDS)
+                    .whenComplete((result, error) -> exchange.dispatch(VIRTUAL_THREADS_EXECUTOR,
+                        (HttpServerExchange resumed) -> afterCoalescedRequest(resumed, url, account, requestCC))));
+                return;
+            }
+        }
+
+        forward(exchange, entry, url, account, isGet, clientConditional);
+    }
+
+    /**
+     * Serves the response stored by the concurrent identical request, or
+     * forwards the request to the backend if it is not available.
+     */
+    private void afterCoalescedRequest(final HttpServerExchange exchange, final String url, final String account, final CacheControl requestCC) throws Exception {
+        final var entry = cache.lookup(url, exchange.getRequestHeaders(), account);
+
+        if (entry != null && usable(entry, requestCC, System.currentTimeMillis())) {
+            serve(exchange, entry);
+        } else {
+            LOGGER.debug("coalesced request for {} not completed, forwarding to backend", url);
+            forward(exchange, entry, url, account, true, false);
+        }
+    }
+
+    /**
+     * Forwards the request to the backend, revalidating the stale stored
+     * response if any, and captures the response to store it.
+     */
+    private void forward(final HttpServerExchange exchange, final Entry entry, final String url, final String account, final boolean isGet, final boolean clientConditional) throws Exception {
+        final var requestHeaders = exchange.getRequestHeaders();
+        final Entry revalidating;
+
+        if (entry != null && isGet && !clientConditional && (entry.etag() != null || entry.lastModified() != null)) {
+            revalidating = entry;
+
+            if (entry.etag() != null) {
+                requestHeaders.put(Headers.IF_NONE_MATCH, entry.etag());
+            }
+
+            if (entry.lastModified() != null) {
+                requestHeaders.put(Headers.IF_MODIFIED_SINCE, entry.lastModified());
+            }
+        } else {
+            revalidating = null;
+        }
+
+        if (isGet) {
+            // added before the ConduitInjector's wrapper, so it gets the content after the response interceptors
+            exchange.addResponseWrapper((ConduitWrapper<StreamSinkConduit>) (factory, cexchange) -> wrap(factory, cexchange, url, account, revalidating));
+        }
+
+        next(exchange);
+    }
+
+    private StreamSinkConduit wrap(final ConduitFactory<StreamSinkConduit> factory, final HttpServerExchange exchange, final String url, final String account, final Entry revalidating) {
+        final var status = exchange.getStatusCode();
+        final var responseHeaders = exchange.getResponseHeaders();
+
+        if (revalidating != null && status == 304) {
+            // the backend confirmed the stored response, that is sent to the client that did not ask for a 304
+            final var refreshed = revalidating.revalidated(responseHeaders, System.currentTimeMillis());
+            cache.store(url, refreshed);
+
+            responseHeaders.clear();
+            refreshed.headers().forEach(h -> responseHeaders.add(h.getKey(), h.getValue()));
+            responseHeaders.put(Headers.CONTENT_LENGTH, refreshed.body().length);
+            responseHeaders.put(X_CACHE, "REVALIDATED");
+            exchange.setStatusCode(refreshed.status());
+
+            return new StoredBodySinkConduit(factory.create(), exchange, refreshed.body());
+        }
+
+        if (status == 200 && storable(responseHeaders)) {
+            responseHeaders.put(X_CACHE, "MISS");
+            return new CapturingSinkConduit(factory.create(), exchange, url, account);
+        }
+
+        return factory.create();
+    }
+
+    private boolean storable(final HeaderMap responseHeaders) {
+        final var cc = CacheControl.parse(responseHeaders.get(Headers.CACHE_CONTROL));
+
+        if (cc.noStore() || cc.isPrivate()) {
+            return false;
+        }
+
+        final var vary = responseHeaders.get(Headers.VARY);
+
+        if (vary != null && vary.stream().anyMatch(v -> v.contains("*"))) {
+            return false;
+        }
+
+        final var contentLength = responseHeaders.getFirst(Headers.CONTENT_LENGTH);
+
+        if (contentLength != null) {
+            try {
+                if (Long.parseLong(contentLength) > cache.maxEntrySize()) {
+                    return false;
+                }
+            } catch (NumberFormatException nfe) {
+                return false;
+            }
+        }
+
+        return cc.freshness(responseHeaders, System.currentTimeMillis()) > 0
+            || responseHeaders.contains(Headers.ETAG)
+            || responseHeaders.contains(Headers.LAST_MODIFIED);
+    }
+
+    private Entry entry(final HttpServerExchange exchange, final String account, final byte[] body) {
+        final var now = System.currentTimeMillis();
+        final var responseHeaders = exchange.getResponseHeaders();
+        final var cc = CacheControl.parse(responseHeaders.get(Headers.CACHE_CONTROL));
+        final var freshness = cc.freshness(responseHeaders, now);
+
+        final List<HttpString> vary = new ArrayList<>();
+        final var _vary = responseHeaders.get(Headers.VARY);
+
+        if (_vary != null) {
+            _vary.forEach(v -> {
+                for (var name : v.split(",")) {
+                    if (!name.isBlank()) {
+                        vary.add(HttpString.tryFromString(name.strip()));
+                    }
+                }
+            });
+        }
+
+        // a body encoded by the backend depends on the accepted encodings, even if the backend does not declare it
+        final var contentEncoding = responseHeaders.getFirst(Headers.CONTENT_ENCODING);
+        if (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding) && !vary.contains(Headers.ACCEPT_ENCODING)) {
+            vary.add(Headers.ACCEPT_ENCODING);
+        }
+
+        final var varyValues = vary.stream().map(name -> ProxyResponseCache.joined(exchange.getRequestHeaders().get(name))).toList();
+
+        final var headers = new ArrayList<Map.Entry<HttpString, String>>();
+
+        for (var hv : responseHeaders) {
+            final var name = hv.getHeaderName();
+
+            if (!ProxyResponseCache.isUnstorableHeader(name)
+                    && !Headers.CONTENT_LENGTH.equals(name)
+                    && !Headers.AGE.equals(name)
+                    && !X_CACHE.equals(name)) {
+                hv.forEach(v -> headers.add(Map.entry(name, v)));
+            }
+        }
+
+        return new Entry(exchange.getStatusCode(), headers, body, now, now + Math.max(0, freshness),
+                vary, varyValues, account);
+    }
+
+    private static boolean usable(final Entry entry, final CacheControl requestCC, final long now) {
+        return !requestCC.noCache()
+            && entry.isFresh(now)
+            && (requestCC.maxAge() < 0 || entry.age(now) <= requestCC.maxAge());
+    }
+
+    private static void serve(final HttpServerExchange exchange, final Entry entry) {
+        final var now = System.currentTimeMillis();
+        final var responseHeaders = exchange.getResponseHeaders();
+
+        entry.headers().stream().map(Map.Entry::getKey).distinct().forEach(responseHeaders::remove);
+        entry.headers().forEach(h -> responseHeaders.add(h.getKey(), h.getValue()));
+        responseHeaders.put(Headers.AGE, entry.age(now));
+        responseHeaders.put(X_CACHE, "HIT");
+
+        final var ifNoneMatch = exchange.getRequestHeaders().get(Headers.IF_NONE_MATCH);
+
+        if (ifNoneMatch != null && entry.etag() != null && etagMatches(ifNoneMatch, entry.etag())) {
+            exchange.setStatusCode(304);
+            exchange.endExchange();
+            return;
+        }
+
+        exchange.setStatusCode(entry.status());
+        responseHeaders.put(Headers.CONTENT_LENGTH, entry.body().length);
+
+        if (Methods.HEAD.equals(exchange.getRequestMethod())) {
+            exchange.endExchange();
+        } else {
+            exchange.getResponseSender().send(ByteBuffer.wrap(entry.body()));
+        }
+    }
+
+    /**
+     * weak comparison of the If-None-Match values with the etag, see RFC 9110 section 13.1.2
+     */
+    private static boolean etagMatches(final Iterable<String> ifNoneMatch, final String etag) {
+        final var _etag = opaque(etag);
+
+        for (var value : ifNoneMatch) {
+            for (var tag : value.split(",")) {
+                final var _tag = tag.strip();
+
+                if ("*".equals(_tag) || opaque(_tag).equals(_etag)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static String opaque(final String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String url(final HttpServerExchange exchange) {
+        final var qs = exchange.getQueryString();
+        return qs == null || qs.isEmpty() ? exchange.getRequestPath() : exchange.getRequestPath().concat("?").concat(qs);
+    }
+
+    private static String account(final HttpServerExchange exchange) {
+        final var account = Request.of(exchange).getAuthenticatedAccount();
+
+        return account == null || account.getPrincipal() == null ? null : account.getPrincipal().getName();
+    }
+
+    /**
+     * Passes the response through and copies it, storing it in the cache
+     * when completed. Stops copying when the response exceeds max-entry-size.
+     */
+    class CapturingSinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        private final HttpServerExchange exchange;
+        private final String url;
+        private final String account;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingSinkConduit(final StreamSinkConduit next, final HttpServerExchange exchange, final String url, final String account) {
+            super(next);
+            this.exchange = exchange;
+            this.url = url;
+            this.account = account;
+        }
+
+        StreamSinkConduit delegate() {
+            return next;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            final var start = src.position();
+            final var written = next.write(src);
+
+            if (copy != null && written > 0) {
+                if (copy.size() + written > cache.maxEntrySize()) {
+                    copy = null;
+                } else {
+                    final var dup = src.duplicate();
+                    dup.position(start).limit(start + written);
+                    final var bytes = new byte[written];
+                    dup.get(bytes);
+                    copy.write(bytes, 0, written);
+                }
+            }
+
+            return written;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offs, final int len) throws IOException {
+            long written = 0;
+
+            for (var i = offs; i < offs + len; i++) {
+                final var remaining = srcs[i].remaining();
+                final var n = write(srcs[i]);
+                written += n;
+
+                if (n < remaining) {
+                    break;
+                }
+            }
+
+            return written;
+        }
+
+        @Override
+        public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
+            return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public int writeFinal(final ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offset, length);
+        }
+
+        @Override
+        public void terminateWrites() throws IOException {
+            next.terminateWrites();
+
+            if (copy != null && exchange.getStatusCode() == 200) {
+                cache.store(url, entry(exchange, account, copy.toByteArray()));
+                copy = null;
+            }
+        }
+    }
+
+    /**
+     * Discards the (empty) body of the 304 response of a revalidation and
+     * writes the stored body instead.
+     * <p>
+     * The stored body is written by {@code flush()}, that the channel calls
+     * after {@code terminateWrites()} until it returns true, resuming when the
+     * connection is writable; so it never blocks the IO thread.
+     */
+    static class StoredBodySinkConduit extends AbstractStreamSinkConduit<StreamSinkConduit> {
+        private final HttpServerExchange exchange;
+        private final byte[] body;
+        private ByteBuffer pending = null;
+        private boolean terminated = false;
+
+        StoredBodySinkConduit(final StreamSinkConduit next, final HttpServerExchange exchange, final byte[] body) {
+            super(next);
+            this.exchange = exchange;
+            this.body = body;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            final var discarded = src.remaining();
+            src.position(src.limit());
+            return discarded;
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offs, final int len) throws IOException {
+            long discarded = 0;
+
+            for (var i = offs; i < offs + len; i++) {
+                discarded += write(srcs[i]);
+            }
+
+            return discarded;
+        }
+
+        @Override
+        public long transferFrom(final FileChannel src, final long position, final long count) throws IOException {
+            return src.transferTo(position, count, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public long transferFrom(final StreamSourceChannel source, final long count, final ByteBuffer throughBuffer) throws IOException {
+            return IoUtils.transfer(source, count, throughBuffer, new ConduitWritableByteChannel(this));
+        }
+
+        @Override
+        public int writeFinal(final ByteBuffer src) throws IOException {
+            return Conduits.writeFinalBasic(this, src);
+        }
+
+        @Override
+        public long writeFinal(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+            return Conduits.writeFinalBasic(this, srcs, offset, length);
+        }
+
+        @Override
+        public void terminateWrites() throws IOException {
+            // response interceptors might have reset it to the length of the 304 body
+            exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, body.length);
+            this.pending = ByteBuffer.wrap(body);
+        }
+
+        @Override
+        public boolean flush() throws IOException {
+            if (pending != null && !terminated) {
+                while (pending.hasRemaining()) {
+                    if (next.write(pending) == 0) {
+                        return false;
+                    }
+                }
+
+                next.terminateWrites();
+                terminated = true;
+            }
+
+            return next.flush();
+        }
+    }
+}
@@ -80,11 +80,8 @@ public class ResponseSender extends PipelinedHandler {
                     // use the custom sender if it has been set
                     response.getCustomSender().run();
                 } else {
-                    var content = response.readContent();
-                    if (content != null) {
-                        // send the content via default exchange response sender
-                        exchange.getResponseSender().send(content);
-                    }
+                    // send the content via default exchange response sender
+                    response.sendContent();
                 }
             }
         } else if (pi.getType() == PipelineInfo.PIPELINE_TYPE.PROXY) {
@@ -47,6 +47,7 @@ public class HttpServerExchange extends AbstractAttachable {
     private String relativePath;
     private HttpString requestMethod;
     private Map<String, Deque<String>> queryParameters;
+    private final HeaderMap responseHeaders = new HeaderMap();
 
     public HttpServerExchange() {
     }
@@ -154,6 +155,10 @@ public class HttpServerExchange extends AbstractAttachable {
         return null;
     }
 
+    public HeaderMap getResponseHeaders() {
+        return responseHeaders;
+    }
+
     public SecurityContext getSecurityContext() {
         return null;
     }
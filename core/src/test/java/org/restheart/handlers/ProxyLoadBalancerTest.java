@@ -0,0 +1,97 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.restheart.configuration.ProxiedResource;
+import org.restheart.handlers.ProxyLoadBalancer.Backend;
+import org.restheart.handlers.ProxyLoadBalancer.Policy;
+
+/**
+ * Unit tests for ProxyLoadBalancer
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ProxyLoadBalancerTest {
+
+    @Test
+    void testPolicy() {
+        assertEquals(Policy.ROUND_ROBIN, Policy.of(null));
+        assertEquals(Policy.ROUND_ROBIN, Policy.of("round-robin"));
+        assertEquals(Policy.LEAST_OUTSTANDING, Policy.of("least-outstanding"));
+        assertEquals(Policy.EWMA, Policy.of("EWMA"));
+        assertEquals(Policy.ROUND_ROBIN, Policy.of("random"));
+    }
+
+    @Test
+    void testBalancerOnlyWhenConfigured() {
+        var plain = new ProxiedResource(Map.of("location", "/a", "proxy-pass", "http://localhost:8080"), true);
+        assertNull(ProxyLoadBalancer.of(plain));
+
+        var ewma = new ProxiedResource(Map.of("location", "/a", "proxy-pass", "http://localhost:8080",
+            "load-balancing-policy", "ewma"), true);
+        assertNotNull(ProxyLoadBalancer.of(ewma));
+
+        var checked = new ProxiedResource(Map.of("location", "/a", "proxy-pass", "http://localhost:8080",
+            "health-check", Map.of("path", "/health")), true);
+        assertNotNull(ProxyLoadBalancer.of(checked));
+        assertTrue(checked.healthCheck().enabled());
+        assertEquals("/health", checked.healthCheck().path());
+        assertFalse(checked.outlierDetection().enabled());
+    }
+
+    @Test
+    void testLatencyMovingAverage() {
+        var backend = new Backend(URI.create("http://localhost:8080"), null);
+        assertEquals(0d, backend.latency());
+
+        backend.sample(10_000_000); // 10 ms
+        assertEquals(10d, backend.latency(), 0.001);
+
+        backend.sample(20_000_000); // 20 ms
+        assertEquals(10d + ProxyLoadBalancer.EWMA_ALPHA * 10d, backend.latency(), 0.001);
+    }
+
+    @Test
+    void testHealthThresholds() {
+        var backend = new Backend(URI.create("http://localhost:8080"), null);
+
+        assertFalse(backend.probed(false, 3, 2));
+        assertFalse(backend.probed(false, 3, 2));
+        assertTrue(backend.healthy);
+        assertTrue(backend.probed(false, 3, 2));
+        assertFalse(backend.healthy);
+
+        assertFalse(backend.probed(true, 3, 2));
+        assertFalse(backend.healthy);
+        assertTrue(backend.probed(true, 3, 2));
+        assertTrue(backend.healthy);
+    }
+}
@@ -0,0 +1,96 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.xnio.conduits.StreamSinkConduit;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+
+/**
+ * Unit tests for ProxyResponseCacheHandler
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ProxyResponseCacheHandlerTest {
+
+    @Test
+    void testStoredBodyIsWrittenWithoutBlocking() throws Exception {
+        var body = "stored body".getBytes();
+        var written = new ByteArrayOutputStream();
+        var writable = new AtomicBoolean(false);
+
+        var next = mock(StreamSinkConduit.class);
+        when(next.write(any(ByteBuffer.class))).thenAnswer(invocation -> {
+            if (!writable.get()) {
+                return 0;
+            }
+
+            var src = (ByteBuffer) invocation.getArgument(0);
+            var n = src.remaining();
+            var bytes = new byte[n];
+            src.get(bytes);
+            written.write(bytes);
+            return n;
+        });
+        when(next.flush()).thenReturn(true);
+
+        var exchange = new HttpServerExchange();
+        exchange.getResponseHeaders().put(Headers.CONTENT_LENGTH, 0);
+
+        var conduit = new ProxyResponseCacheHandler.StoredBodySinkConduit(next, exchange, body);
+
+        // the empty body of the 304 response is discarded
+        assertEquals(0, conduit.write(ByteBuffer.allocate(0)));
+        conduit.terminateWrites();
+        assertEquals(String.valueOf(body.length), exchange.getResponseHeaders().getFirst(Headers.CONTENT_LENGTH));
+
+        // the connection is not writable: flush returns instead of waiting
+        assertFalse(conduit.flush());
+        verify(next, never()).awaitWritable();
+        verify(next, never()).terminateWrites();
+
+        writable.set(true);
+
+        assertTrue(conduit.flush());
+        assertArrayEquals(body, written.toByteArray());
+        verify(next).terminateWrites();
+
+        // further flushes do not terminate the writes again
+        assertTrue(conduit.flush());
+        verify(next).terminateWrites();
+    }
+}
@@ -0,0 +1,147 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-core
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.handlers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.restheart.handlers.ProxyResponseCache.CacheControl;
+import org.restheart.handlers.ProxyResponseCache.Entry;
+
+import io.undertow.util.HeaderMap;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+
+/**
+ * Unit tests for ProxyResponseCache
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ProxyResponseCacheTest {
+
+    private static Entry entry(byte[] body, List<HttpString> vary, List<String> varyValues, String account) {
+        return new Entry(200, List.of(Map.entry(Headers.ETAG, "\"v1\"")), body, 0, 60_000, vary, varyValues, account);
+    }
+
+    @Test
+    void testCacheControlParsing() {
+        var headers = new HeaderMap();
+        headers.add(Headers.CACHE_CONTROL, "public, max-age=60, s-maxage=\"120\"");
+
+        var cc = CacheControl.parse(headers.get(Headers.CACHE_CONTROL));
+
+        assertTrue(cc.isPublic());
+        assertFalse(cc.noStore());
+        assertEquals(60, cc.maxAge());
+        assertEquals(120, cc.sMaxAge());
+        // s-maxage takes precedence for shared caches
+        assertEquals(120_000, cc.freshness(headers, 0));
+    }
+
+    @Test
+    void testNoCacheMeansZeroFreshness() {
+        var headers = new HeaderMap();
+        headers.add(Headers.CACHE_CONTROL, "no-cache, max-age=60");
+
+        assertEquals(0, CacheControl.parse(headers.get(Headers.CACHE_CONTROL)).freshness(headers, 0));
+        assertEquals(-1, CacheControl.parse(null).freshness(new HeaderMap(), 0));
+    }
+
+    @Test
+    void testVariantsAreSelectedByVaryHeaders() {
+        var cache = new ProxyResponseCache(10_000, 1_000);
+
+        cache.store("/api", entry("json".getBytes(), List.of(Headers.ACCEPT), List.of("application/json"), null));
+        cache.store("/api", entry("xml".getBytes(), List.of(Headers.ACCEPT), List.of("application/xml"), null));
+
+        var req = new HeaderMap();
+        req.add(Headers.ACCEPT, "application/xml");
+
+        var hit = cache.lookup("/api", req, null);
+        assertNotNull(hit);
+        assertEquals("xml", new String(hit.body()));
+
+        req.put(Headers.ACCEPT, "text/plain");
+        assertNull(cache.lookup("/api", req, null));
+    }
+
+    @Test
+    void testPrivateEntriesAreServedOnlyToTheirAccount() {
+        var cache = new ProxyResponseCache(10_000, 1_000);
+
+        cache.store("/me", entry("alice".getBytes(), List.of(), List.of(), "alice"));
+
+        assertNotNull(cache.lookup("/me", new HeaderMap(), "alice"));
+        assertNull(cache.lookup("/me", new HeaderMap(), "bob"));
+        assertNull(cache.lookup("/me", new HeaderMap(), null));
+    }
+
+    @Test
+    void testAnonymousEntriesAreNotServedToAccounts() {
+        var cache = new ProxyResponseCache(10_000, 1_000);
+
+        cache.store("/public", entry("anonymous".getBytes(), List.of(), List.of(), null));
+
+        assertNotNull(cache.lookup("/public", new HeaderMap(), null));
+        assertNull(cache.lookup("/public", new HeaderMap(), "alice"));
+    }
+
+    @Test
+    void testSizeIsBounded() {
+        var cache = new ProxyResponseCache(1_000, 500);
+
+        for (var i = 0; i < 10; i++) {
+            cache.store("/r" + i, entry(new byte[300], List.of(), List.of(), null));
+        }
+
+        assertTrue(cache.size() <= 1_000);
+        // least recently used evicted first
+        assertNull(cache.lookup("/r0", new HeaderMap(), null));
+        assertNotNull(cache.lookup("/r9", new HeaderMap(), null));
+
+        // too big to be stored
+        cache.store("/big", entry(new byte[600], List.of(), List.of(), null));
+        assertNull(cache.lookup("/big", new HeaderMap(), null));
+    }
+
+    @Test
+    void testRevalidationRefreshesFreshness() {
+        var stale = entry("body".getBytes(), List.of(), List.of(), null);
+        var validation = new HeaderMap();
+        validation.add(Headers.CACHE_CONTROL, "max-age=10");
+        validation.add(Headers.ETAG, "\"v1\"");
+
+        var refreshed = stale.revalidated(validation, 100_000);
+
+        assertTrue(refreshed.isFresh(105_000));
+        assertFalse(refreshed.isFresh(110_000));
+        assertEquals("\"v1\"", refreshed.etag());
+        // the stored etag is replaced, cache-control is added
+        assertEquals(2, refreshed.headers().size());
+    }
+}
@@ -101,6 +101,13 @@ public class SlackNotifierInterceptor implements MongoInterceptor {
                         httpResponse.body(), httpResponse.statusCode());
     }
 
+    @Override
+    public boolean requiresNewData(MongoRequest request) {
+        return request.isPost() && request.isCollection()
+                && this.collection.equals(request.getCollectionName())
+                && this.db.equals(request.getDBName());
+    }
+
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return request.isPost() && request.isCollection()
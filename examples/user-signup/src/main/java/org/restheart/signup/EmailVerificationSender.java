@@ -79,6 +79,11 @@ public class EmailVerificationSender implements MongoInterceptor {
         send(to, vcode);
     }
 
+    @Override
+    public boolean requiresNewData(MongoRequest request) {
+        return request.isWriteDocument();
+    }
+
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return response.getDbOperationResult() != null && response.getDbOperationResult().getNewId() != null
@@ -157,6 +157,19 @@ public class GraphAppDefinitionPatchChecker implements MongoInterceptor {
         }
     }
 
+    @Override
+    public boolean requiresOldData(MongoRequest req) {
+        // rollback() restores the old document
+        String overrideGQLAppsDb = req.attachedParam("override-gql-apps-db");
+        var db = overrideGQLAppsDb == null ? this.defaultAppDefDb : overrideGQLAppsDb;
+
+        return enabled
+                && db.equals(req.getDBName())
+                && this.coll.equals(req.getCollectionName())
+                && req.isDocument()
+                && req.isPatch();
+    }
+
     @Override
     public boolean resolve(MongoRequest req, MongoResponse res) {
         String overrideGQLAppsDb = req.attachedParam("override-gql-apps-db");
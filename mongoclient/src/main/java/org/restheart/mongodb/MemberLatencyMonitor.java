@@ -0,0 +1,79 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongoclient-provider
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.restheart.metrics.MetricNameAndLabels;
+import org.restheart.metrics.Metrics;
+
+import com.codahale.metrics.Histogram;
+import com.mongodb.ServerAddress;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import com.mongodb.event.ServerHeartbeatSucceededEvent;
+import com.mongodb.event.ServerMonitorListener;
+
+/**
+ * Collects the latency of each member of the replica set, exposed by the
+ * metrics service:
+ *
+ * <ul>
+ * <li>GET /metrics/mongodb_member_rtt: the round trip time of the heartbeats, in milliseconds</li>
+ * <li>GET /metrics/mongodb_member_command_latency: the duration of the commands, in milliseconds</li>
+ * </ul>
+ *
+ * Both are labelled with the member address.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class MemberLatencyMonitor implements ServerMonitorListener, CommandListener {
+    static final String RTT_METRIC = "mongodb_member_rtt";
+    static final String COMMAND_LATENCY_METRIC = "mongodb_member_command_latency";
+
+    // the histograms are cached, since commandSucceeded is invoked for every command
+    private final ConcurrentHashMap<ServerAddress, Histogram> rtts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<ServerAddress, Histogram> commandLatencies = new ConcurrentHashMap<>();
+
+    @Override
+    public void serverHeartbeatSucceeded(ServerHeartbeatSucceededEvent event) {
+        histogram(rtts, RTT_METRIC, event.getConnectionId().getServerId().getAddress())
+            .update(event.getElapsedTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        histogram(commandLatencies, COMMAND_LATENCY_METRIC, event.getConnectionDescription().getServerAddress())
+            .update(event.getElapsedTime(TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        histogram(commandLatencies, COMMAND_LATENCY_METRIC, event.getConnectionDescription().getServerAddress())
+            .update(event.getElapsedTime(TimeUnit.MILLISECONDS));
+    }
+
+    private static Histogram histogram(ConcurrentHashMap<ServerAddress, Histogram> histograms, String metric, ServerAddress member) {
+        return histograms.computeIfAbsent(member, m -> Metrics.registerHistogram(MetricNameAndLabels.of(metric).label("member", m.toString())));
+    }
+}
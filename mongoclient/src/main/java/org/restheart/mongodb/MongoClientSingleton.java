@@ -111,12 +111,17 @@ public class MongoClientSingleton {
 
         BootstrapLogger.standalone(LOGGER, "Connecting to MongoDB...");
 
+        // collects the per member latency metrics
+        final var latencyMonitor = new MemberLatencyMonitor();
+
         // TODO add minSize and maxSize to configuration
         final var settings = MongoClientSettings.builder()
                 .applyToConnectionPoolSettings((final ConnectionPoolSettings.Builder builder) -> {
                     // default mongodb values: min=0 and max=100
                     builder.minSize(0).maxSize(128);
                 })
+                .applyToServerSettings(builder -> builder.addServerMonitorListener(latencyMonitor))
+                .addCommandListener(latencyMonitor)
                 .applicationName("restheart (sync)")
                 .applyConnectionString(mongoUri)
                 .build();
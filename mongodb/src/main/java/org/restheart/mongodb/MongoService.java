@@ -24,13 +24,17 @@ import static io.undertow.Handlers.path;
 import static io.undertow.Handlers.pathTemplate;
 import static io.undertow.util.Headers.ETAG_STRING;
 import static io.undertow.util.Headers.LOCATION_STRING;
+import static org.restheart.exchange.ExchangeKeys.LEAN_WRITES_METADATA_KEY;
 import static org.restheart.mongodb.MongoServiceConfigurationKeys.MONGO_MOUNT_WHAT_KEY;
 import static org.restheart.mongodb.MongoServiceConfigurationKeys.MONGO_MOUNT_WHERE_KEY;
 
 import java.util.LinkedHashSet;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.restheart.configuration.ConfigurationException;
 import org.restheart.exchange.BadRequestException;
@@ -44,10 +48,15 @@ import org.restheart.mongodb.handlers.ErrorHandler;
 import org.restheart.mongodb.handlers.RequestDispatcherHandler;
 import org.restheart.mongodb.handlers.injectors.ClientSessionInjector;
 import org.restheart.mongodb.handlers.injectors.ETagPolicyInjector;
+import org.restheart.mongodb.utils.ContinuationToken;
 import org.restheart.mongodb.utils.MongoMountResolverImpl;
 import org.restheart.mongodb.utils.MongoURLUtils;
 import org.restheart.plugins.Inject;
+import org.restheart.plugins.Interceptor;
+import org.restheart.plugins.InterceptPoint;
+import org.restheart.plugins.MongoInterceptor;
 import org.restheart.plugins.OnInit;
+import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.Service;
 import org.restheart.utils.BootstrapLogger;
@@ -87,6 +96,9 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
     @Inject("mclient")
     private MongoClient mclient;
 
+    @Inject("registry")
+    private PluginsRegistry registry;
+
     /**
      * PathMatcher is used by the root PathHandler to route the call. Here we
      * use the same logic to identify the correct MongoMount in order to
@@ -128,6 +140,28 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
         // see method javadoc for more information
         resetRelativePath(request);
 
+        if (request.isStreamingIngest()) {
+            var unsupporting = streamingIngestUnsupportedBy(Stream.concat(registry.getServiceInterceptors(this, InterceptPoint.REQUEST_BEFORE_AUTH).stream(),
+                    registry.getServiceInterceptors(this, InterceptPoint.REQUEST_AFTER_AUTH).stream()), request, response);
+
+            if (unsupporting.isPresent()) {
+                response.setInError(HttpStatus.SC_UNSUPPORTED_MEDIA_TYPE, "Streaming ingest is not supported by interceptor " + unsupporting.get() + ", send the documents as a JSON array");
+                return;
+            }
+        }
+
+        if (request.isWriteDocument()) {
+            if (!request.isOldDataRequired()) {
+                request.setOldDataRequired(anyInterceptorRequires(request, i -> i.requiresOldData(request)));
+            }
+
+            if (request.isOldDataRequired()) {
+                request.setLeanWrite(false);
+            } else if (request.isLeanWrite() || isLeanWritesCollection(request)) {
+                request.setLeanWrite(!anyInterceptorRequires(request, i -> i.requiresNewData(request)));
+            }
+        }
+
         if (mclient != null) {
             this.pipeline.handleRequest(request.getExchange());
         } else {
@@ -138,6 +172,67 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
         }
     }
 
+    /**
+     * @param request
+     * @param requirement
+     * @return true if a response interceptor declares the requirement
+     */
+    private boolean anyInterceptorRequires(MongoRequest request, Predicate<MongoInterceptor> requirement) {
+        return Stream.concat(registry.getServiceInterceptors(this, InterceptPoint.RESPONSE).stream(),
+                registry.getServiceInterceptors(this, InterceptPoint.RESPONSE_ASYNC).stream())
+                .filter(i -> i instanceof MongoInterceptor)
+                .map(i -> (MongoInterceptor) i)
+                .anyMatch(i -> {
+                    try {
+                        return requirement.test(i);
+                    } catch (Throwable t) {
+                        LOGGER.warn("Error checking the requirements of interceptor {}", i.getClass().getSimpleName(), t);
+                        return true;
+                    }
+                });
+    }
+
+    /**
+     * The documents of a streaming ingest are read after the request
+     * interceptors have been executed. To fail closed, the request is rejected
+     * if a request interceptor that resolves for it does not declare to
+     * support it, see {@link MongoInterceptor#supportsStreamingIngest(MongoRequest)}
+     *
+     * @param interceptors the request interceptors
+     * @param request
+     * @param response
+     * @return the name of the first interceptor that resolves for the request
+     * and does not support streaming ingest, or empty
+     */
+    static Optional<String> streamingIngestUnsupportedBy(Stream<? extends Interceptor<?, ?>> interceptors, MongoRequest request, MongoResponse response) {
+        return interceptors
+                .filter(i -> i instanceof MongoInterceptor)
+                .map(i -> (MongoInterceptor) i)
+                .filter(i -> {
+                    try {
+                        return i.resolve(request, response) && !i.supportsStreamingIngest(request);
+                    } catch (Throwable t) {
+                        LOGGER.warn("Error checking if interceptor {} supports streaming ingest", i.getClass().getSimpleName(), t);
+                        return true;
+                    }
+                })
+                .map(i -> i.getClass().getSimpleName())
+                .findFirst();
+    }
+
+    /**
+     * @param request
+     * @return true if the collection metadata enables the lean write mode
+     */
+    private static boolean isLeanWritesCollection(MongoRequest request) {
+        var collProps = request.getCollectionProps();
+
+        return collProps != null
+                && collProps.containsKey(LEAN_WRITES_METADATA_KEY)
+                && collProps.get(LEAN_WRITES_METADATA_KEY).isBoolean()
+                && collProps.get(LEAN_WRITES_METADATA_KEY).asBoolean().getValue();
+    }
+
     /**
      * getHandlersPipe
      *
@@ -366,6 +461,7 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
     }
 
     private final static String LOCATION_ETAG = LOCATION_STRING + ", " + ETAG_STRING;
+    private final static String ETAG_CONTINUATION_TOKEN = ETAG_STRING + ", " + ContinuationToken.HEADER;
 
     // Optimized: only non-CORS-safelisted headers
     // Note: Content-Type is safelisted only for form values, not for application/json
@@ -402,7 +498,10 @@ public class MongoService implements Service<MongoRequest, MongoResponse> {
         return switch (mr.getType()) {
             case ROOT -> "";
 
-            case COLLECTION, FILES_BUCKET, SCHEMA_STORE, SESSIONS, TRANSACTIONS ->
+            case COLLECTION ->
+                mr.isPost() ? LOCATION_ETAG : ETAG_CONTINUATION_TOKEN;
+
+            case FILES_BUCKET, SCHEMA_STORE, SESSIONS, TRANSACTIONS ->
                 mr.isPost() ? LOCATION_ETAG : ETAG_STRING;
 
             default -> ETAG_STRING;
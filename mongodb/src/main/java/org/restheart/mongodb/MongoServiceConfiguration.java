@@ -37,6 +37,10 @@ import java.util.Map;
 import org.restheart.configuration.ConfigurationException;
 import org.restheart.exchange.ExchangeKeys.ETAG_CHECK_POLICY;
 import org.restheart.exchange.ExchangeKeys.REPRESENTATION_FORMAT;
+import org.restheart.mongodb.db.ReadRouting;
+import org.restheart.mongodb.handlers.changestreams.EventBuffer;
+import org.restheart.mongodb.handlers.changestreams.SessionQueue;
+import org.restheart.mongodb.handlers.changestreams.SessionQueue.OverflowPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,7 +55,7 @@ public class MongoServiceConfiguration {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MongoServiceConfiguration.class);
 
-    private static MongoServiceConfiguration INSTANCE = null;
+    private static volatile MongoServiceConfiguration INSTANCE = null;
 
     /**
      * undertow connection options
@@ -75,6 +79,13 @@ public class MongoServiceConfiguration {
     private final int getCollectionCacheSize;
     private final int getCollectionCacheTTL;
     private final int getCollectionCacheDocs;
+    private final boolean countCacheEnabled;
+    private final int countCacheSize;
+    private final int countCacheTTL;
+    private final int countCacheAsyncMaxCounts;
+    private final long countCacheAsyncMaxTime;
+    private final boolean coalesceReads;
+    private final List<ReadRouting.Rule> readRoutingRules;
     private final ETAG_CHECK_POLICY dbEtagCheckPolicy;
     private final ETAG_CHECK_POLICY collEtagCheckPolicy;
     private final ETAG_CHECK_POLICY docEtagCheckPolicy;
@@ -86,6 +97,11 @@ public class MongoServiceConfiguration {
     private final int defaultPagesize;
     private final int maxPagesize;
     private final Map<String, Object> aggregationSecurityConfiguration;
+    private final int changeStreamsQueueSize;
+    private final OverflowPolicy changeStreamsOverflowPolicy;
+    private final int changeStreamsReplayBufferSize;
+    private final int bulkWriteChunkSize;
+    private final int bulkWriteMaxInFlight;
 
     public static MongoServiceConfiguration get() {
         return INSTANCE;
@@ -182,6 +198,16 @@ public class MongoServiceConfiguration {
         getCollectionCacheTTL = asInteger(conf, GET_COLLECTION_CACHE_TTL_KEY, 10_000, silent);
         getCollectionCacheDocs = asInteger(conf, GET_COLLECTION_CACHE_DOCS_KEY, 1_000, silent);
 
+        countCacheEnabled = asBoolean(conf, COUNT_CACHE_ENABLED_KEY, true, silent);
+        countCacheSize = asInteger(conf, COUNT_CACHE_SIZE_KEY, 1_000, silent);
+        countCacheTTL = asInteger(conf, COUNT_CACHE_TTL_KEY, 10_000, silent);
+        countCacheAsyncMaxCounts = asInteger(conf, COUNT_CACHE_ASYNC_MAX_COUNTS_KEY, 8, silent);
+        countCacheAsyncMaxTime = asLong(conf, COUNT_CACHE_ASYNC_MAX_TIME_KEY, 30_000L, silent);
+
+        coalesceReads = asBoolean(conf, COALESCE_READS_KEY, false, silent);
+
+        readRoutingRules = ReadRouting.rules(asListOfMaps(conf, READ_ROUTING_KEY, new ArrayList<>(), silent));
+
         final Map<String, Object> etagCheckPolicies = asMap(conf, ETAG_CHECK_POLICY_KEY, null, silent);
 
         if (etagCheckPolicies != null) {
@@ -242,6 +268,29 @@ public class MongoServiceConfiguration {
         maxPagesize = asInteger(conf, MAX_PAGESIZE_KEY, DEFAULT_MAX_PAGESIZE, silent);
 
         aggregationSecurityConfiguration = asMap(conf, "aggregationSecurity", new HashMap<>(), silent);
+
+        final Map<String, Object> changeStreams = asMap(conf, CHANGE_STREAMS_KEY, new HashMap<>(), silent);
+
+        changeStreamsQueueSize = asInteger(changeStreams, CHANGE_STREAMS_QUEUE_SIZE_KEY, SessionQueue.DEFAULT_CAPACITY, silent);
+
+        final var _overflowPolicy = asString(changeStreams, CHANGE_STREAMS_OVERFLOW_POLICY_KEY, OverflowPolicy.DROP_OLDEST.name(), silent);
+
+        OverflowPolicy validOverflowPolicy;
+
+        try {
+            validOverflowPolicy = OverflowPolicy.valueOf(_overflowPolicy);
+        } catch (final IllegalArgumentException iae) {
+            LOGGER.warn(WRONG_VALUE_FOR_PARAMETER_SETTING_IT_TO_DEFAULT_VALUE, CHANGE_STREAMS_OVERFLOW_POLICY_KEY,
+                    OverflowPolicy.DROP_OLDEST);
+            validOverflowPolicy = OverflowPolicy.DROP_OLDEST;
+        }
+
+        changeStreamsOverflowPolicy = validOverflowPolicy;
+
+        changeStreamsReplayBufferSize = asInteger(changeStreams, CHANGE_STREAMS_REPLAY_BUFFER_SIZE_KEY, EventBuffer.DEFAULT_CAPACITY, silent);
+
+        bulkWriteChunkSize = asInteger(conf, BULK_WRITE_CHUNK_SIZE_KEY, DEFAULT_BULK_WRITE_CHUNK_SIZE, silent);
+        bulkWriteMaxInFlight = asInteger(conf, BULK_WRITE_MAX_IN_FLIGHT_KEY, DEFAULT_BULK_WRITE_MAX_IN_FLIGHT, silent);
     }
 
     @Override
@@ -336,6 +385,55 @@ public class MongoServiceConfiguration {
         return getCollectionCacheDocs;
     }
 
+    /**
+     * @return the countCacheEnabled
+     */
+    public boolean isCountCacheEnabled() {
+        return countCacheEnabled;
+    }
+
+    /**
+     * @return the countCacheSize
+     */
+    public int getCountCacheSize() {
+        return countCacheSize;
+    }
+
+    /**
+     * @return the countCacheTTL
+     */
+    public int getCountCacheTTL() {
+        return countCacheTTL;
+    }
+
+    /**
+     * @return the countCacheAsyncMaxCounts
+     */
+    public int getCountCacheAsyncMaxCounts() {
+        return countCacheAsyncMaxCounts;
+    }
+
+    /**
+     * @return the countCacheAsyncMaxTime
+     */
+    public long getCountCacheAsyncMaxTime() {
+        return countCacheAsyncMaxTime;
+    }
+
+    /**
+     * @return true if identical concurrent reads are executed only once
+     */
+    public boolean isCoalesceReads() {
+        return coalesceReads;
+    }
+
+    /**
+     * @return the read routing rules
+     */
+    public List<ReadRouting.Rule> getReadRoutingRules() {
+        return Collections.unmodifiableList(readRoutingRules);
+    }
+
     /**
      * @return the mongoUri
      */
@@ -427,6 +525,41 @@ public class MongoServiceConfiguration {
         return aggregationSecurityConfiguration;
     }
 
+    /**
+     * @return the max number of pending change events of each change stream session
+     */
+    public int getChangeStreamsQueueSize() {
+        return changeStreamsQueueSize;
+    }
+
+    /**
+     * @return the policy applied when the queue of a change stream session is full
+     */
+    public OverflowPolicy getChangeStreamsOverflowPolicy() {
+        return changeStreamsOverflowPolicy;
+    }
+
+    /**
+     * @return the number of recent change events kept to replay them to resuming clients
+     */
+    public int getChangeStreamsReplayBufferSize() {
+        return changeStreamsReplayBufferSize;
+    }
+
+    /**
+     * @return the max number of documents of each chunk of a bulk write, 0 if chunking is disabled
+     */
+    public int getBulkWriteChunkSize() {
+        return bulkWriteChunkSize;
+    }
+
+    /**
+     * @return the max number of chunks of a bulk write executed concurrently
+     */
+    public int getBulkWriteMaxInFlight() {
+        return bulkWriteMaxInFlight;
+    }
+
     /**
      * @return the defaultPagesize
      */
@@ -171,6 +171,80 @@ public interface MongoServiceConfigurationKeys {
      */
     public static final String GET_COLLECTION_CACHE_DOCS_KEY = "get-collection-cache-docs";
 
+    /**
+     * the key for the count-cache-enabled property.
+     */
+    public static final String COUNT_CACHE_ENABLED_KEY = "count-cache-enabled";
+
+    /**
+     * the key for the count-cache-size property.
+     */
+    public static final String COUNT_CACHE_SIZE_KEY = "count-cache-size";
+
+    /**
+     * the key for the count-cache-ttl property.
+     */
+    public static final String COUNT_CACHE_TTL_KEY = "count-cache-ttl";
+
+    /**
+     * the key for the count-cache-async-max-counts property, the max number
+     * of counts executed in background at the same time.
+     */
+    public static final String COUNT_CACHE_ASYNC_MAX_COUNTS_KEY = "count-cache-async-max-counts";
+
+    /**
+     * the key for the count-cache-async-max-time property, the time limit of
+     * the counts executed in background.
+     */
+    public static final String COUNT_CACHE_ASYNC_MAX_TIME_KEY = "count-cache-async-max-time";
+
+    /**
+     * the key for the coalesce-reads property, to execute identical concurrent
+     * reads only once
+     */
+    public static final String COALESCE_READS_KEY = "coalesce-reads";
+
+    /**
+     * the key for the read-routing property, the rules that set the read
+     * preference of the GET requests without the readPreference query parameter
+     */
+    public static final String READ_ROUTING_KEY = "read-routing";
+
+    /**
+     * the key for the path property of a read routing rule, a request path prefix
+     */
+    public static final String READ_ROUTING_PATH_KEY = "path";
+
+    /**
+     * the key for the db property of a read routing rule
+     */
+    public static final String READ_ROUTING_DB_KEY = "db";
+
+    /**
+     * the key for the coll property of a read routing rule
+     */
+    public static final String READ_ROUTING_COLL_KEY = "coll";
+
+    /**
+     * the key for the roles property of a read routing rule
+     */
+    public static final String READ_ROUTING_ROLES_KEY = "roles";
+
+    /**
+     * the key for the read-preference property of a read routing rule
+     */
+    public static final String READ_ROUTING_READ_PREFERENCE_KEY = "read-preference";
+
+    /**
+     * the key for the max-staleness property of a read routing rule, in milliseconds
+     */
+    public static final String READ_ROUTING_MAX_STALENESS_KEY = "max-staleness";
+
+    /**
+     * the key for the hedge-delay property of a read routing rule, in milliseconds
+     */
+    public static final String READ_ROUTING_HEDGE_DELAY_KEY = "hedge-delay";
+
     /**
      * the key for the etag-check-policy property.
      */
@@ -205,4 +279,48 @@ public interface MongoServiceConfigurationKeys {
      * The key for specifying the cursor batch size
      */
     public static final String CURSOR_BATCH_SIZE_KEY = "cursor-batch-size";
+
+    /**
+     * The key for the change-streams section
+     */
+    public static final String CHANGE_STREAMS_KEY = "change-streams";
+
+    /**
+     * The key for the change-streams.queue-size property, the max number of
+     * pending change events of each WebSocket or SSE session
+     */
+    public static final String CHANGE_STREAMS_QUEUE_SIZE_KEY = "queue-size";
+
+    /**
+     * The key for the change-streams.overflow-policy property
+     */
+    public static final String CHANGE_STREAMS_OVERFLOW_POLICY_KEY = "overflow-policy";
+
+    /**
+     * The key for the change-streams.replay-buffer-size property, the number
+     * of recent change events each stream keeps to replay them to resuming clients
+     */
+    public static final String CHANGE_STREAMS_REPLAY_BUFFER_SIZE_KEY = "replay-buffer-size";
+
+    /**
+     * The key for the bulk-write-chunk-size property, the max number of
+     * documents of each chunk of a bulk write; 0 disables chunking
+     */
+    public static final String BULK_WRITE_CHUNK_SIZE_KEY = "bulk-write-chunk-size";
+
+    /**
+     * default value for bulk-write-chunk-size
+     */
+    public static final int DEFAULT_BULK_WRITE_CHUNK_SIZE = 1_000;
+
+    /**
+     * The key for the bulk-write-max-in-flight property, the max number of
+     * chunks of a bulk write executed concurrently
+     */
+    public static final String BULK_WRITE_MAX_IN_FLIGHT_KEY = "bulk-write-max-in-flight";
+
+    /**
+     * default value for bulk-write-max-in-flight
+     */
+    public static final int DEFAULT_BULK_WRITE_MAX_IN_FLIGHT = 4;
 }
@@ -23,6 +23,9 @@ package org.restheart.mongodb;
 import java.util.Map;
 
 import org.restheart.configuration.Configuration;
+import org.restheart.configuration.ConfigurationListeners;
+import org.restheart.mongodb.db.CountCache;
+import org.restheart.mongodb.db.GetCollectionCache;
 import org.restheart.mongodb.db.sessions.TxnClientSessionFactory;
 import org.restheart.mongodb.interceptors.MetadataCachesSingleton;
 import org.restheart.plugins.InitPoint;
@@ -56,6 +59,10 @@ public class MongoServiceInitializer implements Initializer {
             TxnClientSessionFactory.init(MongoServiceConfiguration.get().getMongoUri());
 
             this.mongoSrvEnabled = isMongoEnabled(mongoConfig);
+
+            if (this.mongoSrvEnabled) {
+                ConfigurationListeners.onReload(this::reload);
+            }
         } else {
             this.mongoSrvEnabled = false;
         }
@@ -71,6 +78,28 @@ public class MongoServiceInitializer implements Initializer {
         MetadataCachesSingleton.init(MongoServiceConfiguration.get());
     }
 
+    /**
+     * applies the mongo settings that can change at runtime: the caches are
+     * resized and the settings read per request take effect. Other settings,
+     * e.g. mongo-uri and mongo-mounts, require a restart.
+     *
+     * @param conf the reloaded configuration
+     */
+    private void reload(Configuration conf) {
+        Map<String, Object> mongoConfig = conf.getOrDefault("mongo", null);
+
+        if (mongoConfig == null) {
+            return;
+        }
+
+        mongoConfig.put("aggregationSecurity", conf.getOrDefault("aggregationSecurity", null));
+        var mongoServiceConf = MongoServiceConfiguration.init(mongoConfig, true);
+
+        MetadataCachesSingleton.reload(mongoServiceConf);
+        GetCollectionCache.getInstance().reload(mongoServiceConf);
+        CountCache.getInstance().reload(mongoServiceConf);
+    }
+
     private boolean isMongoEnabled(Map<String, Object> mc) {
         if (mc.get("enabled") != null && mc.get("enabled") instanceof Boolean enabled) {
             return enabled;
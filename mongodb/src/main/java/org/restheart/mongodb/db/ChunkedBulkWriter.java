@@ -0,0 +1,197 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.bson.BsonDocument;
+import org.restheart.utils.ThreadsUtils;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.bulk.WriteConcernError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Executes a large unordered bulk write as chunks running concurrently on
+ * virtual threads, with at most {@code maxInFlight} chunks in flight, and
+ * aggregates the chunk results as if a single bulk write was executed:
+ * indexes of inserts, upserts and write errors refer to the whole list of
+ * write models.
+ *
+ * <p>Since chunks are independent commands, the write is not atomic and
+ * chunks complete in any order, as it already happens for unordered bulk
+ * writes. Chunking must not be used within a client session, that cannot
+ * be shared between threads.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+class ChunkedBulkWriter {
+    private final int chunkSize;
+    private final int maxInFlight;
+
+    /**
+     * @param chunkSize   the max number of write models of a chunk, 0 to disable chunking
+     * @param maxInFlight the max number of chunks executed concurrently
+     */
+    ChunkedBulkWriter(int chunkSize, int maxInFlight) {
+        this.chunkSize = chunkSize;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    /**
+     * @return true if chunking is enabled and the write models are more than a chunk
+     */
+    boolean chunks(List<? extends WriteModel<BsonDocument>> models) {
+        return chunkSize > 0 && models.size() > chunkSize;
+    }
+
+    /**
+     * @throws MongoBulkWriteException with the aggregated result and write errors
+     *                                 if any chunk failed with write errors
+     */
+    BulkWriteResult bulkWrite(MongoCollection<BsonDocument> coll, List<? extends WriteModel<BsonDocument>> models) {
+        var window = new Semaphore(maxInFlight);
+        var futures = new ArrayList<Future<BulkWriteResult>>();
+
+        try {
+            for (var offset = 0; offset < models.size(); offset += chunkSize) {
+                var chunk = models.subList(offset, Math.min(offset + chunkSize, models.size()));
+
+                window.acquire();
+
+                try {
+                    futures.add(ThreadsUtils.virtualThreadsExecutor().submit(() -> {
+                        try {
+                            return coll.bulkWrite(chunk, DbUtils.BWO_NOT_ORDERED);
+                        } finally {
+                            window.release();
+                        }
+                    }));
+                } catch (Throwable t) {
+                    window.release();
+                    throw t;
+                }
+            }
+        } catch (InterruptedException ie) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while executing chunked bulk write", ie);
+        }
+
+        return aggregate(futures);
+    }
+
+    private BulkWriteResult aggregate(List<Future<BulkWriteResult>> futures) {
+        var result = new Aggregate();
+        RuntimeException failure = null;
+
+        for (var idx = 0; idx < futures.size(); idx++) {
+            var offset = idx * chunkSize;
+
+            try {
+                result.add(futures.get(idx).get(), offset);
+            } catch (ExecutionException ee) {
+                if (ee.getCause() instanceof MongoBulkWriteException mbwe) {
+                    result.add(mbwe, offset);
+                } else if (failure == null) {
+                    failure = ee.getCause() instanceof RuntimeException re ? re : new RuntimeException(ee.getCause());
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new MongoInterruptedException("Interrupted while executing chunked bulk write", ie);
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+
+        return result.get();
+    }
+
+    /**
+     * Sums the results of the chunks.
+     */
+    private static class Aggregate {
+        private boolean acknowledged = true;
+        private int inserted = 0;
+        private int matched = 0;
+        private int removed = 0;
+        private int modified = 0;
+        private final List<BulkWriteUpsert> upserts = new ArrayList<>();
+        private final List<BulkWriteInsert> inserts = new ArrayList<>();
+        private final List<BulkWriteError> errors = new ArrayList<>();
+        private final Set<String> errorLabels = new HashSet<>();
+        private WriteConcernError writeConcernError = null;
+        private ServerAddress serverAddress = null;
+
+        void add(BulkWriteResult r, int offset) {
+            if (!r.wasAcknowledged()) {
+                acknowledged = false;
+                return;
+            }
+
+            inserted += r.getInsertedCount();
+            matched += r.getMatchedCount();
+            removed += r.getDeletedCount();
+            modified += r.getModifiedCount();
+            r.getUpserts().forEach(u -> upserts.add(new BulkWriteUpsert(u.getIndex() + offset, u.getId())));
+            r.getInserts().forEach(i -> inserts.add(new BulkWriteInsert(i.getIndex() + offset, i.getId())));
+        }
+
+        void add(MongoBulkWriteException mbwe, int offset) {
+            add(mbwe.getWriteResult(), offset);
+            mbwe.getWriteErrors().forEach(e -> errors.add(new BulkWriteError(e.getCode(), e.getMessage(), e.getDetails(), e.getIndex() + offset)));
+            errorLabels.addAll(mbwe.getErrorLabels());
+
+            if (writeConcernError == null) {
+                writeConcernError = mbwe.getWriteConcernError();
+            }
+
+            serverAddress = mbwe.getServerAddress();
+        }
+
+        BulkWriteResult get() {
+            var result = acknowledged
+                ? BulkWriteResult.acknowledged(inserted, matched, removed, modified, upserts, inserts)
+                : BulkWriteResult.unacknowledged();
+
+            if (errors.isEmpty() && writeConcernError == null) {
+                return result;
+            } else {
+                throw new MongoBulkWriteException(result, errors, writeConcernError, serverAddress, errorLabels);
+            }
+        }
+    }
+}
@@ -20,7 +20,9 @@
  */
 package org.restheart.mongodb.db;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
@@ -51,6 +53,7 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.collect.Lists;
 import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoClient;
@@ -58,7 +61,9 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
 import com.mongodb.client.internal.MongoBatchCursorAdapter;
+import com.mongodb.client.model.CountOptions;
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
 
 /**
  * The Data Access Object for the mongodb Collection resource. NOTE: this class
@@ -74,6 +79,13 @@ class Collections {
             : DEFAULT_CURSOR_BATCH_SIZE;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Collections.class);
+
+    private record CollectionDataKey(MongoNamespace namespace, Optional<RSOps> rsOps, int page, int pagesize, BsonDocument sortBy, BsonDocument filters, BsonArray hints, BsonDocument keys, boolean useCache) {
+    }
+
+    // identical concurrent reads of collection data are executed once
+    private static final SingleFlight<CollectionDataKey, BsonArray> COLLECTION_DATA_READS = new SingleFlight<>(BsonArray::clone);
+
     private static final BsonDocument FIELDS_TO_RETURN;
 
     static {
@@ -142,6 +154,50 @@ class Collections {
         return getCollectionSize(cs, collection(rsOps, dbName, collName), filters, estimate);
     }
 
+    /**
+     * Returns the number of documents in the given collection, using the
+     * count cache when {@code useCache} is true. The cache is not used with
+     * a client session and for estimated counts.
+     *
+     * @param cs the ClientSession
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param collName the collection name
+     * @param filters the filters to apply
+     * @param estimate if true and filters are empty, return an estimated count from collection metadata
+     * @param useCache if true, use the count cache
+     * @return the number of documents in the given collection
+     */
+    public long getCollectionSize(final Optional<ClientSession> cs, final Optional<RSOps> rsOps, final String dbName, String collName, final BsonDocument filters, final boolean estimate, final boolean useCache) {
+        var coll = collection(rsOps, dbName, collName);
+
+        if (!useCache || cs.isPresent() || (estimate && (filters == null || filters.isEmpty()))) {
+            return getCollectionSize(cs, coll, filters, estimate);
+        } else {
+            return CountCache.getInstance().get(coll, filters, () -> getCollectionSize(cs, coll, filters, false));
+        }
+    }
+
+    /**
+     * Returns the cached number of documents in the given collection; if not
+     * cached, the count is computed in background and -1 is returned. The
+     * background count is limited to count-cache-async-max-time.
+     *
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param collName the collection name
+     * @param filters the filters to apply
+     * @return the number of documents in the given collection or -1 if it is being computed
+     */
+    public long getCollectionSizeAsync(final Optional<RSOps> rsOps, final String dbName, String collName, final BsonDocument filters) {
+        var coll = collection(rsOps, dbName, collName);
+
+        var maxTime = MongoServiceConfiguration.get().getCountCacheAsyncMaxTime();
+
+        return CountCache.getInstance().getAsync(coll, filters, () -> coll.countDocuments(filters == null ? new BsonDocument() : filters,
+                new CountOptions().maxTime(maxTime, TimeUnit.MILLISECONDS)));
+    }
+
     /**
      * Returns the number of documents in the given collection (taking into
      * account the filters in case).
@@ -185,7 +241,7 @@ class Collections {
      * @param dbName the name of the db
      * @return the MongoDatabase
      */
-    private MongoDatabase db(Optional<RSOps> rsOps, String dbName) {
+    MongoDatabase db(Optional<RSOps> rsOps, String dbName) {
         return rsOps.isPresent() ? rsOps.get().apply(client.getDatabase(dbName)) : client.getDatabase(dbName);
     }
 
@@ -260,6 +316,29 @@ class Collections {
             final boolean useCache)
             throws JsonParseException {
         var coll = collection(rsOps, dbName, collName);
+
+        if (cs.isPresent()) {
+            return getCollectionData(cs, coll, rsOps, dbName, collName, page, pagesize, sortBy, filters, hints, keys, useCache);
+        } else {
+            // coalesce identical concurrent reads
+            var key = new CollectionDataKey(coll.getNamespace(), rsOps, page, pagesize, sortBy, filters, hints, keys, useCache);
+            return COLLECTION_DATA_READS.execute(key, () -> getCollectionData(cs, coll, rsOps, dbName, collName, page, pagesize, sortBy, filters, hints, keys, useCache));
+        }
+    }
+
+    private BsonArray getCollectionData(
+            final Optional<ClientSession> cs,
+            final MongoCollection<BsonDocument> coll,
+            final Optional<RSOps> rsOps,
+            final String dbName,
+            final String collName,
+            final int page,
+            final int pagesize,
+            final BsonDocument sortBy,
+            final BsonDocument filters,
+            final BsonArray hints,
+            final BsonDocument keys,
+            final boolean useCache) {
         var ret = new BsonArray();
 
         if (!useCache) {
@@ -406,6 +485,45 @@ class Collections {
         return props;
     }
 
+    /**
+     * Returns the properties documents of the given existing collections,
+     * fetched with a single query
+     *
+     * @param cs the client session
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param collNames the names of existing collections
+     * @return the map of collection name to collection properties document
+     */
+    public Map<String, BsonDocument> getCollectionsProps(final Optional<ClientSession> cs,
+                                                         final Optional<RSOps> rsOps,
+                                                         final String dbName,
+                                                         final List<String> collNames) {
+        var ret = new HashMap<String, BsonDocument>();
+
+        if (collNames.isEmpty()) {
+            return ret;
+        }
+
+        var propsColl = collection(rsOps, dbName, META_COLLNAME);
+
+        var query = in("_id", collNames.stream().map(COLL_META_DOCID_PREFIX::concat).collect(Collectors.toList()));
+
+        var props = cs.isPresent()
+                ? propsColl.find(cs.get(), query)
+                : propsColl.find(query);
+
+        props.forEach(p -> {
+            var collName = p.getString("_id").getValue().substring(COLL_META_DOCID_PREFIX.length());
+            ret.put(collName, p.append("_id", new BsonString(collName)));
+        });
+
+        // collections without properties document
+        collNames.stream().filter(c -> !ret.containsKey(c)).forEach(c -> ret.put(c, new BsonDocument("_id", new BsonString(c))));
+
+        return ret;
+    }
+
     /**
      * Returns true if the collection exists
      *
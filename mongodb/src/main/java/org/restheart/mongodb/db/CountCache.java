@@ -0,0 +1,281 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.bson.BsonDocument;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+
+/**
+ * Caches the number of documents of a collection matching a filter.
+ *
+ * Entries expire after count-cache-ttl and are invalidated by the writes
+ * executed via RESTHeart on the collection. Counts can also be computed in
+ * background: a single count per (namespace, filter) is executed at a time,
+ * and at most count-cache-async-max-counts counts run at the same time.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CountCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CountCache.class);
+
+    private static final long DEFAULT_CACHE_SIZE = 1_000;
+    private static final long DEFAULT_CACHE_TTL = 10_000;
+    static final int DEFAULT_MAX_BACKGROUND_COUNTS = 8;
+
+    record Key(MongoNamespace namespace, BsonDocument filter) {
+    }
+
+    // null if the cache is disabled, replaced when reload() changes the expiration
+    private volatile Cache<Key, Long> cache = null;
+
+    private final ConcurrentHashMap<Key, Boolean> pending = new ConcurrentHashMap<>();
+
+    // bounds the background counts, replaced when reload() changes the limit
+    private volatile Semaphore backgroundCounts = new Semaphore(DEFAULT_MAX_BACKGROUND_COUNTS);
+    private int maxBackgroundCounts = DEFAULT_MAX_BACKGROUND_COUNTS;
+
+    // incremented by every invalidation of the namespace, a count started before it is not cached
+    private final ConcurrentHashMap<MongoNamespace, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @return
+     */
+    public static CountCache getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private CountCache() {
+        reload(MongoServiceConfiguration.get());
+    }
+
+    /**
+     * applies the count-cache settings; the cache is resized retaining the
+     * cached counts, unless the expiration is enabled or disabled
+     *
+     * @param conf the configuration, null for the defaults
+     */
+    public synchronized void reload(MongoServiceConfiguration conf) {
+        var enabled = conf == null || conf.isCountCacheEnabled();
+        var size = conf == null ? DEFAULT_CACHE_SIZE : conf.getCountCacheSize();
+        var ttl = conf == null ? DEFAULT_CACHE_TTL : conf.getCountCacheTTL();
+        var maxCounts = conf == null ? DEFAULT_MAX_BACKGROUND_COUNTS : Math.max(1, conf.getCountCacheAsyncMaxCounts());
+
+        if (maxCounts != this.maxBackgroundCounts) {
+            // running counts release the permits of the previous semaphore
+            this.backgroundCounts = new Semaphore(maxCounts);
+            this.maxBackgroundCounts = maxCounts;
+        }
+
+        var _cache = this.cache;
+
+        if (!enabled) {
+            this.cache = null;
+        } else if (_cache == null || !_cache.reconfigure(size, ttl)) {
+            this.cache = CacheFactory.createLocalCache(size, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl);
+        }
+    }
+
+    /**
+     * @return true if the count cache is enabled
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * @param coll the collection
+     * @param filter the filter
+     * @return the cached count or -1 if not cached
+     */
+    public long get(MongoCollection<?> coll, BsonDocument filter) {
+        var _cache = this.cache;
+        if (_cache == null) return -1;
+
+        var cached = _cache.get(key(coll, filter));
+
+        return cached != null && cached.isPresent() ? cached.get() : -1;
+    }
+
+    /**
+     * returns the cached count, computing and caching it if missing
+     *
+     * @param coll the collection
+     * @param filter the filter
+     * @param counter the function that counts the documents
+     * @return the count
+     */
+    public long get(MongoCollection<?> coll, BsonDocument filter, LongSupplier counter) {
+        var cached = get(coll, filter);
+
+        if (cached >= 0) {
+            return cached;
+        }
+
+        var key = key(coll, filter);
+        var _generation = generation(key.namespace()).get();
+        var count = counter.getAsLong();
+        put(key, count, _generation);
+
+        return count;
+    }
+
+    /**
+     * returns the cached count; if missing, starts computing it in background
+     * unless it is already being computed or too many counts are running, in
+     * that case a later request starts it. If the cache is disabled, the count
+     * is computed synchronously
+     *
+     * @param coll the collection
+     * @param filter the filter
+     * @param counter the function that counts the documents
+     * @return the cached count or -1 if it is being computed
+     */
+    public long getAsync(MongoCollection<?> coll, BsonDocument filter, LongSupplier counter) {
+        if (cache == null) {
+            return counter.getAsLong();
+        }
+
+        var cached = get(coll, filter);
+
+        if (cached >= 0) {
+            return cached;
+        }
+
+        var key = key(coll, filter);
+
+        if (pending.putIfAbsent(key, Boolean.TRUE) == null) {
+            var _backgroundCounts = this.backgroundCounts;
+
+            if (!_backgroundCounts.tryAcquire()) {
+                pending.remove(key);
+                LOGGER.debug("too many background counts, skipping count of {}", key.namespace().getFullName());
+                return -1;
+            }
+
+            var _generation = generation(key.namespace()).get();
+
+            try {
+                Thread.ofVirtual().name("count-" + key.namespace().getFullName()).start(() -> {
+                    try {
+                        put(key, counter.getAsLong(), _generation);
+                    } catch (Throwable t) {
+                        LOGGER.warn("error counting documents of {}", key.namespace().getFullName(), t);
+                    } finally {
+                        pending.remove(key);
+                        _backgroundCounts.release();
+                    }
+                });
+            } catch (Throwable t) {
+                pending.remove(key);
+                _backgroundCounts.release();
+                throw t;
+            }
+        }
+
+        return -1;
+    }
+
+    private void put(Key key, long count, long _generation) {
+        var _cache = this.cache;
+        if (_cache == null) return;
+
+        var generation = generation(key.namespace());
+
+        // skip counts that might not reflect a write executed meanwhile
+        if (generation.get() == _generation) {
+            _cache.put(key, count);
+
+            // the namespace might have been invalidated while putting
+            if (generation.get() != _generation) {
+                _cache.invalidate(key);
+            }
+        }
+    }
+
+    private AtomicLong generation(MongoNamespace namespace) {
+        return generations.computeIfAbsent(namespace, ns -> new AtomicLong());
+    }
+
+    public void invalidateAll(String db, String coll) {
+        var _cache = this.cache;
+        if (_cache == null) return;
+
+        generations.forEach((ns, generation) -> {
+            if (ns.getDatabaseName().equals(db) && ns.getCollectionName().equals(coll)) {
+                generation.incrementAndGet();
+            }
+        });
+
+        _cache.asMap().keySet().stream()
+                .filter(k -> k.namespace().getDatabaseName().equals(db))
+                .filter(k -> k.namespace().getCollectionName().equals(coll))
+                .forEach(_cache::invalidate);
+    }
+
+    public void invalidateAll(String db) {
+        var _cache = this.cache;
+        if (_cache == null) return;
+
+        generations.forEach((ns, generation) -> {
+            if (ns.getDatabaseName().equals(db)) {
+                generation.incrementAndGet();
+            }
+        });
+
+        _cache.asMap().keySet().stream()
+                .filter(k -> k.namespace().getDatabaseName().equals(db))
+                .forEach(_cache::invalidate);
+    }
+
+    public void invalidateAll(MongoCollection<?> coll) {
+        var _cache = this.cache;
+        if (_cache == null) return;
+
+        generation(coll.getNamespace()).incrementAndGet();
+        _cache.asMap().keySet().stream()
+                .filter(k -> k.namespace().equals(coll.getNamespace()))
+                .forEach(_cache::invalidate);
+    }
+
+    private static Key key(MongoCollection<?> coll, BsonDocument filter) {
+        return new Key(coll.getNamespace(), filter == null ? new BsonDocument() : filter);
+    }
+
+    private static class SingletonHolder {
+        private static final CountCache INSTANCE = new CountCache();
+
+        private SingletonHolder() {
+        }
+    }
+}
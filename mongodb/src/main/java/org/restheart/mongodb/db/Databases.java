@@ -27,9 +27,14 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 import static com.mongodb.client.model.Filters.eq;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
@@ -184,6 +189,61 @@ public class Databases {
         return props;
     }
 
+    /**
+     * Returns the properties documents of the given existing databases. The
+     * databases are queried concurrently on virtual threads, unless a client
+     * session is given.
+     *
+     * @param cs the client session
+     * @param rsOps the ReplicaSet connection options
+     * @param dbNames the names of existing databases
+     * @return the map of db name to db properties document
+     */
+    public Map<String, BsonDocument> getDatabasesProperties(final Optional<ClientSession> cs, Optional<RSOps> rsOps, final List<String> dbNames) {
+        var ret = new HashMap<String, BsonDocument>();
+
+        if (cs.isPresent()) {
+            // a client session cannot be used concurrently
+            dbNames.forEach(dbName -> ret.put(dbName, getExistingDatabaseProperties(cs, rsOps, dbName)));
+            return ret;
+        }
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new HashMap<String, Future<BsonDocument>>();
+            dbNames.forEach(dbName -> futures.put(dbName, executor.submit(() -> getExistingDatabaseProperties(cs, rsOps, dbName))));
+
+            for (var entry: futures.entrySet()) {
+                ret.put(entry.getKey(), entry.getValue().get());
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ie);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof RuntimeException re) {
+                throw re;
+            } else {
+                throw new RuntimeException(ee.getCause());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * like getDatabaseProperties() but does not check the db existence
+     */
+    private BsonDocument getExistingDatabaseProperties(final Optional<ClientSession> cs, Optional<RSOps> rsOps, final String dbName) {
+        var propsColl = collections.collection(rsOps, dbName, META_COLLNAME);
+
+        var props = cs.isPresent()
+                ? propsColl.find(cs.get(), PROPS_QUERY).limit(1).first()
+                : propsColl.find(PROPS_QUERY).limit(1).first();
+
+        return props != null
+                ? props.append("_id", new BsonString(dbName))
+                : new BsonDocument("_id", new BsonString(dbName));
+    }
+
     /**
      *
      * @param cs the client session
@@ -231,16 +291,15 @@ public class Databases {
 
         var data = new BsonArray();
 
+        // fetch the properties of all the collections of the page at once
+        var collsProperties = MetadataCachesSingleton.isEnabled() && !noCache
+                ? MetadataCachesSingleton.getInstance().getCollectionsProperties(dbName, _colls)
+                : collections.getCollectionsProps(cs, rsOps, dbName, _colls);
+
         _colls.stream().map((collName) -> {
                     var properties = new BsonDocument("_id", new BsonString(collName));
 
-                    BsonDocument collProperties;
-
-                    if (MetadataCachesSingleton.isEnabled() && !noCache) {
-                        collProperties = MetadataCachesSingleton.getInstance().getCollectionProperties(dbName, collName);
-                    } else {
-                        collProperties = collections.getCollectionProps(cs, rsOps, dbName, collName);
-                    }
+                    var collProperties = collsProperties.get(collName);
 
                     if (collProperties != null) {
                         properties.putAll(collProperties);
@@ -438,6 +497,18 @@ public class Databases {
         return collections.getCollectionProps(cs, rsOps, dbName, collName);
     }
 
+    /**
+     *
+     * @param cs the client session
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param collNames the names of existing collections
+     * @return the map of collection name to collection properties, fetched with a single query
+     */
+    public Map<String, BsonDocument> getCollectionsProperties(final Optional<ClientSession> cs, final Optional<RSOps> rsOps, final String dbName, final List<String> collNames) {
+        return collections.getCollectionsProps(cs, rsOps, dbName, collNames);
+    }
+
     /**
      *
      * @param rsOps the ReplicaSet connection options
@@ -486,6 +557,37 @@ public class Databases {
         return collections.getCollectionSize(cs, rsOps, dbName, collName, filter, estimate);
     }
 
+    /**
+     * Returns the number of documents in the given collection, using the
+     * count cache when {@code useCache} is true.
+     *
+     * @param cs the ClientSession
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param collName the collection name
+     * @param filter the filter to apply
+     * @param estimate if true and the filter is empty, return an estimated count from collection metadata
+     * @param useCache if true, use the count cache
+     * @return the number of documents in the given collection
+     */
+    public long getCollectionSize(final Optional<ClientSession> cs, Optional<RSOps> rsOps, String dbName, final String collName, BsonDocument filter, boolean estimate, boolean useCache) {
+        return collections.getCollectionSize(cs, rsOps, dbName, collName, filter, estimate, useCache);
+    }
+
+    /**
+     * Returns the cached number of documents in the given collection; if not
+     * cached, the count is computed in background and -1 is returned.
+     *
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param collName the collection name
+     * @param filter the filter to apply
+     * @return the number of documents in the given collection or -1 if it is being computed
+     */
+    public long getCollectionSizeAsync(Optional<RSOps> rsOps, String dbName, final String collName, BsonDocument filter) {
+        return collections.getCollectionSizeAsync(rsOps, dbName, collName, filter);
+    }
+
     /**
      *
      * @param cs the client session
@@ -38,11 +38,15 @@ import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.restheart.exchange.ExchangeKeys.METHOD;
 import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_BULK_WRITE_CHUNK_SIZE;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_BULK_WRITE_MAX_IN_FLIGHT;
 import org.restheart.utils.BsonUtils;
 import org.restheart.utils.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.ReadPreference;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.model.BulkWriteOptions;
@@ -57,6 +61,7 @@ import com.mongodb.client.model.ReplaceOptions;
 import com.mongodb.client.model.ReturnDocument;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.WriteModel;
+import com.mongodb.client.result.UpdateResult;
 
 /**
  *
@@ -109,6 +114,26 @@ public class DbUtils {
      */
     public final static FindOneAndReplaceOptions FOR_AFTER_NOT_UPSERT_OPS = new FindOneAndReplaceOptions().upsert(false).returnDocument(ReturnDocument.AFTER);
 
+    /**
+     *
+     */
+    public final static FindOneAndUpdateOptions FOU_BEFORE_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndUpdateOptions FOU_BEFORE_NOT_UPSERT_OPS = new FindOneAndUpdateOptions().upsert(false).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_UPSERT_OPS = new FindOneAndReplaceOptions().upsert(true).returnDocument(ReturnDocument.BEFORE);
+
+    /**
+     *
+     */
+    public final static FindOneAndReplaceOptions FOR_BEFORE_NOT_UPSERT_OPS = new FindOneAndReplaceOptions().upsert(false).returnDocument(ReturnDocument.BEFORE);
+
     /**
      *
      */
@@ -119,6 +144,11 @@ public class DbUtils {
      */
     public final static UpdateOptions U_NOT_UPSERT_OPS = new UpdateOptions().upsert(false);
 
+    /**
+     *
+     */
+    public final static ReplaceOptions R_UPSERT_OPS = new ReplaceOptions().upsert(true);
+
     /**
      *
      */
@@ -294,6 +324,288 @@ public class DbUtils {
         };
     }
 
+    /**
+     * Writes a mongo document with a single round trip to the server, without
+     * fetching the old document first.
+     *
+     * The write operations are the ones of
+     * {@link #writeDocument(Optional, METHOD, WRITE_MODE, MongoCollection, Optional, Optional, Optional, BsonValue)}
+     * except for update and upsert write modes with a document id:
+     * ---------------------------------------------------------------------------------------------
+     * | method    | write operation                                   | old document | new document |
+     * ---------------------------------------------------------------------------------------------
+     * | POST, PUT | findOneAndReplace(returnDocument:BEFORE)          | returned     | replacement  |
+     * | PATCH     | findOneAndUpdate(returnDocument:AFTER)            | -            | returned     |
+     * | PATCH (1) | findOneAndUpdate(returnDocument:BEFORE) + find    | returned     | found        |
+     * ---------------------------------------------------------------------------------------------
+     * (1) when returnOldDocument is true or with the upsert write mode, since only the
+     * old document tells whether the document was updated or upserted: this is the
+     * only case that needs a second round trip
+     *
+     * Conditions on the document, like the etag check, can be passed with the filter;
+     * if the document exists but does not match them, an update returns 404 and an
+     * upsert fails with a duplicate key error, since it tries inserting a document
+     * with the same _id.
+     *
+     * @param cs the client session
+     * @param method the request method
+     * @param writeMode the write mode
+     * @param coll the collection
+     * @param documentId use Optional.empty() to specify no documentId
+     * @param filter
+     * @param shardKeys
+     * @param data
+     * @param returnOldDocument true to return the document before the write,
+     * otherwise the result is marked with {@link OperationResult#isOldDataFetched()} false
+     * @return the OperationResult, always with the http status code
+     */
+    public static OperationResult writeDocument(
+        final Optional<ClientSession> cs,
+        final METHOD method,
+        final WRITE_MODE writeMode,
+        final MongoCollection<BsonDocument> coll,
+        final Optional<BsonValue> documentId,
+        final Optional<BsonDocument> filter,
+        final Optional<BsonDocument> shardKeys,
+        final BsonValue data,
+        final boolean returnOldDocument) {
+        Objects.requireNonNull(coll);
+        Objects.requireNonNull(data);
+        Objects.requireNonNull(writeMode);
+
+        if (writeMode == WRITE_MODE.INSERT || documentId.isEmpty()) {
+            // there is no old document to fetch
+            var result = writeDocument(cs, method, writeMode, coll, documentId, filter, shardKeys, data);
+            return result.getHttpCode() > 0 ? result : new OperationResult(HttpStatus.SC_CREATED, null, result.getNewData());
+        }
+
+        Bson query = eq("_id", documentId.get());
+
+        if (shardKeys.isPresent() && !shardKeys.get().isEmpty()) {
+            query = and(query, shardKeys.get());
+        }
+
+        if (filter.isPresent() && !filter.get().isEmpty()) {
+            query = and(query, filter.get());
+        }
+
+        final var upsert = writeMode == WRITE_MODE.UPSERT;
+
+        return switch(method) {
+            case PATCH -> {
+                try {
+                    if (!returnOldDocument && !upsert) {
+                        var newDocument = findOneAndUpdate(cs, coll, query, data, FOU_AFTER_NOT_UPSERT_OPS);
+
+                        yield newDocument == null
+                            ? new OperationResult(HttpStatus.SC_NOT_FOUND)
+                            : new OperationResult(HttpStatus.SC_OK, null, null, newDocument, null, false);
+                    }
+
+                    // the old document is null if upserted
+                    var oldDocument = findOneAndUpdate(cs, coll, query, data, upsert ? FOU_BEFORE_UPSERT_OPS : FOU_BEFORE_NOT_UPSERT_OPS);
+
+                    if (oldDocument == null && !upsert) {
+                        yield new OperationResult(HttpStatus.SC_NOT_FOUND);
+                    }
+
+                    var newDocumentQuery = shardKeys.isPresent() && !shardKeys.get().isEmpty()
+                        ? and(eq("_id", documentId.get()), shardKeys.get())
+                        : eq("_id", documentId.get());
+
+                    var primary = coll.withReadPreference(ReadPreference.primary());
+                    var newDocument = cs.isPresent()
+                        ? primary.find(cs.get(), newDocumentQuery).first()
+                        : primary.find(newDocumentQuery).first();
+
+                    yield new OperationResult(oldDocument == null ? HttpStatus.SC_CREATED : HttpStatus.SC_OK, oldDocument, newDocument);
+                } catch (IllegalArgumentException iae) {
+                    yield new OperationResult(HttpStatus.SC_BAD_REQUEST, null, iae);
+                }
+            }
+
+            case PUT, POST -> {
+                try {
+                    var replacement = getReplaceDocument(data.asDocument());
+                    var ops = upsert ? FOR_BEFORE_UPSERT_OPS : FOR_BEFORE_NOT_UPSERT_OPS;
+
+                    var oldDocument = cs.isPresent()
+                        ? coll.findOneAndReplace(cs.get(), query, replacement, ops)
+                        : coll.findOneAndReplace(query, replacement, ops);
+
+                    if (oldDocument == null && !upsert) {
+                        yield new OperationResult(HttpStatus.SC_NOT_FOUND);
+                    }
+
+                    // the stored document is the replacement, with the _id of the query if missing
+                    var newDocument = replacement;
+
+                    if (!replacement.containsKey("_id")) {
+                        newDocument = new BsonDocument("_id", documentId.get());
+                        newDocument.putAll(replacement);
+                    }
+
+                    yield new OperationResult(oldDocument == null ? HttpStatus.SC_CREATED : HttpStatus.SC_OK,
+                        null,
+                        returnOldDocument ? oldDocument : null,
+                        newDocument,
+                        null,
+                        returnOldDocument);
+                } catch (IllegalArgumentException iae) {
+                    yield new OperationResult(HttpStatus.SC_BAD_REQUEST, null, iae);
+                }
+            }
+
+            default -> throw new UnsupportedOperationException("unsupported method " + method);
+        };
+    }
+
+    /**
+     * Writes a mongo document in lean mode, i.e. without returning the old and
+     * new document
+     *
+     * The MongoDB write operation depends on the request method and on the write mode as follows:
+     * --------------------------------------------------------------------------------------------
+     * | wm     | method    | write operation                  | wrop argument                     |
+     * --------------------------------------------------------------------------------------------
+     * | insert | POST, PUT | insertOne                        | document                          |
+     * | insert | PATCH     | updateOne(upsert:true)(1)        | update operator expr or pipeline  |
+     * --------------------------------------------------------------------------------------------
+     * | update | POST, PUT | replaceOne(upsert:false)         | document                          |
+     * | update | PATCH     | updateOne(upsert:false)          | update operator expr or pipeline  |
+     * --------------------------------------------------------------------------------------------
+     * | upsert | POST, PUT | replaceOne(upsert:true)          | document                          |
+     * | upsert | PATCH     | updateOne(upsert:true)           | update operator expr or pipeline  |
+     * --------------------------------------------------------------------------------------------
+     * (1) uses a find condition that won't match any existing document, making sure the operation is an insert
+     *
+     * @param cs the client session
+     * @param method the request method
+     * @param writeMode the write mode
+     * @param coll the collection
+     * @param documentId use Optional.empty() to specify no documentId
+     * @param filter
+     * @param shardKeys
+     * @param data
+     * @return the OperationResult with the http status code and the id of the document
+     */
+    public static OperationResult writeDocumentLean(
+        final Optional<ClientSession> cs,
+        final METHOD method,
+        final WRITE_MODE writeMode,
+        final MongoCollection<BsonDocument> coll,
+        final Optional<BsonValue> documentId,
+        final Optional<BsonDocument> filter,
+        final Optional<BsonDocument> shardKeys,
+        final BsonValue data) {
+        Objects.requireNonNull(coll);
+        Objects.requireNonNull(data);
+        Objects.requireNonNull(writeMode);
+
+        // if update, docId is mandatory
+        if (writeMode == WRITE_MODE.UPDATE && !documentId.isPresent()) {
+            LOGGER.trace("write request with writeMode=update and missing document id");
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST);
+        }
+
+        Bson query = documentId.isPresent() && writeMode != WRITE_MODE.INSERT ? eq("_id", documentId.get()) : IMPOSSIBLE_CONDITION;
+
+        if (shardKeys.isPresent() && !shardKeys.get().isEmpty()) {
+            query = and(query, shardKeys.get());
+        }
+
+        if (filter.isPresent() && !filter.get().isEmpty()) {
+            query = and(query, filter.get());
+        }
+
+        final var upsert = writeMode != WRITE_MODE.UPDATE;
+
+        try {
+            return switch(method) {
+                case PATCH -> {
+                    final var ops = upsert ? U_UPSERT_OPS : U_NOT_UPSERT_OPS;
+
+                    if (data.isArray()) {
+                        List<Bson> updateAggregation = data.asArray().stream().map(d -> (Bson) d).collect(Collectors.toList());
+                        yield leanResult(cs.isPresent()
+                            ? coll.updateOne(cs.get(), query, updateAggregation, ops)
+                            : coll.updateOne(query, updateAggregation, ops), documentId);
+                    } else {
+                        var update = getUpdateDocument(data.asDocument(), false);
+                        yield leanResult(cs.isPresent()
+                            ? coll.updateOne(cs.get(), query, update, ops)
+                            : coll.updateOne(query, update, ops), documentId);
+                    }
+                }
+
+                case POST, PUT -> {
+                    var dataDoc = data.asDocument(); // for PUT and POST data is a document
+
+                    if (writeMode == WRITE_MODE.INSERT) {
+                        resolveCurrentDateOperator(dataDoc);
+
+                        var insertedId = cs.isPresent()
+                            ? coll.insertOne(cs.get(), dataDoc).getInsertedId()
+                            : coll.insertOne(dataDoc).getInsertedId();
+
+                        yield new OperationResult(HttpStatus.SC_CREATED, null, insertedId != null ? insertedId : dataDoc.get("_id"));
+                    } else {
+                        final var ops = upsert ? R_UPSERT_OPS : R_NOT_UPSERT_OPS;
+
+                        yield leanResult(cs.isPresent()
+                            ? coll.replaceOne(cs.get(), query, getReplaceDocument(dataDoc), ops)
+                            : coll.replaceOne(query, getReplaceDocument(dataDoc), ops), documentId);
+                    }
+                }
+
+                default -> throw new UnsupportedOperationException("unsupported method " + method);
+            };
+        } catch (IllegalArgumentException iae) {
+            return new OperationResult(HttpStatus.SC_BAD_REQUEST, null, iae);
+        }
+    }
+
+    private static OperationResult leanResult(final UpdateResult result, final Optional<BsonValue> documentId) {
+        if (result.getUpsertedId() != null) {
+            return new OperationResult(HttpStatus.SC_CREATED, null, result.getUpsertedId());
+        } else if (result.getMatchedCount() > 0) {
+            return new OperationResult(HttpStatus.SC_OK, null, documentId.orElse(null));
+        } else {
+            return new OperationResult(HttpStatus.SC_NOT_FOUND);
+        }
+    }
+
+    /**
+     * Executes findOneAndUpdate with an update document or an aggregation pipeline.
+     *
+     * @param cs the client session
+     * @param coll the collection
+     * @param query the query
+     * @param data the update document or the aggregation pipeline
+     * @param ops the options
+     * @return the document before or after the update, depending on the options
+     */
+    private static BsonDocument findOneAndUpdate(
+        final Optional<ClientSession> cs,
+        final MongoCollection<BsonDocument> coll,
+        final Bson query,
+        final BsonValue data,
+        final FindOneAndUpdateOptions ops) {
+        if (data.isArray()) {
+            List<Bson> updateAggregation = data.asArray().stream().map(d -> (Bson) d).collect(Collectors.toList());
+
+            return cs.isPresent()
+                ? coll.findOneAndUpdate(cs.get(), query, updateAggregation, ops)
+                : coll.findOneAndUpdate(query, updateAggregation, ops);
+        } else {
+            var update = getUpdateDocument(data.asDocument(), false);
+
+            return cs.isPresent()
+                ? coll.findOneAndUpdate(cs.get(), query, update, ops)
+                : coll.findOneAndUpdate(query, update, ops);
+        }
+    }
+
     /**
      *
      * @param cs the client session
@@ -366,9 +678,15 @@ public class DbUtils {
             newEtag,
             writeMode);
 
+        var conf = MongoServiceConfiguration.get();
+        var writer = conf == null
+            ? new ChunkedBulkWriter(DEFAULT_BULK_WRITE_CHUNK_SIZE, DEFAULT_BULK_WRITE_MAX_IN_FLIGHT)
+            : new ChunkedBulkWriter(conf.getBulkWriteChunkSize(), conf.getBulkWriteMaxInFlight());
+
+        // a client session cannot be shared between threads, in this case the write is not chunked
         var result = cs.isPresent()
             ? coll.bulkWrite(cs.get(), wm, BWO_NOT_ORDERED)
-            : coll.bulkWrite(wm, BWO_NOT_ORDERED) ;
+            : writer.chunks(wm) ? writer.bulkWrite(coll, wm) : coll.bulkWrite(wm, BWO_NOT_ORDERED);
 
         return new BulkOperationResult(HttpStatus.SC_OK, newEtag, result);
     }
@@ -0,0 +1,251 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.restheart.exchange.ExchangeKeys.DOCS_CACHE_METADATA_KEY;
+
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+
+/**
+ * Caches the documents of the collections that enable it in their metadata:
+ *
+ * <pre>
+ * { "docsCache": { "maxBytes": 1048576, "ttl": 60000 } }
+ * </pre>
+ *
+ * Each collection gets an LRU region bounded by maxBytes, the BSON size of
+ * the cached documents. Entries expire after ttl milliseconds (default 60
+ * seconds) and are invalidated by the writes executed via {@link Documents}.
+ * The ttl bounds the staleness due to writes not executed by this
+ * instance.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class DocumentCache {
+    private static final long DEFAULT_TTL = 60_000;
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    /**
+     * the docsCache options of a collection
+     *
+     * @param maxBytes the max size of the cached documents
+     * @param ttl the time to live of the entries, in milliseconds
+     */
+    public record Options(long maxBytes, long ttl) {
+        /**
+         * @param collProps the collection properties
+         * @return the options or null if the collection does not enable the cache
+         */
+        public static Options from(BsonDocument collProps) {
+            if (collProps == null || !collProps.isDocument(DOCS_CACHE_METADATA_KEY)) {
+                return null;
+            }
+
+            var opts = collProps.getDocument(DOCS_CACHE_METADATA_KEY);
+
+            if (!opts.isNumber("maxBytes") || opts.getNumber("maxBytes").longValue() <= 0) {
+                return null;
+            }
+
+            var ttl = opts.isNumber("ttl") ? opts.getNumber("ttl").longValue() : DEFAULT_TTL;
+
+            return new Options(opts.getNumber("maxBytes").longValue(), ttl);
+        }
+    }
+
+    private record Key(BsonValue id, BsonDocument query, BsonDocument projection) {
+    }
+
+    private record Entry(BsonDocument document, long size, long expires) {
+    }
+
+    private static class Region {
+        final Options options;
+        final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        long bytes = 0;
+        // incremented by every invalidation, a read started before it is not cached
+        long generation = 0;
+
+        Region(Options options) {
+            this.options = options;
+        }
+
+        synchronized BsonDocument get(Key key) {
+            var entry = entries.get(key);
+
+            if (entry == null) {
+                return null;
+            } else if (entry.expires() < System.currentTimeMillis()) {
+                remove(key);
+                return null;
+            } else {
+                return entry.document();
+            }
+        }
+
+        synchronized void put(Key key, BsonDocument document, long size, long _generation) {
+            if (generation != _generation || size > options.maxBytes()) {
+                return;
+            }
+
+            remove(key);
+            entries.put(key, new Entry(document, size, System.currentTimeMillis() + options.ttl()));
+            bytes += size;
+
+            // evict the least recently used entries
+            var it = entries.entrySet().iterator();
+            while (bytes > options.maxBytes() && it.hasNext()) {
+                bytes -= it.next().getValue().size();
+                it.remove();
+            }
+        }
+
+        synchronized void invalidate(BsonValue id) {
+            generation++;
+            var it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                var entry = it.next();
+                if (entry.getKey().id().equals(id)) {
+                    bytes -= entry.getValue().size();
+                    it.remove();
+                }
+            }
+        }
+
+        synchronized void invalidateAll() {
+            generation++;
+            entries.clear();
+            bytes = 0;
+        }
+
+        synchronized long generation() {
+            return generation;
+        }
+
+        private void remove(Key key) {
+            var old = entries.remove(key);
+            if (old != null) {
+                bytes -= old.size();
+            }
+        }
+    }
+
+    private final ConcurrentHashMap<MongoNamespace, Region> regions = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @return
+     */
+    public static DocumentCache getInstance() {
+        return SingletonHolder.INSTANCE;
+    }
+
+    private DocumentCache() {
+    }
+
+    /**
+     * returns the cached document, reading and caching it if missing
+     *
+     * @param namespace the namespace of the collection
+     * @param options the docsCache options of the collection
+     * @param id the document id
+     * @param query the query, including the request filters
+     * @param projection the projection
+     * @param reader the function that reads the document
+     * @return a copy of the document or null if it does not exist
+     */
+    public BsonDocument get(MongoNamespace namespace, Options options, BsonValue id, BsonDocument query, BsonDocument projection, Supplier<BsonDocument> reader) {
+        var region = region(namespace, options);
+        var key = new Key(id, query, projection);
+
+        var cached = region.get(key);
+
+        if (cached != null) {
+            return cached.clone();
+        }
+
+        var _generation = region.generation();
+        var document = reader.get();
+
+        if (document != null) {
+            // cache a copy, the returned document is modified downstream
+            var copy = document.clone();
+            region.put(key, copy, size(copy), _generation);
+        }
+
+        return document;
+    }
+
+    private Region region(MongoNamespace namespace, Options options) {
+        return regions.compute(namespace, (ns, region) -> region == null || !region.options.equals(options) ? new Region(options) : region);
+    }
+
+    public void invalidate(String db, String coll, BsonValue id) {
+        var region = regions.get(new MongoNamespace(db, coll));
+
+        if (region != null) {
+            region.invalidate(id);
+        }
+    }
+
+    public void invalidateAll(String db, String coll) {
+        var region = regions.remove(new MongoNamespace(db, coll));
+
+        if (region != null) {
+            region.invalidateAll();
+        }
+    }
+
+    public void invalidateAll(String db) {
+        regions.keySet().stream()
+                .filter(ns -> ns.getDatabaseName().equals(db))
+                .forEach(ns -> invalidateAll(ns.getDatabaseName(), ns.getCollectionName()));
+    }
+
+    public void invalidateAll(MongoCollection<?> coll) {
+        invalidateAll(coll.getNamespace().getDatabaseName(), coll.getNamespace().getCollectionName());
+    }
+
+    private static long size(BsonDocument document) {
+        var buffer = new BasicOutputBuffer();
+        CODEC.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        return buffer.getSize();
+    }
+
+    private static class SingletonHolder {
+        private static final DocumentCache INSTANCE = new DocumentCache();
+
+        private SingletonHolder() {
+        }
+    }
+}
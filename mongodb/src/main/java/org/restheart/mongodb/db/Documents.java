@@ -21,6 +21,8 @@
 package org.restheart.mongodb.db;
 
 import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
 import com.mongodb.assertions.Assertions;
 import com.mongodb.client.ClientSession;
 import com.mongodb.client.MongoCollection;
@@ -43,6 +45,8 @@ import org.bson.types.ObjectId;
 import org.restheart.exchange.ExchangeKeys.METHOD;
 import org.restheart.exchange.ExchangeKeys.WRITE_MODE;
 import static org.restheart.mongodb.db.DbUtils.BAD_VALUE_KEY_ERROR;
+import static org.restheart.mongodb.db.DbUtils.DUPLICATE_KEY_ERROR;
+import static org.restheart.utils.BsonUtils.array;
 import static org.restheart.utils.BsonUtils.document;
 import org.restheart.mongodb.RSOps;
 import org.restheart.mongodb.utils.ResponseHelper;
@@ -117,70 +121,186 @@ public class Documents {
             final BsonValue newContent,
             final String requestEtag,
             final boolean checkEtag) {
+        return writeDocument(cs, rsOps, dbName, collName, method, writeMode, documentId, filter, shardKeys, newContent, requestEtag, checkEtag, true, false);
+    }
+
+    /**
+     * Writes a document with a single round trip to the server.
+     *
+     * The etag check is a condition of the write filter: if the document exists
+     * but its _etag does not match the request etag, the write does not happen
+     * and there is no need to restore the old document.
+     *
+     * @param cs the client session
+     * @param rsOps the ReplicaSet connection options
+     * @param dbName the database name
+     * @param method the request method
+     * @param writeMode the write mode
+     * @param collName
+     * @param documentId
+     * @param shardKeys
+     * @param newContent
+     * @param requestEtag
+     * @param checkEtag
+     * @param oldDataRequired true to return the document before the write in the OperationResult
+     * @param leanWrite true to write the document without returning the old and new data,
+     * the OperationResult only contains the status code, the etag and the id of the document
+     * @return the OperationResult
+     */
+    public OperationResult writeDocument(
+            final Optional<ClientSession> cs,
+            final Optional<RSOps> rsOps,
+            final String dbName,
+            final String collName,
+            final METHOD method,
+            final WRITE_MODE writeMode,
+            final Optional<BsonValue> documentId,
+            final Optional<BsonDocument> filter,
+            final Optional<BsonDocument> shardKeys,
+            final BsonValue newContent,
+            final String requestEtag,
+            final boolean checkEtag,
+            final boolean oldDataRequired,
+            final boolean leanWrite) {
         var mcoll = collections.collection(rsOps, dbName, collName);
 
         // genereate new etag
         var newEtag = new BsonObjectId();
 
-        final OperationResult writeResult;
+        final BsonValue content;
 
         if (newContent.isDocument()) {
             // the content is a document or an update operator expression
-            var newContentDoc = newContent.asDocument();
-
-            final var content = DbUtils.validContent(newContentDoc);
-
-            content.put("_etag", newEtag);
-
-            writeResult = DbUtils.writeDocument(
-                    cs,
-                    method,
-                    writeMode,
-                    mcoll,
-                    documentId,
-                    filter,
-                    shardKeys,
-                    content);
+            var _content = DbUtils.validContent(newContent.asDocument());
+            _content.put("_etag", newEtag);
+            content = _content;
         } else {
             // the content is an aggregation update array
             var newContentPipeline = newContent.asArray();
-
             newContentPipeline.add(document().put("$set", document().put("_etag", newEtag)).get());
+            content = newContentPipeline;
+        }
 
-            writeResult = DbUtils.writeDocument(
-                    cs,
-                    method,
-                    writeMode,
-                    mcoll,
-                    documentId,
-                    filter,
-                    shardKeys,
-                    newContentPipeline);
+        // the etag is checked only on existing documents
+        var etagCheck = checkEtag && documentId.isPresent() && writeMode != WRITE_MODE.INSERT;
+
+        var _filter = etagCheck ? Optional.of(etagFilter(filter, requestEtag)) : filter;
+
+        OperationResult writeResult;
+
+        try {
+            writeResult = leanWrite
+                    ? DbUtils.writeDocumentLean(
+                            cs,
+                            method,
+                            writeMode,
+                            mcoll,
+                            documentId,
+                            _filter,
+                            shardKeys,
+                            content)
+                    : DbUtils.writeDocument(
+                            cs,
+                            method,
+                            writeMode,
+                            mcoll,
+                            documentId,
+                            _filter,
+                            shardKeys,
+                            content,
+                            oldDataRequired);
+        } catch (MongoException me) {
+            // an upsert of an existing document not matching the etag fails inserting a document with the same _id
+            var conflict = etagCheck && me.getCode() == DUPLICATE_KEY_ERROR
+                    ? etagConflict(cs, mcoll, documentId.get(), filter, shardKeys, requestEtag)
+                    : null;
+
+            if (conflict != null) {
+                return conflict;
+            } else {
+                throw me;
+            }
         }
 
-        var oldDocument = writeResult.getOldData();
-        var newDocument = writeResult.getNewData();
+        if (etagCheck && writeResult.getHttpCode() == HttpStatus.SC_NOT_FOUND) {
+            var conflict = etagConflict(cs, mcoll, documentId.get(), filter, shardKeys, requestEtag);
 
-        if (oldDocument != null && checkEtag) {
-            // check the old etag (if not match then restore the old document version)
-            return optimisticCheckEtag(
-                    cs,
-                    mcoll,
-                    shardKeys,
-                    oldDocument,
-                    newEtag,
-                    requestEtag,
-                    HttpStatus.SC_OK,
-                    false);
+            if (conflict != null) {
+                return conflict;
+            }
+        }
+
+        // invalidate the cache entris of this collection
+        GetCollectionCache.getInstance().invalidateAll(dbName, collName);
+        CountCache.getInstance().invalidateAll(dbName, collName);
+
+        if (documentId.isPresent()) {
+            DocumentCache.getInstance().invalidate(dbName, collName, documentId.get());
         } else {
-            var httpCode = writeResult.getHttpCode() > 0 ? writeResult.getHttpCode() : oldDocument == null ? HttpStatus.SC_CREATED : HttpStatus.SC_OK;
+            DocumentCache.getInstance().invalidateAll(dbName, collName);
+        }
 
-            // invalidate the cache entris of this collection
-            GetCollectionCache.getInstance().invalidateAll(dbName, collName);
-            return new OperationResult(httpCode, newEtag, oldDocument, newDocument, writeResult.getCause());
+        if (leanWrite && writeResult.getCause() == null) {
+            return new OperationResult(writeResult.getHttpCode(), newEtag, writeResult.getNewId(), false);
+        } else {
+            return new OperationResult(writeResult.getHttpCode(), newEtag, writeResult.getOldData(), writeResult.getNewData(), writeResult.getCause(), writeResult.isOldDataFetched());
+        }
+    }
+
+    /**
+     * @param filter the request filter
+     * @param requestEtag the request etag, null if missing
+     * @return the filter with the etag condition; without the request etag, only documents without _etag match
+     */
+    private BsonDocument etagFilter(final Optional<BsonDocument> filter, final String requestEtag) {
+        var etagCondition = requestEtag == null
+                ? document().put("_etag", document().put("$exists", false)).get()
+                : document().put("_etag", etag(requestEtag)).get();
+
+        if (filter.isPresent() && !filter.get().isEmpty()) {
+            return document().put("$and", array().add(filter.get()).add(etagCondition)).get();
+        } else {
+            return etagCondition;
         }
     }
 
+    /**
+     * Called when a write with the etag condition did not match any document.
+     *
+     * @return the OperationResult with status 409 (etag missing) or 412 (etag not matching)
+     * if the document exists, null otherwise
+     */
+    private OperationResult etagConflict(
+            final Optional<ClientSession> cs,
+            final MongoCollection<BsonDocument> coll,
+            final BsonValue documentId,
+            final Optional<BsonDocument> filter,
+            final Optional<BsonDocument> shardKeys,
+            final String requestEtag) {
+        var primary = coll.withReadPreference(ReadPreference.primary());
+        var query = idFilter(Optional.of(documentId), filter, shardKeys);
+
+        var oldDocument = cs.isPresent() ? primary.find(cs.get(), query).first() : primary.find(query).first();
+
+        if (oldDocument == null) {
+            return null;
+        }
+
+        return new OperationResult(
+                requestEtag == null ? HttpStatus.SC_CONFLICT : HttpStatus.SC_PRECONDITION_FAILED,
+                oldDocument.get("_etag"),
+                oldDocument,
+                null);
+    }
+
+    private static BsonValue etag(String requestEtag) {
+        // restheart generates ObjectId etags, but here we support
+        // strings as well
+        return ObjectId.isValid(requestEtag)
+                ? new BsonObjectId(new ObjectId(requestEtag))
+                : new BsonString(requestEtag);
+    }
+
     /**
      * @param cs the client session
      * @param rsOps the ReplicaSet connection options
@@ -222,6 +342,8 @@ public class Documents {
 
         // invalidate the cache entris of this collection
         GetCollectionCache.getInstance().invalidateAll(dbName, collName);
+        CountCache.getInstance().invalidateAll(dbName, collName);
+        DocumentCache.getInstance().invalidateAll(dbName, collName);
 
         return ret;
     }
@@ -267,6 +389,8 @@ public class Documents {
 
             // invalidate the cache entris of this collection
             GetCollectionCache.getInstance().invalidateAll(dbName, collName);
+            CountCache.getInstance().invalidateAll(dbName, collName);
+            DocumentCache.getInstance().invalidateAll(dbName, collName);
             return ret;
         } catch (MongoBulkWriteException mce) {
             return switch (mce.getCode()) {
@@ -320,6 +444,8 @@ public class Documents {
         } else {
             // invalidate the cache entris of this collection
             GetCollectionCache.getInstance().invalidateAll(dbName, collName);
+            CountCache.getInstance().invalidateAll(dbName, collName);
+            DocumentCache.getInstance().invalidate(dbName, collName, oldDocument.get("_id"));
             return new OperationResult(HttpStatus.SC_NO_CONTENT, oldDocument);
         }
     }
@@ -388,6 +514,8 @@ public class Documents {
 
         // invalidate the cache entris of this collection
         GetCollectionCache.getInstance().invalidateAll(dbName, collName);
+        CountCache.getInstance().invalidateAll(dbName, collName);
+        DocumentCache.getInstance().invalidateAll(dbName, collName);
 
         return new BulkOperationResult(HttpStatus.SC_OK, null, result);
     }
@@ -448,6 +576,8 @@ public class Documents {
 
             // invalidate the cache entris of this collection
             GetCollectionCache.getInstance().invalidateAll(coll);
+            CountCache.getInstance().invalidateAll(coll);
+            DocumentCache.getInstance().invalidateAll(coll);
 
             return new OperationResult(httpStatusIfOk, newEtag, oldDocument, newDocument);
         } else {
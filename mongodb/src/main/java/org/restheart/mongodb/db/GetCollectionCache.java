@@ -52,9 +52,8 @@ public class GetCollectionCache {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetCollectionCache.class);
 
-    private static final boolean CACHE_ENABLED = MongoServiceConfiguration.get() == null || MongoServiceConfiguration.get().isGetCollectionCacheEnabled();
-    private static final long CACHE_SIZE = MongoServiceConfiguration.get() == null ? 100 : MongoServiceConfiguration.get().getGetCollectionCacheSize();
-    private static final long CACHE_TTL = MongoServiceConfiguration.get() == null ? 10_000 : MongoServiceConfiguration.get().getGetCollectionCacheTTL();
+    private static final long DEFAULT_CACHE_SIZE = 100;
+    private static final long DEFAULT_CACHE_TTL = 10_000;
 
     /**
      *
@@ -64,31 +63,60 @@ public class GetCollectionCache {
         return SingletonHolder.INSTANCE;
     }
 
-    private final Cache<GetCollectionCacheKey, List<BsonDocument>> cache;
+    // null if the cache is disabled, replaced when reload() changes the expiration
+    private volatile Cache<GetCollectionCacheKey, List<BsonDocument>> cache = null;
 
     private GetCollectionCache() {
-        if (CACHE_ENABLED) {
-            cache = CacheFactory.createLocalCache(CACHE_SIZE, Cache.EXPIRE_POLICY.AFTER_WRITE, CACHE_TTL);
+        reload(MongoServiceConfiguration.get());
 
-            if (LOGGER.isTraceEnabled()) {
-                // print stats every 1 minute
-                Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
+        if (LOGGER.isTraceEnabled()) {
+            // print stats every 1 minute
+            Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(() -> {
+                var _cache = this.cache;
+
+                if (_cache != null) {
                     getCacheSizes().forEach((s, c) -> {
                         LOGGER.debug("get collection cache size: {}\t{}", s, c);
                     });
 
-                    LOGGER.trace("get collection cache entries: {}", cache.asMap().keySet());
-                }, 1, 1, TimeUnit.MINUTES);
-            }
-        } else {
-            cache = null;
+                    LOGGER.trace("get collection cache entries: {}", _cache.asMap().keySet());
+                }
+            }, 1, 1, TimeUnit.MINUTES);
         }
     }
 
+    /**
+     * applies the get-collection-cache settings; the cache is resized retaining
+     * the cached documents, unless the expiration is enabled or disabled
+     *
+     * @param conf the configuration, null for the defaults
+     */
+    public synchronized void reload(MongoServiceConfiguration conf) {
+        var enabled = conf == null || conf.isGetCollectionCacheEnabled();
+        var size = conf == null ? DEFAULT_CACHE_SIZE : conf.getGetCollectionCacheSize();
+        var ttl = conf == null ? DEFAULT_CACHE_TTL : conf.getGetCollectionCacheTTL();
+
+        var _cache = this.cache;
+
+        if (!enabled) {
+            this.cache = null;
+        } else if (_cache == null || !_cache.reconfigure(size, ttl)) {
+            this.cache = CacheFactory.createLocalCache(size, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl);
+        }
+    }
+
+    /**
+     * @return true if the get collection cache is enabled
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
     public void put(GetCollectionCacheKey key, List<BsonDocument> value) {
-        if (cache == null) return;
+        var _cache = this.cache;
+        if (_cache == null) return;
 
-        cache.put(key, value);
+        _cache.put(key, value);
     }
 
     public Pair<GetCollectionCacheKey, List<BsonDocument>> find(GetCollectionCacheKey key) {
@@ -116,15 +144,16 @@ public class GetCollectionCache {
      * @return
      */
     private Pair<GetCollectionCacheKey, List<BsonDocument>> _get(GetCollectionCacheKey key, boolean remove) {
-        if (cache == null) return null;
+        var _cache = this.cache;
+        if (_cache == null) return null;
 
         // return the first entry with all available documents
-        var _bestKey = cache.asMap().keySet().stream()
+        var _bestKey = _cache.asMap().keySet().stream()
                 .filter(cacheKeyFilter(key))
                 .findFirst();
 
         if (_bestKey.isPresent()) {
-            var _cached = remove ? cache.remove(_bestKey.get()) : cache.get(_bestKey.get());
+            var _cached = remove ? _cache.remove(_bestKey.get()) : _cache.get(_bestKey.get());
 
             if (_cached != null && _cached.isPresent()) {
                 LOGGER.debug("{} cached documents. cache entry id {}", ansi().fg(GREEN).bold().a("found").reset().toString(), _bestKey.get().cursorId());
@@ -140,40 +169,42 @@ public class GetCollectionCache {
     }
 
     public void invalidate(GetCollectionCacheKey key) {
-        if (cache == null) return;
+        var _cache = this.cache;
+        if (_cache == null) return;
 
-        cache.invalidate(key);
+        _cache.invalidate(key);
     }
 
     public void invalidateAll(String db, String coll) {
-        if (cache == null) return;
+        var _cache = this.cache;
+        if (_cache == null) return;
 
-        cache.asMap().keySet().stream()
+        _cache.asMap().keySet().stream()
                 .filter(k -> k.collection().getNamespace().getDatabaseName().equals(db))
                 .filter(k -> k.collection().getNamespace().getCollectionName().equals(coll))
-                .forEach(k -> cache.invalidate(k));
+                .forEach(k -> _cache.invalidate(k));
     }
 
     public void invalidateAll(String db) {
-        if (cache == null) return;
+        var _cache = this.cache;
+        if (_cache == null) return;
 
-        cache.asMap().keySet().stream()
+        _cache.asMap().keySet().stream()
                 .filter(k -> k.collection().getNamespace().getDatabaseName().equals(db))
-                .forEach(k -> cache.invalidate(k));
+                .forEach(k -> _cache.invalidate(k));
     }
 
 
     public void invalidateAll(MongoCollection<?> coll) {
-        if (cache == null) return;
+        var _cache = this.cache;
+        if (_cache == null) return;
 
-        cache.asMap().keySet().stream()
+        _cache.asMap().keySet().stream()
                 .filter(k -> k.collection().getNamespace().equals(coll.getNamespace()))
-                .forEach(cache::invalidate);
+                .forEach(_cache::invalidate);
     }
 
     private Predicate<? super GetCollectionCacheKey> cacheKeyFilter(GetCollectionCacheKey requested) {
-        if (cache == null) return null;
-
         return cached
                 -> Objects.equals(cached.collection().getNamespace(), requested.collection().getNamespace())
                         && Objects.equals(cached.filter(), requested.filter())
@@ -201,9 +232,10 @@ public class GetCollectionCache {
     }
 
     private TreeMap<String, Long> getCacheSizes() {
-        if (cache == null) return null;
+        var _cache = this.cache;
+        if (_cache == null) return null;
 
-        return new TreeMap<>(cache.asMap()
+        return new TreeMap<>(_cache.asMap()
                 .keySet()
                 .stream()
                 .collect(Collectors.groupingBy(GetCollectionCacheKey::getCacheStatsGroup, Collectors.counting())));
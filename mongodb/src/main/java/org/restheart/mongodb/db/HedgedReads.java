@@ -0,0 +1,145 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.restheart.mongodb.RSOps;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+
+/**
+ * Hedged reads: a read not completed within the hedge delay is raced by a
+ * second read on the nearest member and the first one to complete wins.
+ *
+ * Since the nearest member can be a secondary, only the reads whose read
+ * preference allows reading from secondaries are hedged.
+ *
+ * This trades some additional load for a lower tail latency when a member is
+ * slow. It is implemented by RESTHeart rather than by the server, since the
+ * hedge option of the read preference is deprecated and only applies to
+ * sharded clusters.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class HedgedReads {
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private HedgedReads() {
+    }
+
+    /**
+     * executes the read, racing it with the hedge read if it does not
+     * complete within delay milliseconds
+     *
+     * @param <T> the type of the result
+     * @param delay the hedge delay in milliseconds, 0 to execute the read only
+     * @param read the read
+     * @param hedge the hedge read
+     * @return the result of the first read to complete successfully
+     */
+    public static <T> T execute(long delay, Supplier<T> read, Supplier<T> hedge) {
+        if (delay <= 0) {
+            return read.get();
+        }
+
+        var first = CompletableFuture.supplyAsync(read, EXECUTOR);
+
+        try {
+            return first.get(delay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException te) {
+            // the read is slow, issue the hedge read
+        } catch (ExecutionException ee) {
+            throw rethrow(ee.getCause());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(ie);
+        }
+
+        var second = CompletableFuture.supplyAsync(hedge, EXECUTOR);
+
+        try {
+            @SuppressWarnings("unchecked")
+            var ret = (T) CompletableFuture.anyOf(first, second).join();
+            return ret;
+        } catch (CompletionException ce) {
+            // the first read to complete failed, wait for the other one
+            var other = first.isCompletedExceptionally() ? second : first;
+
+            try {
+                return other.join();
+            } catch (CompletionException _ce) {
+                throw rethrow(_ce.getCause());
+            }
+        }
+    }
+
+    /**
+     * @param delay the hedge delay in milliseconds
+     * @param rsOps the ReplicaSet connection options of the read
+     * @return the hedge delay, 0 if the read preference of the read does not
+     * allow reading from secondaries
+     */
+    public static long hedgeDelay(long delay, Optional<RSOps> rsOps) {
+        var secondaryOk = rsOps
+            .map(RSOps::readPreference)
+            .filter(ReadPreference::isSecondaryOk)
+            .isPresent();
+
+        return secondaryOk ? delay : 0;
+    }
+
+    /**
+     * @param rsOps the ReplicaSet connection options of the read
+     * @return the ReplicaSet connection options of the hedge read: nearest
+     * member with the same max staleness
+     */
+    public static Optional<RSOps> hedgeOps(Optional<RSOps> rsOps) {
+        var ops = rsOps.orElse(new RSOps());
+
+        var maxStaleness = ops.readPreference() instanceof TaggableReadPreference trp
+            ? trp.getMaxStaleness(TimeUnit.MILLISECONDS)
+            : null;
+
+        return Optional.of(ops.withReadPreference(maxStaleness == null
+            ? ReadPreference.nearest()
+            : ReadPreference.nearest(maxStaleness, TimeUnit.MILLISECONDS)));
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException re) {
+            return re;
+        } else if (t instanceof Error e) {
+            throw e;
+        } else {
+            return new CompletionException(t);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.restheart.configuration.Utils.asListOfStrings;
+import static org.restheart.configuration.Utils.asLong;
+import static org.restheart.configuration.Utils.asString;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_COLL_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_DB_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_HEDGE_DELAY_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_MAX_STALENESS_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_PATH_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_READ_PREFERENCE_KEY;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.READ_ROUTING_ROLES_KEY;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.ReadPreference;
+
+/**
+ * The read routing rules set the read preference of the GET requests that
+ * don't specify the readPreference query parameter, so that the read load can
+ * be spread across the secondaries without the clients knowing about it.
+ *
+ * <pre>
+ * read-routing:
+ *   - db: analytics
+ *     roles: [ reporting ]
+ *     read-preference: secondaryPreferred
+ *     max-staleness: 90_000
+ *     hedge-delay: 50
+ * </pre>
+ *
+ * A rule matches a request when all its conditions match: path is a prefix
+ * of the request path (e.g. the where of a mongo-mount), db and coll are
+ * either * or the names of the db and the collection, roles contains at least
+ * one role of the authenticated account. Missing conditions match any request.
+ * The first matching rule applies.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ReadRouting {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadRouting.class);
+
+    private static final String ANY = "*";
+
+    /**
+     * the server does not accept a maxStalenessSeconds less than 90 seconds
+     */
+    public static final long MIN_MAX_STALENESS = 90_000;
+
+    /**
+     * a read routing rule
+     *
+     * @param path the request path prefix, null matches any path
+     * @param db the db name, null or * matches any db
+     * @param coll the collection name, null or * matches any collection
+     * @param roles the roles, empty matches any account
+     * @param readPreference the read preference to apply
+     * @param hedgeDelay the delay after which a hedged read is issued, 0 disables hedged reads
+     */
+    public record Rule(String path, String db, String coll, Set<String> roles, ReadPreference readPreference, long hedgeDelay) {
+        /**
+         *
+         * @param requestPath the request path
+         * @param requestDb the db of the request
+         * @param requestColl the collection of the request, can be null
+         * @param accountRoles the roles of the authenticated account, can be null
+         * @return true if the rule matches the request
+         */
+        public boolean matches(String requestPath, String requestDb, String requestColl, Set<String> accountRoles) {
+            return (path == null || (requestPath != null && requestPath.startsWith(path)))
+                && (db == null || ANY.equals(db) || db.equals(requestDb))
+                && (coll == null || ANY.equals(coll) || coll.equals(requestColl))
+                && (roles.isEmpty() || (accountRoles != null && accountRoles.stream().anyMatch(roles::contains)));
+        }
+    }
+
+    private ReadRouting() {
+    }
+
+    /**
+     * parses the read-routing configuration; invalid rules are logged and skipped
+     *
+     * @param conf the read-routing configuration
+     * @return the rules
+     */
+    public static List<Rule> rules(List<Map<String, Object>> conf) {
+        var ret = new ArrayList<Rule>();
+
+        if (conf == null) {
+            return ret;
+        }
+
+        for (var rule : conf) {
+            var readPreference = asString(rule, READ_ROUTING_READ_PREFERENCE_KEY, null, true);
+            var maxStaleness = asLong(rule, READ_ROUTING_MAX_STALENESS_KEY, (long) -1, true);
+            var hedgeDelay = asLong(rule, READ_ROUTING_HEDGE_DELAY_KEY, (long) 0, true);
+
+            if (readPreference == null) {
+                LOGGER.warn("Ignoring read routing rule {}, missing {}", rule, READ_ROUTING_READ_PREFERENCE_KEY);
+                continue;
+            }
+
+            if (maxStaleness >= 0 && maxStaleness < MIN_MAX_STALENESS) {
+                LOGGER.warn("Ignoring read routing rule {}, {} must be at least {} milliseconds", rule, READ_ROUTING_MAX_STALENESS_KEY, MIN_MAX_STALENESS);
+                continue;
+            }
+
+            ReadPreference _readPreference;
+
+            try {
+                _readPreference = maxStaleness < 0
+                    ? ReadPreference.valueOf(readPreference)
+                    : ReadPreference.valueOf(readPreference, List.of(), maxStaleness, TimeUnit.MILLISECONDS);
+            } catch (IllegalArgumentException iae) {
+                LOGGER.warn("Ignoring read routing rule {}, {}", rule, iae.getMessage());
+                continue;
+            }
+
+            ret.add(new Rule(asString(rule, READ_ROUTING_PATH_KEY, null, true),
+                asString(rule, READ_ROUTING_DB_KEY, null, true),
+                asString(rule, READ_ROUTING_COLL_KEY, null, true),
+                Set.copyOf(asListOfStrings(rule, READ_ROUTING_ROLES_KEY, List.of(), true)),
+                _readPreference,
+                Math.max(0, hedgeDelay)));
+        }
+
+        return ret;
+    }
+
+    /**
+     *
+     * @param rules the rules
+     * @param requestPath the request path
+     * @param requestDb the db of the request
+     * @param requestColl the collection of the request, can be null
+     * @param accountRoles the roles of the authenticated account, can be null
+     * @return the first matching rule, or null
+     */
+    public static Rule match(List<Rule> rules, String requestPath, String requestDb, String requestColl, Set<String> accountRoles) {
+        return rules.stream()
+            .filter(rule -> rule.matches(requestPath, requestDb, requestColl, accountRoles))
+            .findFirst()
+            .orElse(null);
+    }
+}
@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import org.restheart.mongodb.MongoServiceConfiguration;
+
+/**
+ * Coalesces identical concurrent reads: while a read is in flight, the
+ * requests with the same key wait for it instead of querying MongoDB again.
+ *
+ * The result is shared via copies, since the response content is modified
+ * downstream by interceptors and representation handlers. The copy is skipped
+ * when no request joined the read.
+ *
+ * Note that a read joining an in-flight one might not reflect a write
+ * completed after the latter started; for this reason coalescing is opt-in,
+ * enabled by setting coalesce-reads to true.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ * @param <K> the type of the key identifying the read
+ * @param <V> the type of the result
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Flight<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+
+    private static class Flight<V> {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        // number of joined requests, -1 once the leader has read it
+        final AtomicInteger waiters = new AtomicInteger(0);
+
+        boolean join() {
+            int w;
+            do {
+                w = waiters.get();
+                if (w < 0) {
+                    return false;
+                }
+            } while (!waiters.compareAndSet(w, w + 1));
+
+            return true;
+        }
+    }
+
+    /**
+     * @param copier the function that copies the result for each request
+     */
+    public SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * executes the read, or waits for the identical one in flight
+     *
+     * @param key the key identifying the read
+     * @param read the function that executes the read
+     * @return the result of the read
+     */
+    public V execute(K key, Supplier<V> read) {
+        // read per request, since the configuration can be reloaded
+        if (MongoServiceConfiguration.get() != null && !MongoServiceConfiguration.get().isCoalesceReads()) {
+            return read.get();
+        }
+
+        var flight = new Flight<V>();
+        var current = inFlight.putIfAbsent(key, flight);
+
+        if (current != null) {
+            if (!current.join()) {
+                // the in flight read just completed, execute it again
+                return execute(key, read);
+            }
+
+            try {
+                var value = current.result.join();
+                return value == null ? null : copier.apply(value);
+            } catch (CompletionException ce) {
+                if (ce.getCause() instanceof RuntimeException re) {
+                    throw re;
+                } else if (ce.getCause() instanceof Error e) {
+                    throw e;
+                } else {
+                    throw ce;
+                }
+            }
+        }
+
+        V value;
+
+        try {
+            value = read.get();
+        } catch (Throwable t) {
+            inFlight.remove(key, flight);
+            flight.waiters.getAndSet(-1);
+            flight.result.completeExceptionally(t);
+            throw t;
+        }
+
+        inFlight.remove(key, flight);
+        var joined = flight.waiters.getAndSet(-1);
+        flight.result.complete(value);
+
+        // the joined requests copy the value, that must not be modified
+        return joined > 0 && value != null ? copier.apply(value) : value;
+    }
+}
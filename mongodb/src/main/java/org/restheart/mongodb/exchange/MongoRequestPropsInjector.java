@@ -27,6 +27,7 @@ import java.util.Optional;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import org.bson.json.JsonParseException;
+import static org.restheart.exchange.ExchangeKeys.AFTER_QPARAM_KEY;
 import static org.restheart.exchange.ExchangeKeys.AGGREGATION_VARIABLES_QPARAM_KEY;
 import org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE;
 import static org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE_QPARAM_KEY;
@@ -59,8 +60,6 @@ import org.restheart.utils.BsonUtils;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 public class MongoRequestPropsInjector {
-    private static final int DEFAULT_PAGESIZE = MongoServiceConfiguration.get().getDefaultPagesize();
-    private static final int MAX_PAGESIZE = MongoServiceConfiguration.get().getMaxPagesize();
 
     /**
      *
@@ -129,7 +128,9 @@ public class MongoRequestPropsInjector {
 
         int page = 1; // default page
 
-        int pagesize = DEFAULT_PAGESIZE;
+        // read per request, since the configuration can be reloaded
+        final int maxPagesize = MongoServiceConfiguration.get().getMaxPagesize();
+        int pagesize = MongoServiceConfiguration.get().getDefaultPagesize();
 
         if (__pagesize != null && !(__pagesize.isEmpty())) {
             try {
@@ -140,8 +141,8 @@ public class MongoRequestPropsInjector {
             }
         }
 
-        if (pagesize < 0 || pagesize > MAX_PAGESIZE) {
-            response.setInError(HttpStatus.SC_BAD_REQUEST, "illegal pagesize parameter, pagesize must be >= 0 and <= " + MAX_PAGESIZE);
+        if (pagesize < 0 || pagesize > maxPagesize) {
+            response.setInError(HttpStatus.SC_BAD_REQUEST, "illegal pagesize parameter, pagesize must be >= 0 and <= " + maxPagesize);
             return;
         } else {
             request.setPagesize(pagesize);
@@ -165,12 +166,30 @@ public class MongoRequestPropsInjector {
             request.setPage(page);
         }
 
+        var __after = exchange.getQueryParameters().get(AFTER_QPARAM_KEY);
+
+        if (__after != null && !(__after.isEmpty())) {
+            if (__after.getFirst() == null || __after.getFirst().isBlank()) {
+                response.setInError(HttpStatus.SC_BAD_REQUEST, "illegal after parameter (empty)");
+                return;
+            }
+
+            if (page > 1) {
+                response.setInError(HttpStatus.SC_BAD_REQUEST, "illegal page parameter, it cannot be used with the after parameter");
+                return;
+            }
+
+            request.setAfter(__after.getFirst().strip());
+        }
+
         var __count = exchange.getQueryParameters().get("count");
 
         if (__count != null) {
             request.setCount(true);
             if ("estimated".equalsIgnoreCase(__count.getFirst())) {
                 request.setEstimatedCount(true);
+            } else if ("async".equalsIgnoreCase(__count.getFirst())) {
+                request.setAsyncCount(true);
             }
         }
 
@@ -287,6 +287,10 @@ class CollectionRepresentationFactory
             Resource rep)
             throws IllegalQueryParameterException {
         var request = MongoRequest.of(exchange);
+        var fullHalMode = request.isFullHalMode();
+
+        // a single factory renders all the documents of the page
+        var factory = new DocumentRepresentationFactory(exchange);
 
         for (BsonValue _d : embeddedData) {
             if (_d != null && _d.isDocument()) {
@@ -303,20 +307,13 @@ class CollectionRepresentationFactory
                     Resource nrep;
 
                     if (_id == null) {
-                        nrep = new DocumentRepresentationFactory()
-                                .getRepresentation(
-                                        requestPath + "/_null",
-                                        exchange,
-                                        d);
+                        nrep = factory.getRepresentation(requestPath + "/_null", d);
                     } else {
-                        nrep = new DocumentRepresentationFactory()
-                                .getRepresentation(RepresentationUtils.getReferenceLink(requestPath, _id),
-                                        exchange,
-                                        d);
+                        nrep = factory.getRepresentation(RepresentationUtils.getReferenceLink(requestPath, _id), d);
                     }
 
                     if (null == request.getType()) {
-                        if (request.isFullHalMode()) {
+                        if (fullHalMode) {
                             DocumentRepresentationFactory.addSpecialProperties(
                                     nrep,
                                     TYPE.DOCUMENT,
@@ -327,7 +324,7 @@ class CollectionRepresentationFactory
                     } else {
                         switch (request.getType()) {
                             case FILES_BUCKET:
-                                if (request.isFullHalMode()) {
+                                if (fullHalMode) {
                                     DocumentRepresentationFactory.addSpecialProperties(
                                             nrep,
                                             TYPE.FILE,
@@ -336,7 +333,7 @@ class CollectionRepresentationFactory
                                 rep.addChild(RHFILE, nrep);
                                 break;
                             case SCHEMA_STORE:
-                                if (request.isFullHalMode()) {
+                                if (fullHalMode) {
                                     DocumentRepresentationFactory.addSpecialProperties(
                                             nrep,
                                             TYPE.SCHEMA,
@@ -345,7 +342,7 @@ class CollectionRepresentationFactory
                                 rep.addChild(RHSCHEMA, nrep);
                                 break;
                             default:
-                                if (request.isFullHalMode()) {
+                                if (fullHalMode) {
                                     DocumentRepresentationFactory.addSpecialProperties(
                                             nrep,
                                             TYPE.DOCUMENT,
@@ -22,14 +22,12 @@ package org.restheart.mongodb.hal;
 
 import io.undertow.server.HttpServerExchange;
 import java.time.Instant;
-import java.util.List;
 import org.bson.BsonDocument;
 import org.bson.BsonString;
 import org.bson.types.ObjectId;
 import static org.restheart.exchange.ExchangeKeys.BINARY_CONTENT;
 import org.restheart.exchange.ExchangeKeys.TYPE;
 import org.restheart.exchange.IllegalQueryParameterException;
-import org.restheart.exchange.InvalidMetadataException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.UnsupportedDocumentIdException;
@@ -80,63 +78,79 @@ class DocumentRepresentationFactory {
         }
     }
 
-    private static void addRelationshipsLinks(Resource rep,
-                                              HttpServerExchange exchange,
-                                              BsonDocument data) {
-        var request = MongoRequest.of(exchange);
+    private final MongoRequest request;
+    private final MongoResponse response;
+    private final RepresentationPlan plan;
+    private final String relsWarning;
+    private final boolean fullHalMode;
+    private final boolean isEmbedded;
+    private final String parentPath;
 
-        List<Relationship> rels = null;
+    /**
+     * the factory computes once what does not depend on the document, so that
+     * a single instance renders all the documents of a page
+     *
+     * @param exchange
+     */
+    public DocumentRepresentationFactory(HttpServerExchange exchange) {
+        this.request = MongoRequest.of(exchange);
+        this.response = MongoResponse.of(exchange);
+        this.plan = RepresentationPlan.of(request.getCollectionProps());
+        this.relsWarning = plan.validRels()
+                ? null
+                : "collection " + request.getDBName()
+                + "/" + request.getCollectionName()
+                + " has invalid relationships definition";
+        this.fullHalMode = request.isFullHalMode();
+
+        // the document (file) representation can be asked for requests to collection (bucket)
+        this.isEmbedded = TYPE.COLLECTION.equals(request.getType())
+                || TYPE.FILES_BUCKET.equals(request.getType())
+                || TYPE.SCHEMA_STORE.equals(request.getType());
 
-        try {
-            rels = Relationship.getFromJson(request.getCollectionProps());
-        } catch (InvalidMetadataException ex) {
-            rep.addWarning("collection " + request.getDBName()
-                    + "/" + request.getCollectionName()
-                    + " has invalid relationships definition");
+        // link templates and curies
+        String requestPath = MongoURLUtils.removeTrailingSlashes(exchange.getRequestPath());
+
+        if (isEmbedded) {
+            this.parentPath = requestPath;
+        } else {
+            this.parentPath = MongoURLUtils.getParentPath(requestPath);
         }
+    }
 
-        if (rels != null) {
-            for (Relationship rel : rels) {
-                try {
-                    String link = rel.getRelationshipLink(request,
-                            request.getDBName(),
-                            request.getCollectionName(), data);
-
-                    if (link != null) {
-                        rep.addLink(new Link(rel.getRel(), link));
-                    }
-                } catch (IllegalArgumentException | UnsupportedDocumentIdException ex) {
-                    rep.addWarning(ex.getMessage());
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(ex.getMessage());
-                    }
+    private void addRelationshipsLinks(Resource rep, BsonDocument data) {
+        if (relsWarning != null) {
+            rep.addWarning(relsWarning);
+        }
+
+        for (Relationship rel : plan.rels()) {
+            try {
+                String link = rel.getRelationshipLink(request,
+                        request.getDBName(),
+                        request.getCollectionName(), data);
+
+                if (link != null) {
+                    rep.addLink(new Link(rel.getRel(), link));
+                }
+            } catch (IllegalArgumentException | UnsupportedDocumentIdException ex) {
+                rep.addWarning(ex.getMessage());
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug(ex.getMessage());
                 }
             }
         }
     }
 
-    /**
-     *
-     */
-    public DocumentRepresentationFactory() {
-    }
-
     /**
      *
      * @param href
-     * @param exchange
      * @param data
      * @return
      * @throws IllegalQueryParameterException
      */
-    public Resource getRepresentation(String href,
-                                      HttpServerExchange exchange,
-                                      BsonDocument data)
+    public Resource getRepresentation(String href, BsonDocument data)
             throws IllegalQueryParameterException {
-        var request = MongoRequest.of(exchange);
-        var response = MongoResponse.of(exchange);
-
-        var rep = request.isFullHalMode() && data != null
+        var rep = fullHalMode && data != null
                 ? new Resource(RepresentationUtils
                 .getReferenceLink(response,
                         MongoURLUtils.getParentPath(href),
@@ -144,26 +158,9 @@ class DocumentRepresentationFactory {
                 : new Resource();
 
         if (data != null) {
-            data.keySet()
-                    .stream().forEach((key) -> rep.addProperty(key, data.get(key)));
-
-            addRelationshipsLinks(rep, exchange, data);
-        }
-
-        // link templates and curies
-        String requestPath = MongoURLUtils.removeTrailingSlashes(exchange.getRequestPath());
-
-        String parentPath;
+            rep.addProperties(data);
 
-        // the document (file) representation can be asked for requests to collection (bucket)
-        boolean isEmbedded = TYPE.COLLECTION.equals(request.getType())
-                || TYPE.FILES_BUCKET.equals(request.getType())
-                || TYPE.SCHEMA_STORE.equals(request.getType());
-
-        if (isEmbedded) {
-            parentPath = requestPath;
-        } else {
-            parentPath = MongoURLUtils.getParentPath(requestPath);
+            addRelationshipsLinks(rep, data);
         }
 
         if (data != null && isBinaryFile(data)) {
@@ -172,7 +169,7 @@ class DocumentRepresentationFactory {
         }
 
         // link templates
-        if (!isEmbedded && request.isFullHalMode()) {
+        if (!isEmbedded && fullHalMode) {
 
             addSpecialProperties(rep, request.getType(), data);
 
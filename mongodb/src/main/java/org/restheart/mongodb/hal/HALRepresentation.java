@@ -80,6 +80,8 @@ public class HALRepresentation implements MongoInterceptor {
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return !request.isInError()
+                && !request.isStreamingIngest()
+                && !request.isStreamingExport()
                 && !request.isDbMeta()
                 && !request.isDbSize()
                 && !request.isCollectionMeta()
@@ -104,11 +106,11 @@ public class HALRepresentation implements MongoInterceptor {
      */
     private BsonDocument std2HAL(MongoRequest request, MongoResponse response, BsonValue content) {
         if (request.isGet() && (request.isDocument() || request.isFile() || request.isSchema())) {
-            var factory = new DocumentRepresentationFactory();
+            var factory = new DocumentRepresentationFactory(request.getExchange());
 
             try {
                 return factory
-                        .getRepresentation(MongoURLUtils.removeTrailingSlashes(request.getPath()), request.getExchange(), content == null ? null : content.asDocument())
+                        .getRepresentation(MongoURLUtils.removeTrailingSlashes(request.getPath()), content == null ? null : content.asDocument())
                         .asBsonDocument();
             } catch (IllegalQueryParameterException iqpe) {
                 //shoudn't happen
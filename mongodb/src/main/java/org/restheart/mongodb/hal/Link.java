@@ -29,7 +29,9 @@ import org.bson.BsonString;
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
 class Link {
-    private final BsonDocument doc = new BsonDocument();
+    private final String ref;
+    // the link object, e.g. { "href": "/db/coll", "templated": true }
+    private final BsonDocument value;
 
     /**
      *
@@ -41,7 +43,8 @@ class Link {
             throw new IllegalArgumentException("constructor args cannot be null or empty");
         }
 
-        doc.put(ref, new BsonDocument("href", new BsonString(href)));
+        this.ref = ref;
+        this.value = new BsonDocument("href", new BsonString(href));
     }
 
     /**
@@ -54,7 +57,7 @@ class Link {
         this(ref, href);
 
         if (templated) {
-            doc.getDocument(ref).put("templated", new BsonBoolean(true));
+            value.put("templated", BsonBoolean.TRUE);
         }
     }
 
@@ -68,7 +71,7 @@ class Link {
     public Link(String name, String ref, String href, boolean templated) {
         this(ref, href, templated);
 
-        doc.getDocument(ref).put("name", new BsonString(name));
+        value.put("name", new BsonString(name));
     }
 
     /**
@@ -76,7 +79,7 @@ class Link {
      * @return
      */
     public String getRef() {
-        return (String) doc.keySet().toArray()[0];
+        return ref;
     }
 
     /**
@@ -84,10 +87,14 @@ class Link {
      * @return
      */
     public String getHref() {
-        return doc.getDocument(getRef()).getString("href").getValue();
+        return value.getString("href").getValue();
     }
 
-    BsonDocument getBsonDocument() {
-        return doc;
+    /**
+     *
+     * @return the link object
+     */
+    BsonDocument getValue() {
+        return value;
     }
 }
@@ -0,0 +1,98 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2019 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.hal;
+
+import java.util.List;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.cache.LoadingCache;
+import org.restheart.exchange.InvalidMetadataException;
+import org.restheart.mongodb.metadata.Relationship;
+
+/**
+ * The part of the HAL rendering of the documents that only depends on the
+ * collection properties, compiled once and shared by all the documents of all
+ * the requests: the relationships parsed from the rels metadata.
+ *
+ * Plans are cached by rels definition, so that updating the collection
+ * properties compiles a new plan.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+class RepresentationPlan {
+    private static final RepresentationPlan EMPTY = new RepresentationPlan(List.of(), true);
+    private static final RepresentationPlan INVALID = new RepresentationPlan(List.of(), false);
+
+    private static final LoadingCache<BsonArray, RepresentationPlan> PLANS = CacheFactory
+            .createLocalLoadingCache(100, Cache.EXPIRE_POLICY.NEVER, 0, RepresentationPlan::compile);
+
+    private final List<Relationship> rels;
+    private final boolean validRels;
+
+    private RepresentationPlan(List<Relationship> rels, boolean validRels) {
+        this.rels = rels;
+        this.validRels = validRels;
+    }
+
+    /**
+     * @param collProps the collection properties
+     * @return the plan for the collection
+     */
+    static RepresentationPlan of(BsonDocument collProps) {
+        var _rels = collProps == null ? null : collProps.get(Relationship.RELATIONSHIPS_ELEMENT_NAME);
+
+        if (_rels == null) {
+            return EMPTY;
+        } else if (!_rels.isArray()) {
+            return INVALID;
+        }
+
+        // the key is a copy, the collection properties can be modified downstream
+        var plan = PLANS.getLoading(_rels.asArray().clone());
+
+        return plan != null && plan.isPresent() ? plan.get() : EMPTY;
+    }
+
+    private static RepresentationPlan compile(BsonArray rels) {
+        try {
+            return new RepresentationPlan(List.copyOf(Relationship.getFromJson(new BsonDocument(Relationship.RELATIONSHIPS_ELEMENT_NAME, rels))), true);
+        } catch (InvalidMetadataException ime) {
+            return INVALID;
+        }
+    }
+
+    /**
+     * @return the relationships of the collection
+     */
+    List<Relationship> rels() {
+        return rels;
+    }
+
+    /**
+     * @return false if the rels metadata of the collection is invalid
+     */
+    boolean validRels() {
+        return validRels;
+    }
+}
@@ -70,8 +70,9 @@ class Resource {
     private static final String LINKS = "_links";
 
     private final BsonDocument properties;
-    private final BsonDocument embedded;
-    private final BsonDocument links;
+    // embedded and links are allocated when the first child or link is added
+    private BsonDocument embedded = null;
+    private BsonDocument links = null;
 
     /**
      *
@@ -79,11 +80,9 @@ class Resource {
      */
     public Resource(String href) {
         properties = new BsonDocument();
-        embedded = new BsonDocument();
-        links = new BsonDocument();
 
         if (href != null) {
-            links.put("self", new BsonDocument("href", new BsonString(href)));
+            links().put("self", new BsonDocument("href", new BsonString(href)));
         }
     }
 
@@ -129,10 +128,6 @@ class Resource {
             properties.append(LINKS, links);
         }
 
-        if (links != null && !links.isEmpty()) {
-            properties.append(LINKS, links);
-        }
-
         return properties;
     }
 
@@ -141,7 +136,7 @@ class Resource {
      * @param link
      */
     public void addLink(Link link) {
-        links.putAll(link.getBsonDocument());
+        links().put(link.getRef(), link.getValue());
     }
 
     /**
@@ -150,6 +145,8 @@ class Resource {
      * @return the created or existing link array
      */
     public BsonArray addLinkArray(String linkArrayRef) {
+        var links = links();
+
         if (!links.containsKey(linkArrayRef)) {
             links.append(linkArrayRef, new BsonArray());
         }
@@ -167,9 +164,9 @@ class Resource {
     public void addLink(Link link, boolean inArray) {
         BsonArray linkArray = addLinkArray(link.getRef());
 
-        linkArray.add(link.getBsonDocument().get(link.getRef()));
+        linkArray.add(link.getValue());
 
-        links.put(link.getRef(), linkArray);
+        links().put(link.getRef(), linkArray);
     }
 
     /**
@@ -199,6 +196,10 @@ class Resource {
      * @param rep
      */
     public void addChild(String rel, Resource rep) {
+        if (embedded == null) {
+            embedded = new BsonDocument();
+        }
+
         if (!embedded.containsKey(rel)) {
             embedded.append(rel, new BsonArray());
         }
@@ -218,6 +219,14 @@ class Resource {
         addChild("rh:warnings", nrep);
     }
 
+    private BsonDocument links() {
+        if (links == null) {
+            links = new BsonDocument();
+        }
+
+        return links;
+    }
+
     @Override
     public String toString() {
         return asBsonDocument().toJson();
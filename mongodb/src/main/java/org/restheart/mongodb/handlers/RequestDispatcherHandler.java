@@ -34,6 +34,7 @@ import org.restheart.mongodb.handlers.bulk.BulkDeleteDocumentsHandler;
 import org.restheart.mongodb.handlers.bulk.BulkDeleteFilesHandler;
 import org.restheart.mongodb.handlers.bulk.BulkPatchDocumentsHandler;
 import org.restheart.mongodb.handlers.bulk.BulkPostCollectionHandler;
+import org.restheart.mongodb.handlers.bulk.StreamingPostCollectionHandler;
 import org.restheart.mongodb.handlers.collection.DeleteCollectionHandler;
 import org.restheart.mongodb.handlers.collection.GetCollectionHandler;
 import org.restheart.mongodb.handlers.collection.PatchCollectionHandler;
@@ -233,7 +234,8 @@ public class RequestDispatcherHandler extends PipelinedHandler {
         putHandler(TYPE.COLLECTION, METHOD.POST,
                 new NormalOrBulkDispatcherHandler(
                         new PostCollectionHandler(),
-                        new BulkPostCollectionHandler()));
+                        new BulkPostCollectionHandler(),
+                        new StreamingPostCollectionHandler()));
 
         putHandler(TYPE.COLLECTION, METHOD.PUT,
                 pipe(
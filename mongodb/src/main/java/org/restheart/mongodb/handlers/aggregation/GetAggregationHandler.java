@@ -23,7 +23,9 @@ package org.restheart.mongodb.handlers.aggregation;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
@@ -36,7 +38,10 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.exchange.QueryVariableNotBoundException;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.RSOps;
 import org.restheart.mongodb.db.Databases;
+import org.restheart.mongodb.db.SingleFlight;
+import org.restheart.mongodb.utils.ExportSender;
 import org.restheart.security.AggregationPipelineSecurityChecker;
 import org.restheart.mongodb.utils.StagesInterpolator;
 import org.restheart.mongodb.utils.StagesInterpolator.STAGE_OPERATOR;
@@ -46,6 +51,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.mongodb.MongoCommandException;
+import com.mongodb.MongoNamespace;
 import com.mongodb.client.AggregateIterable;
 
 import io.undertow.server.HttpServerExchange;
@@ -61,6 +67,12 @@ public class GetAggregationHandler extends PipelinedHandler {
     private final Databases dbs = Databases.get();
     private final AggregationPipelineSecurityChecker securityChecker;
 
+    private record AggregationReadKey(MongoNamespace namespace, Optional<RSOps> rsOps, List<BsonDocument> stages, boolean allowDiskUse) {
+    }
+
+    // identical concurrent aggregations are executed once
+    private static final SingleFlight<AggregationReadKey, List<BsonDocument>> AGGREGATION_READS = new SingleFlight<>(docs -> docs.stream().map(BsonDocument::clone).collect(Collectors.toList()));
+
     /**
      * Default ctor
      */
@@ -171,6 +183,16 @@ public class GetAggregationHandler extends PipelinedHandler {
 
                     if (isMergeOrOutSuffixed) {
                         agrOutput.toCollection();
+                    } else if (request.isStreamingExport()) {
+                        // stream the whole result via a single cursor
+                        ExportSender.send(request, response, agrOutput.batchSize(MongoServiceConfiguration.get().getCursorBatchSize()));
+                        next(exchange);
+                        return;
+                    } else if (clientSession == null) {
+                        // coalesce identical concurrent reads
+                        var key = new AggregationReadKey(new MongoNamespace(request.getDBName(), request.getCollectionName()), request.rsOps(), stages, pipeline.getAllowDiskUse().getValue());
+                        var _agrOutput = agrOutput;
+                        _data.addAll(AGGREGATION_READS.execute(key, () -> _agrOutput.into(new ArrayList<>())));
                     } else {
                         agrOutput.into(_data);
                     }
@@ -0,0 +1,355 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.bulk;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.json.JsonParseException;
+import org.restheart.exchange.BadRequestException;
+import org.restheart.exchange.ByteArrayProxyRequest;
+import org.restheart.exchange.Exchange;
+import org.restheart.exchange.ExchangeKeys.DOC_ID_TYPE;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
+import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import static org.restheart.mongodb.MongoServiceConfigurationKeys.DEFAULT_BULK_WRITE_CHUNK_SIZE;
+import org.restheart.mongodb.db.Documents;
+import org.restheart.mongodb.utils.ResponseHelper;
+import org.restheart.utils.BsonUtils;
+import org.restheart.utils.HttpStatus;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteResult;
+
+import io.undertow.server.HttpServerExchange;
+
+/**
+ * Handles POST on collections with newline-delimited JSON content
+ * (application/x-ndjson).
+ *
+ * The request content, of unbounded length, is read line by line from the
+ * request channel. Each line is a document that is checked as the documents of
+ * bulk POST requests (_id type, update operators, reserved ids and the checks
+ * registered by the interceptors, e.g. JSON schema) and the valid documents are
+ * written in batches of mongo.bulk-write-chunk-size documents while streaming.
+ *
+ * Invalid documents and write errors do not stop the ingest: they are reported,
+ * with their line numbers, in the summary returned when the content has been
+ * fully read.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class StreamingPostCollectionHandler extends PipelinedHandler {
+    // max number of errors listed in the summary, all of them are counted
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final Documents documents = Documents.get();
+
+    /**
+     * Creates a new instance of StreamingPostCollectionHandler
+     */
+    public StreamingPostCollectionHandler() {
+        this(null);
+    }
+
+    /**
+     * Creates a new instance of StreamingPostCollectionHandler
+     *
+     * @param next
+     */
+    public StreamingPostCollectionHandler(PipelinedHandler next) {
+        super(next);
+    }
+
+    /**
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        var request = MongoRequest.of(exchange);
+        var response = MongoResponse.of(exchange);
+
+        if (request.isInError()) {
+            next(exchange);
+            return;
+        }
+
+        var ingest = new Ingest(request, batchSize());
+
+        // the exchange is blocking, see WorkingThreadsPoolDispatcher
+        try (var in = new BufferedInputStream(content(exchange))) {
+            var line = new ByteArrayOutputStream();
+            var lineNumber = 0;
+            boolean eof;
+
+            do {
+                eof = readLine(in, line);
+                lineNumber++;
+
+                if (line.size() > Exchange.MAX_CONTENT_SIZE) {
+                    ingest.reject(lineNumber, "line exceeds the max size of " + Exchange.MAX_CONTENT_SIZE + " bytes");
+                } else if (line.size() > 0) {
+                    ingest.add(lineNumber, line.toString(StandardCharsets.UTF_8));
+                }
+
+                line.reset();
+            } while (!eof);
+        }
+
+        ingest.flush();
+
+        if (ingest.etag != null) {
+            ResponseHelper.injectEtagHeader(exchange, ingest.etag);
+        }
+
+        response.setContent(ingest.summary());
+        response.setStatusCode(HttpStatus.SC_OK);
+
+        next(exchange);
+    }
+
+    private static InputStream content(HttpServerExchange exchange) throws IOException {
+        var bar = ByteArrayProxyRequest.of(exchange);
+
+        // the content can have been already read by a proxy request interceptor
+        return bar.isContentAvailable()
+            ? new ByteArrayInputStream(bar.readContent())
+            : exchange.getInputStream();
+    }
+
+    /**
+     * reads a line into buffer, stripping the line terminator. Bytes exceeding
+     * Exchange.MAX_CONTENT_SIZE are discarded
+     *
+     * @return true if the end of the stream has been reached
+     */
+    private static boolean readLine(InputStream in, ByteArrayOutputStream buffer) throws IOException {
+        int b;
+
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                return false;
+            } else if (buffer.size() <= Exchange.MAX_CONTENT_SIZE && !(b == '\r' && peekNewLine(in))) {
+                buffer.write(b);
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean peekNewLine(InputStream in) throws IOException {
+        in.mark(1);
+        var next = in.read();
+        in.reset();
+        return next == '\n';
+    }
+
+    private static int batchSize() {
+        var conf = MongoServiceConfiguration.get();
+        var size = conf == null ? DEFAULT_BULK_WRITE_CHUNK_SIZE : conf.getBulkWriteChunkSize();
+
+        return size > 0 ? size : DEFAULT_BULK_WRITE_CHUNK_SIZE;
+    }
+
+    /**
+     * The state of a streaming ingest: the pending batch and the counters
+     */
+    private class Ingest {
+        private final MongoRequest request;
+        private final int batchSize;
+
+        private BsonArray batch = new BsonArray();
+        // the line numbers of the documents in the batch
+        private List<Integer> batchLines = new ArrayList<>();
+
+        private long lines = 0;
+        private long inserted = 0;
+        private long matched = 0;
+        private long modified = 0;
+        private long rejected = 0;
+        private final BsonArray errors = new BsonArray();
+        private Object etag = null;
+
+        Ingest(MongoRequest request, int batchSize) {
+            this.request = request;
+            this.batchSize = batchSize;
+        }
+
+        void add(int lineNumber, String line) {
+            lines++;
+
+            try {
+                batch.add(check(line));
+                batchLines.add(lineNumber);
+            } catch (BadRequestException bre) {
+                if (bre.getStatusCode() >= HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+                    // not an issue of the document, e.g. the JSON schema is not found
+                    throw bre;
+                }
+
+                rejected++;
+                error(lineNumber, null, bre.getMessage());
+                return;
+            }
+
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(int lineNumber, String message) {
+            lines++;
+            rejected++;
+            error(lineNumber, null, message);
+        }
+
+        /**
+         * applies to a document the same checks applied to the content of
+         * bulk POST requests
+         */
+        private BsonDocument check(String line) throws BadRequestException {
+            BsonValue parsed;
+
+            try {
+                parsed = BsonUtils.parse(line);
+            } catch (JsonParseException | IllegalArgumentException ex) {
+                throw new BadRequestException("Invalid JSON. " + ex.getMessage(), ex);
+            }
+
+            if (parsed == null || !parsed.isDocument()) {
+                throw new BadRequestException("each line must be a json object");
+            }
+
+            var _id = parsed.asDocument().get("_id");
+
+            if (_id != null && _id.isArray()) {
+                throw new BadRequestException("the type of _id in request data is not supported: " + _id.getBsonType().name());
+            }
+
+            if (BsonUtils.containsUpdateOperators(parsed, true)) {
+                throw new BadRequestException("update operators (but $currentDate) cannot be used on POST and PUT requests");
+            }
+
+            var doc = BsonUtils.unflatten(parsed).asDocument();
+
+            _id = doc.get("_id");
+
+            if (_id != null) {
+                if (_id.isString() && MongoRequest.isReservedDocumentId(request.getType(), _id)) {
+                    throw new BadRequestException("id is reserved: " + _id.asString().getValue(), HttpStatus.SC_FORBIDDEN);
+                }
+
+                if (!(request.getDocIdType() == DOC_ID_TYPE.OID || request.getDocIdType() == DOC_ID_TYPE.STRING_OID)) {
+                    throw new BadRequestException("_id in content body is mandatory for documents with id type " + request.getDocIdType().name());
+                }
+            }
+
+            StreamedDocumentChecks.check(request, doc);
+
+            return doc;
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                var result = documents.bulkPostDocuments(Optional.ofNullable(request.getClientSession()),
+                    request.rsOps(),
+                    request.getDBName(),
+                    request.getCollectionName(),
+                    batch,
+                    Optional.ofNullable(request.getFiltersDocument()),
+                    Optional.ofNullable(request.getShardKey()),
+                    request.getWriteMode());
+
+                count(result.getBulkResult());
+                etag = result.getEtag();
+            } catch (MongoBulkWriteException mbwe) {
+                count(mbwe.getWriteResult());
+
+                for (var we : mbwe.getWriteErrors()) {
+                    rejected++;
+                    error(batchLines.get(we.getIndex()), we.getCode(), we.getMessage());
+                }
+            }
+
+            batch = new BsonArray();
+            batchLines = new ArrayList<>();
+        }
+
+        private void count(BulkWriteResult result) {
+            if (result.wasAcknowledged()) {
+                inserted += result.getInsertedCount() + result.getUpserts().size();
+                matched += result.getMatchedCount();
+                modified += result.getModifiedCount();
+            }
+        }
+
+        private void error(int lineNumber, Integer code, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                var error = new BsonDocument("line", new BsonInt32(lineNumber));
+
+                if (code != null) {
+                    error.put("code", new BsonInt32(code));
+                }
+
+                error.put("message", new BsonString(message));
+                errors.add(error);
+            }
+        }
+
+        BsonDocument summary() {
+            var summary = new BsonDocument();
+
+            summary.put("lines", new BsonInt64(lines));
+            summary.put("inserted", new BsonInt64(inserted));
+            summary.put("matched", new BsonInt64(matched));
+            summary.put("modified", new BsonInt64(modified));
+            summary.put("rejected", new BsonInt64(rejected));
+
+            if (!errors.isEmpty()) {
+                summary.put("errors", errors);
+            }
+
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.bson.BsonValue;
+
+/**
+ * A change event serialized once and shared by all the sessions it is sent to.
+ *
+ * <p>The UTF-8 encodings of the WebSocket message and of the SSE message are
+ * computed on first use; each send gets its own duplicate of the buffer, so
+ * that the bytes are shared and only the buffer position is per session. The
+ * bytes are never written after encoding.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class ChangeEventFrame {
+    /** The event name of the SSE messages. */
+    public static final String SSE_EVENT = "change";
+
+    private final String message;
+    private final String eventId;
+    private final BsonValue documentKey;
+    private volatile ByteBuffer utf8 = null;
+    private volatile ByteBuffer sse = null;
+
+    /**
+     * @param message     the serialized change event
+     * @param eventId     the resume token of the event, used as SSE event id
+     * @param documentKey the documentKey of the event, used for coalescing
+     */
+    public ChangeEventFrame(String message, String eventId, BsonValue documentKey) {
+        this.message = message;
+        this.eventId = eventId;
+        this.documentKey = documentKey;
+    }
+
+    public String message() {
+        return message;
+    }
+
+    public String eventId() {
+        return eventId;
+    }
+
+    public BsonValue documentKey() {
+        return documentKey;
+    }
+
+    /**
+     * @return a new buffer over the shared UTF-8 encoding of the message
+     */
+    public ByteBuffer payload() {
+        var _utf8 = this.utf8;
+
+        if (_utf8 == null) {
+            // concurrent first calls can encode twice, both results are equivalent
+            _utf8 = ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8));
+            this.utf8 = _utf8;
+        }
+
+        return _utf8.duplicate();
+    }
+
+    /**
+     * @return a new buffer over the shared UTF-8 encoding of the SSE message,
+     *         i.e. the message as data of a "change" event with the event id
+     */
+    public ByteBuffer ssePayload() {
+        var _sse = this.sse;
+
+        if (_sse == null) {
+            // concurrent first calls can encode twice, both results are equivalent
+            _sse = ByteBuffer.wrap(sseMessage().getBytes(StandardCharsets.UTF_8));
+            this.sse = _sse;
+        }
+
+        return _sse.duplicate();
+    }
+
+    /**
+     * @return the SSE message, formatted as undertow's ServerSentEventConnection does
+     */
+    private String sseMessage() {
+        var sb = new StringBuilder("event:").append(SSE_EVENT).append('\n');
+
+        if (eventId != null) {
+            sb.append("id:").append(eventId).append('\n');
+        }
+
+        // each line of the data is a data field
+        for (var line : message.split("\n", -1)) {
+            sb.append("data:").append(line).append('\n');
+        }
+
+        return sb.append('\n').toString();
+    }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
+import org.bson.BsonValue;
 import org.restheart.exchange.InvalidMetadataException;
 
 /**
@@ -37,6 +38,14 @@ public class ChangeStreamOperation {
     public static final String URI_ELEMENT_NAME = "uri";
     public static final String STAGES_ELEMENT_NAME = "stages";
     public static final String NOTIFY_WHEN_ELEMENT_NAME = "notify_when";
+    public static final String MULTIPLEX_ELEMENT_NAME = "multiplex";
+    public static final String BATCH_ELEMENT_NAME = "batch";
+    public static final String BATCH_MAX_EVENTS_ELEMENT_NAME = "max_events";
+    public static final String BATCH_MAX_DELAY_ELEMENT_NAME = "max_delay";
+    public static final String BATCH_COALESCE_ELEMENT_NAME = "coalesce";
+
+    public static final int DEFAULT_BATCH_MAX_EVENTS = 100;
+    public static final long DEFAULT_BATCH_MAX_DELAY = 100;
 
     /**
      *
@@ -81,6 +90,8 @@ public class ChangeStreamOperation {
     private final String uri;
     private final BsonArray stages;
     private final BsonDocument notifyWhen;
+    private final boolean multiplex;
+    private final SessionQueue.Batching batching;
 
     /**
      *
@@ -126,6 +137,51 @@ public class ChangeStreamOperation {
                     + " has invalid '" + NOTIFY_WHEN_ELEMENT_NAME + "': must be a document");
         }
         this.notifyWhen = (_notifyWhen != null && _notifyWhen.isDocument()) ? _notifyWhen.asDocument() : null;
+
+        var _multiplex = properties.get(MULTIPLEX_ELEMENT_NAME);
+        if (_multiplex != null && !_multiplex.isBoolean()) {
+            throw new InvalidMetadataException("query /" + this.uri
+                    + " has invalid '" + MULTIPLEX_ELEMENT_NAME + "': must be a boolean");
+        }
+        this.multiplex = _multiplex != null && _multiplex.asBoolean().getValue();
+
+        this.batching = batching(properties.get(BATCH_ELEMENT_NAME));
+    }
+
+    /**
+     * Parses the batch element, e.g. {@code {"max_events": 100, "max_delay": 100, "coalesce": true}}
+     * where max_delay is in milliseconds.
+     *
+     * @return the batching options, null if the batch element is absent
+     */
+    private SessionQueue.Batching batching(BsonValue _batch) throws InvalidMetadataException {
+        if (_batch == null) {
+            return null;
+        }
+
+        if (!_batch.isDocument()) {
+            throw new InvalidMetadataException("query /" + this.uri
+                    + " has invalid '" + BATCH_ELEMENT_NAME + "': must be a document");
+        }
+
+        var batch = _batch.asDocument();
+        var _maxEvents = batch.get(BATCH_MAX_EVENTS_ELEMENT_NAME);
+        var _maxDelay = batch.get(BATCH_MAX_DELAY_ELEMENT_NAME);
+        var _coalesce = batch.get(BATCH_COALESCE_ELEMENT_NAME);
+
+        if ((_maxEvents != null && (!_maxEvents.isNumber() || _maxEvents.asNumber().intValue() < 1))
+                || (_maxDelay != null && (!_maxDelay.isNumber() || _maxDelay.asNumber().longValue() < 0))
+                || (_coalesce != null && !_coalesce.isBoolean())) {
+            throw new InvalidMetadataException("query /" + this.uri
+                    + " has invalid '" + BATCH_ELEMENT_NAME + "': " + BATCH_MAX_EVENTS_ELEMENT_NAME
+                    + " must be a positive number, " + BATCH_MAX_DELAY_ELEMENT_NAME
+                    + " a non negative number of milliseconds and " + BATCH_COALESCE_ELEMENT_NAME + " a boolean");
+        }
+
+        return new SessionQueue.Batching(
+                _maxEvents == null ? DEFAULT_BATCH_MAX_EVENTS : _maxEvents.asNumber().intValue(),
+                _maxDelay == null ? DEFAULT_BATCH_MAX_DELAY : _maxDelay.asNumber().longValue(),
+                _coalesce != null && _coalesce.asBoolean().getValue());
     }
 
     /**
@@ -148,4 +204,19 @@ public class ChangeStreamOperation {
     public BsonDocument getNotifyWhen() {
         return notifyWhen;
     }
+
+    /**
+     * @return {@code true} if all clients share one upstream change stream
+     *         and the stages depending on avars are evaluated in-process
+     */
+    public boolean isMultiplex() {
+        return multiplex;
+    }
+
+    /**
+     * @return the batching options, or {@code null} if events are delivered one by one
+     */
+    public SessionQueue.Batching getBatching() {
+        return batching;
+    }
 }
@@ -25,17 +25,20 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.Stream;
 
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
 import org.bson.BsonNull;
 import org.bson.BsonString;
 import org.bson.Document;
+import org.restheart.mongodb.MongoServiceConfiguration;
 import org.restheart.mongodb.RHMongoClients;
+import org.restheart.mongodb.handlers.changestreams.SessionQueue.OverflowPolicy;
 import org.restheart.utils.BsonUtils;
 import org.restheart.utils.LambdaUtils;
-import org.restheart.utils.ThreadsUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,19 +50,26 @@ import com.mongodb.client.model.changestream.FullDocument;
 
 import io.undertow.server.handlers.sse.ServerSentEventConnection;
 import io.undertow.util.AttachmentKey;
-import io.undertow.websockets.core.WebSocketCallback;
-import io.undertow.websockets.core.WebSocketChannel;
-import io.undertow.websockets.core.WebSockets;
 
 /**
  * ChangeStreamWorker initiates and monitors the MongoDB change stream
- * and dispatches virtual threads to send change events to clients.
+ * and enqueues the change events in the bounded {@link SessionQueue} of
+ * each client session.
  *
  * <p>Each worker holds a single MongoDB change stream cursor shared across all
  * connected sessions (both WebSocket and SSE) that have the same
  * {@link ChangeStreamWorkerKey}. The worker self-terminates when all sessions
  * of both types have disconnected.
  *
+ * <p>The worker keeps the most recent events in an {@link EventBuffer}: after
+ * a MongoDB error the change stream resumes after the last received event,
+ * and reconnecting clients that pass the resume token of the last event they
+ * received get the missed events replayed from the buffer.
+ *
+ * <p>For multiplexed streams the sessions can have different avars; each
+ * session carries its {@link ClientStagesEvaluator} that is applied to the
+ * change events before dispatching.
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  * @author Maurizio Turatti {@literal <maurizio@softinstigate.com>}
  */
@@ -67,6 +77,15 @@ public class ChangeStreamWorker implements Runnable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ChangeStreamWorker.class);
 
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+    private static final int INVALID_RESUME_TOKEN = 260;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    /**
+     * @deprecated the bound variables of a SSE session are available via
+     *             {@link SseSession#getBoundVars()}
+     */
+    @Deprecated
     public static final AttachmentKey<Map<String, String>> BOUND_VARS_KEY = AttachmentKey.create(Map.class);
 
     private final ChangeStreamWorkerKey key;
@@ -75,9 +94,14 @@ public class ChangeStreamWorker implements Runnable {
     private final String collName;
     private final BsonDocument resumeToken;
     private final NotifyWhenEvaluator notifyWhenEvaluator;
+    private final SessionQueue.Batching batching;
+    private final int queueSize;
+    private final OverflowPolicy overflowPolicy;
+    private final EventBuffer buffer;
+    private volatile BsonDocument lastResumeToken = null;
 
     private final Set<WebSocketSession> websocketSessions = Collections.synchronizedSet(new HashSet<>());
-    private final Set<ServerSentEventConnection> sseSessions = Collections.synchronizedSet(new HashSet<>());
+    private final Set<SseSession> sseSessions = Collections.synchronizedSet(new HashSet<>());
 
     private Thread handlingVirtualThread = null;
 
@@ -108,6 +132,22 @@ public class ChangeStreamWorker implements Runnable {
      */
     public ChangeStreamWorker(ChangeStreamWorkerKey key, List<BsonDocument> resolvedStages,
                               String dbName, String collName, BsonDocument resumeToken, NotifyWhenEvaluator notifyWhenEvaluator) {
+        this(key, resolvedStages, dbName, collName, resumeToken, notifyWhenEvaluator, null);
+    }
+
+    /**
+     * Creates a worker with an optional SSE resume token, a per-client dispatch predicate
+     * and batched delivery.
+     *
+     * @param resumeToken         if non-null, the change stream resumes from the event
+     *                            identified by this token (sourced from {@code Last-Event-ID})
+     * @param notifyWhenEvaluator if non-null, evaluated per session before dispatching;
+     *                            null means broadcast to all sessions
+     * @param batching            if non-null, the events are sent to sessions in batches
+     */
+    public ChangeStreamWorker(ChangeStreamWorkerKey key, List<BsonDocument> resolvedStages,
+                              String dbName, String collName, BsonDocument resumeToken, NotifyWhenEvaluator notifyWhenEvaluator,
+                              SessionQueue.Batching batching) {
         super();
         this.key = key;
         this.resolvedStages = resolvedStages;
@@ -115,6 +155,12 @@ public class ChangeStreamWorker implements Runnable {
         this.collName = collName;
         this.resumeToken = resumeToken;
         this.notifyWhenEvaluator = notifyWhenEvaluator;
+        this.batching = batching;
+
+        var conf = MongoServiceConfiguration.get();
+        this.queueSize = conf != null ? conf.getChangeStreamsQueueSize() : SessionQueue.DEFAULT_CAPACITY;
+        this.overflowPolicy = conf != null ? conf.getChangeStreamsOverflowPolicy() : OverflowPolicy.DROP_OLDEST;
+        this.buffer = new EventBuffer(conf != null ? conf.getChangeStreamsReplayBufferSize() : EventBuffer.DEFAULT_CAPACITY);
     }
 
     public ChangeStreamWorkerKey getKey() {
@@ -160,26 +206,48 @@ public class ChangeStreamWorker implements Runnable {
 
     /**
      * Executes the change stream events loop.
-     * On MongoDB exceptions it reconnects to the change stream after 1 second.
+     * On MongoDB exceptions it reopens the change stream after 1 second,
+     * resuming after the last received event so that no event is lost.
+     * On non resumable errors, it closes all sessions and stops.
      */
     private void changeStreamEventsLoop() {
-        try {
-            _changeStreamEventsLoop();
-        } catch (MongoInterruptedException mie) {
-            close();
-        } catch (MongoException mqe) {
-            LOGGER.error("MongoDB error on ChangeStreamWorker {}, restarting a new worker", key, mqe);
-
+        while (true) {
             try {
-                Thread.sleep(1_000);
-            } catch (InterruptedException ex) {
-                // nothing to do
-            } finally {
-                changeStreamEventsLoop();
+                _changeStreamEventsLoop();
+                return;
+            } catch (MongoInterruptedException mie) {
+                close();
+                return;
+            } catch (MongoException mqe) {
+                if (isNonResumable(mqe)) {
+                    LOGGER.error("Non resumable MongoDB error on ChangeStreamWorker {}, closing its sessions", key, mqe);
+                    close();
+                    return;
+                }
+
+                LOGGER.error("MongoDB error on ChangeStreamWorker {}, resuming the change stream", key, mqe);
+
+                try {
+                    Thread.sleep(1_000);
+                } catch (InterruptedException ex) {
+                    close();
+                    return;
+                }
             }
         }
     }
 
+    /**
+     * @return true if the change stream cannot be resumed after the error,
+     *         e.g. the resume token is invalid or not in the oplog anymore
+     */
+    static boolean isNonResumable(MongoException mqe) {
+        return mqe.hasErrorLabel("NonResumableChangeStreamError")
+                || mqe.getCode() == CHANGE_STREAM_FATAL_ERROR
+                || mqe.getCode() == INVALID_RESUME_TOKEN
+                || mqe.getCode() == CHANGE_STREAM_HISTORY_LOST;
+    }
+
     private void _changeStreamEventsLoop() {
         LOGGER.debug("Change Stream Worker {} started listening for change events", this.key);
         final var changeStream = startChangeStream();
@@ -196,60 +264,140 @@ public class ChangeStreamWorker implements Runnable {
                     ? changeEvent.getResumeToken().toJson()
                     : null;
 
-            // fan out to WebSocket sessions
-            this.websocketSessions.stream().forEach(session -> ThreadsUtils.virtualThreadsExecutor().execute(() -> {
-                try {
-                    if (notifyWhenEvaluator == null || notifyWhenEvaluator.matches(doc, session.getBoundVars())) {
-                        this.send(session, msg);
-                        LOGGER.trace("Change event sent to WebSocket session {}", session.getId());
-                    }
-                } catch (Throwable t) {
-                    LOGGER.error("Error sending change event to WebSocket session {}", session.getId(), t);
-                }
-            }));
+            // serialized once and shared by all sessions
+            final var frame = new ChangeEventFrame(msg, eventId, doc.get("documentKey"));
 
-            // fan out to SSE sessions
-            this.sseSessions.stream().forEach(conn -> ThreadsUtils.virtualThreadsExecutor().execute(() -> {
-                try {
-                    var boundVars = conn.getAttachment(BOUND_VARS_KEY);
-                    if (notifyWhenEvaluator == null || notifyWhenEvaluator.matches(doc, boundVars)) {
-                        conn.send(msg, "change", eventId, null);
-                        LOGGER.trace("Change event sent to SSE connection");
-                    }
-                } catch (Throwable t) {
-                    LOGGER.error("Error sending change event to SSE connection", t);
-                    conn.shutdown();
-                    this.sseSessions.remove(conn);
+            // buffering and dispatching are atomic with respect to session registration,
+            // so that a resuming session gets each event either replayed or dispatched
+            synchronized (this.buffer) {
+                if (changeEvent.getResumeToken() != null) {
+                    this.lastResumeToken = changeEvent.getResumeToken();
+                    this.buffer.add(new EventBuffer.Entry(changeEvent.getResumeToken(), doc, frame));
                 }
-            }));
+
+                // fan out to WebSocket sessions; the session queue sends the event asynchronously
+                List.copyOf(this.websocketSessions).forEach(session -> dispatch(session, doc, frame));
+
+                // fan out to SSE sessions
+                List.copyOf(this.sseSessions).forEach(session -> dispatch(session, doc, frame));
+            }
         });
     }
 
+    private void dispatch(WebSocketSession session, BsonDocument doc, ChangeEventFrame frame) {
+        try {
+            if (matches(doc, session.getBoundVars(), session.getClientStages())) {
+                session.queue().offer(frame);
+                LOGGER.trace("Change event queued for WebSocket session {}", session.getId());
+            }
+        } catch (Throwable t) {
+            LOGGER.error("Error dispatching change event to WebSocket session {}", session.getId(), t);
+        }
+    }
+
+    private void dispatch(SseSession session, BsonDocument doc, ChangeEventFrame frame) {
+        try {
+            if (matches(doc, session.getBoundVars(), session.getClientStages())) {
+                session.queue().offer(frame);
+                LOGGER.trace("Change event queued for SSE session {}", session.getId());
+            }
+        } catch (Throwable t) {
+            LOGGER.error("Error dispatching change event to SSE session {}", session.getId(), t);
+            session.close();
+            this.sseSessions.remove(session);
+        }
+    }
+
+    /**
+     * Adds a WebSocket session, first replaying the buffered events that
+     * follow the one identified by {@code lastEventId}.
+     *
+     * @param lastEventId the resume token of the last event received by the
+     *                    client, null to receive only new events
+     */
+    public void addWebSocketSession(WebSocketSession session, BsonDocument lastEventId) {
+        synchronized (this.buffer) {
+            replay(lastEventId).forEach(e -> dispatch(session, e.event(), e.frame()));
+            this.websocketSessions.add(session);
+        }
+    }
+
+    /**
+     * Adds a SSE session, first replaying the buffered events that follow
+     * the one identified by {@code lastEventId}.
+     *
+     * @param lastEventId the resume token of the last event received by the
+     *                    client, null to receive only new events
+     */
+    public void addSseSession(SseSession session, BsonDocument lastEventId) {
+        synchronized (this.buffer) {
+            replay(lastEventId).forEach(e -> dispatch(session, e.event(), e.frame()));
+            this.sseSessions.add(session);
+        }
+    }
+
+    private List<EventBuffer.Entry> replay(BsonDocument lastEventId) {
+        if (lastEventId == null) {
+            return List.of();
+        }
+
+        var events = this.buffer.since(lastEventId);
+
+        if (events.isEmpty()) {
+            LOGGER.warn("Cannot replay change events to the resuming session of Change Stream Worker {}: "
+                    + "the last received event is not buffered anymore", key);
+            return List.of();
+        }
+
+        LOGGER.debug("Replaying {} change events to the resuming session of Change Stream Worker {}", events.get().size(), key);
+        return events.get();
+    }
+
+    /**
+     * Creates a bounded outbound queue for a session of this worker.
+     *
+     * @param sender  sends an event to the session
+     * @param onClose closes the session
+     */
+    SessionQueue newQueue(SessionQueue.Sender sender, Runnable onClose) {
+        return new SessionQueue(queueSize, overflowPolicy, batching, sender, onClose, dbName, collName);
+    }
+
+    /**
+     * @return the outbound queues of the sessions of this worker
+     */
+    Stream<SessionQueue> queues() {
+        var wsQueues = List.copyOf(this.websocketSessions).stream().map(WebSocketSession::queue);
+        var sseQueues = List.copyOf(this.sseSessions).stream().map(SseSession::queue);
+
+        return Stream.concat(wsQueues, sseQueues).filter(Objects::nonNull);
+    }
+
+    /**
+     * @return true if the change event must be dispatched to a session with the
+     *         given bound variables and per-client stages
+     */
+    private boolean matches(BsonDocument doc, Map<String, String> boundVars, ClientStagesEvaluator clientStages) {
+        return (notifyWhenEvaluator == null || notifyWhenEvaluator.matches(doc, boundVars))
+                && (clientStages == null || clientStages.matches(doc));
+    }
+
     public Set<WebSocketSession> websocketSessions() {
         return this.websocketSessions;
     }
 
+    /**
+     * @deprecated SSE sessions do not use undertow's ServerSentEventConnection
+     *             anymore, this always returns an empty set; use
+     *             {@link #sseSessionSet()}
+     */
+    @Deprecated
     public Set<ServerSentEventConnection> sseSessions() {
-        return this.sseSessions;
+        return Set.of();
     }
 
-    private void send(WebSocketSession session, String message) {
-        WebSockets.sendText(message, session.getChannel(), new WebSocketCallback<Void>() {
-            @Override
-            public void complete(final WebSocketChannel channel, Void context) {
-            }
-
-            @Override
-            public void onError(final WebSocketChannel channel, Void context, Throwable throwable) {
-                try {
-                    session.close();
-                    var sid = session.getId();
-                    websocketSessions().removeIf(s -> s.getId().equals(sid));
-                } catch (IOException e) {
-                    LOGGER.warn("Error closing WebSocket session {}", session.getId(), e);
-                }
-            }
-        });
+    public Set<SseSession> sseSessionSet() {
+        return this.sseSessions;
     }
 
     /**
@@ -281,9 +429,9 @@ public class ChangeStreamWorker implements Runnable {
 
     void closeAllSseSessions() {
         new HashSet<>(sseSessions)
-                .forEach(conn -> {
-                    conn.shutdown();
-                    sseSessions.remove(conn);
+                .forEach(session -> {
+                    session.close();
+                    sseSessions.remove(session);
                 });
     }
 
@@ -298,9 +446,12 @@ public class ChangeStreamWorker implements Runnable {
                     .watch(resolvedStages)
                     .fullDocument(FullDocument.UPDATE_LOOKUP);
 
-            if (resumeToken != null) {
-                cs = cs.startAfter(resumeToken);
-                LOGGER.debug("Change Stream Worker {} resuming from token {}", key, resumeToken);
+            // after an error, resume after the last received event
+            var token = lastResumeToken != null ? lastResumeToken : resumeToken;
+
+            if (token != null) {
+                cs = cs.startAfter(token);
+                LOGGER.debug("Change Stream Worker {} resuming from token {}", key, token);
             }
 
             return cs;
@@ -317,6 +468,11 @@ public class ChangeStreamWorker implements Runnable {
             return doc;
         }
 
+        // the resume token, that clients can pass back to resume the stream
+        if (notification.getResumeToken() != null) {
+            doc.put("_id", notification.getResumeToken());
+        }
+
         if (notification.getFullDocument() != null) {
             try {
                 doc.put("fullDocument", BsonUtils.documentToBson((Document) notification.getFullDocument()));
@@ -26,6 +26,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.restheart.metrics.MetricNameAndLabels;
+import org.restheart.metrics.Metrics;
 
 /**
  * Registry to keep track of ChangeStreamWorkers
@@ -35,10 +39,22 @@ import java.util.stream.Collectors;
 public class ChangeStreamWorkers {
     private final Map<ChangeStreamWorkerKey, ChangeStreamWorker> CHANGE_STREAM_WORKERS = new ConcurrentHashMap<>();
 
+    private ChangeStreamWorkers() {
+        // lag and backlog of the outbound queues of all change stream sessions
+        Metrics.registerGauge(MetricNameAndLabels.of("changestream_queued_events"),
+                () -> queues().mapToLong(SessionQueue::size).sum());
+        Metrics.registerGauge(MetricNameAndLabels.of("changestream_max_lag_ms"),
+                () -> queues().mapToLong(SessionQueue::lag).max().orElse(0));
+    }
+
     public static ChangeStreamWorkers getInstance() {
         return SingletonHolder.INSTANCE;
     }
 
+    private Stream<SessionQueue> queues() {
+        return CHANGE_STREAM_WORKERS.values().stream().flatMap(ChangeStreamWorker::queues);
+    }
+
     public Optional<ChangeStreamWorker> get(ChangeStreamWorkerKey key) {
         var csw = CHANGE_STREAM_WORKERS.get(key);
 
@@ -0,0 +1,368 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.restheart.utils.BsonUtils;
+
+/**
+ * Evaluates in-process the per-client stages of a multiplexed change stream.
+ *
+ * <p>A stream definition with {@code "multiplex": true} is split in two parts:
+ * the leading stages that do not reference aggregation variables (the base
+ * pipeline), executed by MongoDB on a single cursor shared by all clients, and
+ * the remaining stages, that depend on the client's {@code avars}. The latter
+ * are interpolated per client and evaluated here against each change event, in
+ * the same way {@link NotifyWhenEvaluator} filters events per session.
+ *
+ * <p>Only {@code $match} stages are supported. The match expressions can use
+ * dot-notation field paths of the change event (e.g. {@code fullDocument.tenantId},
+ * {@code operationType}, {@code documentKey._id}) and the query operators
+ * {@code $eq}, {@code $ne}, {@code $gt}, {@code $gte}, {@code $lt}, {@code $lte},
+ * {@code $in}, {@code $nin}, {@code $exists}, {@code $size}, {@code $regex},
+ * {@code $not}, {@code $and}, {@code $or} and {@code $nor}.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ClientStagesEvaluator {
+    private final List<Predicate<BsonDocument>> predicates;
+
+    private ClientStagesEvaluator(List<Predicate<BsonDocument>> predicates) {
+        this.predicates = predicates;
+    }
+
+    /**
+     * Compiles the resolved per-client stages.
+     *
+     * @param resolvedStages the per-client stages, already interpolated with the client's avars
+     * @return the evaluator, or {@code null} if {@code resolvedStages} is empty
+     * @throws IllegalArgumentException if a stage cannot be evaluated in-process
+     */
+    public static ClientStagesEvaluator of(List<BsonDocument> resolvedStages) {
+        if (resolvedStages == null || resolvedStages.isEmpty()) {
+            return null;
+        }
+
+        var predicates = new ArrayList<Predicate<BsonDocument>>();
+
+        for (var stage : resolvedStages) {
+            if (stage.size() != 1 || !stage.containsKey("$match") || !stage.get("$match").isDocument()) {
+                throw new IllegalArgumentException("only $match stages can be evaluated in-process; got: " + stage);
+            }
+
+            predicates.add(compile(stage.getDocument("$match")));
+        }
+
+        return new ClientStagesEvaluator(predicates);
+    }
+
+    /**
+     * Returns the number of leading stages that do not reference aggregation
+     * variables via {@code $var} or {@code $ifvar}; those stages make the base
+     * pipeline of a multiplexed change stream.
+     *
+     * @param stages the stages of the stream definition, as stored in the collection metadata
+     * @return the number of stages of the base pipeline
+     */
+    public static int baseStagesCount(BsonArray stages) {
+        var unescaped = BsonUtils.unescapeKeys(stages).asArray();
+
+        var count = 0;
+        for (var stage : unescaped) {
+            if (referencesVars(stage)) {
+                break;
+            }
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @param event the change event document
+     * @return {@code true} if the change event passes all the per-client stages
+     */
+    public boolean matches(BsonDocument event) {
+        return predicates.stream().allMatch(p -> p.test(event));
+    }
+
+    private static boolean referencesVars(BsonValue value) {
+        if (value.isDocument()) {
+            return value.asDocument().entrySet().stream()
+                    .anyMatch(e -> "$var".equals(e.getKey()) || "$ifvar".equals(e.getKey()) || referencesVars(e.getValue()));
+        } else if (value.isArray()) {
+            return value.asArray().stream().anyMatch(ClientStagesEvaluator::referencesVars);
+        } else {
+            return false;
+        }
+    }
+
+    static Predicate<BsonDocument> compile(BsonDocument expression) {
+        var ret = new ArrayList<Predicate<BsonDocument>>();
+
+        for (var entry : expression.entrySet()) {
+            var key = entry.getKey();
+            var value = entry.getValue();
+
+            switch (key) {
+                case "$and" -> {
+                    var ps = compileAll(key, value);
+                    ret.add(doc -> ps.stream().allMatch(p -> p.test(doc)));
+                }
+                case "$or" -> {
+                    var ps = compileAll(key, value);
+                    ret.add(doc -> ps.stream().anyMatch(p -> p.test(doc)));
+                }
+                case "$nor" -> {
+                    var ps = compileAll(key, value);
+                    ret.add(doc -> ps.stream().noneMatch(p -> p.test(doc)));
+                }
+                default -> {
+                    if (key.startsWith("$")) {
+                        throw new IllegalArgumentException("operator " + key + " cannot be evaluated in-process");
+                    }
+
+                    var path = key.split("\\.");
+                    var condition = isOperatorsDocument(value)
+                        ? compileOperators(value.asDocument())
+                        : (Predicate<List<BsonValue>>) values -> anyEquals(values, value);
+
+                    ret.add(doc -> condition.test(resolve(doc, path)));
+                }
+            }
+        }
+
+        return doc -> ret.stream().allMatch(p -> p.test(doc));
+    }
+
+    private static List<Predicate<BsonDocument>> compileAll(String operator, BsonValue value) {
+        if (!value.isArray() || value.asArray().isEmpty() || value.asArray().stream().anyMatch(v -> !v.isDocument())) {
+            throw new IllegalArgumentException(operator + " requires a non empty array of documents");
+        }
+
+        return value.asArray().stream().map(v -> compile(v.asDocument())).toList();
+    }
+
+    private static boolean isOperatorsDocument(BsonValue value) {
+        return value.isDocument() && !value.asDocument().isEmpty()
+            && value.asDocument().getFirstKey().startsWith("$");
+    }
+
+    private static Predicate<List<BsonValue>> compileOperators(BsonDocument operators) {
+        var ret = new ArrayList<Predicate<List<BsonValue>>>();
+
+        for (var entry : operators.entrySet()) {
+            var arg = entry.getValue();
+
+            ret.add(switch (entry.getKey()) {
+                case "$eq" -> values -> anyEquals(values, arg);
+                case "$ne" -> values -> !anyEquals(values, arg);
+                case "$gt" -> values -> anyCompares(values, arg, c -> c > 0);
+                case "$gte" -> values -> anyCompares(values, arg, c -> c >= 0);
+                case "$lt" -> values -> anyCompares(values, arg, c -> c < 0);
+                case "$lte" -> values -> anyCompares(values, arg, c -> c <= 0);
+                case "$in" -> {
+                    var candidates = arrayArg("$in", arg);
+                    yield values -> candidates.stream().anyMatch(c -> anyEquals(values, c));
+                }
+                case "$nin" -> {
+                    var candidates = arrayArg("$nin", arg);
+                    yield values -> candidates.stream().noneMatch(c -> anyEquals(values, c));
+                }
+                case "$exists" -> {
+                    var exists = arg.isBoolean() ? arg.asBoolean().getValue() : !arg.isNull() && !(arg.isNumber() && arg.asNumber().doubleValue() == 0);
+                    yield values -> values.isEmpty() != exists;
+                }
+                case "$size" -> {
+                    if (!arg.isNumber()) {
+                        throw new IllegalArgumentException("$size requires a number");
+                    }
+                    var size = arg.asNumber().intValue();
+                    yield values -> values.stream().anyMatch(v -> v.isArray() && v.asArray().size() == size);
+                }
+                case "$regex" -> {
+                    var pattern = pattern(arg, operators.get("$options"));
+                    yield values -> expand(values).stream().anyMatch(v -> v.isString() && pattern.matcher(v.asString().getValue()).find());
+                }
+                case "$options" -> values -> true; // handled by $regex
+                case "$not" -> {
+                    if (!isOperatorsDocument(arg)) {
+                        throw new IllegalArgumentException("$not requires an operators document");
+                    }
+                    var negated = compileOperators(arg.asDocument());
+                    yield values -> !negated.test(values);
+                }
+                default -> throw new IllegalArgumentException("operator " + entry.getKey() + " cannot be evaluated in-process");
+            });
+        }
+
+        return values -> ret.stream().allMatch(p -> p.test(values));
+    }
+
+    private static List<BsonValue> arrayArg(String operator, BsonValue arg) {
+        if (!arg.isArray()) {
+            throw new IllegalArgumentException(operator + " requires an array");
+        }
+
+        return arg.asArray().getValues();
+    }
+
+    private static Pattern pattern(BsonValue regex, BsonValue options) {
+        String expr;
+        var opts = options != null && options.isString() ? options.asString().getValue() : "";
+
+        if (regex.isRegularExpression()) {
+            expr = regex.asRegularExpression().getPattern();
+            opts = opts.concat(regex.asRegularExpression().getOptions());
+        } else if (regex.isString()) {
+            expr = regex.asString().getValue();
+        } else {
+            throw new IllegalArgumentException("$regex requires a string or a regular expression");
+        }
+
+        var flags = 0;
+        for (var opt : opts.toCharArray()) {
+            flags |= switch (opt) {
+                case 'i' -> Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+                case 'm' -> Pattern.MULTILINE;
+                case 's' -> Pattern.DOTALL;
+                case 'x' -> Pattern.COMMENTS;
+                default -> 0;
+            };
+        }
+
+        return Pattern.compile(expr, flags);
+    }
+
+    /**
+     * Resolves the values at the given path; as in MongoDB queries, when an
+     * intermediate field is an array the remaining path is resolved against
+     * each of its elements.
+     */
+    private static List<BsonValue> resolve(BsonValue root, String[] path) {
+        var ret = new ArrayList<BsonValue>();
+        resolve(root, path, 0, ret);
+        return ret;
+    }
+
+    private static void resolve(BsonValue value, String[] path, int idx, List<BsonValue> acc) {
+        if (idx == path.length) {
+            acc.add(value);
+        } else if (value.isDocument()) {
+            var next = value.asDocument().get(path[idx]);
+            if (next != null) {
+                resolve(next, path, idx + 1, acc);
+            }
+        } else if (value.isArray()) {
+            var array = value.asArray();
+            if (path[idx].chars().allMatch(Character::isDigit)) {
+                var pos = Integer.parseInt(path[idx]);
+                if (pos < array.size()) {
+                    resolve(array.get(pos), path, idx + 1, acc);
+                }
+            } else {
+                array.forEach(element -> {
+                    if (element.isDocument()) {
+                        resolve(element, path, idx, acc);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * @return the values plus the elements of the values that are arrays
+     */
+    private static List<BsonValue> expand(List<BsonValue> values) {
+        var ret = new ArrayList<BsonValue>(values);
+        values.stream().filter(BsonValue::isArray).forEach(v -> ret.addAll(v.asArray().getValues()));
+        return ret;
+    }
+
+    private static boolean anyEquals(List<BsonValue> values, BsonValue arg) {
+        if (arg.isNull() && values.isEmpty()) {
+            // as in MongoDB, {field: null} matches documents missing field
+            return true;
+        }
+
+        return expand(values).stream().anyMatch(v -> valueEquals(v, arg));
+    }
+
+    private static boolean anyCompares(List<BsonValue> values, BsonValue arg, Predicate<Integer> test) {
+        return expand(values).stream().anyMatch(v -> {
+            var c = compare(v, arg);
+            return c != null && test.test(c);
+        });
+    }
+
+    private static boolean valueEquals(BsonValue a, BsonValue b) {
+        if (a.isNumber() || a.isDecimal128()) {
+            var c = compare(a, b);
+            return c != null && c == 0;
+        } else {
+            return a.equals(b);
+        }
+    }
+
+    /**
+     * @return the comparison result, or null if the values are not comparable
+     */
+    private static Integer compare(BsonValue a, BsonValue b) {
+        if ((a.isNumber() || a.isDecimal128()) && (b.isNumber() || b.isDecimal128())) {
+            if (a.isDecimal128() || b.isDecimal128()) {
+                return decimal(a).compareTo(decimal(b));
+            } else if (a.isDouble() || b.isDouble()) {
+                return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+            } else {
+                return Long.compare(a.asNumber().longValue(), b.asNumber().longValue());
+            }
+        } else if (a.getBsonType() != b.getBsonType()) {
+            return null;
+        }
+
+        return switch (a.getBsonType()) {
+            case STRING -> a.asString().getValue().compareTo(b.asString().getValue());
+            case DATE_TIME -> Long.compare(a.asDateTime().getValue(), b.asDateTime().getValue());
+            case TIMESTAMP -> a.asTimestamp().compareTo(b.asTimestamp());
+            case OBJECT_ID -> a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+            case BOOLEAN -> Boolean.compare(a.asBoolean().getValue(), b.asBoolean().getValue());
+            default -> null;
+        };
+    }
+
+    private static BigDecimal decimal(BsonValue value) {
+        if (value.isDecimal128()) {
+            return value.asDecimal128().getValue().bigDecimalValue();
+        } else if (value.isDouble()) {
+            return BigDecimal.valueOf(value.asDouble().getValue());
+        } else {
+            return BigDecimal.valueOf(value.asNumber().longValue());
+        }
+    }
+}
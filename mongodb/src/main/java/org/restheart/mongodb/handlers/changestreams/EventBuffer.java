@@ -0,0 +1,95 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.bson.BsonDocument;
+
+/**
+ * Bounded ring buffer of the most recent change events of a
+ * {@link ChangeStreamWorker}, used to replay the events missed by a client
+ * that reconnects with the resume token of the last event it received.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class EventBuffer {
+    public static final int DEFAULT_CAPACITY = 1_000;
+
+    /**
+     * A buffered change event.
+     *
+     * @param resumeToken the resume token of the event
+     * @param event       the change event document, used to filter replayed events per session
+     * @param frame       the serialized change event
+     */
+    public record Entry(BsonDocument resumeToken, BsonDocument event, ChangeEventFrame frame) {
+    }
+
+    private final int capacity;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    /**
+     * @param capacity the max number of buffered events; 0 disables buffering
+     */
+    public EventBuffer(int capacity) {
+        this.capacity = Math.max(0, capacity);
+    }
+
+    public synchronized void add(Entry entry) {
+        if (capacity == 0) {
+            return;
+        }
+
+        if (entries.size() >= capacity) {
+            entries.poll();
+        }
+
+        entries.add(entry);
+    }
+
+    /**
+     * @param resumeToken the resume token of the last event received by the client
+     * @return the events following the one with the given resume token, or
+     *         empty if that event is not in the buffer anymore
+     */
+    public synchronized Optional<List<Entry>> since(BsonDocument resumeToken) {
+        var ret = new ArrayList<Entry>();
+        var found = false;
+
+        for (var entry : entries) {
+            if (found) {
+                ret.add(entry);
+            } else if (resumeToken.equals(entry.resumeToken())) {
+                found = true;
+            }
+        }
+
+        return found ? Optional.of(ret) : Optional.empty();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
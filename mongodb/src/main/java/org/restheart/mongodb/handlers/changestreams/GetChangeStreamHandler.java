@@ -20,6 +20,8 @@
  */
 package org.restheart.mongodb.handlers.changestreams;
 
+import static org.restheart.exchange.ExchangeKeys.LAST_EVENT_ID_QPARAM_KEY;
+
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
@@ -47,7 +49,6 @@ import org.slf4j.LoggerFactory;
 import io.undertow.Handlers;
 import io.undertow.server.HttpHandler;
 import io.undertow.server.HttpServerExchange;
-import io.undertow.server.handlers.sse.ServerSentEventHandler;
 import io.undertow.util.AttachmentKey;
 import io.undertow.util.Headers;
 
@@ -65,6 +66,14 @@ import io.undertow.util.Headers;
  * infrastructure: one MongoDB cursor per unique {@link ChangeStreamWorkerKey}
  * fans out to all connected WebSocket and SSE sessions.
  *
+ * <p>When the stream definition sets {@code "multiplex": true}, the key does not
+ * include the avars: one cursor runs the stages that do not reference avars and
+ * the per-client stages are evaluated in-process by {@link ClientStagesEvaluator}.
+ *
+ * <p>When the stream definition has a {@code batch} element, e.g.
+ * {@code {"max_events": 100, "max_delay": 100, "coalesce": true}}, each message
+ * is a JSON array of change events.
+ *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  * @author Omar Trasatti {@literal <omar@softinstigate.com>}
  * @author Maurizio Turatti {@literal <maurizio@softinstigate.com>}
@@ -82,6 +91,10 @@ public class GetChangeStreamHandler extends PipelinedHandler {
     public static final AttachmentKey<JsonMode> JSON_MODE_ATTACHMENT_KEY = AttachmentKey.create(JsonMode.class);
     /** Bound query-parameter variables for {@code notify_when} filtering, keyed by variable name. */
     public static final AttachmentKey<Map<String, String>> BOUND_VARS_EXCHANGE_KEY = AttachmentKey.create(Map.class);
+    /** Resume token after which the buffered events are replayed to a session joining an existing worker. */
+    public static final AttachmentKey<BsonDocument> REPLAY_AFTER_EXCHANGE_KEY = AttachmentKey.create(BsonDocument.class);
+    /** Per-client stages evaluated in-process when the stream is multiplexed. */
+    public static final AttachmentKey<ClientStagesEvaluator> CLIENT_STAGES_EXCHANGE_KEY = AttachmentKey.create(ClientStagesEvaluator.class);
 
     private static final HttpHandler WEBSOCKET_HANDLER = Handlers.websocket((exchange, channel) -> {
         var csKey = new ChangeStreamWorkerKey(exchange);
@@ -90,8 +103,9 @@ public class GetChangeStreamHandler extends PipelinedHandler {
         if (csw$.isPresent()) {
             var csw = csw$.get();
             var boundVars = exchange.getAttachment(BOUND_VARS_EXCHANGE_KEY);
-            var wss = new WebSocketSession(channel, csw, boundVars);
-            csw.websocketSessions().add(wss);
+            var clientStages = exchange.getAttachment(CLIENT_STAGES_EXCHANGE_KEY);
+            var wss = new WebSocketSession(channel, csw, boundVars, clientStages);
+            csw.addWebSocketSession(wss, exchange.getAttachment(REPLAY_AFTER_EXCHANGE_KEY));
             LOGGER.debug("New Change Stream WebSocket session, sessionkey={} for changeStreamKey={}", wss.getId(), csKey);
         } else {
             LOGGER.error("Cannot find Change Stream Worker changeStreamKey={}", csKey);
@@ -103,6 +117,31 @@ public class GetChangeStreamHandler extends PipelinedHandler {
         }
     });
 
+    /**
+     * Starts a {@link SseSession} on the exchange; once the response headers
+     * are sent, it is added to the already-initialised {@link ChangeStreamWorker}.
+     */
+    private static final HttpHandler SSE_HANDLER = exchange -> {
+        var csKey = new ChangeStreamWorkerKey(exchange);
+        var csw$ = ChangeStreamWorkers.getInstance().get(csKey);
+
+        if (csw$.isPresent()) {
+            var csw = csw$.get();
+            var boundVars = exchange.getAttachment(BOUND_VARS_EXCHANGE_KEY);
+            var clientStages = exchange.getAttachment(CLIENT_STAGES_EXCHANGE_KEY);
+            var sse = new SseSession(exchange, csw, boundVars, clientStages);
+
+            sse.connect(() -> {
+                csw.addSseSession(sse, exchange.getAttachment(REPLAY_AFTER_EXCHANGE_KEY));
+                LOGGER.debug("New Change Stream SSE session, sessionkey={} for changeStreamKey={}", sse.getId(), csKey);
+            });
+        } else {
+            LOGGER.error("Cannot find Change Stream Worker changeStreamKey={}", csKey);
+            exchange.setStatusCode(HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            exchange.endExchange();
+        }
+    };
+
     public GetChangeStreamHandler() {
         super();
         var config = MongoServiceConfiguration.get().getAggregationSecurityConfiguration();
@@ -128,39 +167,19 @@ public class GetChangeStreamHandler extends PipelinedHandler {
 
             if (isWebSocketHandshakeRequest(exchange)) {
                 exchange.putAttachment(JSON_MODE_ATTACHMENT_KEY, request.getJsonMode());
+                var resolvedStages = resolveStages(exchange, request, operation);
+                var resumeToken = resumeToken(exchange, evaluator);
 
-                var _avars = request.getAggregationVars();
-                if (_avars == null) {
-                    _avars = new BsonDocument();
-                }
-                StagesInterpolator.injectAvars(request, _avars);
-                exchange.putAttachment(AVARS_ATTACHMENT_KEY, _avars);
-
-                initChangeStreamWorker(exchange, null, evaluator);
+                initChangeStreamWorker(exchange, operation, resolvedStages, resumeToken, evaluator);
                 WEBSOCKET_HANDLER.handleRequest(exchange);
 
             } else if (isSseRequest(exchange)) {
                 exchange.putAttachment(JSON_MODE_ATTACHMENT_KEY, request.getJsonMode());
+                var resolvedStages = resolveStages(exchange, request, operation);
+                var resumeToken = resumeToken(exchange, evaluator);
 
-                var _avars = request.getAggregationVars();
-                if (_avars == null) {
-                    _avars = new BsonDocument();
-                }
-                StagesInterpolator.injectAvars(request, _avars);
-                exchange.putAttachment(AVARS_ATTACHMENT_KEY, _avars);
-
-                // Last-Event-ID is not supported when notify_when is defined
-                BsonDocument resumeToken = null;
-                if (evaluator != null) {
-                    if (exchange.getRequestHeaders().getFirst("Last-Event-ID") != null) {
-                        LOGGER.warn("Last-Event-ID is not supported when notify_when is defined; ignoring");
-                    }
-                } else {
-                    resumeToken = parseResumeToken(exchange);
-                }
-
-                initChangeStreamWorker(exchange, resumeToken, evaluator);
-                sseHandlerFor(exchange).handleRequest(exchange);
+                initChangeStreamWorker(exchange, operation, resolvedStages, resumeToken, evaluator);
+                SSE_HANDLER.handleRequest(exchange);
 
             } else {
                 response.setInError(HttpStatus.SC_BAD_REQUEST,
@@ -207,51 +226,46 @@ public class GetChangeStreamHandler extends PipelinedHandler {
     }
 
     /**
-     * Returns a {@link ServerSentEventHandler} for the given exchange.
+     * Returns the resume token of the last event received by a reconnecting
+     * client, or {@code null} if the client does not resume the stream.
      *
-     * <p>When a client connects, the callback looks up the already-initialised
-     * {@link ChangeStreamWorker} by key, registers the SSE connection in
-     * {@code sseSessions}, and adds a close task that removes the connection and
-     * interrupts the worker when all sessions (WebSocket and SSE) are gone.
+     * <p>Resuming is not supported when notify_when is defined.
      */
-    private static HttpHandler sseHandlerFor(HttpServerExchange exchange) {
-        return new ServerSentEventHandler((connection, lastEventId) -> {
-            // Attach bound vars so the worker can evaluate notify_when per-connection
-            var boundVars = exchange.getAttachment(BOUND_VARS_EXCHANGE_KEY);
-            connection.putAttachment(ChangeStreamWorker.BOUND_VARS_KEY, boundVars != null ? boundVars : Map.of());
-
-            var csKey = new ChangeStreamWorkerKey(exchange);
-            var csw$ = ChangeStreamWorkers.getInstance().get(csKey);
+    private BsonDocument resumeToken(HttpServerExchange exchange, NotifyWhenEvaluator evaluator) {
+        if (evaluator != null) {
+            if (lastEventId(exchange) != null) {
+                LOGGER.warn("Last-Event-ID is not supported when notify_when is defined; ignoring");
+            }
 
-            if (csw$.isPresent()) {
-                var csw = csw$.get();
-                csw.sseSessions().add(connection);
+            return null;
+        } else {
+            return parseResumeToken(exchange);
+        }
+    }
 
-                connection.addCloseTask(c -> {
-                    csw.sseSessions().remove(connection);
+    /**
+     * Returns the {@code Last-Event-ID} request header or, since WebSocket and
+     * browser EventSource clients cannot set it, the {@code lastEventId} query
+     * parameter.
+     */
+    private static String lastEventId(HttpServerExchange exchange) {
+        var header = exchange.getRequestHeaders().getFirst("Last-Event-ID");
 
-                    if (csw.websocketSessions().isEmpty() && csw.sseSessions().isEmpty()
-                            && csw.handlingVirtualThread() != null) {
-                        LOGGER.debug("Terminating worker {} (last SSE session closed)", csw.handlingVirtualThread().getName());
-                        csw.handlingVirtualThread().interrupt();
-                    }
-                });
+        if (header != null && !header.isBlank()) {
+            return header;
+        }
 
-                LOGGER.debug("New Change Stream SSE session for changeStreamKey={}", csKey);
-            } else {
-                LOGGER.error("Cannot find Change Stream Worker changeStreamKey={}", csKey);
-                connection.shutdown();
-            }
-        });
+        var qparam = exchange.getQueryParameters().get(LAST_EVENT_ID_QPARAM_KEY);
+        return qparam == null || qparam.isEmpty() || qparam.getFirst().isBlank() ? null : qparam.getFirst();
     }
 
     /**
-     * Parses the {@code Last-Event-ID} request header as a BSON resume token.
-     * Returns {@code null} when the header is absent or cannot be parsed.
+     * Parses the last event id as a BSON resume token.
+     * Returns {@code null} when it is absent or cannot be parsed.
      */
     private BsonDocument parseResumeToken(HttpServerExchange exchange) {
-        var lastEventId = exchange.getRequestHeaders().getFirst("Last-Event-ID");
-        if (lastEventId == null || lastEventId.isBlank()) {
+        var lastEventId = lastEventId(exchange);
+        if (lastEventId == null) {
             return null;
         }
         try {
@@ -262,16 +276,54 @@ public class GetChangeStreamHandler extends PipelinedHandler {
         }
     }
 
-    private List<BsonDocument> getResolvedStagesAsList(MongoRequest request)
-            throws InvalidMetadataException, QueryVariableNotBoundException, QueryNotFoundException, SecurityException {
-        var pipeline = findOperation(request);
-        var avars = request.getExchange().getAttachment(GetChangeStreamHandler.AVARS_ATTACHMENT_KEY);
-        var resolvedStages = StagesInterpolator.interpolate(VAR_OPERATOR.$var, STAGE_OPERATOR.$ifvar, pipeline.getStages(), avars);
+    /**
+     * Resolves the stages of the change stream with the request avars, checks
+     * them against the aggregation security policy and attaches the avars that
+     * identify the {@link ChangeStreamWorker}.
+     *
+     * <p>When the stream is multiplexed, the returned stages are the base
+     * pipeline, i.e. the leading stages that do not depend on avars; the
+     * remaining stages are attached as a {@link ClientStagesEvaluator} and the
+     * worker key does not include the avars, so that all clients share one
+     * upstream change stream. If the per-client stages cannot be evaluated
+     * in-process the stream falls back to one change stream per avars.
+     *
+     * @return the stages of the upstream change stream
+     */
+    private List<BsonDocument> resolveStages(HttpServerExchange exchange, MongoRequest request, ChangeStreamOperation operation)
+            throws InvalidMetadataException, QueryVariableNotBoundException, SecurityException {
+        var avars = request.getAggregationVars();
+        if (avars == null) {
+            avars = new BsonDocument();
+        }
+        StagesInterpolator.injectAvars(request, avars);
+
+        var resolvedStages = StagesInterpolator.interpolate(VAR_OPERATOR.$var, STAGE_OPERATOR.$ifvar, operation.getStages(), avars);
 
         var stagesArray = new BsonArray();
         resolvedStages.forEach(stagesArray::add);
         securityChecker.validatePipelineOrThrow(stagesArray, request.getDBName());
 
+        if (operation.isMultiplex()) {
+            // the base stages do not reference avars, thus they are neither removed
+            // nor changed by the interpolation and lead the resolved stages
+            var baseCount = ClientStagesEvaluator.baseStagesCount(operation.getStages());
+
+            try {
+                var clientStages = ClientStagesEvaluator.of(resolvedStages.subList(baseCount, resolvedStages.size()));
+                exchange.putAttachment(AVARS_ATTACHMENT_KEY, new BsonDocument());
+
+                if (clientStages != null) {
+                    exchange.putAttachment(CLIENT_STAGES_EXCHANGE_KEY, clientStages);
+                }
+
+                return resolvedStages.subList(0, baseCount);
+            } catch (IllegalArgumentException iae) {
+                LOGGER.warn("Cannot multiplex Change Stream {}, opening a dedicated change stream: {}", request.getMongoResourceUri(), iae.getMessage());
+            }
+        }
+
+        exchange.putAttachment(AVARS_ATTACHMENT_KEY, avars);
         return resolvedStages;
     }
 
@@ -305,16 +357,15 @@ public class GetChangeStreamHandler extends PipelinedHandler {
      * Ensures a {@link ChangeStreamWorker} exists for the given exchange.
      *
      * <p>If a worker with the same {@link ChangeStreamWorkerKey} already exists it
-     * is reused (the {@code resumeToken} and {@code evaluator} are ignored — the
-     * shared cursor continues from its current position). Otherwise a new worker is
-     * created and started.
+     * is reused (the {@code evaluator} is ignored — the shared cursor continues from
+     * its current position) and the {@code resumeToken} is attached to the exchange
+     * to replay the buffered events that follow it to the new session. Otherwise a
+     * new worker is created and started after the {@code resumeToken}.
      */
-    private synchronized void initChangeStreamWorker(HttpServerExchange exchange,
-                                                     BsonDocument resumeToken, NotifyWhenEvaluator evaluator)
-            throws QueryVariableNotBoundException, QueryNotFoundException, InvalidMetadataException {
+    private synchronized void initChangeStreamWorker(HttpServerExchange exchange, ChangeStreamOperation operation, List<BsonDocument> resolvedStages,
+                                                     BsonDocument resumeToken, NotifyWhenEvaluator evaluator) {
         var csKey = new ChangeStreamWorkerKey(exchange);
         var request = MongoRequest.of(exchange);
-        var resolvedStages = getResolvedStagesAsList(request);
 
         var existingWorker$ = ChangeStreamWorkers.getInstance().get(csKey);
 
@@ -324,13 +375,18 @@ public class GetChangeStreamHandler extends PipelinedHandler {
                     request.getDBName(),
                     request.getCollectionName(),
                     resumeToken,
-                    evaluator);
+                    evaluator,
+                    operation.getBatching());
 
             ChangeStreamWorkers.getInstance().put(changeStreamWorker);
             ThreadsUtils.virtualThreadsExecutor().execute(changeStreamWorker);
             LOGGER.debug("Started Change Stream Worker, {}", csKey);
         } else {
             LOGGER.debug("Change Stream Worker already exists, {}", csKey);
+
+            if (resumeToken != null) {
+                exchange.putAttachment(REPLAY_AFTER_EXCHANGE_KEY, resumeToken);
+            }
         }
     }
 }
@@ -25,6 +25,8 @@ import org.restheart.exchange.MongoResponse;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.MongoInterceptor;
 import org.restheart.plugins.RegisterPlugin;
+import org.restheart.mongodb.db.CountCache;
+import org.restheart.mongodb.db.DocumentCache;
 import org.restheart.mongodb.db.GetCollectionCache;
 
 @RegisterPlugin(name = "obsoleteChangeStreamRemover", description = "removes obsolete change stream and WebSocket sessions (due to deleted db/collection, or updated change stream definition)", interceptPoint = InterceptPoint.RESPONSE)
@@ -61,11 +63,15 @@ public class ObsoleteChangeStreamRemover implements MongoInterceptor {
     private void closeAllOnDb(String db) {
         ChangeStreamWorkers.getInstance().getWorkersOnDb(db).stream().forEach(csw -> csw.close());
         GetCollectionCache.getInstance().invalidateAll(db);
+        CountCache.getInstance().invalidateAll(db);
+        DocumentCache.getInstance().invalidateAll(db);
     }
 
     private void closeAllOnCollection(String db, String collection) {
         ChangeStreamWorkers.getInstance().getWorkersOnCollection(db, collection).stream().forEach(csw -> csw.close());
         GetCollectionCache.getInstance().invalidateAll(db, collection);
+        CountCache.getInstance().invalidateAll(db, collection);
+        DocumentCache.getInstance().invalidateAll(db, collection);
     }
 
     @Override
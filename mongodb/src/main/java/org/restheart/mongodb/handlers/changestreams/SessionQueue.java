@@ -0,0 +1,366 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.bson.BsonValue;
+import org.restheart.metrics.MetricNameAndLabels;
+import org.restheart.metrics.Metrics;
+import org.restheart.utils.ThreadsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded outbound queue of a change stream session (WebSocket or SSE).
+ *
+ * <p>Change events are enqueued by the {@link ChangeStreamWorker} and sent one
+ * at a time: the next event is sent only when the previous send completes, so
+ * a slow client accumulates at most {@code capacity} pending events and never
+ * holds more than one send in flight. When the queue is full the
+ * {@link OverflowPolicy} applies.
+ *
+ * <p>With {@link Batching}, the pending events are sent as JSON arrays of up to
+ * {@code maxEvents} events, waiting at most {@code maxDelay} milliseconds after
+ * the oldest pending event to fill a batch.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class SessionQueue {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionQueue.class);
+
+    public static final int DEFAULT_CAPACITY = 1_000;
+
+    private static final ScheduledExecutorService BATCHES_SCHEDULER = Executors
+            .newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("change-stream-batches").factory());
+
+    /**
+     * What to do when a change event is dispatched to a session whose queue is full.
+     */
+    public enum OverflowPolicy {
+        /** drops the oldest pending event */
+        DROP_OLDEST,
+        /** replaces the pending event with the same documentKey, otherwise drops the oldest one; a queue not full is untouched */
+        COALESCE,
+        /** closes the session */
+        DISCONNECT
+    }
+
+    /**
+     * A change event ready to be sent.
+     *
+     * @param frame     the change event, shared with the other sessions
+     * @param timestamp the time the event was first enqueued
+     */
+    public record Event(ChangeEventFrame frame, long timestamp) {
+        BsonValue documentKey() {
+            return frame.documentKey();
+        }
+    }
+
+    /**
+     * Sends an event to the client and invokes {@code onSent} or {@code onError}
+     * when the send completes.
+     */
+    @FunctionalInterface
+    public interface Sender {
+        void send(Event event, Runnable onSent, Consumer<Throwable> onError);
+    }
+
+    /**
+     * Batched delivery of change events.
+     *
+     * @param maxEvents the max number of events of a batch
+     * @param maxDelay  the max time in milliseconds an event waits for its batch to fill
+     * @param coalesce  if true, a pending event is replaced by a newer one with the same documentKey
+     */
+    public record Batching(int maxEvents, long maxDelay, boolean coalesce) {
+        public Batching {
+            maxEvents = Math.max(1, maxEvents);
+            maxDelay = Math.max(0, maxDelay);
+        }
+    }
+
+    /** Holds a queued event; coalescing replaces the event in place. */
+    private static class Slot {
+        private Event event;
+
+        Slot(Event event) {
+            this.event = event;
+        }
+    }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final Sender sender;
+    private final Runnable onClose;
+    private final String db;
+    private final String coll;
+    private final Batching batching;
+    private final boolean trackDocumentKeys;
+
+    private final ArrayDeque<Slot> queue = new ArrayDeque<>();
+    private final Map<BsonValue, Slot> byDocumentKey = new HashMap<>();
+    private boolean sending = false;
+    private boolean closed = false;
+    private ScheduledFuture<?> scheduledFlush = null;
+
+    /**
+     * @param capacity     the maximum number of pending events
+     * @param policy       the overflow policy
+     * @param sender       sends events to the client
+     * @param onClose      closes the session, invoked on send errors and by {@link OverflowPolicy#DISCONNECT}
+     * @param db           the db of the change stream, used as metrics label
+     * @param coll         the collection of the change stream, used as metrics label
+     */
+    public SessionQueue(int capacity, OverflowPolicy policy, Sender sender, Runnable onClose, String db, String coll) {
+        this(capacity, policy, null, sender, onClose, db, coll);
+    }
+
+    /**
+     * @param capacity     the maximum number of pending events
+     * @param policy       the overflow policy
+     * @param batching     the batching options, null to send events one by one
+     * @param sender       sends events to the client
+     * @param onClose      closes the session, invoked on send errors and by {@link OverflowPolicy#DISCONNECT}
+     * @param db           the db of the change stream, used as metrics label
+     * @param coll         the collection of the change stream, used as metrics label
+     */
+    public SessionQueue(int capacity, OverflowPolicy policy, Batching batching, Sender sender, Runnable onClose, String db, String coll) {
+        this.capacity = Math.max(1, capacity);
+        this.batching = batching;
+        this.trackDocumentKeys = policy == OverflowPolicy.COALESCE || (batching != null && batching.coalesce());
+        this.policy = policy;
+        this.sender = sender;
+        this.onClose = onClose;
+        this.db = db;
+        this.coll = coll;
+    }
+
+    /**
+     * Enqueues a change event and starts sending if no send is in flight.
+     *
+     * @param frame the change event
+     */
+    public void offer(ChangeEventFrame frame) {
+        var event = new Event(frame, System.currentTimeMillis());
+        var documentKey = frame.documentKey();
+        boolean disconnect = false;
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            // the COALESCE policy applies only when the queue is full, batching coalesces anyway
+            var coalesce = (batching != null && batching.coalesce())
+                || (policy == OverflowPolicy.COALESCE && queue.size() >= capacity);
+
+            var pending = coalesce && documentKey != null
+                ? byDocumentKey.get(documentKey)
+                : null;
+
+            if (pending != null) {
+                // keep the position and the timestamp of the pending event, so that lag is not hidden
+                pending.event = new Event(frame, pending.event.timestamp());
+                count("changestream_coalesced_events");
+                return;
+            } else if (queue.size() >= capacity) {
+                if (policy == OverflowPolicy.DISCONNECT) {
+                    closed = true;
+                    disconnect = true;
+                } else {
+                    forget(queue.poll());
+                    count("changestream_dropped_events");
+                }
+            }
+
+            if (!disconnect) {
+                var slot = new Slot(event);
+                queue.add(slot);
+
+                if (trackDocumentKeys && documentKey != null) {
+                    byDocumentKey.put(documentKey, slot);
+                }
+
+                if (sending || !batchReady()) {
+                    return;
+                } else {
+                    sending = true;
+                }
+            }
+        }
+
+        if (disconnect) {
+            LOGGER.debug("Closing slow change stream session, {} pending events", capacity);
+            count("changestream_slow_consumer_disconnects");
+            clear();
+            onClose.run();
+        } else {
+            sendNext();
+        }
+    }
+
+    /**
+     * Checks if the pending events can be sent now; otherwise schedules a
+     * flush when the oldest pending event reaches the batch max delay.
+     * Must be invoked holding the lock.
+     */
+    private boolean batchReady() {
+        if (batching == null || queue.size() >= batching.maxEvents()) {
+            return true;
+        }
+
+        var wait = batching.maxDelay() - (System.currentTimeMillis() - queue.peek().event.timestamp());
+
+        if (wait <= 0) {
+            return true;
+        } else if (scheduledFlush == null) {
+            scheduledFlush = BATCHES_SCHEDULER.schedule(() -> ThreadsUtils.virtualThreadsExecutor().execute(this::flush), wait, TimeUnit.MILLISECONDS);
+        }
+
+        return false;
+    }
+
+    private void flush() {
+        synchronized (this) {
+            scheduledFlush = null;
+
+            if (sending || closed || queue.isEmpty()) {
+                return;
+            }
+
+            sending = true;
+        }
+
+        sendNext();
+    }
+
+    private void sendNext() {
+        Event next;
+
+        synchronized (this) {
+            if (closed || queue.isEmpty() || !batchReady()) {
+                sending = false;
+                return;
+            }
+
+            if (batching == null) {
+                var slot = queue.poll();
+                forget(slot);
+                next = slot.event;
+            } else {
+                var batch = new ArrayList<Event>();
+
+                while (!queue.isEmpty() && batch.size() < batching.maxEvents()) {
+                    var slot = queue.poll();
+                    forget(slot);
+                    batch.add(slot.event);
+                }
+
+                next = batch(batch);
+            }
+        }
+
+        try {
+            // the next send is dispatched to a virtual thread since completion callbacks
+            // can run synchronously, which would otherwise grow the stack
+            sender.send(next, () -> ThreadsUtils.virtualThreadsExecutor().execute(this::sendNext), this::failed);
+        } catch (Throwable t) {
+            failed(t);
+        }
+    }
+
+    /**
+     * @return an event whose message is the JSON array of the messages of the
+     *         given events and whose id is the id of the last one
+     */
+    private static Event batch(ArrayList<Event> events) {
+        var message = events.stream()
+                .map(e -> e.frame().message())
+                .collect(Collectors.joining(",", "[", "]"));
+
+        var last = events.get(events.size() - 1).frame();
+
+        return new Event(new ChangeEventFrame(message, last.eventId(), null), events.get(0).timestamp());
+    }
+
+    private void failed(Throwable t) {
+        LOGGER.debug("Error sending change event, closing session", t);
+        close();
+        onClose.run();
+    }
+
+    private void forget(Slot slot) {
+        if (slot != null && slot.event.documentKey() != null) {
+            byDocumentKey.remove(slot.event.documentKey(), slot);
+        }
+    }
+
+    private void count(String metricName) {
+        Metrics.incrementCounter(MetricNameAndLabels.of(metricName)
+            .label("db", db)
+            .label("coll", coll)
+            .label("policy", policy.name()));
+    }
+
+    /**
+     * Stops sending and discards the pending events.
+     */
+    public synchronized void close() {
+        closed = true;
+        clear();
+
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    private synchronized void clear() {
+        queue.clear();
+        byDocumentKey.clear();
+    }
+
+    /**
+     * @return the number of pending events
+     */
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * @return the age in milliseconds of the oldest pending event, 0 if none
+     */
+    public synchronized long lag() {
+        var head = queue.peek();
+        return head == null ? 0 : System.currentTimeMillis() - head.event.timestamp();
+    }
+}
@@ -0,0 +1,199 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xnio.ChannelListeners;
+import org.xnio.IoUtils;
+import org.xnio.channels.StreamSinkChannel;
+
+import io.undertow.server.HttpServerExchange;
+import io.undertow.server.session.SecureRandomSessionIdGenerator;
+import io.undertow.util.Headers;
+
+/**
+ * A SSE session of a change stream.
+ *
+ * <p>The session writes the pre-encoded SSE messages of the change events,
+ * shared by all the sessions, directly to the response channel, instead of
+ * using undertow's ServerSentEventConnection that formats and encodes each
+ * message for each connection.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class SseSession {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SseSession.class);
+
+    private final String id;
+    private final HttpServerExchange exchange;
+    private final StreamSinkChannel sink;
+    private final ChangeStreamWorker changeStreamWorker;
+    private final Map<String, String> boundVars;
+    private final ClientStagesEvaluator clientStages;
+    private final SessionQueue queue;
+    private final AtomicBoolean removed = new AtomicBoolean(false);
+
+    /**
+     * Starts the SSE response of the exchange.
+     *
+     * @param clientStages the per-client stages of a multiplexed change stream,
+     *                     null if the stream is not multiplexed
+     */
+    public SseSession(HttpServerExchange exchange, ChangeStreamWorker csw, Map<String, String> boundVars, ClientStagesEvaluator clientStages) {
+        this.id = new SecureRandomSessionIdGenerator().createSessionId();
+        this.exchange = exchange;
+        this.changeStreamWorker = csw;
+        this.boundVars = boundVars != null ? Map.copyOf(boundVars) : Map.of();
+        this.clientStages = clientStages;
+        this.queue = csw.newQueue(this::send, () -> {
+            this.close();
+            this.changeStreamWorker.sseSessionSet().remove(this);
+        });
+
+        exchange.getResponseHeaders().put(Headers.CONTENT_TYPE, "text/event-stream; charset=UTF-8");
+        exchange.setPersistent(false);
+
+        this.sink = exchange.getResponseChannel();
+        this.sink.getCloseSetter().set(channel -> closed());
+        exchange.getConnection().addCloseListener(connection -> closed());
+    }
+
+    /**
+     * Sends the response headers and then invokes {@code onConnected} in the IO thread.
+     * Must be invoked by the handler of the exchange.
+     */
+    public void connect(Runnable onConnected) {
+        try {
+            if (sink.flush()) {
+                exchange.dispatch(exchange.getIoThread(), onConnected);
+            } else {
+                sink.getWriteSetter().set(ChannelListeners.flushingChannelListener(channel -> {
+                    channel.suspendWrites();
+                    onConnected.run();
+                }, ChannelListeners.closingChannelExceptionHandler()));
+                sink.resumeWrites();
+            }
+        } catch (IOException ioe) {
+            LOGGER.debug("Error starting SSE session {}", id, ioe);
+            IoUtils.safeClose(sink);
+        }
+    }
+
+    private void send(SessionQueue.Event event, Runnable onSent, Consumer<Throwable> onError) {
+        var payload = event.frame().ssePayload();
+        // the response channel is written by the IO thread of the exchange
+        exchange.getIoThread().execute(() -> write(payload, onSent, onError));
+    }
+
+    /**
+     * Writes and flushes the payload, resuming when the channel is writable
+     * again if the client is slow to read.
+     */
+    private void write(ByteBuffer payload, Runnable onSent, Consumer<Throwable> onError) {
+        try {
+            int written;
+
+            do {
+                written = sink.write(payload);
+            } while (written > 0 && payload.hasRemaining());
+
+            if (payload.hasRemaining() || !sink.flush()) {
+                sink.getWriteSetter().set(channel -> write(payload, onSent, onError));
+                sink.resumeWrites();
+            } else {
+                sink.suspendWrites();
+                onSent.run();
+            }
+        } catch (IOException ioe) {
+            sink.suspendWrites();
+            onError.accept(ioe);
+        }
+    }
+
+    /**
+     * Invoked when the response channel or the connection is closed.
+     */
+    private void closed() {
+        if (!removed.compareAndSet(false, true)) {
+            return;
+        }
+
+        queue.close();
+        this.changeStreamWorker.sseSessionSet().remove(this);
+
+        if (this.changeStreamWorker.websocketSessions().isEmpty()
+                && this.changeStreamWorker.sseSessionSet().isEmpty()
+                && this.changeStreamWorker.handlingVirtualThread() != null) {
+            LOGGER.debug("Terminating worker {} (last SSE session closed)", this.changeStreamWorker.handlingVirtualThread().getName());
+            this.changeStreamWorker.handlingVirtualThread().interrupt();
+        }
+
+        LOGGER.debug("SSE session closed {}", getId());
+    }
+
+    /**
+     * Stops sending and ends the SSE response.
+     */
+    public void close() {
+        queue.close();
+
+        exchange.getIoThread().execute(() -> {
+            try {
+                sink.shutdownWrites();
+
+                if (sink.flush()) {
+                    IoUtils.safeClose(sink);
+                } else {
+                    sink.getWriteSetter().set(ChannelListeners.flushingChannelListener(channel -> IoUtils.safeClose(channel), ChannelListeners.closingChannelExceptionHandler()));
+                    sink.resumeWrites();
+                }
+            } catch (IOException ioe) {
+                IoUtils.safeClose(sink);
+            }
+        });
+    }
+
+    public String getId() {
+        return this.id;
+    }
+
+    public Map<String, String> getBoundVars() {
+        return boundVars;
+    }
+
+    public ClientStagesEvaluator getClientStages() {
+        return clientStages;
+    }
+
+    /**
+     * @return the bounded queue of the change events pending to be sent
+     */
+    public SessionQueue queue() {
+        return queue;
+    }
+}
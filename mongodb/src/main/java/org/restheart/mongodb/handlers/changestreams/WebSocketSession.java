@@ -22,12 +22,15 @@ package org.restheart.mongodb.handlers.changestreams;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.undertow.server.session.SecureRandomSessionIdGenerator;
+import io.undertow.websockets.core.WebSocketCallback;
 import io.undertow.websockets.core.WebSocketChannel;
+import io.undertow.websockets.core.WebSockets;
 
 /**
  *
@@ -41,19 +44,39 @@ public class WebSocketSession {
     private final WebSocketChannel channel;
     private final ChangeStreamWorker changeStreamWorker;
     private final Map<String, String> boundVars;
+    private final ClientStagesEvaluator clientStages;
+    private final SessionQueue queue;
 
     public WebSocketSession(WebSocketChannel channel, ChangeStreamWorker csw, Map<String, String> boundVars) {
+        this(channel, csw, boundVars, null);
+    }
+
+    /**
+     * @param clientStages the per-client stages of a multiplexed change stream,
+     *                     null if the stream is not multiplexed
+     */
+    public WebSocketSession(WebSocketChannel channel, ChangeStreamWorker csw, Map<String, String> boundVars, ClientStagesEvaluator clientStages) {
         this.id = new SecureRandomSessionIdGenerator().createSessionId();
         this.channel = channel;
         this.channel.resumeReceives(); // required to get close messages from client
         this.changeStreamWorker = csw;
         this.boundVars = boundVars != null ? Map.copyOf(boundVars) : Map.of();
+        this.clientStages = clientStages;
+        this.queue = csw.newQueue(this::send, () -> {
+            try {
+                this.close();
+            } catch (IOException e) {
+                LOGGER.warn("Error closing WebSocket session {}", id, e);
+            }
+
+            this.changeStreamWorker.websocketSessions().removeIf(s -> s.getId().equals(id));
+        });
 
         this.channel.addCloseTask((WebSocketChannel channel1) -> {
             this.changeStreamWorker.websocketSessions().removeIf(s -> s.getId().equals(id));
 
             if (this.changeStreamWorker.websocketSessions().isEmpty()
-                    && this.changeStreamWorker.sseSessions().isEmpty()) {
+                    && this.changeStreamWorker.sseSessionSet().isEmpty()) {
                 if (this.changeStreamWorker.handlingVirtualThread() != null) {
                     LOGGER.debug("Terminating worker {}", this.changeStreamWorker.handlingVirtualThread().getName());
                     this.changeStreamWorker.handlingVirtualThread().interrupt();
@@ -70,7 +93,23 @@ public class WebSocketSession {
         });
     }
 
+    private void send(SessionQueue.Event event, Runnable onSent, Consumer<Throwable> onError) {
+        WebSockets.sendText(event.frame().payload(), channel, new WebSocketCallback<Void>() {
+            @Override
+            public void complete(final WebSocketChannel channel, Void context) {
+                onSent.run();
+            }
+
+            @Override
+            public void onError(final WebSocketChannel channel, Void context, Throwable throwable) {
+                onError.accept(throwable);
+            }
+        });
+    }
+
     public void close() throws IOException {
+        queue.close();
+
         if (channel != null) {
             try (channel) {
                 channel.sendClose();
@@ -93,4 +132,15 @@ public class WebSocketSession {
     public Map<String, String> getBoundVars() {
         return boundVars;
     }
+
+    public ClientStagesEvaluator getClientStages() {
+        return clientStages;
+    }
+
+    /**
+     * @return the bounded queue of the change events pending to be sent
+     */
+    public SessionQueue queue() {
+        return queue;
+    }
 }
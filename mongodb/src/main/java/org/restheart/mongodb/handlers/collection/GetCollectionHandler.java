@@ -20,6 +20,7 @@
  */
 package org.restheart.mongodb.handlers.collection;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.bson.BsonArray;
@@ -30,7 +31,12 @@ import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
 import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.db.CountCache;
 import org.restheart.mongodb.db.Databases;
+import org.restheart.mongodb.db.GetCollectionCache;
+import org.restheart.mongodb.db.HedgedReads;
+import org.restheart.mongodb.utils.ContinuationToken;
+import org.restheart.mongodb.utils.ExportSender;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
 import org.slf4j.Logger;
@@ -45,7 +51,6 @@ import io.undertow.util.HttpString;
  */
 public class GetCollectionHandler extends PipelinedHandler {
     private final Databases dbs = Databases.get();
-    private final boolean isGetCollectionCacheEnabled = MongoServiceConfiguration.get().isGetCollectionCacheEnabled();
 
     private static final Logger LOGGER = LoggerFactory.getLogger(GetCollectionHandler.class);
 
@@ -81,20 +86,40 @@ public class GetCollectionHandler extends PipelinedHandler {
             return;
         }
 
+        if (request.isStreamingExport()) {
+            export(exchange);
+            return;
+        }
+
         long size = -1;
 
         if (request.isCount()) {
             var filters = request.getFiltersDocument();
             var estimate = request.isEstimatedCount();
-            size = dbs.getCollectionSize(
-                    Optional.ofNullable(request.getClientSession()),
-                    request.rsOps(),
-                    request.getDBName(),
-                    request.getCollectionName(),
-                    filters,
-                    estimate);
-
             var actualStrategy = estimate && (filters == null || filters.isEmpty()) ? "estimated" : "exact";
+
+            if (request.isAsyncCount() && request.isCollection() && request.getClientSession() == null) {
+                // the count is returned once computed, by a following request
+                size = dbs.getCollectionSizeAsync(
+                        request.rsOps(),
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        filters);
+
+                if (size < 0) {
+                    actualStrategy = "pending";
+                }
+            } else {
+                size = dbs.getCollectionSize(
+                        Optional.ofNullable(request.getClientSession()),
+                        request.rsOps(),
+                        request.getDBName(),
+                        request.getCollectionName(),
+                        filters,
+                        estimate,
+                        request.isCache() && CountCache.getInstance().isEnabled());
+            }
+
             exchange.getResponseHeaders().put(new HttpString("X-Count-Strategy"), actualStrategy);
         }
 
@@ -124,18 +149,39 @@ public class GetCollectionHandler extends PipelinedHandler {
                 return;
             }
 
-            data = dbs.getCollectionData(
-                    Optional.ofNullable(request.getClientSession()),
-                    request.rsOps(),
-                    request.getDBName(),
-                    request.getCollectionName(),
-                    request.getPage(),
-                    request.getPagesize(),
-                    sort,
-                    filter,
-                    request.getHintValue(),
-                    request.getProjectionDocument(),
-                    request.isCache() && isGetCollectionCacheEnabled);
+            if (request.getAfter() != null) {
+                // keyset pagination, the token becomes a range predicate on the sort keys
+                try {
+                    var range = ContinuationToken.filter(sort, request.getAfter());
+                    filter = filter.isEmpty() ? range : new BsonDocument("$and", new BsonArray(List.of(filter, range)));
+                } catch (IllegalQueryParameterException ex) {
+                    MongoResponse.of(exchange).setInError(HttpStatus.SC_BAD_REQUEST, ex.getMessage(), ex);
+                    next(exchange);
+                    return;
+                }
+            }
+
+            final var _sort = sort;
+            final var _filter = filter;
+            final var cs = Optional.ofNullable(request.getClientSession());
+            final var useCache = request.isCache() && GetCollectionCache.getInstance().isEnabled();
+
+            // a slow read is raced by a hedge read if the request has a hedge delay
+            // and its read preference allows reading from secondaries
+            data = HedgedReads.execute(cs.isEmpty() ? HedgedReads.hedgeDelay(request.getHedgeDelay(), request.rsOps()) : 0,
+                    () -> dbs.getCollectionData(cs, request.rsOps(), request.getDBName(), request.getCollectionName(),
+                            request.getPage(), request.getPagesize(), _sort, _filter, request.getHintValue(), request.getProjectionDocument(), useCache),
+                    () -> dbs.getCollectionData(cs, HedgedReads.hedgeOps(request.rsOps()), request.getDBName(), request.getCollectionName(),
+                            request.getPage(), request.getPagesize(), _sort, _filter, request.getHintValue(), request.getProjectionDocument(), useCache));
+
+            // a full page gets the continuation token for the next one
+            if (data != null && data.size() == request.getPagesize()) {
+                var token = ContinuationToken.of(sort, data.get(data.size() - 1).asDocument());
+
+                if (token != null) {
+                    exchange.getResponseHeaders().put(HttpString.tryFromString(ContinuationToken.HEADER), token);
+                }
+            }
         }
 
         if (exchange.isComplete()) {
@@ -159,4 +205,44 @@ public class GetCollectionHandler extends PipelinedHandler {
             next(exchange);
         }
     }
+
+    /**
+     * streams the whole result via a single cursor, without skip
+     *
+     * @param exchange
+     * @throws Exception
+     */
+    private void export(HttpServerExchange exchange) throws Exception {
+        var request = MongoRequest.of(exchange);
+        var response = MongoResponse.of(exchange);
+
+        BsonDocument filter, sort;
+
+        try {
+            filter = request.getFiltersDocument();
+            sort = request.getSortByDocument();
+        } catch (JsonParseException jpe) {
+            LOGGER.debug("invalid filter or sort parameter", jpe);
+            response.setInError(HttpStatus.SC_BAD_REQUEST, "Invalid filter or sort parameter");
+            next(exchange);
+            return;
+        }
+
+        var find = dbs.findIterable(
+                Optional.ofNullable(request.getClientSession()),
+                request.rsOps(),
+                request.getDBName(),
+                request.getCollectionName(),
+                sort,
+                filter,
+                request.getHintValue(),
+                request.getProjectionDocument(),
+                MongoServiceConfiguration.get().getCursorBatchSize());
+
+        ExportSender.send(request, response, find);
+
+        ResponseHelper.injectEtagHeader(exchange, request.getCollectionProps());
+
+        next(exchange);
+    }
 }
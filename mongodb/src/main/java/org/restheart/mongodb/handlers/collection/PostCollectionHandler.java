@@ -118,7 +118,9 @@ public class PostCollectionHandler extends PipelinedHandler {
                 Optional.ofNullable(request.getShardKey()),
                 content,
                 request.getETag(),
-                request.isETagCheckRequired());
+                request.isETagCheckRequired(),
+                request.isOldDataRequired(),
+                request.isLeanWrite());
 
         response.setDbOperationResult(result);
 
@@ -25,6 +25,8 @@ import static com.mongodb.client.model.Filters.eq;
 import io.undertow.server.HttpServerExchange;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.Optional;
+import java.util.function.Supplier;
 import org.bson.BsonDocument;
 import org.bson.BsonObjectId;
 import org.bson.BsonString;
@@ -37,12 +39,18 @@ import org.restheart.exchange.ExchangeKeys.TYPE;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.handlers.PipelinedHandler;
+import org.restheart.mongodb.RSOps;
 import org.restheart.mongodb.db.Databases;
+import org.restheart.mongodb.db.DocumentCache;
+import org.restheart.mongodb.db.HedgedReads;
+import org.restheart.mongodb.db.SingleFlight;
 import org.restheart.mongodb.utils.RequestHelper;
 import org.restheart.mongodb.utils.ResponseHelper;
 import org.restheart.utils.HttpStatus;
 import org.restheart.utils.BsonUtils;
 
+import com.mongodb.MongoNamespace;
+
 /**
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
@@ -50,6 +58,12 @@ import org.restheart.utils.BsonUtils;
 public class GetDocumentHandler extends PipelinedHandler {
     private final Databases dbs = Databases.get();
 
+    private record DocumentReadKey(MongoNamespace namespace, Optional<RSOps> rsOps, BsonDocument query, BsonDocument projection) {
+    }
+
+    // identical concurrent reads of a document are executed once
+    private static final SingleFlight<DocumentReadKey, BsonDocument> DOCUMENT_READS = new SingleFlight<>(BsonDocument::clone);
+
     /**
      * Default ctor
      */
@@ -135,9 +149,29 @@ public class GetDocumentHandler extends PipelinedHandler {
         var cs = request.getClientSession();
         var coll = dbs.collection(request.rsOps(), request.getDBName(), collName);
 
-        var document = cs == null
-                ? coll.find(query).projection(fieldsToReturn).first()
-                : coll.find(cs, query).projection(fieldsToReturn).first();
+        BsonDocument document;
+
+        if (cs == null) {
+            // coalesce identical concurrent reads and, if the collection
+            // enables it, use the document cache
+            final var _query = query;
+            var key = new DocumentReadKey(coll.getNamespace(), request.rsOps(), query.toBsonDocument(BsonDocument.class, coll.getCodecRegistry()), fieldsToReturn);
+            // a slow read is raced by a hedge read if the request has a hedge delay
+            // and its read preference allows reading from secondaries
+            Supplier<BsonDocument> read = () -> DOCUMENT_READS.execute(key, () -> HedgedReads.execute(HedgedReads.hedgeDelay(request.getHedgeDelay(), request.rsOps()),
+                    () -> coll.find(_query).projection(fieldsToReturn).first(),
+                    () -> dbs.collection(HedgedReads.hedgeOps(request.rsOps()), request.getDBName(), collName).find(_query).projection(fieldsToReturn).first()));
+
+            var docsCacheOptions = request.getType() == TYPE.DOCUMENT
+                    ? DocumentCache.Options.from(request.getCollectionProps())
+                    : null;
+
+            document = docsCacheOptions != null
+                    ? DocumentCache.getInstance().get(key.namespace(), docsCacheOptions, docId, key.query(), fieldsToReturn, read)
+                    : read.get();
+        } else {
+            document = coll.find(cs, query).projection(fieldsToReturn).first();
+        }
 
         if (document == null) {
             String errMsg = request.getDocumentId() == null
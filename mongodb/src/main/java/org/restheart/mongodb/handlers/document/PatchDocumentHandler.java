@@ -97,7 +97,9 @@ public class PatchDocumentHandler extends PipelinedHandler {
                 Optional.ofNullable(request.getShardKey()),
                 _content,
                 request.getETag(),
-                request.isETagCheckRequired());
+                request.isETagCheckRequired(),
+                request.isOldDataRequired(),
+                request.isLeanWrite());
 
         response.setDbOperationResult(result);
 
@@ -109,7 +109,9 @@ public class PutDocumentHandler extends PipelinedHandler {
                 Optional.ofNullable(request.getShardKey()),
                 content,
                 request.getETag(),
-                request.isETagCheckRequired());
+                request.isETagCheckRequired(),
+                request.isOldDataRequired(),
+                request.isLeanWrite());
 
         response.setDbOperationResult(result);
 
@@ -109,13 +109,12 @@ public class GetRootHandler extends PipelinedHandler {
                                         : (request.getPage() - 1) * pagesize
                                         + pagesize);
 
-                        __dbs.stream().map(db -> {
-                            if (MetadataCachesSingleton.isEnabled() && !request.isNoCache()) {
-                                return MetadataCachesSingleton.getInstance().getDBProperties(db);
-                            } else {
-                                return dbs.getDatabaseProperties(Optional.ofNullable(request.getClientSession()), request.rsOps(), db);
-                            }
-                        })
+                        // fetch the properties of all the dbs of the page at once
+                        var dbsProperties = MetadataCachesSingleton.isEnabled() && !request.isNoCache()
+                                ? MetadataCachesSingleton.getInstance().getDBsProperties(__dbs)
+                                : dbs.getDatabasesProperties(Optional.ofNullable(request.getClientSession()), request.rsOps(), __dbs);
+
+                        __dbs.stream().map(dbsProperties::get)
                                 .forEachOrdered(db -> data.add(db));
                     }
                 }
@@ -34,6 +34,7 @@ import org.bson.BsonString;
 import org.bson.BsonValue;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
 import org.restheart.plugins.MongoInterceptor;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.utils.BsonUtils;
@@ -72,6 +73,11 @@ public class AddRequestProperties implements MongoInterceptor {
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
         var args = request.getCollectionProps().get("addRequestProperties");
 
+        if (request.isStreamingIngest()) {
+            StreamedDocumentChecks.add(request, doc -> addProps(doc, args, request, response));
+            return;
+        }
+
         var content = request.getContent() != null
                 ? request.getContent()
                 : new BsonDocument();
@@ -104,6 +110,12 @@ public class AddRequestProperties implements MongoInterceptor {
                 .get("addRequestProperties").isDocument());
     }
 
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // the properties are added to each streamed document
+        return true;
+    }
+
     private void addProps(BsonDocument doc, BsonValue propNames,
                           MongoRequest request, MongoResponse response) {
         BsonDocument injected = new BsonDocument();
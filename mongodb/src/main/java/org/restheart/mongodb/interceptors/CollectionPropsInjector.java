@@ -141,6 +141,12 @@ public class CollectionPropsInjector implements MongoInterceptor {
                 || request.isSession());
     }
 
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // does not use the request content
+        return true;
+    }
+
     /**
      *
      * @param request
@@ -135,4 +135,10 @@ public class DbPropsInjector implements MongoInterceptor {
                 || request.isRoot()
                 || request.isRootSize());
     }
+
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // does not use the request content
+        return true;
+    }
 }
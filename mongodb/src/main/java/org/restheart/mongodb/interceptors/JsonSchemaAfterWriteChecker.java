@@ -76,6 +76,17 @@ public class JsonSchemaAfterWriteChecker extends JsonSchemaBeforeWriteChecker {
         }
     }
 
+    @Override
+    public boolean requiresOldData(MongoRequest request) {
+        // rollback() restores the old document
+        return request.isHandledBy("mongo")
+                && (request.isPatch() && !request.isBulkDocuments())
+                && request.isWriteDocument()
+                && request.getCollectionProps() != null
+                && request.getCollectionProps().containsKey("jsonSchema")
+                && request.getCollectionProps().get("jsonSchema").isDocument();
+    }
+
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return request.isHandledBy("mongo")
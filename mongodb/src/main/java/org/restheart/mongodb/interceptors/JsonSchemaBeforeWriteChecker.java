@@ -25,8 +25,10 @@ import java.util.List;
 import org.bson.BsonDocument;
 import org.bson.BsonValue;
 import static org.restheart.exchange.ExchangeKeys._SCHEMAS;
+import org.restheart.exchange.BadRequestException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
 import org.restheart.exchange.UnsupportedDocumentIdException;
 import org.restheart.mongodb.utils.MongoURLUtils;
 import org.restheart.plugins.Inject;
@@ -155,6 +157,12 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
             return;
         }
 
+        // the documents of a streaming ingest are checked one by one by the handler
+        if (request.isStreamingIngest()) {
+            StreamedDocumentChecks.add(request, doc -> validate(doc, schemaStoreDb, schemaId));
+            return;
+        }
+
         try {
             jsonSchemas().validate(documentsToCheck(request, response), schemaStoreDb, schemaId);
         } catch (JsonSchemaNotFoundException ex) {
@@ -172,6 +180,22 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
         }
     }
 
+    private void validate(BsonDocument doc, String schemaStoreDb, BsonValue schemaId) {
+        try {
+            jsonSchemas().validate(doc, schemaStoreDb, schemaId);
+        } catch (JsonSchemaNotFoundException ex) {
+            throw new BadRequestException("wrong 'jsonSchema': schema "
+                            + schemaStoreDb + "/" + _SCHEMAS + "/"
+                            + BsonUtils.getIdAsString(schemaId, false)
+                            + " not found", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        } catch (SchemaValidationException sve) {
+            throw new BadRequestException("Document violates schema "
+                            + BsonUtils.getIdAsString(schemaId, true)
+                            + ": "
+                            + String.join(", ", sve.getViolations()));
+        }
+    }
+
     List<BsonDocument> documentsToCheck(MongoRequest request, MongoResponse response) {
         var ret = new ArrayList<BsonDocument>();
 
@@ -202,4 +226,10 @@ public class JsonSchemaBeforeWriteChecker implements MongoInterceptor {
                 && request.getCollectionProps().containsKey("jsonSchema")
                 && request.getCollectionProps().get("jsonSchema").isDocument();
     }
+
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // each streamed document is validated
+        return true;
+    }
 }
@@ -20,6 +20,10 @@
  */
 package org.restheart.mongodb.interceptors;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.bson.BsonDocument;
@@ -41,13 +45,13 @@ public class MetadataCachesSingleton {
     private static final String SEPARATOR = "_@_@_";
     private static boolean initialized = false;
 
-    private static long ttl = 1_000;
-    private static boolean enabled = false;
+    private static volatile long ttl = 1_000;
+    private static volatile boolean enabled = false;
     private static final long MAX_CACHE_SIZE = 1_000;
 
     private final Databases dbs;
-    private LoadingCache<String, BsonDocument> dbPropsCache = null;
-    private LoadingCache<String, BsonDocument> collectionPropsCache = null;
+    private volatile LoadingCache<String, BsonDocument> dbPropsCache = null;
+    private volatile LoadingCache<String, BsonDocument> collectionPropsCache = null;
 
     /**
      *
@@ -59,6 +63,30 @@ public class MetadataCachesSingleton {
         initialized = true;
     }
 
+    /**
+     * applies the local-cache settings of the reloaded configuration; the
+     * caches are reconfigured retaining the cached properties, unless the ttl
+     * enables or disables their expiration
+     *
+     * @param conf
+     */
+    public static synchronized void reload(MongoServiceConfiguration conf) {
+        if (!initialized) {
+            init(conf);
+            return;
+        }
+
+        ttl = conf.getLocalCacheTtl();
+        var _enabled = conf.isLocalCacheEnabled();
+
+        // the caches must exist before being enabled
+        if (_enabled) {
+            getInstance().reconfigure();
+        }
+
+        enabled = _enabled;
+    }
+
     /**
      *
      * @return
@@ -85,21 +113,33 @@ public class MetadataCachesSingleton {
         }
 
         if (enabled) {
-            // no client session
-            this.dbPropsCache = CacheFactory.createLocalLoadingCache(MAX_CACHE_SIZE, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl, (String key) -> dbs.getDatabaseProperties(Optional.empty(), Optional.empty(), key));
-
-            this.collectionPropsCache = CacheFactory.createLocalLoadingCache(MAX_CACHE_SIZE, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl,
-                    key -> {
-                        var dbNameAndCollectionName = key.split(SEPARATOR);
-                        return this.dbs.getCollectionProperties(
-                                Optional.empty(), // no client session
-                                Optional.empty(), // no client session
-                                dbNameAndCollectionName[0],
-                                dbNameAndCollectionName[1]);
-                    });
+            createCaches();
         }
     }
 
+    private synchronized void reconfigure() {
+        if (dbPropsCache == null
+            || !dbPropsCache.reconfigure(MAX_CACHE_SIZE, ttl)
+            || !collectionPropsCache.reconfigure(MAX_CACHE_SIZE, ttl)) {
+            createCaches();
+        }
+    }
+
+    private void createCaches() {
+        // no client session
+        this.dbPropsCache = CacheFactory.createLocalLoadingCache(MAX_CACHE_SIZE, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl, (String key) -> dbs.getDatabaseProperties(Optional.empty(), Optional.empty(), key));
+
+        this.collectionPropsCache = CacheFactory.createLocalLoadingCache(MAX_CACHE_SIZE, Cache.EXPIRE_POLICY.AFTER_WRITE, ttl,
+                key -> {
+                    var dbNameAndCollectionName = key.split(SEPARATOR);
+                    return this.dbs.getCollectionProperties(
+                            Optional.empty(), // no client session
+                            Optional.empty(), // no client session
+                            dbNameAndCollectionName[0],
+                            dbNameAndCollectionName[1]);
+                });
+    }
+
     /**
      * @param dbName
      * @return
@@ -173,6 +213,75 @@ public class MetadataCachesSingleton {
         }
     }
 
+    /**
+     * returns the properties of the given existing databases; the ones not
+     * cached are fetched concurrently and cached
+     *
+     * @param dbNames
+     * @return the map of db name to db properties
+     */
+    public Map<String, BsonDocument> getDBsProperties(List<String> dbNames) {
+        if (!enabled) {
+            throw new IllegalStateException("tried to use disabled cache");
+        }
+
+        var ret = new HashMap<String, BsonDocument>();
+        var missing = new ArrayList<String>();
+
+        dbNames.forEach(dbName -> {
+            var _dbProps = dbPropsCache.get(dbName);
+
+            if (_dbProps != null && _dbProps.isPresent()) {
+                ret.put(dbName, _dbProps.get());
+            } else {
+                missing.add(dbName);
+            }
+        });
+
+        if (!missing.isEmpty()) {
+            var loaded = dbs.getDatabasesProperties(Optional.empty(), Optional.empty(), missing);
+            loaded.forEach(dbPropsCache::put);
+            ret.putAll(loaded);
+        }
+
+        return ret;
+    }
+
+    /**
+     * returns the properties of the given existing collections; the ones not
+     * cached are fetched with a single query and cached
+     *
+     * @param dbName
+     * @param collNames
+     * @return the map of collection name to collection properties
+     */
+    public Map<String, BsonDocument> getCollectionsProperties(String dbName, List<String> collNames) {
+        if (!enabled) {
+            throw new IllegalStateException("tried to use disabled cache");
+        }
+
+        var ret = new HashMap<String, BsonDocument>();
+        var missing = new ArrayList<String>();
+
+        collNames.forEach(collName -> {
+            var _collProps = collectionPropsCache.get(dbName + SEPARATOR + collName);
+
+            if (_collProps != null && _collProps.isPresent()) {
+                ret.put(collName, _collProps.get());
+            } else {
+                missing.add(collName);
+            }
+        });
+
+        if (!missing.isEmpty()) {
+            var loaded = dbs.getCollectionsProperties(Optional.empty(), Optional.empty(), dbName, missing);
+            loaded.forEach((collName, props) -> collectionPropsCache.put(dbName + SEPARATOR + collName, props));
+            ret.putAll(loaded);
+        }
+
+        return ret;
+    }
+
     /**
      *
      * @param dbName
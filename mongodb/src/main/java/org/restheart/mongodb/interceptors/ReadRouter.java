@@ -0,0 +1,84 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.interceptors;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.mongodb.MongoServiceConfiguration;
+import org.restheart.mongodb.RSOps;
+import org.restheart.mongodb.db.ReadRouting;
+import org.restheart.plugins.InterceptPoint;
+import org.restheart.plugins.MongoInterceptor;
+import org.restheart.plugins.RegisterPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ *
+ * readRouter applies the read routing rules, see {@link ReadRouting}, to the
+ * GET requests that don't specify the readPreference query parameter.
+ *
+ * It intercepts the requests after authentication, since the rules can match
+ * the roles of the authenticated account.
+ */
+@RegisterPlugin(
+        name = "readRouter",
+        description = "Applies the read-routing rules to the GET requests without the readPreference query parameter",
+        interceptPoint = InterceptPoint.REQUEST_AFTER_AUTH)
+public class ReadRouter implements MongoInterceptor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReadRouter.class);
+
+    @Override
+    public void handle(MongoRequest request, MongoResponse response) throws Exception {
+        var account = request.getAuthenticatedAccount();
+
+        var rule = ReadRouting.match(rules(),
+                request.getPath(),
+                request.getDBName(),
+                request.getCollectionName(),
+                account == null ? null : account.getRoles());
+
+        if (rule != null) {
+            LOGGER.trace("Read routing rule {} applies to {}", rule, request.getPath());
+            // keep the readConcern and writeConcern specified by the query parameters
+            request.setRsOps(Optional.of(request.rsOps().orElse(new RSOps()).withReadPreference(rule.readPreference())));
+            request.setHedgeDelay(rule.hedgeDelay());
+        }
+    }
+
+    @Override
+    public boolean resolve(MongoRequest request, MongoResponse response) {
+        return request.isGet()
+                && !rules().isEmpty()
+                && (request.rsOps().isEmpty() || request.rsOps().get().readPreference() == null);
+    }
+
+    private static List<ReadRouting.Rule> rules() {
+        return MongoServiceConfiguration.get() == null
+                ? List.of()
+                : MongoServiceConfiguration.get().getReadRoutingRules();
+    }
+}
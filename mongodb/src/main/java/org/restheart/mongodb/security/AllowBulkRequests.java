@@ -36,7 +36,7 @@ import org.restheart.security.BaseAclPermissionTransformer;
 import org.restheart.security.MongoPermissions;
 
 @RegisterPlugin(name = "mongoPermissionAllowBulkRequests",
-        description = "Allow bulk PATCH and bulk DELETE according to the mongo.allowBulkPatch and mongo.allowBulkDelete ACL permissions",
+        description = "Allow bulk PATCH, bulk DELETE, streaming ingest and streaming export according to the mongo.allowBulkPatch, mongo.allowBulkDelete, mongo.allowStreamingIngest and mongo.allowStreamingExport ACL permissions",
         initPoint = InitPoint.BEFORE_STARTUP,
         enabledByDefault = true)
 public class AllowBulkRequests extends BaseAllowInitializer implements Initializer {
@@ -53,7 +53,7 @@ public class AllowBulkRequests extends BaseAllowInitializer implements Initializ
     private Predicate<BaseAclPermission> resolve = p -> {
         try {
             var mp = MongoPermissions.from(p);
-            return !(mp.isAllowBulkDelete() && mp.isAllowBulkPatch());
+            return !(mp.isAllowBulkDelete() && mp.isAllowBulkPatch() && mp.isAllowStreamingIngest() && mp.isAllowStreamingExport());
         } catch (IllegalArgumentException e) {
             return false;
         }
@@ -68,6 +68,8 @@ public class AllowBulkRequests extends BaseAllowInitializer implements Initializ
         var mp = MongoPermissions.from(p);
 
         return !((!mp.isAllowBulkDelete() && mr.isBulkDocuments() && mr.isDelete())
-                || (!mp.isAllowBulkPatch() && mr.isBulkDocuments() && mr.isPatch()));
+                || (!mp.isAllowBulkPatch() && mr.isBulkDocuments() && mr.isPatch())
+                || (!mp.isAllowStreamingIngest() && mr.isStreamingIngest())
+                || (!mp.isAllowStreamingExport() && mr.isStreamingExport()));
     };
 }
@@ -25,6 +25,7 @@ import static org.restheart.utils.BsonUtils.containsUpdateOperators;
 import org.bson.BsonDocument;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.MongoInterceptor;
 import org.restheart.plugins.RegisterPlugin;
@@ -41,7 +42,11 @@ public class MergeRequest implements MongoInterceptor {
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
         var toMerge = MongoPermissions.of(request).getMergeRequest();
 
-        if (request.getContent().isDocument()) {
+        if (request.isStreamingIngest()) {
+            // streamed documents cannot contain update operators, merge at root level
+            var iToMerge = AclVarsInterpolator.interpolateBson(request, toMerge).asDocument();
+            StreamedDocumentChecks.add(request, doc -> doc.putAll(iToMerge));
+        } else if (request.getContent().isDocument()) {
             merge(request, toMerge);
         } else if (request.getContent().isArray()) {
             request.getContent().asArray().stream().map(doc -> doc.asDocument())
@@ -89,4 +94,10 @@ public class MergeRequest implements MongoInterceptor {
             return false;
         }
     }
+
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // the properties are merged into each streamed document
+        return true;
+    }
 }
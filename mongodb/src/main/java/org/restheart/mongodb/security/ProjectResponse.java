@@ -65,11 +65,29 @@ public class ProjectResponse implements MongoInterceptor {
         }
     }
 
-    private void projectExclusions(BsonDocument doc, BsonDocument projection) {
+    /**
+     * Projects a document according to the mongo.projectResponse ACL permission
+     *
+     * @param doc the document to project, modified in case of exclusions
+     * @param projection the projectResponse permission
+     * @return the projected document
+     */
+    public static BsonDocument project(BsonDocument doc, BsonDocument projection) {
+        boolean inclusions = projection.get(projection.keySet().stream().findAny().get()).asInt32().getValue() == 1;
+
+        if (inclusions) {
+            return projectInclusions(doc, projection);
+        } else {
+            projectExclusions(doc, projection);
+            return doc;
+        }
+    }
+
+    private static void projectExclusions(BsonDocument doc, BsonDocument projection) {
         projection.keySet().stream().forEachOrdered(projectedProp -> projectExlcusions(doc, projectedProp));
     }
 
-    private void projectExlcusions(BsonDocument doc, String projectedProperty) {
+    private static void projectExlcusions(BsonDocument doc, String projectedProperty) {
         if (projectedProperty.contains(".")) {
             var first = projectedProperty.substring(0, projectedProperty.indexOf("."));
             if (first.length() > 0 && doc.containsKey(first) && doc.get(first).isDocument()) {
@@ -80,13 +98,13 @@ public class ProjectResponse implements MongoInterceptor {
         }
     }
 
-    private BsonDocument projectInclusions(BsonDocument doc, BsonDocument projection) {
+    private static BsonDocument projectInclusions(BsonDocument doc, BsonDocument projection) {
         var includedKeys = projection.keySet();
 
         return projectInclusions(doc, includedKeys);
     }
 
-    private BsonDocument projectInclusions(BsonDocument doc, Set<String> includedKeys) {
+    private static BsonDocument projectInclusions(BsonDocument doc, Set<String> includedKeys) {
         var ret = new BsonDocument();
         includedKeys.stream().forEachOrdered(includedKey -> {
             if (includedKey.contains(".")) {
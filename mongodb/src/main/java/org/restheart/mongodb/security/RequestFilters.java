@@ -89,6 +89,12 @@ public class RequestFilters implements MongoInterceptor {
                 && MongoPermissions.of(request) != null;
     }
 
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // does not use the request content
+        return true;
+    }
+
     private void addFilter(final MongoRequest request, final BsonDocument filter) {
         if (filter == null) {
             return;
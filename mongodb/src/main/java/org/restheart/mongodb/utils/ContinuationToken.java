@@ -0,0 +1,197 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import org.bson.BSONException;
+import org.bson.BsonArray;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.restheart.exchange.IllegalQueryParameterException;
+
+/**
+ * Opaque continuation token for keyset pagination of GET /coll.
+ *
+ * The token holds the sort document and the values of the sort keys of the
+ * last document of a page. Passed back via the {@code after} query parameter,
+ * it becomes a range predicate on the sort keys, so the next page is read
+ * from the index without skipping the previous ones.
+ *
+ * A token is issued only when the sort includes {@code _id}, that makes the
+ * order total, and the last document contains all the sort keys preceding it
+ * with non null, non array values. Note that, as any MongoDB range query, the
+ * predicate only matches values of the same type of the ones in the token.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ContinuationToken {
+    /**
+     * The response header with the continuation token of the next page
+     */
+    public static final String HEADER = "X-Continuation-Token";
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private ContinuationToken() {
+    }
+
+    /**
+     * @param sort the sort document of the request
+     * @param last the last document of the page
+     * @return the continuation token, or null if it cannot be derived
+     */
+    public static String of(BsonDocument sort, BsonDocument last) {
+        if (sort == null || last == null) {
+            return null;
+        }
+
+        var keys = keys(sort);
+
+        if (keys == null) {
+            return null;
+        }
+
+        var values = new BsonArray();
+
+        for (var key: keys) {
+            var value = value(last, key);
+
+            if (value == null || value.isNull() || value.isArray()) {
+                return null;
+            }
+
+            values.add(value);
+        }
+
+        var token = new BsonDocument("s", sort).append("v", values);
+
+        var buffer = new BasicOutputBuffer();
+        CODEC.encode(new BsonBinaryWriter(buffer), token, EncoderContext.builder().build());
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.toByteArray());
+    }
+
+    /**
+     * @param sort the sort document of the request
+     * @param token the value of the after query parameter
+     * @return the range predicate that matches the documents following the
+     * one the token was derived from
+     * @throws IllegalQueryParameterException if the token is invalid or was
+     * issued for a different sort
+     */
+    public static BsonDocument filter(BsonDocument sort, String token) throws IllegalQueryParameterException {
+        BsonDocument _token;
+
+        try {
+            var bytes = Base64.getUrlDecoder().decode(token);
+            _token = CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)), DecoderContext.builder().build());
+        } catch (IllegalArgumentException | BSONException ex) {
+            throw new IllegalQueryParameterException("illegal after parameter", ex);
+        }
+
+        if (!_token.isDocument("s") || !_token.isArray("v")) {
+            throw new IllegalQueryParameterException("illegal after parameter");
+        }
+
+        if (!_token.getDocument("s").equals(sort)) {
+            throw new IllegalQueryParameterException("illegal after parameter, it was issued for a different sort");
+        }
+
+        var keys = keys(sort);
+        var values = _token.getArray("v");
+
+        if (keys == null || keys.size() != values.size()) {
+            throw new IllegalQueryParameterException("illegal after parameter");
+        }
+
+        // (k1 > v1) or (k1 = v1 and k2 > v2) or ...
+        var or = new BsonArray();
+
+        for (var i = 0; i < keys.size(); i++) {
+            var branch = new BsonDocument();
+
+            for (var j = 0; j < i; j++) {
+                branch.put(keys.get(j), values.get(j));
+            }
+
+            var op = sort.get(keys.get(i)).asNumber().intValue() < 0 ? "$lt" : "$gt";
+            branch.put(keys.get(i), new BsonDocument(op, values.get(i)));
+
+            or.add(branch);
+        }
+
+        return or.size() == 1 ? or.get(0).asDocument() : new BsonDocument("$or", or);
+    }
+
+    /**
+     * @param sort
+     * @return the sort keys up to _id, or null if the sort does not include
+     * _id or is not a plain ascending/descending sort
+     */
+    private static List<String> keys(BsonDocument sort) {
+        var ret = new ArrayList<String>();
+
+        for (var entry: sort.entrySet()) {
+            if (!entry.getValue().isNumber() || entry.getKey().startsWith("$")) {
+                return null;
+            }
+
+            var direction = entry.getValue().asNumber().intValue();
+
+            if (direction != 1 && direction != -1) {
+                return null;
+            }
+
+            ret.add(entry.getKey());
+
+            // _id is unique, following keys do not affect the order
+            if ("_id".equals(entry.getKey())) {
+                return ret;
+            }
+        }
+
+        return null;
+    }
+
+    private static BsonValue value(BsonDocument doc, String path) {
+        BsonValue current = doc;
+
+        for (var segment: path.split("\\.")) {
+            if (current == null || !current.isDocument()) {
+                return null;
+            }
+
+            current = current.asDocument().get(segment);
+        }
+
+        return current;
+    }
+}
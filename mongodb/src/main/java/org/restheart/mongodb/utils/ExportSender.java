@@ -0,0 +1,146 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.function.UnaryOperator;
+
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.restheart.exchange.Exchange;
+import org.restheart.exchange.ExportedDocumentFilters;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.mongodb.security.ProjectResponse;
+import org.restheart.security.MongoPermissions;
+import org.restheart.utils.BsonUtils;
+import org.restheart.utils.HttpStatus;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoIterable;
+
+/**
+ * Sends the whole result of a query or an aggregation as newline-delimited
+ * JSON or raw BSON, iterating a single cursor and writing each document to the
+ * response as soon as it is read, see {@link MongoRequest#getExportMediaType()}
+ *
+ * The cursor is opened when send() is invoked, so that query errors can still
+ * be sent as error responses, and closed when the exchange completes.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ExportSender {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final BsonDocumentCodec CODEC = new BsonDocumentCodec();
+
+    private ExportSender() {
+    }
+
+    /**
+     * sets the custom sender of the response that streams the documents
+     *
+     * @param request
+     * @param response
+     * @param iterable the find or aggregate iterable
+     */
+    public static void send(MongoRequest request, MongoResponse response, MongoIterable<BsonDocument> iterable) {
+        var exchange = request.getExchange();
+        var mediaType = request.getExportMediaType();
+        var project = projection(request);
+        var cursor = iterable.cursor();
+
+        exchange.addExchangeCompleteListener((ex, nextListener) -> {
+            cursor.close();
+            nextListener.proceed();
+        });
+
+        response.setContentType(mediaType);
+        response.setStatusCode(HttpStatus.SC_OK);
+
+        // the exchange is blocking, see WorkingThreadsPoolDispatcher
+        response.setCustomSender(() -> {
+            // the response interceptors have been executed, e.g. userPwdRemover
+            var filters = ExportedDocumentFilters.of(request);
+            UnaryOperator<BsonDocument> filter = doc -> filters.apply(project.apply(doc));
+
+            try {
+                var out = new BufferedOutputStream(exchange.getOutputStream(), BUFFER_SIZE);
+
+                if (Exchange.BSON_MEDIA_TYPE.equals(mediaType)) {
+                    writeBson(cursor, filter, out);
+                } else {
+                    writeNdjson(cursor, filter, request, out);
+                }
+
+                out.flush();
+            } catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            } finally {
+                cursor.close();
+            }
+        });
+    }
+
+    private static void writeNdjson(MongoCursor<BsonDocument> cursor, UnaryOperator<BsonDocument> filter, MongoRequest request, OutputStream out) throws IOException {
+        var jsonMode = request.getJsonMode();
+
+        while (cursor.hasNext()) {
+            out.write(BsonUtils.toJson(filter.apply(cursor.next()), jsonMode).getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+    }
+
+    private static void writeBson(MongoCursor<BsonDocument> cursor, UnaryOperator<BsonDocument> filter, OutputStream out) throws IOException {
+        var buffer = new BasicOutputBuffer();
+        var encoderContext = EncoderContext.builder().build();
+
+        while (cursor.hasNext()) {
+            try (var writer = new BsonBinaryWriter(buffer)) {
+                CODEC.encode(writer, filter.apply(cursor.next()), encoderContext);
+            }
+
+            buffer.pipe(out);
+            buffer.truncateToPosition(0);
+        }
+    }
+
+    /**
+     * response interceptors are not applied to the streamed documents, apply
+     * the mongo.projectResponse ACL permission here; other interceptors
+     * register their filters via ExportedDocumentFilters
+     */
+    private static UnaryOperator<BsonDocument> projection(MongoRequest request) {
+        var permissions = MongoPermissions.of(request);
+        var projection = permissions == null ? null : permissions.getProjectResponse();
+
+        return projection == null || projection.isEmpty()
+            ? UnaryOperator.identity()
+            : doc -> ProjectResponse.project(doc, projection);
+    }
+}
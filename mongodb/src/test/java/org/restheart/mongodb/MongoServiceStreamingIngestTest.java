@@ -0,0 +1,100 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
+import org.restheart.plugins.Interceptor;
+import org.restheart.plugins.MongoInterceptor;
+
+public class MongoServiceStreamingIngestTest {
+    // an interceptor that processes request.getContent() only
+    static class ContentInterceptor implements MongoInterceptor {
+        @Override
+        public void handle(MongoRequest request, MongoResponse response) throws Exception {
+        }
+
+        @Override
+        public boolean resolve(MongoRequest request, MongoResponse response) {
+            return true;
+        }
+    }
+
+    // an interceptor that checks the streamed documents
+    static class StreamingInterceptor extends ContentInterceptor {
+        @Override
+        public void handle(MongoRequest request, MongoResponse response) throws Exception {
+            StreamedDocumentChecks.add(request, doc -> {});
+        }
+
+        @Override
+        public boolean supportsStreamingIngest(MongoRequest request) {
+            return true;
+        }
+    }
+
+    static class NotResolvingInterceptor extends ContentInterceptor {
+        @Override
+        public boolean resolve(MongoRequest request, MongoResponse response) {
+            return false;
+        }
+    }
+
+    static class FailingInterceptor extends StreamingInterceptor {
+        @Override
+        public boolean resolve(MongoRequest request, MongoResponse response) {
+            throw new IllegalStateException("cannot resolve");
+        }
+    }
+
+    private static Optional<String> unsupportedBy(Interceptor<?, ?>... interceptors) {
+        return MongoService.streamingIngestUnsupportedBy(Stream.of(interceptors), mock(MongoRequest.class), mock(MongoResponse.class));
+    }
+
+    @Test
+    void testRejectsInterceptorNotSupportingStreamingIngest() {
+        assertEquals(Optional.of("ContentInterceptor"), unsupportedBy(new StreamingInterceptor(), new ContentInterceptor()));
+    }
+
+    @Test
+    void testAcceptsInterceptorsSupportingStreamingIngest() {
+        assertTrue(unsupportedBy(new StreamingInterceptor()).isEmpty());
+    }
+
+    @Test
+    void testIgnoresInterceptorsNotResolving() {
+        assertTrue(unsupportedBy(new StreamingInterceptor(), new NotResolvingInterceptor()).isEmpty());
+    }
+
+    @Test
+    void testRejectsWhenResolveFails() {
+        assertEquals(Optional.of("FailingInterceptor"), unsupportedBy(new FailingInterceptor()));
+    }
+}
@@ -0,0 +1,149 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.bson.BsonBoolean;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ChunkedBulkWriterTest {
+    @Test
+    public void testChunks() {
+        assertFalse(new ChunkedBulkWriter(0, 4).chunks(models(10)));
+        assertFalse(new ChunkedBulkWriter(10, 4).chunks(models(10)));
+        assertTrue(new ChunkedBulkWriter(3, 4).chunks(models(10)));
+    }
+
+    @Test
+    public void testCountsAreSummedAcrossChunks() {
+        var coll = collection();
+
+        var result = new ChunkedBulkWriter(3, 2).bulkWrite(coll, models(10));
+
+        verify(coll, times(4)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        assertEquals(10, result.getInsertedCount());
+        assertEquals(IntStream.range(0, 10).boxed().toList(), insertIndexes(result));
+    }
+
+    @Test
+    public void testErrorsInLaterChunkHaveGlobalIndexes() {
+        var coll = collection();
+        var models = models(10, 7, 8);
+
+        var mbwe = assertThrows(MongoBulkWriteException.class, () -> new ChunkedBulkWriter(3, 2).bulkWrite(coll, models));
+
+        // all chunks are executed and the errors refer to the whole list of write models
+        verify(coll, times(4)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+        assertEquals(List.of(7, 8), mbwe.getWriteErrors().stream().map(BulkWriteError::getIndex).toList());
+        assertEquals(8, mbwe.getWriteResult().getInsertedCount());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 9), insertIndexes(mbwe.getWriteResult()));
+    }
+
+    /**
+     * @return write models inserting { n: idx }, with { fail: true } for the failing indexes
+     */
+    private static List<WriteModel<BsonDocument>> models(int count, int... failing) {
+        var ret = new ArrayList<WriteModel<BsonDocument>>();
+
+        for (var idx = 0; idx < count; idx++) {
+            var doc = new BsonDocument("n", new BsonInt32(idx));
+            final var _idx = idx;
+
+            if (IntStream.of(failing).anyMatch(f -> f == _idx)) {
+                doc.put("fail", BsonBoolean.TRUE);
+            }
+
+            ret.add(new InsertOneModel<>(doc));
+        }
+
+        return ret;
+    }
+
+    /**
+     * A collection that inserts the documents of the chunk and fails with a
+     * write error for the documents with { fail: true }.
+     */
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<BsonDocument> collection() {
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+
+        when(coll.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(inv -> {
+            List<InsertOneModel<BsonDocument>> chunk = inv.getArgument(0);
+            var inserts = new ArrayList<BulkWriteInsert>();
+            var errors = new ArrayList<BulkWriteError>();
+
+            for (var idx = 0; idx < chunk.size(); idx++) {
+                var doc = chunk.get(idx).getDocument();
+
+                if (doc.containsKey("fail")) {
+                    errors.add(new BulkWriteError(11000, "duplicate key", new BsonDocument(), idx));
+                } else {
+                    inserts.add(new BulkWriteInsert(idx, doc.get("n")));
+                }
+            }
+
+            var result = BulkWriteResult.acknowledged(inserts.size(), 0, 0, 0, List.of(), inserts);
+
+            if (errors.isEmpty()) {
+                return result;
+            } else {
+                throw new MongoBulkWriteException(result, errors, null, new ServerAddress(), Set.of());
+            }
+        });
+
+        return coll;
+    }
+
+    private static List<Integer> insertIndexes(BulkWriteResult result) {
+        return result.getInserts().stream().map(BulkWriteInsert::getIndex).sorted().toList();
+    }
+}
@@ -0,0 +1,191 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.MongoCollection;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class CountCacheTest {
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<BsonDocument> collection(String name) {
+        var coll = mock(MongoCollection.class);
+        when(coll.getNamespace()).thenReturn(new MongoNamespace("countcachetest", name));
+        return coll;
+    }
+
+    @Test
+    public void testCachedAndInvalidated() {
+        var cache = CountCache.getInstance();
+        var coll = collection("cached");
+        var filter = BsonDocument.parse("{ 'a': 1 }");
+        var counts = new AtomicInteger();
+
+        assertEquals(10, cache.get(coll, filter, () -> { counts.incrementAndGet(); return 10; }));
+        assertEquals(10, cache.get(coll, filter, () -> { counts.incrementAndGet(); return 20; }));
+        assertEquals(1, counts.get());
+
+        // a different filter is counted
+        assertEquals(30, cache.get(coll, new BsonDocument(), () -> 30));
+
+        cache.invalidateAll("countcachetest", "cached");
+
+        assertEquals(-1, cache.get(coll, filter));
+        assertEquals(20, cache.get(coll, filter, () -> 20));
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        var cache = CountCache.getInstance();
+        var coll = collection("async");
+        var filter = new BsonDocument();
+        var latch = new CountDownLatch(1);
+        var counts = new AtomicInteger();
+
+        assertEquals(-1, cache.getAsync(coll, filter, () -> { counts.incrementAndGet(); await(latch); return 5; }));
+        // the count is already running
+        assertEquals(-1, cache.getAsync(coll, filter, () -> { counts.incrementAndGet(); return 6; }));
+
+        latch.countDown();
+
+        var deadline = System.currentTimeMillis() + 5_000;
+        while (cache.get(coll, filter) < 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(5, cache.getAsync(coll, filter, () -> 7));
+        assertEquals(1, counts.get());
+    }
+
+    @Test
+    public void testAsyncCachedWhenOtherCollectionsAreWritten() throws Exception {
+        var cache = CountCache.getInstance();
+        var coll = collection("pending");
+        var other = collection("written");
+        var filter = new BsonDocument();
+        var latch = new CountDownLatch(1);
+
+        assertEquals(-1, cache.getAsync(coll, filter, () -> { await(latch); return 5; }));
+
+        // writes on other collections do not discard the pending count
+        cache.invalidateAll(other);
+        cache.invalidateAll("countcachetest", "written");
+        cache.invalidateAll("otherdb");
+
+        latch.countDown();
+
+        assertEquals(5, awaitCached(cache, coll, filter));
+    }
+
+    @Test
+    public void testAsyncNotCachedWhenCollectionIsWritten() throws Exception {
+        var cache = CountCache.getInstance();
+        var coll = collection("invalidated");
+        var filter = new BsonDocument();
+        var latch = new CountDownLatch(1);
+        var counted = new CountDownLatch(1);
+
+        assertEquals(-1, cache.getAsync(coll, filter, () -> { await(latch); counted.countDown(); return 5; }));
+
+        // a write on the collection while counting, the count might not reflect it
+        cache.invalidateAll("countcachetest", "invalidated");
+
+        latch.countDown();
+        counted.await(5, TimeUnit.SECONDS);
+
+        // wait for the background count to complete
+        var deadline = System.currentTimeMillis() + 5_000;
+        while (cache.getAsync(coll, filter, () -> 7) < 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // the next async count is cached instead
+        assertEquals(7, awaitCached(cache, coll, filter));
+    }
+
+    @Test
+    public void testAsyncCountsAreBounded() throws Exception {
+        var cache = CountCache.getInstance();
+        var coll = collection("bounded");
+        var latch = new CountDownLatch(1);
+        var started = new AtomicInteger();
+        var skipped = false;
+
+        // blocks the background counts until one is skipped
+        for (var i = 0; i <= CountCache.DEFAULT_MAX_BACKGROUND_COUNTS && !skipped; i++) {
+            var invoked = new AtomicInteger();
+            cache.getAsync(coll, BsonDocument.parse("{ 'n': " + i + " }"), () -> { invoked.incrementAndGet(); started.incrementAndGet(); await(latch); return 1; });
+
+            var deadline = System.currentTimeMillis() + 1_000;
+            while (invoked.get() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            skipped = invoked.get() == 0;
+        }
+
+        assertTrue(skipped);
+        assertTrue(started.get() <= CountCache.DEFAULT_MAX_BACKGROUND_COUNTS);
+
+        latch.countDown();
+
+        // the skipped count is started by a later request once the others complete
+        var filter = BsonDocument.parse("{ 'after': true }");
+        var deadline = System.currentTimeMillis() + 5_000;
+        while (cache.getAsync(coll, filter, () -> 3) < 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(3, cache.get(coll, filter));
+    }
+
+    private static long awaitCached(CountCache cache, MongoCollection<BsonDocument> coll, BsonDocument filter) throws InterruptedException {
+        var deadline = System.currentTimeMillis() + 5_000;
+        while (cache.get(coll, filter) < 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return cache.get(coll, filter);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoNamespace;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class DocumentCacheTest {
+    private static final BsonDocument NO_PROJECTION = new BsonDocument();
+
+    private static BsonDocument query(int id) {
+        return new BsonDocument("_id", new BsonInt32(id));
+    }
+
+    @Test
+    public void testOptions() {
+        assertNull(DocumentCache.Options.from(null));
+        assertNull(DocumentCache.Options.from(BsonDocument.parse("{ 'docsCache': true }")));
+        assertNull(DocumentCache.Options.from(BsonDocument.parse("{ 'docsCache': { 'maxBytes': 0 } }")));
+        assertEquals(new DocumentCache.Options(1024, 60_000), DocumentCache.Options.from(BsonDocument.parse("{ 'docsCache': { 'maxBytes': 1024 } }")));
+        assertEquals(new DocumentCache.Options(1024, 10), DocumentCache.Options.from(BsonDocument.parse("{ 'docsCache': { 'maxBytes': 1024, 'ttl': 10 } }")));
+    }
+
+    @Test
+    public void testCachedAndInvalidated() {
+        var cache = DocumentCache.getInstance();
+        var ns = new MongoNamespace("doccachetest", "cached");
+        var opts = new DocumentCache.Options(1024 * 1024, 60_000);
+        var reads = new AtomicInteger();
+
+        var doc = cache.get(ns, opts, new BsonInt32(1), query(1), NO_PROJECTION, () -> { reads.incrementAndGet(); return BsonDocument.parse("{ '_id': 1, 'a': 1 }"); });
+        var cached = cache.get(ns, opts, new BsonInt32(1), query(1), NO_PROJECTION, () -> { reads.incrementAndGet(); return BsonDocument.parse("{ '_id': 1, 'a': 2 }"); });
+
+        assertEquals(1, reads.get());
+        assertEquals(doc, cached);
+        assertNotSame(doc, cached);
+
+        // modifying the returned document does not affect the cache
+        cached.put("a", new BsonInt32(3));
+        assertEquals(BsonDocument.parse("{ '_id': 1, 'a': 1 }"), cache.get(ns, opts, new BsonInt32(1), query(1), NO_PROJECTION, () -> null));
+
+        cache.invalidate("doccachetest", "cached", new BsonInt32(1));
+
+        assertEquals(BsonDocument.parse("{ '_id': 1, 'a': 2 }"), cache.get(ns, opts, new BsonInt32(1), query(1), NO_PROJECTION, () -> BsonDocument.parse("{ '_id': 1, 'a': 2 }")));
+    }
+
+    @Test
+    public void testBoundedByBytes() {
+        var cache = DocumentCache.getInstance();
+        var ns = new MongoNamespace("doccachetest", "bounded");
+        // each document is 28 bytes
+        var opts = new DocumentCache.Options(64, 60_000);
+        var reads = new AtomicInteger();
+
+        for (var i = 0; i < 3; i++) {
+            var id = i;
+            cache.get(ns, opts, new BsonInt32(i), query(i), NO_PROJECTION, () -> { reads.incrementAndGet(); return BsonDocument.parse("{ '_id': " + id + ", 'a': 'abcdef' }"); });
+        }
+
+        assertEquals(3, reads.get());
+
+        // the least recently used document was evicted
+        cache.get(ns, opts, new BsonInt32(2), query(2), NO_PROJECTION, () -> { reads.incrementAndGet(); return null; });
+        assertEquals(3, reads.get());
+        cache.get(ns, opts, new BsonInt32(0), query(0), NO_PROJECTION, () -> { reads.incrementAndGet(); return null; });
+        assertEquals(4, reads.get());
+    }
+
+    @Test
+    public void testWriteDuringRead() {
+        var cache = DocumentCache.getInstance();
+        var ns = new MongoNamespace("doccachetest", "race");
+        var opts = new DocumentCache.Options(1024 * 1024, 60_000);
+
+        // a write invalidates the document while it is being read
+        cache.get(ns, opts, new BsonInt32(1), query(1), NO_PROJECTION, () -> {
+            cache.invalidate("doccachetest", "race", new BsonInt32(1));
+            return BsonDocument.parse("{ '_id': 1, 'a': 1 }");
+        });
+
+        // the document read before the write was not cached
+        assertEquals(BsonDocument.parse("{ '_id': 1, 'a': 2 }"), cache.get(ns, opts, new BsonInt32(1), query(1), NO_PROJECTION, () -> BsonDocument.parse("{ '_id': 1, 'a': 2 }")));
+    }
+}
@@ -0,0 +1,110 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.restheart.mongodb.RSOps;
+
+import com.mongodb.ReadConcern;
+import com.mongodb.ReadPreference;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class HedgedReadsTest {
+    @Test
+    public void testFastRead() {
+        var hedges = new AtomicInteger();
+
+        assertEquals("read", HedgedReads.execute(1_000, () -> "read", () -> { hedges.incrementAndGet(); return "hedge"; }));
+        assertEquals(0, hedges.get());
+
+        // no hedge delay, the read is executed in the caller thread
+        assertEquals("read", HedgedReads.execute(0, () -> "read", () -> "hedge"));
+    }
+
+    @Test
+    public void testSlowRead() {
+        var release = new CountDownLatch(1);
+
+        try {
+            assertEquals("hedge", HedgedReads.execute(10, () -> { await(release); return "read"; }, () -> "hedge"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testFailedHedge() {
+        assertEquals("read", HedgedReads.execute(10, () -> { sleep(100); return "read"; }, () -> { throw new IllegalStateException(); }));
+    }
+
+    @Test
+    public void testFailedReads() {
+        assertThrows(IllegalStateException.class, () -> HedgedReads.execute(1_000, () -> { throw new IllegalStateException(); }, () -> "hedge"));
+        assertThrows(IllegalStateException.class, () -> HedgedReads.execute(10, () -> { sleep(100); throw new IllegalStateException(); }, () -> { throw new IllegalStateException(); }));
+    }
+
+    @Test
+    public void testHedgeOps() {
+        var rsOps = new RSOps().withReadConcern(ReadConcern.MAJORITY).withReadPreference(ReadPreference.secondary(120, TimeUnit.SECONDS));
+        var hedgeOps = HedgedReads.hedgeOps(Optional.of(rsOps)).get();
+
+        assertEquals(ReadPreference.nearest(120, TimeUnit.SECONDS), hedgeOps.readPreference());
+        assertEquals(ReadConcern.MAJORITY, hedgeOps.readConcern());
+        assertEquals(ReadPreference.nearest(), HedgedReads.hedgeOps(Optional.empty()).get().readPreference());
+    }
+
+    @Test
+    public void testHedgeDelay() {
+        var secondaryPreferred = Optional.of(new RSOps().withReadPreference(ReadPreference.secondaryPreferred()));
+        var primary = Optional.of(new RSOps().withReadPreference(ReadPreference.primary()));
+
+        assertEquals(50, HedgedReads.hedgeDelay(50, secondaryPreferred));
+        assertEquals(0, HedgedReads.hedgeDelay(50, primary));
+        assertEquals(0, HedgedReads.hedgeDelay(50, Optional.empty()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
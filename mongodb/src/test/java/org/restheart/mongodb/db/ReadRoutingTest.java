@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.TaggableReadPreference;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ReadRoutingTest {
+    @Test
+    public void testParse() {
+        var rules = ReadRouting.rules(List.of(
+            Map.of("db", "analytics", "read-preference", "secondaryPreferred", "max-staleness", 120_000, "hedge-delay", 50),
+            // missing read-preference
+            Map.of("db", "other"),
+            // max-staleness less than 90 seconds
+            Map.of("read-preference", "secondary", "max-staleness", 1_000),
+            // primary does not allow max-staleness
+            Map.of("read-preference", "primary", "max-staleness", 120_000),
+            Map.of("read-preference", "nearest", "roles", List.of("reporting"))));
+
+        assertEquals(2, rules.size());
+
+        var rule = rules.get(0);
+        assertEquals(50, rule.hedgeDelay());
+        assertEquals("secondaryPreferred", rule.readPreference().getName());
+        assertEquals(120_000L, ((TaggableReadPreference) rule.readPreference()).getMaxStaleness(TimeUnit.MILLISECONDS));
+
+        assertEquals(ReadPreference.nearest(), rules.get(1).readPreference());
+        assertEquals(Set.of("reporting"), rules.get(1).roles());
+    }
+
+    @Test
+    public void testMatch() {
+        var rules = ReadRouting.rules(List.of(
+            Map.of("path", "/reports", "read-preference", "secondary"),
+            Map.of("db", "analytics", "coll", "events", "read-preference", "secondaryPreferred"),
+            Map.of("db", "analytics", "coll", "*", "roles", List.of("reporting"), "read-preference", "nearest")));
+
+        assertEquals(ReadPreference.secondary(), ReadRouting.match(rules, "/reports/coll", "reports", "coll", null).readPreference());
+        assertEquals(ReadPreference.secondaryPreferred(), ReadRouting.match(rules, "/analytics/events", "analytics", "events", Set.of("reporting")).readPreference());
+        assertEquals(ReadPreference.nearest(), ReadRouting.match(rules, "/analytics/other", "analytics", "other", Set.of("admin", "reporting")).readPreference());
+
+        assertNull(ReadRouting.match(rules, "/analytics/other", "analytics", "other", Set.of("admin")));
+        assertNull(ReadRouting.match(rules, "/analytics/other", "analytics", "other", null));
+        assertNull(ReadRouting.match(rules, "/db/coll", "db", "coll", null));
+        assertTrue(ReadRouting.rules(null).isEmpty());
+    }
+}
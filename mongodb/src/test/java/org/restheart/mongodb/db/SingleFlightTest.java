@@ -0,0 +1,113 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class SingleFlightTest {
+    @Test
+    public void testSingleRead() {
+        var sf = new SingleFlight<String, BsonDocument>(BsonDocument::clone);
+        var doc = BsonDocument.parse("{ 'a': 1 }");
+
+        // no joined requests, the value is not copied
+        assertSame(doc, sf.execute("k", () -> doc));
+    }
+
+    @Test
+    public void testCoalescedReads() throws Exception {
+        var sf = new SingleFlight<String, BsonDocument>(BsonDocument::clone);
+        var reads = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var leader = executor.submit(() -> sf.execute("k", () -> {
+                reads.incrementAndGet();
+                started.countDown();
+                await(release);
+                return BsonDocument.parse("{ 'a': 1 }");
+            }));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            var followers = new ArrayList<Future<BsonDocument>>();
+
+            for (var i = 0; i < 10; i++) {
+                followers.add(executor.submit(() -> sf.execute("k", () -> {
+                    reads.incrementAndGet();
+                    return BsonDocument.parse("{ 'a': 1 }");
+                })));
+            }
+
+            // give the followers the time to join the in flight read
+            Thread.sleep(200);
+            release.countDown();
+
+            var result = leader.get();
+            assertEquals(BsonDocument.parse("{ 'a': 1 }"), result);
+
+            for (var f: followers) {
+                var doc = f.get();
+                assertEquals(result, doc);
+                assertNotSame(result, doc);
+            }
+        }
+
+        assertEquals(1, reads.get());
+    }
+
+    @Test
+    public void testError() {
+        var sf = new SingleFlight<String, BsonDocument>(BsonDocument::clone);
+
+        assertThrows(IllegalStateException.class, () -> sf.execute("k", () -> { throw new IllegalStateException(); }));
+
+        // the failed read is not in flight anymore
+        assertEquals(BsonDocument.parse("{ 'a': 1 }"), sf.execute("k", () -> BsonDocument.parse("{ 'a': 1 }")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
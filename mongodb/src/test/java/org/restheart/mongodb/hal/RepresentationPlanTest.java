@@ -0,0 +1,79 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.hal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class RepresentationPlanTest {
+    private static final String RELS = "{ 'rels': [ { 'rel': 'owner', 'type': 'MANY_TO_ONE', 'role': 'OWNING', 'target-coll': 'users', 'ref-field': 'owner' } ] }";
+
+    @Test
+    public void testCompiledOnce() {
+        var plan = RepresentationPlan.of(BsonDocument.parse(RELS));
+
+        assertTrue(plan.validRels());
+        assertEquals(1, plan.rels().size());
+        assertEquals("owner", plan.rels().get(0).getRel());
+
+        // other collection properties with the same rels share the plan
+        assertSame(plan, RepresentationPlan.of(BsonDocument.parse(RELS).append("_etag", BsonDocument.parse("{ 'a': 1 }"))));
+    }
+
+    @Test
+    public void testNoRels() {
+        assertTrue(RepresentationPlan.of(null).validRels());
+        assertTrue(RepresentationPlan.of(null).rels().isEmpty());
+        assertTrue(RepresentationPlan.of(new BsonDocument()).rels().isEmpty());
+    }
+
+    @Test
+    public void testInvalidRels() {
+        assertFalse(RepresentationPlan.of(BsonDocument.parse("{ 'rels': 1 }")).validRels());
+        assertFalse(RepresentationPlan.of(BsonDocument.parse("{ 'rels': [ { 'rel': 'owner' } ] }")).validRels());
+    }
+
+    @Test
+    public void testLinks() {
+        var rep = new Resource("/db/coll");
+        rep.addLink(new Link("rh:coll", "/db/coll"));
+        rep.addLink(new Link("rh:document", "/db/coll/{docid}", true));
+
+        assertEquals(BsonDocument.parse("""
+            { '_links': {
+                'self': { 'href': '/db/coll' },
+                'rh:coll': { 'href': '/db/coll' },
+                'rh:document': { 'href': '/db/coll/{docid}', 'templated': true } } }
+            """), rep.asBsonDocument());
+
+        // no links
+        assertEquals(new BsonDocument(), new Resource().asBsonDocument());
+    }
+}
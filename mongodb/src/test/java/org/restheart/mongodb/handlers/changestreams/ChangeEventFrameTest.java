@@ -0,0 +1,58 @@
+package org.restheart.mongodb.handlers.changestreams;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ChangeEventFrame}.
+ */
+class ChangeEventFrameTest {
+
+    @Test
+    void payloadIsUtf8OfMessage() {
+        var frame = new ChangeEventFrame("{\"a\":\"è\"}", null, null);
+        var payload = frame.payload();
+
+        var bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+
+        assertEquals("{\"a\":\"è\"}", new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void payloadsShareBytesWithIndependentPositions() {
+        var frame = new ChangeEventFrame("{\"a\":1}", null, null);
+        var p1 = frame.payload();
+        var p2 = frame.payload();
+
+        p1.position(p1.limit());
+
+        assertEquals(0, p2.position());
+        assertEquals(7, p2.remaining());
+        assertSame(p1.array(), p2.array());
+    }
+
+    @Test
+    void ssePayloadIsEncodedSseMessage() {
+        var frame = new ChangeEventFrame("{\"a\":\"è\"}", "{\"_data\":\"1\"}", null);
+        var payload = frame.ssePayload();
+        var bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+
+        assertEquals("event:change\nid:{\"_data\":\"1\"}\ndata:{\"a\":\"è\"}\n\n", new String(bytes, StandardCharsets.UTF_8));
+        assertSame(frame.ssePayload().array(), frame.ssePayload().array());
+    }
+
+    @Test
+    void ssePayloadSplitsDataLines() {
+        var frame = new ChangeEventFrame("[1,\n2]", null, null);
+        var payload = frame.ssePayload();
+        var bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+
+        assertEquals("event:change\ndata:[1,\ndata:2]\n\n", new String(bytes, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,60 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.handlers.changestreams;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.ServerAddress;
+
+/**
+ * Unit tests for the classification of the errors that stop a {@link ChangeStreamWorker}.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ChangeStreamWorkerResumeTest {
+    @Test
+    void testHistoryLostIsNonResumable() {
+        assertTrue(ChangeStreamWorker.isNonResumable(new MongoException(286, "ChangeStreamHistoryLost")));
+    }
+
+    @Test
+    void testInvalidResumeTokenIsNonResumable() {
+        assertTrue(ChangeStreamWorker.isNonResumable(new MongoException(260, "InvalidResumeToken")));
+    }
+
+    @Test
+    void testNonResumableLabel() {
+        var mqe = new MongoException(2, "BadValue");
+        mqe.addLabel("NonResumableChangeStreamError");
+
+        assertTrue(ChangeStreamWorker.isNonResumable(mqe));
+    }
+
+    @Test
+    void testNetworkErrorIsResumable() {
+        assertFalse(ChangeStreamWorker.isNonResumable(new MongoSocketException("connection reset", new ServerAddress())));
+    }
+}
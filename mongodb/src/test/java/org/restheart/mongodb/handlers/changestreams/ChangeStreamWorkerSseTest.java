@@ -33,8 +33,6 @@ import org.bson.json.JsonMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import io.undertow.server.handlers.sse.ServerSentEventConnection;
-
 /**
  * Unit tests for SSE session management in {@link ChangeStreamWorker}.
  *
@@ -56,50 +54,50 @@ public class ChangeStreamWorkerSseTest {
 
     @Test
     void sseSessions_startEmpty() {
-        assertTrue(worker.sseSessions().isEmpty(), "SSE sessions must be empty on construction");
+        assertTrue(worker.sseSessionSet().isEmpty(), "SSE sessions must be empty on construction");
     }
 
     @Test
     void addSseSession_sessionIsTracked() {
-        var conn = mock(ServerSentEventConnection.class);
+        var conn = mock(SseSession.class);
 
-        worker.sseSessions().add(conn);
+        worker.sseSessionSet().add(conn);
 
-        assertTrue(worker.sseSessions().contains(conn));
+        assertTrue(worker.sseSessionSet().contains(conn));
     }
 
     @Test
     void removeSseSession_sessionIsGone() {
-        var conn = mock(ServerSentEventConnection.class);
-        worker.sseSessions().add(conn);
+        var conn = mock(SseSession.class);
+        worker.sseSessionSet().add(conn);
 
-        worker.sseSessions().remove(conn);
+        worker.sseSessionSet().remove(conn);
 
-        assertFalse(worker.sseSessions().contains(conn));
+        assertFalse(worker.sseSessionSet().contains(conn));
     }
 
     @Test
     void bothSetsEmpty_afterRemovingLastSseSession() {
-        var conn = mock(ServerSentEventConnection.class);
-        worker.sseSessions().add(conn);
-        worker.sseSessions().remove(conn);
+        var conn = mock(SseSession.class);
+        worker.sseSessionSet().add(conn);
+        worker.sseSessionSet().remove(conn);
 
-        assertTrue(worker.websocketSessions().isEmpty() && worker.sseSessions().isEmpty(),
+        assertTrue(worker.websocketSessions().isEmpty() && worker.sseSessionSet().isEmpty(),
                 "Worker should see both sets empty after last SSE session removed");
     }
 
     @Test
-    void closeAllSseSessions_callsShutdownOnEachConnection() {
-        var conn1 = mock(ServerSentEventConnection.class);
-        var conn2 = mock(ServerSentEventConnection.class);
-        worker.sseSessions().add(conn1);
-        worker.sseSessions().add(conn2);
+    void closeAllSseSessions_closesEachSession() {
+        var conn1 = mock(SseSession.class);
+        var conn2 = mock(SseSession.class);
+        worker.sseSessionSet().add(conn1);
+        worker.sseSessionSet().add(conn2);
 
         worker.closeAllSseSessions();
 
-        verify(conn1).shutdown();
-        verify(conn2).shutdown();
-        assertTrue(worker.sseSessions().isEmpty(), "sseSessions must be empty after closeAllSseSessions()");
+        verify(conn1).close();
+        verify(conn2).close();
+        assertTrue(worker.sseSessionSet().isEmpty(), "sseSessions must be empty after closeAllSseSessions()");
     }
 
     @Test
@@ -110,24 +108,33 @@ public class ChangeStreamWorkerSseTest {
 
         // the worker is created without error — startChangeStream() would use the token
         // but requires a live MongoDB connection so we only verify construction here
-        assertTrue(workerWithToken.sseSessions().isEmpty());
+        assertTrue(workerWithToken.sseSessionSet().isEmpty());
         assertTrue(workerWithToken.websocketSessions().isEmpty());
     }
 
     @Test
     void mixedSessions_webSocketAndSse_bothTracked() {
-        var conn = mock(ServerSentEventConnection.class);
+        var conn = mock(SseSession.class);
         // websocketSessions() returns a live set; we can verify cross-set independence
-        worker.sseSessions().add(conn);
+        worker.sseSessionSet().add(conn);
 
-        assertFalse(worker.sseSessions().isEmpty());
+        assertFalse(worker.sseSessionSet().isEmpty());
         assertTrue(worker.websocketSessions().isEmpty(),
                 "Adding an SSE session must not affect the WebSocket session set");
     }
 
     @Test
     void sseSessions_isNotSameObjectAsWebSocketSessions() {
-        assertNotSame(worker.sseSessions(), worker.websocketSessions(),
+        assertNotSame(worker.sseSessionSet(), worker.websocketSessions(),
                 "sseSessions and websocketSessions must be independent set instances");
     }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void deprecatedSseSessions_isEmpty() {
+        worker.sseSessionSet().add(mock(SseSession.class));
+
+        assertTrue(worker.sseSessions().isEmpty(),
+                "the deprecated accessor must not expose the SSE sessions");
+    }
 }
@@ -0,0 +1,121 @@
+package org.restheart.mongodb.handlers.changestreams;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link ClientStagesEvaluator}.
+ */
+class ClientStagesEvaluatorTest {
+
+    private static ClientStagesEvaluator evaluator(String... stages) {
+        return ClientStagesEvaluator.of(List.of(stages).stream().map(BsonDocument::parse).toList());
+    }
+
+    private static BsonDocument event(String fullDocument) {
+        return BsonDocument.parse("{ \"operationType\": \"update\", \"fullDocument\": " + fullDocument + " }");
+    }
+
+    @Test
+    void emptyStagesReturnsNull() {
+        assertNull(ClientStagesEvaluator.of(List.of()));
+    }
+
+    @Test
+    void nonMatchStageThrows() {
+        assertThrows(IllegalArgumentException.class, () -> evaluator("{ \"$project\": { \"a\": 1 } }"));
+    }
+
+    @Test
+    void unsupportedOperatorThrows() {
+        assertThrows(IllegalArgumentException.class, () -> evaluator("{ \"$match\": { \"$expr\": { \"$eq\": [1, 1] } } }"));
+        assertThrows(IllegalArgumentException.class, () -> evaluator("{ \"$match\": { \"a\": { \"$where\": \"true\" } } }"));
+    }
+
+    @Test
+    void equality() {
+        var ev = evaluator("{ \"$match\": { \"fullDocument.tenantId\": \"t1\" } }");
+        assertTrue(ev.matches(event("{ \"tenantId\": \"t1\" }")));
+        assertFalse(ev.matches(event("{ \"tenantId\": \"t2\" }")));
+        assertFalse(ev.matches(event("{ }")));
+    }
+
+    @Test
+    void equalityOnArrayElements() {
+        var ev = evaluator("{ \"$match\": { \"fullDocument.recipients\": \"u1\" } }");
+        assertTrue(ev.matches(event("{ \"recipients\": [\"u0\", \"u1\"] }")));
+        assertFalse(ev.matches(event("{ \"recipients\": [\"u0\"] }")));
+    }
+
+    @Test
+    void pathThroughArrayOfDocuments() {
+        var ev = evaluator("{ \"$match\": { \"fullDocument.items.sku\": \"a\" } }");
+        assertTrue(ev.matches(event("{ \"items\": [{ \"sku\": \"b\" }, { \"sku\": \"a\" }] }")));
+        assertFalse(ev.matches(event("{ \"items\": [{ \"sku\": \"b\" }] }")));
+    }
+
+    @Test
+    void numbersOfDifferentTypesCompare() {
+        var ev = evaluator("{ \"$match\": { \"fullDocument.n\": { \"$gte\": 2, \"$lt\": { \"$numberLong\": \"5\" } } } }");
+        assertTrue(ev.matches(event("{ \"n\": 2.0 }")));
+        assertTrue(ev.matches(event("{ \"n\": 4 }")));
+        assertFalse(ev.matches(event("{ \"n\": 5 }")));
+        assertFalse(ev.matches(event("{ \"n\": \"3\" }")));
+    }
+
+    @Test
+    void inNinAndExists() {
+        var ev = evaluator("{ \"$match\": { \"operationType\": { \"$in\": [\"insert\", \"update\"] }, \"fullDocument.deleted\": { \"$exists\": false } } }");
+        assertTrue(ev.matches(event("{ \"a\": 1 }")));
+        assertFalse(ev.matches(event("{ \"deleted\": true }")));
+
+        var nin = evaluator("{ \"$match\": { \"fullDocument.s\": { \"$nin\": [\"x\"] } } }");
+        assertTrue(nin.matches(event("{ \"s\": \"y\" }")));
+        assertFalse(nin.matches(event("{ \"s\": \"x\" }")));
+    }
+
+    @Test
+    void logicalOperators() {
+        var ev = evaluator("{ \"$match\": { \"$or\": [ { \"fullDocument.a\": 1 }, { \"fullDocument.b\": { \"$not\": { \"$gt\": 10 } } } ] } }");
+        assertTrue(ev.matches(event("{ \"a\": 1, \"b\": 20 }")));
+        assertTrue(ev.matches(event("{ \"a\": 2, \"b\": 5 }")));
+        assertFalse(ev.matches(event("{ \"a\": 2, \"b\": 20 }")));
+    }
+
+    @Test
+    void regex() {
+        var ev = evaluator("{ \"$match\": { \"fullDocument.name\": { \"$regex\": \"^an\", \"$options\": \"i\" } } }");
+        assertTrue(ev.matches(event("{ \"name\": \"Andrea\" }")));
+        assertFalse(ev.matches(event("{ \"name\": \"Omar\" }")));
+    }
+
+    @Test
+    void allStagesMustMatch() {
+        var ev = evaluator("{ \"$match\": { \"fullDocument.a\": 1 } }", "{ \"$match\": { \"fullDocument.b\": 2 } }");
+        assertTrue(ev.matches(event("{ \"a\": 1, \"b\": 2 }")));
+        assertFalse(ev.matches(event("{ \"a\": 1, \"b\": 3 }")));
+    }
+
+    @Test
+    void baseStagesCountStopsAtFirstStageReferencingVars() {
+        var stages = BsonArray.parse("""
+            [
+              { "_$match": { "operationType": "insert" } },
+              { "_$match": { "fullDocument.tenantId": { "_$var": "tid" } } },
+              { "_$match": { "fullDocument.visible": true } }
+            ]
+            """);
+        assertEquals(1, ClientStagesEvaluator.baseStagesCount(stages));
+
+        var noVars = BsonArray.parse("[ { \"$match\": { \"a\": 1 } } ]");
+        assertEquals(1, ClientStagesEvaluator.baseStagesCount(noVars));
+
+        var ifvar = BsonArray.parse("[ { \"$ifvar\": [ \"x\", { \"$match\": { \"a\": 1 } } ] } ]");
+        assertEquals(0, ClientStagesEvaluator.baseStagesCount(ifvar));
+    }
+}
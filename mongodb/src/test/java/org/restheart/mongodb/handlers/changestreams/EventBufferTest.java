@@ -0,0 +1,59 @@
+package org.restheart.mongodb.handlers.changestreams;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for {@link EventBuffer}.
+ */
+class EventBufferTest {
+
+    private static BsonDocument token(String data) {
+        return new BsonDocument("_data", new BsonString(data));
+    }
+
+    private static EventBuffer.Entry entry(String data) {
+        return new EventBuffer.Entry(token(data), new BsonDocument(), new ChangeEventFrame(data, null, null));
+    }
+
+    private static List<String> messages(List<EventBuffer.Entry> entries) {
+        return entries.stream().map(e -> e.frame().message()).toList();
+    }
+
+    @Test
+    void sinceReturnsEventsAfterToken() {
+        var buffer = new EventBuffer(10);
+        buffer.add(entry("a"));
+        buffer.add(entry("b"));
+        buffer.add(entry("c"));
+
+        assertEquals(List.of("b", "c"), messages(buffer.since(token("a")).get()));
+        assertEquals(List.of(), messages(buffer.since(token("c")).get()));
+    }
+
+    @Test
+    void sinceIsEmptyWhenTokenIsNotBuffered() {
+        var buffer = new EventBuffer(2);
+        buffer.add(entry("a"));
+        buffer.add(entry("b"));
+        buffer.add(entry("c")); // evicts a
+
+        assertEquals(2, buffer.size());
+        assertTrue(buffer.since(token("a")).isEmpty());
+        assertTrue(buffer.since(token("x")).isEmpty());
+    }
+
+    @Test
+    void zeroCapacityDisablesBuffering() {
+        var buffer = new EventBuffer(0);
+        buffer.add(entry("a"));
+
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.since(token("a")).isEmpty());
+    }
+}
@@ -0,0 +1,232 @@
+package org.restheart.mongodb.handlers.changestreams;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.restheart.mongodb.handlers.changestreams.SessionQueue.OverflowPolicy;
+
+/**
+ * Unit tests for {@link SessionQueue}.
+ */
+class SessionQueueTest {
+
+    /** A sender that completes a send only when {@link #complete()} is invoked. */
+    private static class ManualSender implements SessionQueue.Sender {
+        final List<String> sent = new CopyOnWriteArrayList<>();
+        final List<Runnable> pending = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SessionQueue.Event event, Runnable onSent, Consumer<Throwable> onError) {
+            sent.add(event.frame().message());
+            pending.add(onSent);
+        }
+
+        void complete() {
+            pending.remove(0).run();
+        }
+    }
+
+    private static ChangeEventFrame frame(String message, String documentKey) {
+        return new ChangeEventFrame(message, null, documentKey == null ? null : new BsonString(documentKey));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("condition not met in time");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void sendsOneEventAtATime() throws InterruptedException {
+        var sender = new ManualSender();
+        var queue = new SessionQueue(10, OverflowPolicy.DROP_OLDEST, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("a", null));
+        queue.offer(frame("b", null));
+
+        assertEquals(List.of("a"), sender.sent);
+        assertEquals(1, queue.size());
+
+        sender.complete();
+        await(() -> sender.sent.size() == 2);
+        assertEquals(List.of("a", "b"), sender.sent);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void dropOldestKeepsNewestEvents() throws InterruptedException {
+        var sender = new ManualSender();
+        var queue = new SessionQueue(2, OverflowPolicy.DROP_OLDEST, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("a", null)); // in flight
+        queue.offer(frame("b", null));
+        queue.offer(frame("c", null));
+        queue.offer(frame("d", null)); // drops b
+
+        assertEquals(2, queue.size());
+
+        sender.complete();
+        await(() -> sender.sent.size() == 2);
+        assertEquals(List.of("a", "c"), sender.sent);
+    }
+
+    @Test
+    void coalesceReplacesPendingEventWithSameDocumentKey() throws InterruptedException {
+        var sender = new ManualSender();
+        var queue = new SessionQueue(2, OverflowPolicy.COALESCE, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("a", "k1")); // in flight
+        queue.offer(frame("b1", "k2"));
+        queue.offer(frame("c", "k3"));
+        queue.offer(frame("b2", "k2")); // queue full, replaces b1
+
+        assertEquals(2, queue.size());
+
+        sender.complete();
+        await(() -> sender.sent.size() == 2);
+        sender.complete();
+        await(() -> sender.sent.size() == 3);
+        assertEquals(List.of("a", "b2", "c"), sender.sent);
+    }
+
+    @Test
+    void coalesceKeepsAllEventsWhenQueueIsNotFull() throws InterruptedException {
+        var sender = new ManualSender();
+        var queue = new SessionQueue(10, OverflowPolicy.COALESCE, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("a", "k1")); // in flight
+        queue.offer(frame("b1", "k2"));
+        queue.offer(frame("c", "k3"));
+        queue.offer(frame("b2", "k2"));
+
+        assertEquals(3, queue.size());
+
+        for (var count = 2; count <= 4; count++) {
+            sender.complete();
+            final var _count = count;
+            await(() -> sender.sent.size() == _count);
+        }
+
+        assertEquals(List.of("a", "b1", "c", "b2"), sender.sent);
+    }
+
+    @Test
+    void coalesceDropsOldestWhenQueueIsFullAndNoEventMatches() throws InterruptedException {
+        var sender = new ManualSender();
+        var queue = new SessionQueue(2, OverflowPolicy.COALESCE, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("a", "k1")); // in flight
+        queue.offer(frame("b", "k2"));
+        queue.offer(frame("c", "k3"));
+        queue.offer(frame("d", "k4")); // drops b
+
+        assertEquals(2, queue.size());
+
+        sender.complete();
+        await(() -> sender.sent.size() == 2);
+        assertEquals(List.of("a", "c"), sender.sent);
+    }
+
+    @Test
+    void disconnectClosesSlowSession() {
+        var sender = new ManualSender();
+        var closed = new AtomicBoolean(false);
+        var queue = new SessionQueue(1, OverflowPolicy.DISCONNECT, sender, () -> closed.set(true), "db", "coll");
+
+        queue.offer(frame("a", null)); // in flight
+        queue.offer(frame("b", null));
+        assertFalse(closed.get());
+
+        queue.offer(frame("c", null));
+        assertTrue(closed.get());
+        assertEquals(0, queue.size());
+
+        queue.offer(frame("d", null));
+        assertEquals(List.of("a"), sender.sent);
+    }
+
+    @Test
+    void sendErrorClosesSession() {
+        var closed = new AtomicBoolean(false);
+        var queue = new SessionQueue(10, OverflowPolicy.DROP_OLDEST,
+                (event, onSent, onError) -> onError.accept(new IOException("broken pipe")),
+                () -> closed.set(true), "db", "coll");
+
+        queue.offer(frame("a", null));
+
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void lagIsAgeOfOldestPendingEvent() throws InterruptedException {
+        var sender = new ManualSender();
+        var queue = new SessionQueue(10, OverflowPolicy.DROP_OLDEST, sender, () -> {}, "db", "coll");
+
+        assertEquals(0, queue.lag());
+
+        queue.offer(frame("a", null)); // in flight
+        queue.offer(frame("b", null));
+        Thread.sleep(20);
+
+        assertTrue(queue.lag() >= 20);
+    }
+
+    @Test
+    void batchesUpToMaxEvents() {
+        var sender = new ManualSender();
+        var batching = new SessionQueue.Batching(3, 10_000, false);
+        var queue = new SessionQueue(10, OverflowPolicy.DROP_OLDEST, batching, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("1", null));
+        queue.offer(frame("2", null));
+        assertEquals(List.of(), sender.sent);
+
+        queue.offer(frame("3", null));
+        assertEquals(List.of("[1,2,3]"), sender.sent);
+
+        queue.close();
+    }
+
+    @Test
+    void batchIsSentAfterMaxDelay() throws InterruptedException {
+        var sender = new ManualSender();
+        var batching = new SessionQueue.Batching(10, 50, false);
+        var queue = new SessionQueue(10, OverflowPolicy.DROP_OLDEST, batching, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("1", null));
+        queue.offer(frame("2", null));
+
+        await(() -> sender.sent.size() == 1);
+        assertEquals(List.of("[1,2]"), sender.sent);
+    }
+
+    @Test
+    void batchCoalescesByDocumentKey() {
+        var sender = new ManualSender();
+        var batching = new SessionQueue.Batching(3, 10_000, true);
+        var queue = new SessionQueue(10, OverflowPolicy.DROP_OLDEST, batching, sender, () -> {}, "db", "coll");
+
+        queue.offer(frame("1", "k1"));
+        queue.offer(frame("2", "k1"));
+        queue.offer(frame("3", "k2"));
+        assertEquals(List.of(), sender.sent);
+
+        queue.offer(frame("4", "k3"));
+        assertEquals(List.of("[2,3,4]"), sender.sent);
+
+        queue.close();
+    }
+}
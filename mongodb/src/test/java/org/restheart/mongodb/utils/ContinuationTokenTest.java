@@ -0,0 +1,78 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-mongodb
+ * %%
+ * Copyright (C) 2014 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.mongodb.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.restheart.exchange.IllegalQueryParameterException;
+
+/**
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class ContinuationTokenTest {
+    @Test
+    public void testIdSort() throws Exception {
+        var sort = BsonDocument.parse("{ '_id': -1 }");
+        var last = BsonDocument.parse("{ '_id': 10, 'a': 1 }");
+
+        var token = ContinuationToken.of(sort, last);
+        assertNotNull(token);
+
+        assertEquals(BsonDocument.parse("{ '_id': { '$lt': 10 } }"), ContinuationToken.filter(sort, token));
+    }
+
+    @Test
+    public void testCompoundSort() throws Exception {
+        var sort = BsonDocument.parse("{ 'a.b': 1, '_id': 1, 'c': 1 }");
+        var last = BsonDocument.parse("{ '_id': 10, 'a': { 'b': 'x' }, 'c': 3 }");
+
+        var token = ContinuationToken.of(sort, last);
+        assertNotNull(token);
+
+        var expected = BsonDocument.parse("{ '$or': [ { 'a.b': { '$gt': 'x' } }, { 'a.b': 'x', '_id': { '$gt': 10 } } ] }");
+        assertEquals(expected, ContinuationToken.filter(sort, token));
+    }
+
+    @Test
+    public void testNoToken() {
+        // sort without _id
+        assertNull(ContinuationToken.of(BsonDocument.parse("{ 'a': 1 }"), BsonDocument.parse("{ '_id': 1, 'a': 1 }")));
+        // missing sort key
+        assertNull(ContinuationToken.of(BsonDocument.parse("{ 'a': 1, '_id': 1 }"), BsonDocument.parse("{ '_id': 1 }")));
+        // array sort key
+        assertNull(ContinuationToken.of(BsonDocument.parse("{ 'a': 1, '_id': 1 }"), BsonDocument.parse("{ '_id': 1, 'a': [1, 2] }")));
+    }
+
+    @Test
+    public void testInvalidToken() {
+        var sort = BsonDocument.parse("{ '_id': 1 }");
+        var token = ContinuationToken.of(sort, BsonDocument.parse("{ '_id': 1 }"));
+
+        assertThrows(IllegalQueryParameterException.class, () -> ContinuationToken.filter(sort, "not-a-token"));
+        assertThrows(IllegalQueryParameterException.class, () -> ContinuationToken.filter(BsonDocument.parse("{ '_id': -1 }"), token));
+    }
+}
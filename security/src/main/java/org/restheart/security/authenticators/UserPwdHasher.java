@@ -20,11 +20,13 @@
  */
 package org.restheart.security.authenticators;
 
+import org.bson.BsonDocument;
 import org.bson.BsonString;
 import org.mindrot.jbcrypt.BCrypt;
 import org.restheart.configuration.ConfigurationException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
 import org.restheart.plugins.Inject;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.MongoInterceptor;
@@ -56,8 +58,8 @@ public class UserPwdHasher implements MongoInterceptor {
 
     private MongoRealmAuthenticator mra;
     private String usersCollection;
-    private String propNamePassword;
-    private Integer complexity;
+    String propNamePassword;
+    Integer complexity;
 
     private boolean enabled = false;
 
@@ -109,7 +111,10 @@ public class UserPwdHasher implements MongoInterceptor {
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
         var content = request.getContent();
 
-        if (content == null) {
+        if (request.isStreamingIngest()) {
+            // POST collection with newline-delimited JSON, the documents are hashed while streamed
+            StreamedDocumentChecks.add(request, this::hash);
+        } else if (content == null) {
             return;
         } else if (content.isArray() && request.isPost()) {
             // POST collection with array of documents
@@ -128,18 +133,27 @@ public class UserPwdHasher implements MongoInterceptor {
             });
         } else if (content.isDocument()) {
             // PUT/PATCH document or bulk PATCH
-            JsonElement plain;
-            try {
-                plain = JsonPath.read(BsonUtils.toJson(content), "$.".concat(this.propNamePassword));
+            hash(content.asDocument());
+        }
+    }
 
-                if (plain != null && plain.isJsonPrimitive() && plain.getAsJsonPrimitive().isString()) {
-                    String hashed = BCrypt.hashpw(plain.getAsJsonPrimitive().getAsString(), BCrypt.gensalt(complexity));
+    /**
+     * hashes the password of the user document
+     *
+     * @param doc the user document
+     */
+    void hash(BsonDocument doc) {
+        JsonElement plain;
+        try {
+            plain = JsonPath.read(BsonUtils.toJson(doc), "$.".concat(this.propNamePassword));
 
-                    content.asDocument().put(this.propNamePassword, new BsonString(hashed));
-                }
-            } catch (PathNotFoundException pnfe) {
-                // nothing to do
+            if (plain != null && plain.isJsonPrimitive() && plain.getAsJsonPrimitive().isString()) {
+                String hashed = BCrypt.hashpw(plain.getAsJsonPrimitive().getAsString(), BCrypt.gensalt(complexity));
+
+                doc.put(this.propNamePassword, new BsonString(hashed));
             }
+        } catch (PathNotFoundException pnfe) {
+            // nothing to do
         }
     }
 
@@ -148,8 +162,14 @@ public class UserPwdHasher implements MongoInterceptor {
         return enabled
                 && request.isHandledBy("mongo")
                 && request.isWriteDocument()
-                && request.isContentTypeJson()
+                && (request.isContentTypeJson() || request.isStreamingIngest())
                 && (request.attachedParam("override-users-db") != null || this.mra.getUsersDb(request).equalsIgnoreCase(request.getDBName())) // if usersdb is overridden then any users collection in any db must be processed
                 && this.usersCollection.equalsIgnoreCase(request.getCollectionName());
     }
+
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // the password of each streamed document is hashed
+        return true;
+    }
 }
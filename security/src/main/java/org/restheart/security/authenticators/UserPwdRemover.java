@@ -20,7 +20,9 @@
  */
 package org.restheart.security.authenticators;
 
+import org.bson.BsonDocument;
 import org.restheart.configuration.ConfigurationException;
+import org.restheart.exchange.ExportedDocumentFilters;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
 import org.restheart.plugins.Inject;
@@ -54,7 +56,7 @@ public class UserPwdRemover implements MongoInterceptor {
 
     private MongoRealmAuthenticator mra;
     private String usersCollection;
-    private String propNamePassword;
+    String propNamePassword;
     private boolean enabled = false;
 
     @Inject("registry")
@@ -93,6 +95,12 @@ public class UserPwdRemover implements MongoInterceptor {
 
     @Override
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
+        if (request.isStreamingExport()) {
+            // the exported documents are not in the response content, they are filtered while streamed
+            ExportedDocumentFilters.add(request, this::removePassword);
+            return;
+        }
+
         DocumentContext dc = JsonPath.using(Configuration.defaultConfiguration()).parse(response.readContent());
 
         JsonElement content = dc.json();
@@ -138,6 +146,31 @@ public class UserPwdRemover implements MongoInterceptor {
         response.setContent(BsonUtils.parse(content.toString()));
     }
 
+    /**
+     * removes the password from the user document
+     *
+     * @param doc the user document
+     * @return the user document without the password
+     */
+    BsonDocument removePassword(BsonDocument doc) {
+        var keys = this.propNamePassword.split("\\.");
+        var parent = doc;
+
+        for (var i = 0; i < keys.length - 1; i++) {
+            var value = parent.get(keys[i]);
+
+            if (value == null || !value.isDocument()) {
+                return doc;
+            }
+
+            parent = value.asDocument();
+        }
+
+        parent.remove(keys[keys.length - 1]);
+
+        return doc;
+    }
+
     @Override
     public boolean resolve(MongoRequest request, MongoResponse response) {
         return enabled
@@ -146,6 +179,6 @@ public class UserPwdRemover implements MongoInterceptor {
                 && this.usersCollection.equalsIgnoreCase(request.getCollectionName())
                 && !request.isCollectionSize()
                 && !request.isCollectionMeta()
-                && response.getContent() != null;
+                && (response.getContent() != null || request.isStreamingExport());
     }
 }
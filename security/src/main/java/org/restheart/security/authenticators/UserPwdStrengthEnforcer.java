@@ -23,9 +23,12 @@ package org.restheart.security.authenticators;
 import java.util.Spliterators;
 import java.util.stream.StreamSupport;
 
+import org.bson.BsonDocument;
 import org.restheart.configuration.ConfigurationException;
+import org.restheart.exchange.BadRequestException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
 import org.restheart.plugins.Inject;
 import static org.restheart.plugins.InterceptPoint.REQUEST_AFTER_AUTH;
 import org.restheart.plugins.MongoInterceptor;
@@ -66,8 +69,8 @@ public class UserPwdStrengthEnforcer implements MongoInterceptor {
 
     private MongoRealmAuthenticator mra;
     private String usersCollection;
-    private String propNamePassword;
-    private Integer minimumPasswordStrength;
+    String propNamePassword;
+    Integer minimumPasswordStrength;
 
     private boolean enabled = false;
 
@@ -119,7 +122,10 @@ public class UserPwdStrengthEnforcer implements MongoInterceptor {
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
         var content = request.getContent();
 
-        if (content == null) {
+        if (request.isStreamingIngest()) {
+            // POST collection with newline-delimited JSON, the documents are checked while streamed
+            StreamedDocumentChecks.add(request, this::check);
+        } else if (content == null) {
             // nothing to do
         } else if (content.isArray() && request.isPost()) {
             // POST collection with array of documents
@@ -143,22 +149,55 @@ public class UserPwdStrengthEnforcer implements MongoInterceptor {
                     });
         } else if (content.isDocument()) {
             // PUT/PATCH document or bulk PATCH
-            try {
-                JsonElement plain = JsonPath.read(BsonUtils.toJson(content), "$.".concat(this.propNamePassword));
+            var feedback = weakPasswordFeedback(content.asDocument());
 
-                if (plain != null && plain.isJsonPrimitive() && plain.getAsJsonPrimitive().isString()) {
-                    var password = plain.getAsJsonPrimitive().getAsString();
+            if (feedback != null) {
+                reject(response, feedback);
+            }
+        }
+    }
+
+    /**
+     * rejects the streamed user document if its password is too weak
+     *
+     * @param doc the user document
+     * @throws BadRequestException if the password is too weak
+     */
+    void check(BsonDocument doc) throws BadRequestException {
+        var feedback = weakPasswordFeedback(doc);
+
+        if (feedback != null) {
+            var warning = feedback.getWarning();
+
+            throw new BadRequestException(warning == null || warning.isEmpty()
+                ? "Password is too weak"
+                : "Password is too weak: " + warning);
+        }
+    }
+
+    /**
+     *
+     * @param doc the user document
+     * @return the feedback of the password strength measure if the password is too weak, null otherwise
+     */
+    private Feedback weakPasswordFeedback(BsonDocument doc) {
+        try {
+            JsonElement plain = JsonPath.read(BsonUtils.toJson(doc), "$.".concat(this.propNamePassword));
+
+            if (plain != null && plain.isJsonPrimitive() && plain.getAsJsonPrimitive().isString()) {
+                var password = plain.getAsJsonPrimitive().getAsString();
 
-                    var measure = zxcvbn.measure(password);
+                var measure = zxcvbn.measure(password);
 
-                    if (measure.getScore() < this.minimumPasswordStrength) {
-                        reject(response, measure.getFeedback());
-                    }
+                if (measure.getScore() < this.minimumPasswordStrength) {
+                    return measure.getFeedback();
                 }
-            } catch (PathNotFoundException pnfe) {
-                // nothing to do
             }
+        } catch (PathNotFoundException pnfe) {
+            // nothing to do
         }
+
+        return null;
     }
 
     private void reject(MongoResponse response, Feedback feedback) {
@@ -195,8 +234,14 @@ public class UserPwdStrengthEnforcer implements MongoInterceptor {
         return enabled
                 && request.isHandledBy("mongo")
                 && request.isWriteDocument()
-                && request.isContentTypeJson()
+                && (request.isContentTypeJson() || request.isStreamingIngest())
                 && (request.attachedParam("override-users-db") != null || this.mra.getUsersDb(request).equalsIgnoreCase(request.getDBName())) // if usersdb is overridden then any users collection in any db must be processed
                 && this.usersCollection.equalsIgnoreCase(request.getCollectionName());
     }
+
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // the password of each streamed document is checked
+        return true;
+    }
 }
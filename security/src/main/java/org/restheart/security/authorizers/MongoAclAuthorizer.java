@@ -36,6 +36,7 @@ import org.restheart.cache.Cache;
 import org.restheart.cache.CacheFactory;
 import org.restheart.cache.LoadingCache;
 import org.restheart.configuration.ConfigurationException;
+import org.restheart.configuration.ConfigurationListeners;
 import org.restheart.exchange.Request;
 import static org.restheart.mongodb.ConnectionChecker.connected;
 import org.restheart.plugins.Inject;
@@ -78,7 +79,7 @@ public class MongoAclAuthorizer implements Authorizer {
     String aclDb;
     String aclCollection;
     private String rootRole = null;
-    private boolean cacheEnabled = false;
+    private volatile boolean cacheEnabled = false;
     private Integer cacheSize = 1_000; // 1000 entries
     private Integer cacheTTL = 60 * 1_000; // 1 minute
     private Cache.EXPIRE_POLICY cacheExpirePolicy = Cache.EXPIRE_POLICY.AFTER_WRITE;
@@ -86,7 +87,7 @@ public class MongoAclAuthorizer implements Authorizer {
     private record CacheKey(String role, String db) {
     }
     ;
-    private LoadingCache<CacheKey, LinkedHashSet<MongoAclPermission>> acl = null;
+    private volatile LoadingCache<CacheKey, LinkedHashSet<MongoAclPermission>> acl = null;
 
     @Inject("mclient")
     private MongoClient mclient;
@@ -103,29 +104,10 @@ public class MongoAclAuthorizer implements Authorizer {
         this.aclCollection = argOrDefault(config, "acl-collection", "acl");
         this.rootRole = argOrDefault(config, "root-role", null);
 
-        if (config != null && config.containsKey("cache-enabled")) {
-            this.cacheEnabled = arg(config, "cache-enabled");
+        configureCache(config);
 
-            if (this.cacheEnabled) {
-                this.cacheSize = arg(config, "cache-size");
-                this.cacheTTL = arg(config, "cache-ttl");
-
-                String _cacheExpirePolicy = arg(config, "cache-expire-policy");
-
-                if (_cacheExpirePolicy != null) {
-                    try {
-                        this.cacheExpirePolicy = Cache.EXPIRE_POLICY.valueOf((String) _cacheExpirePolicy);
-                    } catch (IllegalArgumentException iae) {
-                        throw new ConfigurationException("wrong configuration file format. cache-expire-policy valid values are " + Arrays.toString(Cache.EXPIRE_POLICY.values()));
-                    }
-                }
-
-                this.acl = CacheFactory.createLocalLoadingCache(
-                        this.cacheSize,
-                        this.cacheExpirePolicy,
-                        this.cacheTTL, this::findRolePermissions);
-            }
-        }
+        // apply the cache settings when the configuration is reloaded
+        ConfigurationListeners.onReload(conf -> configureCache(conf.getOrDefault("mongoAclAuthorizer", null)));
 
         try {
             if (!checkAclCollection()) {
@@ -136,6 +118,42 @@ public class MongoAclAuthorizer implements Authorizer {
         }
     }
 
+    /**
+     * configures the acl cache; when reconfigured, the cache is resized
+     * retaining the cached permissions, unless the expiration changes
+     *
+     * @param config the plugin configuration
+     */
+    private synchronized void configureCache(Map<String, Object> config) {
+        if (config != null && config.containsKey("cache-enabled") && (Boolean) arg(config, "cache-enabled")) {
+            Integer _cacheSize = arg(config, "cache-size");
+            Integer _cacheTTL = arg(config, "cache-ttl");
+            var _cacheExpirePolicy = Cache.EXPIRE_POLICY.AFTER_WRITE;
+
+            String __cacheExpirePolicy = arg(config, "cache-expire-policy");
+
+            if (__cacheExpirePolicy != null) {
+                try {
+                    _cacheExpirePolicy = Cache.EXPIRE_POLICY.valueOf(__cacheExpirePolicy);
+                } catch (IllegalArgumentException iae) {
+                    throw new ConfigurationException("wrong configuration file format. cache-expire-policy valid values are " + Arrays.toString(Cache.EXPIRE_POLICY.values()));
+                }
+            }
+
+            // the cache must exist before being enabled
+            if (this.acl == null || _cacheExpirePolicy != this.cacheExpirePolicy || !this.acl.reconfigure(_cacheSize, _cacheTTL)) {
+                this.acl = CacheFactory.createLocalLoadingCache(_cacheSize, _cacheExpirePolicy, _cacheTTL, this::findRolePermissions);
+            }
+
+            this.cacheSize = _cacheSize;
+            this.cacheTTL = _cacheTTL;
+            this.cacheExpirePolicy = _cacheExpirePolicy;
+            this.cacheEnabled = true;
+        } else {
+            this.cacheEnabled = false;
+        }
+    }
+
     /**
      * @param req the request
      * @return true if request is allowed
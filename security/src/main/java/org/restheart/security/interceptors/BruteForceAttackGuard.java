@@ -27,6 +27,7 @@ import org.restheart.metrics.Metrics.FAILED_AUTH_KEY;
 import org.restheart.plugins.Inject;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.OnInit;
+import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.WildcardInterceptor;
 import org.restheart.utils.LogUtils;
@@ -41,13 +42,13 @@ import static org.restheart.metrics.Metrics.xffValue;
 import static org.restheart.metrics.Metrics.xffValueRIndex;
 
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
-import com.codahale.metrics.Histogram;
-import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SharedMetricRegistries;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
 import com.google.common.net.HttpHeaders;
+import com.mongodb.client.MongoClient;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,8 +56,8 @@ import org.slf4j.LoggerFactory;
 /**
  * Defends against brute force attacks by blocking requests that exceed failed authentication threshold.
  * <p>
- * This interceptor runs at the REQUEST_BEFORE_AUTH intercept point and checks the metrics
- * collected by FailedAuthMetricsCollector. When the number of failed authentication attempts
+ * This interceptor runs at the REQUEST_BEFORE_AUTH intercept point and checks the
+ * {@link FailedAuthCounters} updated by FailedAuthMetricsCollector. When the number of failed authentication attempts
  * from the same source (IP address or X-Forwarded-For header) exceeds the configured threshold
  * within the sliding time window (10 seconds), it immediately errors the request with a
  * 429 Too Many Requests status, preventing the authentication attempt from even being processed.
@@ -71,9 +72,18 @@ import org.slf4j.LoggerFactory;
  *   <li><code>max-failed-attempts</code> - Maximum allowed failed attempts in the time window (default: 5)</li>
  *   <li><code>trust-x-forwarded-for</code> - Whether to track by X-Forwarded-For header (default: false)</li>
  *   <li><code>x-forwarded-for-value-from-last</code> - Which value to use from X-Forwarded-For (default: 0, meaning last value)</li>
+ *   <li><code>max-tracked-sources</code> - Max number of sources tracked, least recently used are evicted (default: 100000)</li>
+ *   <li><code>shared</code> - Whether to share the failed attempts among nodes via MongoDB (default: false)</li>
+ *   <li><code>shared-db</code>, <code>shared-collection</code> - The collection of the shared counters (default: restheart._failedauths)</li>
+ *   <li><code>shared-sync-period</code> - How often local counts are flushed and shared counts read, in milliseconds (default: 1000)</li>
  * </ul>
  * </p>
  * <p>
+ * With <code>shared: true</code> a request is also blocked when the failed attempts of its
+ * source on all nodes reach the threshold, which defends against attacks distributed
+ * by a load balancer. Shared counts lag the local ones by up to <code>shared-sync-period</code>.
+ * </p>
+ * <p>
  * <strong>Note:</strong> This interceptor requires FailedAuthMetricsCollector to be enabled
  * to function properly, as it relies on the metrics collected by that interceptor.
  * </p>
@@ -87,14 +97,20 @@ import org.slf4j.LoggerFactory;
 public class BruteForceAttackGuard implements WildcardInterceptor {
     private static final Logger LOGGER = LoggerFactory.getLogger(BruteForceAttackGuard.class);
 
-    private static final MetricRegistry AUTH_METRIC_REGISTRY = SharedMetricRegistries.getOrCreate("AUTH");
     private static int xForwardedForValueFromLast = 0;
 
     private int maxFailedAttempts = 5;
 
+    private ScheduledExecutorService sharedSyncScheduler = null;
+
     @Inject("config")
     private Map<String, Object> config;
 
+    // the mongo client is looked up only with shared: true, so that the guard
+    // does not depend on the mclient provider and works without MongoDB
+    @Inject("registry")
+    private PluginsRegistry registry;
+
     @OnInit
     public void init() {
         try {
@@ -126,17 +142,54 @@ public class BruteForceAttackGuard implements WildcardInterceptor {
             this.maxFailedAttempts = 5;
         }
 
+        final int maxTrackedSources = argOrDefault(config, "max-tracked-sources", FailedAuthCounters.DEFAULT_MAX_SOURCES);
+        if (maxTrackedSources != FailedAuthCounters.DEFAULT_MAX_SOURCES) {
+            FailedAuthCounters.resize(maxTrackedSources);
+        }
+
         LOGGER.info("Requests will be blocked when got more than {} failed attempts in last 10 seconds", maxFailedAttempts);
+
+        final boolean shared = argOrDefault(config, "shared", false);
+
+        if (shared) {
+            final var mclient = mongoClient();
+
+            if (mclient.isEmpty()) {
+                LOGGER.warn("Failed auth attempts cannot be shared among nodes: mclient provider is not enabled, counting them locally");
+            } else {
+                final String db = argOrDefault(config, "shared-db", "restheart");
+                final String collection = argOrDefault(config, "shared-collection", "_failedauths");
+                final int syncPeriod = argOrDefault(config, "shared-sync-period", 1_000);
+
+                final var sharedCounters = new SharedFailedAuthCounters(mclient.get(), db, collection, maxFailedAttempts);
+                FailedAuthCounters.instance().enableSharing();
+
+                this.sharedSyncScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("failed-auths-sync").factory());
+                this.sharedSyncScheduler.scheduleWithFixedDelay(() -> sharedCounters.sync(FailedAuthCounters.instance()), syncPeriod, syncPeriod, TimeUnit.MILLISECONDS);
+
+                LOGGER.info("Failed auth attempts are shared among nodes via collection {}.{}", db, collection);
+            }
+        }
+    }
+
+    private Optional<MongoClient> mongoClient() {
+        return registry.getProviders().stream()
+                .filter(pd -> pd.isEnabled())
+                .map(pd -> pd.getInstance())
+                .filter(p -> MongoClient.class.getName().equals(p.rawType().getName()))
+                .map(p -> (MongoClient) p.get(null))
+                .findFirst();
     }
 
     @Override
     public void handle(ServiceRequest<?> request, ServiceResponse<?> response) throws Exception {
         // This interceptor runs BEFORE authentication
         // Check if failed attempts from this source exceed the threshold
-        var histogram = authHisto(request);
-        var failedAttempts = histogram.getSnapshot().getMax();
+        var source = failedAuthHistogramName(request.getExchange());
+        var counters = FailedAuthCounters.instance();
+        var failedAttempts = counters.count(source);
 
-        if (failedAttempts >= this.maxFailedAttempts) {
+        if (failedAttempts >= this.maxFailedAttempts || counters.isSharedBlocked(source)) {
             logWarning(request.getExchange(), failedAttempts);
 
             // Set the request as in error to stop further processing
@@ -152,7 +205,7 @@ public class BruteForceAttackGuard implements WildcardInterceptor {
         return !request.isOptions();
     }
 
-    private void logWarning(HttpServerExchange exchange, double mean) {
+    private void logWarning(HttpServerExchange exchange, long failedAttempts) {
         var xff = ExchangeAttributes.requestHeader(HttpString.tryFromString(HttpHeaders.X_FORWARDED_FOR)).readAttribute(exchange);
         LogUtils.boxedWarn(LOGGER,
                 "A brute force attack might be in progress...",
@@ -167,8 +220,4 @@ public class BruteForceAttackGuard implements WildcardInterceptor {
                 "request method: " + ExchangeAttributes.requestMethod().readAttribute(exchange),
                 "request url: " + ExchangeAttributes.requestURL().readAttribute(exchange));
     }
-
-    private Histogram authHisto(ServiceRequest<?> request) {
-        return AUTH_METRIC_REGISTRY.histogram(failedAuthHistogramName(request.getExchange()), () -> new Histogram(new SlidingTimeWindowArrayReservoir(10, TimeUnit.SECONDS)));
-    }
 }
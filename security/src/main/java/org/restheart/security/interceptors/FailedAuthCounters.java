@@ -0,0 +1,211 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.interceptors;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+
+/**
+ * Bounded table of failed authentication counters over a sliding time window,
+ * keyed by source (remote ip or X-Forwarded-For value).
+ * <p>
+ * Each counter is a ring of one-second buckets; every bucket packs its epoch
+ * second and its count in a single long, so that increments and reads are
+ * lock-free CAS operations that never allocate. The table is bounded: when
+ * full, the least recently used sources are evicted, and idle sources expire
+ * after the window, so rotating attacker ips cannot grow it unboundedly.
+ * <p>
+ * When sharing is enabled, increments are also accumulated for the periodic
+ * flush to a {@link SharedFailedAuthCounters} and the sources that exceeded the
+ * threshold cluster-wide are checked in addition to the local counts.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public final class FailedAuthCounters {
+    /** the sliding window in seconds */
+    public static final int WINDOW_SECONDS = 10;
+
+    static final int DEFAULT_MAX_SOURCES = 100_000;
+
+    private static volatile FailedAuthCounters INSTANCE = new FailedAuthCounters(DEFAULT_MAX_SOURCES);
+
+    private final Cache<String, SlidingWindowCounter> counters;
+
+    // increments not yet flushed to the shared counters, null if sharing is disabled
+    private volatile Map<String, LongAdder> pending = null;
+
+    // sources over the threshold cluster-wide, as of the last sync
+    private volatile Set<String> sharedBlocked = Set.of();
+
+    FailedAuthCounters(final long maxSources) {
+        this.counters = CacheFactory.createLocalCache(maxSources, Cache.EXPIRE_POLICY.AFTER_READ, WINDOW_SECONDS * 1_000);
+    }
+
+    /**
+     * @return the counters shared by the failed auth interceptors
+     */
+    public static FailedAuthCounters instance() {
+        return INSTANCE;
+    }
+
+    /**
+     * replaces the shared counters with an empty table of the given capacity
+     *
+     * @param maxSources the max number of tracked sources
+     */
+    static void resize(final long maxSources) {
+        INSTANCE = new FailedAuthCounters(maxSources);
+    }
+
+    /**
+     * records a failed authentication attempt from the source
+     *
+     * @param source the source key
+     */
+    public void increment(final String source) {
+        final var now = nowSeconds();
+        counter(source).increment(now);
+
+        final var _pending = this.pending;
+        if (_pending != null) {
+            _pending.computeIfAbsent(source, k -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * @param source the source key
+     * @return the number of failed authentication attempts from the source in the sliding window
+     */
+    public long count(final String source) {
+        final var counter = counters.get(source);
+        return counter == null || counter.isEmpty() ? 0 : counter.get().count(nowSeconds());
+    }
+
+    /**
+     * @param source the source key
+     * @return true if the source exceeded the threshold cluster-wide, as of the last sync
+     */
+    public boolean isSharedBlocked(final String source) {
+        return sharedBlocked.contains(source);
+    }
+
+    void enableSharing() {
+        if (this.pending == null) {
+            this.pending = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * @return the increments accumulated since the last call
+     */
+    Map<String, Long> drainPending() {
+        final var _pending = this.pending;
+
+        if (_pending == null || _pending.isEmpty()) {
+            return Map.of();
+        }
+
+        final var ret = new java.util.HashMap<String, Long>();
+
+        for (var key : _pending.keySet()) {
+            final var adder = _pending.remove(key);
+            if (adder != null) {
+                ret.put(key, adder.sum());
+            }
+        }
+
+        return ret;
+    }
+
+    void setSharedBlocked(final Set<String> sharedBlocked) {
+        this.sharedBlocked = sharedBlocked;
+    }
+
+    long size() {
+        counters.cleanUp();
+        return counters.asMap().size();
+    }
+
+    private SlidingWindowCounter counter(final String source) {
+        return counters.asMap().computeIfAbsent(source, k -> Optional.of(new SlidingWindowCounter())).get();
+    }
+
+    static long nowSeconds() {
+        return System.currentTimeMillis() / 1_000;
+    }
+
+    /**
+     * Lock-free sliding window counter made of one-second buckets.
+     * <p>
+     * Each bucket holds {@code epochSecond << COUNT_BITS | count}, so a bucket
+     * belonging to an elapsed second is reset and incremented by a single CAS.
+     */
+    static final class SlidingWindowCounter {
+        private static final int COUNT_BITS = 24;
+        private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(WINDOW_SECONDS);
+
+        void increment(final long nowSec) {
+            final var slot = (int) (nowSec % WINDOW_SECONDS);
+
+            while (true) {
+                final var cur = buckets.get(slot);
+                final long next;
+
+                if (cur >>> COUNT_BITS == nowSec) {
+                    if ((cur & COUNT_MASK) == COUNT_MASK) {
+                        return; // saturated
+                    }
+                    next = cur + 1;
+                } else {
+                    next = nowSec << COUNT_BITS | 1;
+                }
+
+                if (buckets.compareAndSet(slot, cur, next)) {
+                    return;
+                }
+            }
+        }
+
+        long count(final long nowSec) {
+            var ret = 0L;
+
+            for (var slot = 0; slot < WINDOW_SECONDS; slot++) {
+                final var cur = buckets.get(slot);
+                final var epoch = cur >>> COUNT_BITS;
+
+                if (epoch > nowSec - WINDOW_SECONDS && epoch <= nowSec) {
+                    ret += cur & COUNT_MASK;
+                }
+            }
+
+            return ret;
+        }
+    }
+}
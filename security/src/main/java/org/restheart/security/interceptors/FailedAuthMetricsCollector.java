@@ -20,24 +20,14 @@
  */
 package org.restheart.security.interceptors;
 
-import java.util.concurrent.TimeUnit;
-
 import org.restheart.exchange.ServiceRequest;
 import org.restheart.exchange.ServiceResponse;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.WildcardInterceptor;
-import org.restheart.plugins.security.Authenticator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.codahale.metrics.Histogram;
-import com.codahale.metrics.MetricRegistry;
-import com.codahale.metrics.SharedMetricRegistries;
-import com.codahale.metrics.Slf4jReporter;
-import com.codahale.metrics.Slf4jReporter.LoggingLevel;
-import com.codahale.metrics.SlidingTimeWindowArrayReservoir;
-
 import io.undertow.server.HttpServerExchange;
 
 import static org.restheart.metrics.Metrics.failedAuthHistogramName;
@@ -45,12 +35,13 @@ import static org.restheart.metrics.Metrics.failedAuthHistogramName;
 /**
  * Collects metrics for failed authentication attempts.
  * <p>
- * This interceptor runs at the REQUEST_AFTER_FAILED_AUTH intercept point and maintains
- * statistics about failed authentication attempts using Dropwizard metrics. It tracks
- * failures in a sliding time window (10 seconds) to enable detection of brute force attacks.
+ * This interceptor runs at the REQUEST_AFTER_FAILED_AUTH intercept point and counts
+ * failed authentication attempts in {@link FailedAuthCounters}, a bounded table of
+ * lock-free counters over a sliding time window (10 seconds) that enables detection
+ * of brute force attacks.
  * </p>
  * <p>
- * The metrics are stored per source (IP address or X-Forwarded-For header) and can be
+ * The counters are kept per source (IP address or X-Forwarded-For header) and can be
  * consumed by other interceptors like BruteForceAttackGuard to implement rate limiting
  * and attack prevention.
  * </p>
@@ -71,24 +62,6 @@ import static org.restheart.metrics.Metrics.failedAuthHistogramName;
 public class FailedAuthMetricsCollector implements WildcardInterceptor {
     private static final Logger LOGGER = LoggerFactory.getLogger(FailedAuthMetricsCollector.class);
 
-    private static final MetricRegistry AUTH_METRIC_REGISTRY = SharedMetricRegistries.getOrCreate("AUTH");
-    private static final String FAILED_AUTH_METRIC_PREFIX = "failed-auth-";
-
-    static {
-        if (LOGGER.isTraceEnabled()) {
-            Slf4jReporter
-                    .forRegistry(AUTH_METRIC_REGISTRY)
-                    .outputTo(LOGGER)
-                    .filter((name, metric) ->
-                            name.startsWith(MetricRegistry.name(Authenticator.class, FAILED_AUTH_METRIC_PREFIX))
-                                    && metric instanceof Histogram hist
-                                    && hist.getSnapshot().getMax() > 0)
-                    .withLoggingLevel(LoggingLevel.TRACE)
-                    .build()
-                    .start(5, TimeUnit.SECONDS);
-        }
-    }
-
     @Override
     public void handle(ServiceRequest<?> request, ServiceResponse<?> response) throws Exception {
         // Only update metrics for authentication failures (401), not authorization failures (403)
@@ -109,43 +82,21 @@ public class FailedAuthMetricsCollector implements WildcardInterceptor {
     }
 
     /**
-     * Registers stats of failed authentication in dropwizard's
-     * slide time window histograms of 10 seconds.
+     * Counts the failed authentication in the sliding window counter of its source,
+     * i.e. the remote ip or the tracked value of the header X-Forwarded-For.
      *
-     * For each request, register one histogram whose name contains the remote ip
-     * and one with the value of the header X-Forwarded-For, if present.
-     *
-     * This method updates the histograms with max+1 for failed ones,
-     * so that the max of each histogram is the number of failed authentications
-     * in the last 10 seconds.
+     * The table of counters is bounded, so there is no need to prune it
+     * when an attacker sends many requests with rotating ips or
+     * X-Forwarded-For headers.
      *
      * @param exchange
      */
     private void updateFailedAuthMetrics(HttpServerExchange exchange) {
-        // update the histogram
-        var histo = AUTH_METRIC_REGISTRY.histogram(
-                failedAuthHistogramName(exchange),
-                () -> new Histogram(new SlidingTimeWindowArrayReservoir(10, TimeUnit.SECONDS))
-        );
-        histo.update(histo.getSnapshot().getMax() + 1);
-
-        // every 100 failed requests, prune metrics
-        tryPruneMetrics();
-    }
+        var source = failedAuthHistogramName(exchange);
+        FailedAuthCounters.instance().increment(source);
 
-    /**
-     * Cleanup metrics to avoid memory leaks when an attacker sends
-     * many requests with rotating ips or X-Forwarded-For headers
-     * generating many dropwizard's meters
-     */
-    private void tryPruneMetrics() {
-        var total = AUTH_METRIC_REGISTRY.counter(MetricRegistry.name(Authenticator.class, "_total"));
-        total.inc();
-        if (total.getCount() % 100 == 0) {
-            total.dec(total.getCount());
-            LOGGER.trace("Pruning auth metrics");
-            AUTH_METRIC_REGISTRY.removeMatching((name, metric) ->
-                    name.startsWith(MetricRegistry.name(Authenticator.class, FAILED_AUTH_METRIC_PREFIX)));
+        if (LOGGER.isTraceEnabled()) {
+            LOGGER.trace("Failed auth attempts from {} in last {} seconds: {}", source, FailedAuthCounters.WINDOW_SECONDS, FailedAuthCounters.instance().count(source));
         }
     }
 }
@@ -22,8 +22,11 @@ package org.restheart.security.interceptors;
 
 import org.bson.BsonArray;
 import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.restheart.exchange.BadRequestException;
 import org.restheart.exchange.MongoRequest;
 import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
 import org.restheart.plugins.Inject;
 import org.restheart.plugins.InterceptPoint;
 import org.restheart.plugins.MongoInterceptor;
@@ -57,15 +60,16 @@ import io.undertow.attribute.ExchangeAttributes;
         priority = 11) // after pwd hasher to avoid logging the pwd
 public class RootRoleGuard implements MongoInterceptor {
     private static final Logger LOGGER = LoggerFactory.getLogger(RootRoleGuard.class);
+    private static final String FORBIDDEN_MESSAGE = "Forbidden. The request has been logged.";
 
     @Inject("registry")
     PluginsRegistry registry;
 
     private MongoRealmAuthenticator mra;
     private boolean enabled = true;
-    private String rootRole = null;
-    private String usersCollection = null;
-    private String jsonPathRoles = null;
+    String rootRole = null;
+    String usersCollection = null;
+    String jsonPathRoles = null;
 
     @OnInit
     public void init() {
@@ -99,23 +103,31 @@ public class RootRoleGuard implements MongoInterceptor {
     public void handle(MongoRequest request, MongoResponse response) throws Exception {
         var _content = request.getContent();
 
-        if (_content instanceof BsonArray array && check(array)) {
-            logWarning(request);
-            response.setInError(HttpStatus.SC_FORBIDDEN, "Forbidden. The request has been logged.");
+        if (request.isStreamingIngest()) {
+            // POST collection with newline-delimited JSON, the documents are checked while streamed
+            StreamedDocumentChecks.add(request, doc -> {
+                if (check(doc)) {
+                    logWarning(request, doc);
+                    throw new BadRequestException(FORBIDDEN_MESSAGE, HttpStatus.SC_FORBIDDEN);
+                }
+            });
+        } else if (_content instanceof BsonArray array && check(array)) {
+            logWarning(request, _content);
+            response.setInError(HttpStatus.SC_FORBIDDEN, FORBIDDEN_MESSAGE);
         } else if (_content instanceof BsonDocument doc && check(doc)) {
-            logWarning(request);
-            response.setInError(HttpStatus.SC_FORBIDDEN, "Forbidden. The request has been logged.");
+            logWarning(request, _content);
+            response.setInError(HttpStatus.SC_FORBIDDEN, FORBIDDEN_MESSAGE);
         }
     }
 
-    private void logWarning(MongoRequest request) {
+    private void logWarning(MongoRequest request, BsonValue account) {
         var db = request.getDBName();
         var clientId = request.isAuthenticated() ? request.getAuthenticatedAccount().getPrincipal().getName() : "unknown";
         var clientRoles = request.isAuthenticated() ? request.getAuthenticatedAccount().getRoles() : "$unauthenticated";
         var remoteIp = ExchangeAttributes.remoteIp().readAttribute(request.getExchange());
-        var content = BsonUtils.toJson(request.getContent());
+        var content = BsonUtils.toJson(account);
         var xff = request.getHeader(HttpHeaders.X_FORWARDED_FOR);
-        LOGGER.warn("{} with roles {} tried to set an account in the collection {}.{} with roles array ({}) containing the root-role ({}). Remote IP={}, X-Forwared-For Header={}, content={}", clientId, clientRoles, db, this.mra.getUsersCollection(), this.jsonPathRoles, this.rootRole, remoteIp, xff, content);
+        LOGGER.warn("{} with roles {} tried to set an account in the collection {}.{} with roles array ({}) containing the root-role ({}). Remote IP={}, X-Forwared-For Header={}, content={}", clientId, clientRoles, db, this.usersCollection, this.jsonPathRoles, this.rootRole, remoteIp, xff, content);
     }
 
     /**
@@ -134,7 +146,7 @@ public class RootRoleGuard implements MongoInterceptor {
      *
      * @param array
      */
-    private boolean check(BsonDocument doc) {
+    boolean check(BsonDocument doc) {
         return contains(roles(doc), this.rootRole);
     }
 
@@ -169,4 +181,10 @@ public class RootRoleGuard implements MongoInterceptor {
             return enabled && request.isWriteDocument() && request.getCollectionName().equals(this.usersCollection);
         }
     }
+
+    @Override
+    public boolean supportsStreamingIngest(MongoRequest request) {
+        // the roles of each streamed document are checked
+        return true;
+    }
 }
@@ -0,0 +1,124 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.interceptors;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.gte;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonInt64;
+import org.bson.BsonString;
+import org.bson.conversions.Bson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+
+/**
+ * Shares the failed authentication counters among the nodes of a cluster via
+ * a MongoDB collection.
+ * <p>
+ * Each node periodically flushes its local increments as per-second bucket
+ * documents {@code {k: source, s: epochSecond, n: count}} and reads back the
+ * sources whose sum over the sliding window reaches the threshold. Buckets
+ * are removed by a TTL index once out of the window. The cost is one bulk
+ * write and one aggregation per node per period, regardless of the number of
+ * requests.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+class SharedFailedAuthCounters {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedFailedAuthCounters.class);
+
+    private final MongoCollection<BsonDocument> coll;
+    private final long maxFailedAttempts;
+
+    SharedFailedAuthCounters(final MongoClient mclient, final String db, final String collection, final long maxFailedAttempts) {
+        this.coll = mclient.getDatabase(db).getCollection(collection, BsonDocument.class);
+        this.maxFailedAttempts = maxFailedAttempts;
+
+        this.coll.createIndex(Indexes.ascending("expireAt"), new IndexOptions().name("expireAt_ttl").expireAfter(0L, TimeUnit.SECONDS));
+        this.coll.createIndex(Indexes.ascending("s"), new IndexOptions().name("s"));
+    }
+
+    /**
+     * flushes the local increments and updates the sources blocked cluster-wide
+     *
+     * @param counters the local counters
+     */
+    void sync(final FailedAuthCounters counters) {
+        final var now = FailedAuthCounters.nowSeconds();
+
+        try {
+            final var pending = counters.drainPending();
+
+            if (!pending.isEmpty()) {
+                final var expireAt = new BsonDateTime((now + FailedAuthCounters.WINDOW_SECONDS) * 1_000);
+                final List<WriteModel<BsonDocument>> writes = new ArrayList<>(pending.size());
+
+                pending.forEach((source, n) -> {
+                    final var id = new BsonDocument("k", new BsonString(source)).append("s", new BsonInt64(now));
+                    final Bson update = Updates.combine(
+                        Updates.inc("n", n),
+                        Updates.setOnInsert("k", source),
+                        Updates.setOnInsert("s", now),
+                        Updates.setOnInsert("expireAt", expireAt));
+
+                    writes.add(new UpdateOneModel<>(eq("_id", id), update, new UpdateOptions().upsert(true)));
+                });
+
+                coll.bulkWrite(writes, new BulkWriteOptions().ordered(false));
+            }
+
+            final var blocked = new HashSet<String>();
+
+            coll.aggregate(List.of(
+                    Aggregates.match(gt("s", now - FailedAuthCounters.WINDOW_SECONDS)),
+                    Aggregates.group("$k", Accumulators.sum("n", "$n")),
+                    Aggregates.match(gte("n", maxFailedAttempts))))
+                .forEach(doc -> blocked.add(doc.getString("_id").getValue()));
+
+            counters.setSharedBlocked(blocked.isEmpty() ? Set.of() : blocked);
+        } catch (final MongoException me) {
+            // keep protecting with the local counters
+            LOGGER.warn("Error syncing shared failed auth counters: {}", me.getMessage());
+        }
+    }
+}
@@ -22,18 +22,24 @@ package org.restheart.security.mechanisms;
 
 import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
 
 import org.apache.commons.codec.binary.StringUtils;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
 import org.restheart.configuration.ConfigurationException;
 import org.restheart.exchange.Request;
 import org.restheart.plugins.ConsumingPlugin;
@@ -62,6 +68,11 @@ import io.undertow.server.HttpServerExchange;
 
 /**
  * factory for JWT AuthenticationMechanism
+ * <p>
+ * Verified tokens are kept in a bounded cache (config options {@code cache-enabled},
+ * {@code cache-size} and {@code cache-ttl}) so that a token presented again
+ * skips signature verification. A cached token is only reused within its
+ * {@code nbf}/{@code exp} window.
  *
  * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
  */
@@ -80,6 +91,10 @@ public class JwtAuthenticationMechanism implements AuthMechanism, ConsumingPlugi
     private String rolesClaim;
     private java.util.List<String> fixedRoles;
 
+    // verified tokens keyed by the salted SHA-256 digest of the raw token, null if cache-enabled=false
+    private Cache<String, VerifiedToken> verifiedTokens = null;
+    private byte[] keyFingerprint;
+
     @Inject("config")
     private Map<String, Object> config;
 
@@ -119,74 +134,48 @@ public class JwtAuthenticationMechanism implements AuthMechanism, ConsumingPlugi
         }
 
         this.jwtVerifier = v.build();
+
+        // the cache is rebuilt with the verifier, so a key rotation drops all previously verified tokens
+        this.keyFingerprint = fingerprint(jwtConfig);
+
+        final boolean cacheEnabled = argOrDefault(config, "cache-enabled", true);
+
+        if (cacheEnabled) {
+            final int cacheSize = argOrDefault(config, "cache-size", 10_000);
+            final int cacheTTL = argOrDefault(config, "cache-ttl", 300_000);
+            this.verifiedTokens = CacheFactory.createLocalCache(cacheSize, Cache.EXPIRE_POLICY.AFTER_WRITE, cacheTTL);
+        } else {
+            this.verifiedTokens = null;
+        }
     }
 
     @Override
     public AuthenticationMechanism.AuthenticationMechanismOutcome authenticate(final HttpServerExchange hse, final SecurityContext sc) {
         try {
-            var token = getToken(hse);
+            final var token = getToken(hse);
 
             if (token != null) {
-                if (base64Encoded) {
-                    token = StringUtils.newStringUtf8(Base64.getUrlDecoder().decode(token));
-                }
-
-                final var verifiedJwt = jwtVerifier.verify(token);
-
-                final var subject = verifiedJwt.getClaim(usernameClaim).asString();
+                final var verified = verify(token);
 
-                if (subject == null) {
+                if (verified.subject() == null) {
                     LOGGER.debug("username not specified with claim {}", usernameClaim);
                     sc.authenticationFailed("JwtAuthenticationManager", "username not specified");
                     return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
                 }
 
-                final Set<String> actualRoles = new LinkedHashSet<>();
-
-                if (rolesClaim != null) {
-                    final Claim _roles = verifiedJwt.getClaim(rolesClaim);
-
-                    if (_roles != null && !_roles.isNull()) {
-                        try {
-                            final String[] __roles = _roles.asArray(String.class);
-
-                            if (__roles != null) {
-                                actualRoles.addAll(Arrays.asList(__roles));
-                            } else {
-                                LOGGER.debug("roles is not an array: {}", _roles.asString());
-                                return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
-                            }
-                        } catch (final JWTDecodeException ex) {
-                            LOGGER.warn("Jwt cannot get roles from claim {}, extepected an array of strings: {}", rolesClaim, _roles.toString());
-                        }
-                    }
-                }
-
-                if (this.fixedRoles != null) {
-                    actualRoles.addAll(this.fixedRoles);
+                if (verified.roles() == null) {
+                    return AuthenticationMechanismOutcome.NOT_AUTHENTICATED;
                 }
 
                 if (this.extraJwtVerifier != null) {
-                    this.extraJwtVerifier.accept(Pair.of(hse, verifiedJwt));
-                }
-
-                // Extract JWT payload and check for authDb claim
-                final var jwtPayload = new String(Base64.getUrlDecoder().decode(verifiedJwt.getPayload()), StandardCharsets.UTF_8);
-
-                // Parse payload to check for authDb claim
-                var payloadToStore = jwtPayload;
-                var authDbClaim = verifiedJwt.getClaim("authDb");
-                if (authDbClaim != null && !authDbClaim.isNull()) {
-                    // If authDb is present, we need to ensure it's in the payload for cache key matching
-                    // The payload already contains it, so just use it as-is
-                    LOGGER.debug("JWT contains authDb claim: {}", authDbClaim.asString());
+                    this.extraJwtVerifier.accept(Pair.of(hse, verified.jwt()));
                 }
 
-                final var account = new JwtAccount(subject, actualRoles, payloadToStore);
+                final var account = new JwtAccount(verified.subject(), verified.roles(), verified.payload());
 
                 sc.authenticationComplete(account, "JwtAuthenticationManager", false);
 
-                Request.of(hse).addXForwardedHeader("Jwt-Payload", jwtPayload);
+                Request.of(hse).addXForwardedHeader("Jwt-Payload", verified.payload());
 
                 return AuthenticationMechanismOutcome.AUTHENTICATED;
             }
@@ -199,6 +188,136 @@ public class JwtAuthenticationMechanism implements AuthMechanism, ConsumingPlugi
         return AuthenticationMechanismOutcome.NOT_ATTEMPTED;
     }
 
+    /**
+     * Verifies the raw token, returning the cached verification result when the
+     * same token has already been verified and is still within its validity window.
+     *
+     * @param rawToken the token as found in the Authorization header
+     * @return the verified token
+     * @throws JWTVerificationException if the token is not valid
+     */
+    private VerifiedToken verify(final String rawToken) throws JWTVerificationException {
+        if (this.verifiedTokens == null) {
+            return _verify(rawToken);
+        }
+
+        final var key = cacheKey(rawToken);
+        final var cached = this.verifiedTokens.get(key);
+
+        if (cached != null && cached.isPresent()) {
+            final var hit = cached.get();
+
+            if (hit.isTimeValid(Instant.now())) {
+                return hit;
+            } else {
+                // expired or not yet valid: drop it and let the verifier report why
+                this.verifiedTokens.invalidate(key);
+            }
+        }
+
+        final var verified = _verify(rawToken);
+
+        // only cache tokens that lead to an authenticated account
+        if (verified.subject() != null && verified.roles() != null) {
+            this.verifiedTokens.put(key, verified);
+        }
+
+        return verified;
+    }
+
+    private VerifiedToken _verify(final String rawToken) throws JWTVerificationException {
+        final var token = base64Encoded
+            ? StringUtils.newStringUtf8(Base64.getUrlDecoder().decode(rawToken))
+            : rawToken;
+
+        final var verifiedJwt = jwtVerifier.verify(token);
+
+        final var subject = verifiedJwt.getClaim(usernameClaim).asString();
+
+        // Extract JWT payload
+        final var jwtPayload = new String(Base64.getUrlDecoder().decode(verifiedJwt.getPayload()), StandardCharsets.UTF_8);
+
+        if (subject == null) {
+            return new VerifiedToken(verifiedJwt, null, null, jwtPayload);
+        }
+
+        final Set<String> actualRoles = new LinkedHashSet<>();
+
+        if (rolesClaim != null) {
+            final Claim _roles = verifiedJwt.getClaim(rolesClaim);
+
+            if (_roles != null && !_roles.isNull()) {
+                try {
+                    final String[] __roles = _roles.asArray(String.class);
+
+                    if (__roles != null) {
+                        actualRoles.addAll(Arrays.asList(__roles));
+                    } else {
+                        LOGGER.debug("roles is not an array: {}", _roles.asString());
+                        return new VerifiedToken(verifiedJwt, subject, null, jwtPayload);
+                    }
+                } catch (final JWTDecodeException ex) {
+                    LOGGER.warn("Jwt cannot get roles from claim {}, extepected an array of strings: {}", rolesClaim, _roles.toString());
+                }
+            }
+        }
+
+        if (this.fixedRoles != null) {
+            actualRoles.addAll(this.fixedRoles);
+        }
+
+        var authDbClaim = verifiedJwt.getClaim("authDb");
+        if (authDbClaim != null && !authDbClaim.isNull()) {
+            // If authDb is present, it is already in the payload used for cache key matching
+            LOGGER.debug("JWT contains authDb claim: {}", authDbClaim.asString());
+        }
+
+        return new VerifiedToken(verifiedJwt, subject, Collections.unmodifiableSet(actualRoles), jwtPayload);
+    }
+
+    /**
+     * The cache key is the SHA-256 digest of the raw token salted with the
+     * fingerprint of the verification key, so that tokens are never kept in
+     * memory in clear and entries verified with a rotated key never match.
+     */
+    private String cacheKey(final String rawToken) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.keyFingerprint);
+            return Base64.getEncoder().encodeToString(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not available", nsae);
+        }
+    }
+
+    private static byte[] fingerprint(final org.restheart.security.tokens.JwtConfigProvider.JwtConfig jwtConfig) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(jwtConfig.algorithm().getBytes(StandardCharsets.UTF_8));
+            return digest.digest(jwtConfig.key().getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not available", nsae);
+        }
+    }
+
+    /**
+     * The outcome of the verification of a token: the decoded JWT and the
+     * account data built from its claims.
+     *
+     * @param jwt the verified JWT
+     * @param subject the username, null if the usernameClaim is missing
+     * @param roles the roles, null if the rolesClaim is not an array
+     * @param payload the JSON payload
+     */
+    private record VerifiedToken(DecodedJWT jwt, String subject, Set<String> roles, String payload) {
+        boolean isTimeValid(final Instant now) {
+            final var exp = jwt.getExpiresAtAsInstant();
+            final var nbf = jwt.getNotBeforeAsInstant();
+
+            return (exp == null || now.isBefore(exp)) && (nbf == null || !now.isBefore(nbf));
+        }
+    }
+
     @Override
     public ChallengeResult sendChallenge(final HttpServerExchange exchange, final SecurityContext securityContext) {
         return new AuthenticationMechanism.ChallengeResult(true, 200);
@@ -0,0 +1,65 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.tokens;
+
+import java.util.Optional;
+
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.security.PwdCredentialAccount;
+
+/**
+ * TokenStore that keeps tokens in a node-local cache.
+ * <p>
+ * Tokens are only valid on the node that issued them.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class LocalTokenStore implements TokenStore {
+    private final Cache<String, PwdCredentialAccount> cache;
+
+    /**
+     * @param ttl the time to live of the tokens in milliseconds, renewed on every read
+     */
+    public LocalTokenStore(final long ttl) {
+        this.cache = CacheFactory.createLocalCache(Long.MAX_VALUE, Cache.EXPIRE_POLICY.AFTER_READ, ttl);
+    }
+
+    @Override
+    public Optional<PwdCredentialAccount> get(final String id) {
+        final var cached = cache.get(id);
+        return cached == null ? Optional.empty() : cached;
+    }
+
+    @Override
+    public void put(final String id, final PwdCredentialAccount account) {
+        cache.put(id, account);
+    }
+
+    @Override
+    public void invalidate(final String id) {
+        cache.invalidate(id);
+    }
+
+    Cache<String, PwdCredentialAccount> cache() {
+        return cache;
+    }
+}
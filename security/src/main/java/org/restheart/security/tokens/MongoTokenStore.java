@@ -0,0 +1,297 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.tokens;
+
+import static com.mongodb.client.model.Filters.and;
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Updates.set;
+
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonArray;
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.restheart.cache.Cache;
+import org.restheart.cache.CacheFactory;
+import org.restheart.security.FileRealmAccount;
+import org.restheart.security.MongoRealmAccount;
+import org.restheart.security.PwdCredentialAccount;
+import org.restheart.utils.BsonUtils;
+import org.restheart.utils.ThreadsUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+
+/**
+ * TokenStore that keeps tokens in a MongoDB collection shared by all nodes,
+ * so that a token issued by a node is valid on any other node.
+ * <p>
+ * The collection does not hold the tokens: each document has the SHA-256
+ * digest of the token as {@code _id} and the account id as {@code account},
+ * so that reading the collection does not allow to impersonate users. As a
+ * consequence, {@link #get(String)} only returns the tokens this node has
+ * issued or verified; an account can have more tokens, issued by different
+ * nodes, and {@link #invalidate(String)} removes all of them.
+ * <p>
+ * Expired tokens are removed by a TTL index on the {@code expireAt} field.
+ * Each node keeps a near-cache of the tokens it has seen, so that the common
+ * case costs a single local lookup. The sliding expiration is extended on the
+ * database at most once every half ttl, rather than on every read.
+ * <p>
+ * A token invalidated on another node can still be accepted by this node
+ * until its near-cache entry expires ({@code near-cache-ttl}).
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public class MongoTokenStore implements TokenStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoTokenStore.class);
+
+    private static final String ACCOUNT = "account";
+    private static final String EXPIRE_AT = "expireAt";
+
+    private final MongoCollection<BsonDocument> coll;
+    private final long ttl;
+    private final Cache<String, NearEntry> nearCache;
+
+    /**
+     * @param account the account holding the token
+     * @param hash the digest of the token, the _id of its document
+     * @param expireAt the expiration time known to this node, in epoch milliseconds
+     */
+    private record NearEntry(PwdCredentialAccount account, String hash, long expireAt) {
+    }
+
+    /**
+     * @param mclient the MongoClient
+     * @param db the db of the tokens collection
+     * @param collection the tokens collection
+     * @param ttl the time to live of the tokens in milliseconds, renewed on reads
+     * @param nearCacheSize the max number of tokens kept in the near-cache
+     * @param nearCacheTtl the time to live of the near-cache entries in milliseconds
+     */
+    public MongoTokenStore(final MongoClient mclient, final String db, final String collection, final long ttl, final long nearCacheSize, final long nearCacheTtl) {
+        this.coll = mclient.getDatabase(db).getCollection(collection, BsonDocument.class);
+        this.ttl = ttl;
+        this.nearCache = CacheFactory.createLocalCache(nearCacheSize, Cache.EXPIRE_POLICY.AFTER_WRITE, nearCacheTtl);
+
+        // idempotent, the server removes documents once expireAt is past
+        this.coll.createIndex(Indexes.ascending(EXPIRE_AT), new IndexOptions().name("expireAt_ttl").expireAfter(0L, TimeUnit.SECONDS));
+        // used to invalidate the tokens of an account
+        this.coll.createIndex(Indexes.ascending(ACCOUNT), new IndexOptions().name("account"));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Only the tokens in the near-cache can be returned, since the collection
+     * holds their digests.
+     */
+    @Override
+    public Optional<PwdCredentialAccount> get(final String id) {
+        final var now = System.currentTimeMillis();
+        final var near = near(id, now);
+
+        if (near == null) {
+            return Optional.empty();
+        }
+
+        if (near.expireAt() - now < ttl / 2) {
+            touch(id, near.account(), near.hash(), now);
+        }
+
+        return Optional.of(near.account());
+    }
+
+    @Override
+    public Optional<PwdCredentialAccount> verify(final String id, final char[] token) {
+        final var now = System.currentTimeMillis();
+        final var hash = hash(token);
+        final var near = near(id, now);
+
+        if (near != null && MessageDigest.isEqual(near.hash().getBytes(StandardCharsets.UTF_8), hash.getBytes(StandardCharsets.UTF_8))) {
+            if (near.expireAt() - now < ttl / 2) {
+                touch(id, near.account(), hash, now);
+            }
+
+            return Optional.of(near.account());
+        }
+
+        final BsonDocument doc;
+
+        try {
+            doc = coll.find(and(eq("_id", hash), eq(ACCOUNT, id))).first();
+        } catch (final MongoException me) {
+            LOGGER.error("Error reading auth token of {}", id, me);
+            return Optional.empty();
+        }
+
+        // the TTL monitor runs periodically, expired documents can still be found
+        if (doc == null || !doc.isDateTime(EXPIRE_AT) || doc.getDateTime(EXPIRE_AT).getValue() <= now) {
+            return Optional.empty();
+        }
+
+        final var account = decode(doc, token);
+        nearCache.put(id, new NearEntry(account, hash, doc.getDateTime(EXPIRE_AT).getValue()));
+
+        if (doc.getDateTime(EXPIRE_AT).getValue() - now < ttl / 2) {
+            touch(id, account, hash, now);
+        }
+
+        return Optional.of(account);
+    }
+
+    @Override
+    public void put(final String id, final PwdCredentialAccount account) {
+        final var expireAt = System.currentTimeMillis() + ttl;
+        final var hash = hash(account.getCredentials().getPassword());
+        coll.replaceOne(eq("_id", hash), encode(id, hash, account, expireAt), new ReplaceOptions().upsert(true));
+        nearCache.put(id, new NearEntry(account, hash, expireAt));
+    }
+
+    @Override
+    public void invalidate(final String id) {
+        nearCache.invalidate(id);
+        coll.deleteMany(eq(ACCOUNT, id));
+    }
+
+    /**
+     * @return the near-cache entry of the account, null if missing or expired
+     */
+    private NearEntry near(final String id, final long now) {
+        final var _near = nearCache.get(id);
+
+        if (_near == null || _near.isEmpty()) {
+            return null;
+        } else if (_near.get().expireAt() > now) {
+            return _near.get();
+        } else {
+            nearCache.invalidate(id);
+            return null;
+        }
+    }
+
+    /**
+     * extends the expiration of the token, updating the database asynchronously
+     */
+    private void touch(final String id, final PwdCredentialAccount account, final String hash, final long now) {
+        final var expireAt = now + ttl;
+        nearCache.put(id, new NearEntry(account, hash, expireAt));
+
+        ThreadsUtils.virtualThreadsExecutor().execute(() -> {
+            try {
+                coll.updateOne(eq("_id", hash), set(EXPIRE_AT, new BsonDateTime(expireAt)));
+            } catch (final MongoException me) {
+                LOGGER.warn("Error extending the expiration of the auth token of {}", id, me);
+            }
+        });
+    }
+
+    /**
+     * @param token the token
+     * @return the base64 encoded SHA-256 digest of the token
+     */
+    static String hash(final char[] token) {
+        final var bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(token));
+
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(bytes);
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (final NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not available", nsae);
+        } finally {
+            if (bytes.hasArray()) {
+                Arrays.fill(bytes.array(), (byte) 0);
+            }
+        }
+    }
+
+    static BsonDocument encode(final String id, final String hash, final PwdCredentialAccount account, final long expireAt) {
+        final var roles = new BsonArray();
+        account.getRoles().stream().map(BsonString::new).forEach(roles::add);
+
+        final var doc = BsonUtils.document()
+            .put("_id", hash)
+            .put(ACCOUNT, id)
+            .put("roles", roles)
+            .put(EXPIRE_AT, new BsonDateTime(expireAt))
+            .get();
+
+        switch (account) {
+            case MongoRealmAccount maccount -> {
+                doc.put("type", new BsonString("mongo"));
+                if (maccount.db() != null) {
+                    doc.put("db", new BsonString(maccount.db()));
+                }
+                if (maccount.properties() != null) {
+                    doc.put("properties", maccount.properties());
+                }
+            }
+            case FileRealmAccount faccount -> {
+                doc.put("type", new BsonString("file"));
+                if (faccount.properties() != null) {
+                    doc.put("properties", BsonUtils.toBsonDocument(faccount.properties()));
+                }
+            }
+            default -> doc.put("type", new BsonString("pwd"));
+        }
+
+        return doc;
+    }
+
+    /**
+     * @param doc the token document
+     * @param token the verified token, that the document does not hold
+     * @return the account holding the token
+     */
+    static PwdCredentialAccount decode(final BsonDocument doc, final char[] token) {
+        final var id = doc.getString(ACCOUNT).getValue();
+        final var _token = Arrays.copyOf(token, token.length);
+        final var roles = new TreeSet<String>();
+        doc.getArray("roles", new BsonArray()).stream()
+            .filter(r -> r.isString())
+            .map(r -> r.asString().getValue())
+            .forEach(roles::add);
+
+        final var properties = doc.isDocument("properties") ? doc.getDocument("properties") : null;
+
+        return switch (doc.getString("type", new BsonString("pwd")).getValue()) {
+            case "mongo" -> new MongoRealmAccount(doc.isString("db") ? doc.getString("db").getValue() : null, id, _token, roles, properties);
+            case "file" -> new FileRealmAccount(id, _token, roles, properties == null ? null : BsonUtils.bsonToDocument(properties));
+            default -> new PwdCredentialAccount(id, _token, roles);
+        };
+    }
+}
@@ -24,16 +24,16 @@ import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.Arrays;
 import java.util.Map;
+import java.util.Optional;
 
 import org.bson.BsonDocument;
 import org.restheart.cache.Cache;
-import org.restheart.cache.CacheFactory;
 import org.restheart.configuration.ConfigurationException;
 import org.restheart.exchange.JsonProxyRequest;
 import org.restheart.plugins.Inject;
 import org.restheart.plugins.OnInit;
+import org.restheart.plugins.PluginsRegistry;
 import org.restheart.plugins.RegisterPlugin;
 import org.restheart.plugins.security.TokenManager;
 import org.restheart.security.FileRealmAccount;
@@ -43,20 +43,35 @@ import org.restheart.security.PwdCredentialAccount;
 import org.restheart.utils.BsonUtils;
 import org.restheart.utils.URLUtils;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.collect.Sets;
+import com.mongodb.client.MongoClient;
 
 import io.undertow.security.idm.Account;
 import io.undertow.security.idm.Credential;
 import io.undertow.security.idm.PasswordCredential;
 import io.undertow.server.HttpServerExchange;
 
+/**
+ * TokenManager that issues random auth tokens.
+ * <p>
+ * Tokens are kept by a {@link TokenStore}: with {@code store: local} (default)
+ * they are only valid on the issuing node; with {@code store: mongo} they are
+ * stored in a MongoDB collection and are valid on every node sharing it.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
 @RegisterPlugin(name = "rndTokenManager",
         description = "generates random auth tokens",
         enabledByDefault = false)
 public class RndTokenManager implements TokenManager {
     private static final SecureRandom RND_GENERATOR = new SecureRandom();
 
-    private static Cache<String, PwdCredentialAccount> CACHE = null;
+    private static final Logger LOGGER = LoggerFactory.getLogger(RndTokenManager.class);
+
+    private static TokenStore STORE = null;
 
     private int ttl = -1;
     private String srvURI = null;
@@ -64,13 +79,44 @@ public class RndTokenManager implements TokenManager {
     @Inject("config")
     private Map<String, Object> config;
 
+    // the mongo client is looked up only with store: mongo, so that the
+    // local store does not depend on the mclient provider
+    @Inject("registry")
+    private PluginsRegistry registry;
+
     @OnInit
     public void init() throws ConfigurationException {
         this.ttl = arg(config, "ttl");
 
         this.srvURI = arg(config, "srv-uri");
 
-        CACHE = CacheFactory.createLocalCache(Long.MAX_VALUE, Cache.EXPIRE_POLICY.AFTER_READ, ttl * 60 * 1_000);
+        final String store = argOrDefault(config, "store", "local");
+
+        switch (store) {
+            case "local" -> STORE = new LocalTokenStore(ttl * 60 * 1_000);
+            case "mongo" -> {
+                final var mclient = mongoClient()
+                    .orElseThrow(() -> new ConfigurationException("rndTokenManager store 'mongo' requires the mclient provider to be enabled"));
+
+                final String db = argOrDefault(config, "store-db", "restheart");
+                final String collection = argOrDefault(config, "store-collection", "_authtokens");
+                final int nearCacheSize = argOrDefault(config, "near-cache-size", 100_000);
+                final int nearCacheTTL = argOrDefault(config, "near-cache-ttl", 10_000);
+
+                STORE = new MongoTokenStore(mclient, db, collection, ttl * 60 * 1_000, nearCacheSize, nearCacheTTL);
+                LOGGER.info("Auth tokens stored in collection {}.{}", db, collection);
+            }
+            default -> throw new ConfigurationException("wrong rndTokenManager store '" + store + "', valid values are local and mongo");
+        }
+    }
+
+    private Optional<MongoClient> mongoClient() {
+        return registry.getProviders().stream()
+                .filter(pd -> pd.isEnabled())
+                .map(pd -> pd.getInstance())
+                .filter(p -> MongoClient.class.getName().equals(p.rawType().getName()))
+                .map(p -> (MongoClient) p.get(null))
+                .findFirst();
     }
 
     @Override
@@ -80,11 +126,11 @@ public class RndTokenManager implements TokenManager {
 
     @Override
     public Account verify(final String id, final Credential credential) {
-        final var _account = CACHE.get(id);
-
-        return _account != null && _account.isPresent() && verifyToken(_account.get(), credential)
-                ? _account.get()
-                : null;
+        if (credential instanceof PasswordCredential passwordCredential) {
+            return STORE.verify(id, passwordCredential.getPassword()).orElse(null);
+        } else {
+            return null;
+        }
     }
 
     @Override
@@ -92,31 +138,29 @@ public class RndTokenManager implements TokenManager {
         return null;
     }
 
-    private boolean verifyToken(final PwdCredentialAccount account, final Credential credential) {
-        if (credential instanceof PasswordCredential passwordCredential) {
-            char[] token = passwordCredential.getPassword();
-            char[] expectedToken = account.getCredentials().getPassword();
-
-            return Arrays.equals(token, expectedToken);
-        } else {
-            return false;
-        }
+    /**
+     * @return the node-local cache of the tokens, null if the tokens are not stored locally
+     * @deprecated use {@link #getStore()}
+     */
+    @Deprecated
+    public Cache<String, PwdCredentialAccount> getCACHE() {
+        return STORE instanceof LocalTokenStore local ? local.cache() : null;
     }
 
-    public Cache<String, PwdCredentialAccount> getCACHE() {
-        return CACHE;
+    public TokenStore getStore() {
+        return STORE;
     }
 
     @Override
     public PasswordCredential get(Account account) {
-        var cachedAccount = CACHE.get(account.getPrincipal().getName());
+        var cachedAccount = STORE.get(account.getPrincipal().getName());
 
-        if (cachedAccount != null && cachedAccount.isPresent()) {
+        if (cachedAccount.isPresent()) {
             return cachedAccount.get().getCredentials();
         } else {
             var newCachedTokenAccount = cloneWithToken(account, nextToken());
 
-            CACHE.put(account.getPrincipal().getName(), newCachedTokenAccount);
+            STORE.put(account.getPrincipal().getName(), newCachedTokenAccount);
 
             return newCachedTokenAccount.getCredentials();
         }
@@ -144,21 +188,21 @@ public class RndTokenManager implements TokenManager {
 
     @Override
     public void invalidate(Account account) {
-        CACHE.invalidate(account.getPrincipal().getName());
+        STORE.invalidate(account.getPrincipal().getName());
     }
 
     @Override
     public void update(Account account) {
         String id = account.getPrincipal().getName();
 
-        var _authTokenAccount = CACHE.get(id);
+        var _authTokenAccount = STORE.get(id);
 
-        if (_authTokenAccount != null && _authTokenAccount.isPresent()) {
+        if (_authTokenAccount.isPresent()) {
             var authTokenAccount = _authTokenAccount.get();
 
             var updatedAuthTokenAccount = cloneWithToken(account, authTokenAccount.getCredentials().getPassword());
 
-            CACHE.put(id, updatedAuthTokenAccount);
+            STORE.put(id, updatedAuthTokenAccount);
         }
     }
 
@@ -0,0 +1,72 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.tokens;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.restheart.security.PwdCredentialAccount;
+
+/**
+ * Storage backend of the auth tokens issued by {@link RndTokenManager}.
+ * <p>
+ * The store maps the account id to an account whose credential is the token.
+ * Entries expire after the token manager ttl of inactivity.
+ * <p>
+ * A store may not be able to return the token of an account, e.g. when it
+ * only keeps a hash of it: in this case {@link #get(String)} returns empty
+ * and tokens are checked with {@link #verify(String, char[])}.
+ *
+ * @author Andrea Di Cesare {@literal <andrea@softinstigate.com>}
+ */
+public interface TokenStore {
+    /**
+     * @param id the account id
+     * @return the account holding the token, or empty if no valid token exists
+     * or the store cannot return it
+     */
+    public Optional<PwdCredentialAccount> get(String id);
+
+    /**
+     * @param id the account id
+     * @param token the token to verify
+     * @return the account holding the token, or empty if the token is not a
+     * valid token of the account
+     */
+    public default Optional<PwdCredentialAccount> verify(String id, char[] token) {
+        return get(id).filter(account -> Arrays.equals(account.getCredentials().getPassword(), token));
+    }
+
+    /**
+     * stores the account holding the token, replacing any existing one
+     *
+     * @param id the account id
+     * @param account the account holding the token
+     */
+    public void put(String id, PwdCredentialAccount account);
+
+    /**
+     * removes the token of the account
+     *
+     * @param id the account id
+     */
+    public void invalidate(String id);
+}
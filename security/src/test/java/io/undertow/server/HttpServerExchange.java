@@ -26,6 +26,8 @@ import io.undertow.util.HeaderMap;
 import io.undertow.util.HttpString;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
 import java.util.Collections;
 import java.util.Deque;
@@ -164,6 +166,10 @@ public class HttpServerExchange extends AbstractAttachable {
         return null;
     }
 
+    public InetSocketAddress getSourceAddress() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    }
+
     /**
      * @return the relativePath
      */
@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.authenticators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
+
+import io.undertow.server.HttpServerExchange;
+
+public class UserPwdHasherTest {
+    private static UserPwdHasher hasher() {
+        var hasher = new UserPwdHasher();
+        hasher.propNamePassword = "password";
+        hasher.complexity = 4;
+        return hasher;
+    }
+
+    @Test
+    void testHashesDocument() throws Exception {
+        var doc = BsonDocument.parse("{ '_id': 'user', 'password': 'secret' }");
+        var request = mock(MongoRequest.class);
+        when(request.getContent()).thenReturn(doc);
+
+        hasher().handle(request, mock(MongoResponse.class));
+
+        var hashed = doc.getString("password").getValue();
+        assertNotEquals("secret", hashed);
+        assertTrue(BCrypt.checkpw("secret", hashed));
+    }
+
+    @Test
+    void testHashesStreamedDocuments() throws Exception {
+        var request = mock(MongoRequest.class);
+        when(request.isStreamingIngest()).thenReturn(true);
+        when(request.isPost()).thenReturn(true);
+        when(request.getContent()).thenReturn(new BsonArray());
+        when(request.getExchange()).thenReturn(new HttpServerExchange());
+
+        hasher().handle(request, mock(MongoResponse.class));
+
+        var doc = BsonDocument.parse("{ '_id': 'user', 'password': 'secret' }");
+        StreamedDocumentChecks.check(request, doc);
+
+        var hashed = doc.getString("password").getValue();
+        assertNotEquals("secret", hashed);
+        assertTrue(BCrypt.checkpw("secret", hashed));
+
+        var noPwd = BsonDocument.parse("{ '_id': 'other' }");
+        StreamedDocumentChecks.check(request, noPwd);
+        assertEquals(BsonDocument.parse("{ '_id': 'other' }"), noPwd);
+    }
+}
@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.authenticators;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.restheart.exchange.ExportedDocumentFilters;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+
+import io.undertow.server.HttpServerExchange;
+
+public class UserPwdRemoverTest {
+    @Test
+    void testRemovesPasswordFromExportedDocuments() throws Exception {
+        var remover = new UserPwdRemover();
+        remover.propNamePassword = "password";
+
+        var request = mock(MongoRequest.class);
+        var response = mock(MongoResponse.class);
+        when(request.isStreamingExport()).thenReturn(true);
+        when(request.getExchange()).thenReturn(new HttpServerExchange());
+
+        remover.handle(request, response);
+
+        // the response content is not touched, the exported documents are filtered while streamed
+        verify(response, never()).setContent(any());
+
+        var filter = ExportedDocumentFilters.of(request);
+
+        assertEquals(BsonDocument.parse("{ '_id': 'user', 'roles': ['user'] }"),
+            filter.apply(BsonDocument.parse("{ '_id': 'user', 'password': '$2a$12$hash', 'roles': ['user'] }")));
+
+        assertEquals(BsonDocument.parse("{ '_id': 'other' }"),
+            filter.apply(BsonDocument.parse("{ '_id': 'other' }")));
+    }
+
+    @Test
+    void testRemovesNestedPassword() {
+        var remover = new UserPwdRemover();
+        remover.propNamePassword = "auth.password";
+
+        assertEquals(BsonDocument.parse("{ '_id': 'user', 'auth': { 'type': 'pwd' } }"),
+            remover.removePassword(BsonDocument.parse("{ '_id': 'user', 'auth': { 'type': 'pwd', 'password': 'hash' } }")));
+
+        assertEquals(BsonDocument.parse("{ '_id': 'user', 'auth': 'none' }"),
+            remover.removePassword(BsonDocument.parse("{ '_id': 'user', 'auth': 'none' }")));
+    }
+}
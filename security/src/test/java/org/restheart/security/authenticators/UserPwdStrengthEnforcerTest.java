@@ -0,0 +1,87 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.authenticators;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.Test;
+import org.restheart.exchange.BadRequestException;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
+import org.restheart.utils.HttpStatus;
+
+import io.undertow.server.HttpServerExchange;
+
+public class UserPwdStrengthEnforcerTest {
+    private static UserPwdStrengthEnforcer enforcer() {
+        var enforcer = new UserPwdStrengthEnforcer();
+        enforcer.propNamePassword = "password";
+        enforcer.minimumPasswordStrength = 3;
+        return enforcer;
+    }
+
+    @Test
+    void testRejectsWeakPasswordInDocument() throws Exception {
+        var request = mock(MongoRequest.class);
+        var response = mock(MongoResponse.class);
+        when(request.getContent()).thenReturn(BsonDocument.parse("{ '_id': 'user', 'password': 'password' }"));
+
+        enforcer().handle(request, response);
+
+        verify(response).setStatusCode(HttpStatus.SC_BAD_REQUEST);
+        verify(response).setInError(true);
+    }
+
+    @Test
+    void testRejectsWeakPasswordInStreamedDocuments() throws Exception {
+        var request = mock(MongoRequest.class);
+        var response = mock(MongoResponse.class);
+        when(request.isStreamingIngest()).thenReturn(true);
+        when(request.isPost()).thenReturn(true);
+        when(request.getContent()).thenReturn(new BsonArray());
+        when(request.getExchange()).thenReturn(new HttpServerExchange());
+
+        enforcer().handle(request, response);
+
+        // the request is not rejected as a whole, each streamed document is checked
+        verify(response, never()).setInError(anyBoolean());
+        verify(response, never()).setInError(anyInt(), anyString());
+
+        var weak = BsonDocument.parse("{ '_id': 'weak', 'password': 'password' }");
+        var bre = assertThrows(BadRequestException.class, () -> StreamedDocumentChecks.check(request, weak));
+        assertEquals(HttpStatus.SC_BAD_REQUEST, bre.getStatusCode());
+
+        var strong = BsonDocument.parse("{ '_id': 'strong', 'password': 'gT7#qWz!9vLm@2Rx' }");
+        assertDoesNotThrow(() -> StreamedDocumentChecks.check(request, strong));
+    }
+}
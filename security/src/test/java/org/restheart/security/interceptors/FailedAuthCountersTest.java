@@ -0,0 +1,101 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class FailedAuthCountersTest {
+
+    @Test
+    void testCounterSlidesOverWindow() {
+        var counter = new FailedAuthCounters.SlidingWindowCounter();
+
+        counter.increment(1_000);
+        counter.increment(1_000);
+        counter.increment(1_005);
+
+        assertEquals(3, counter.count(1_005));
+        assertEquals(3, counter.count(1_009));
+        // the two attempts at second 1000 are out of the window
+        assertEquals(1, counter.count(1_010));
+        assertEquals(0, counter.count(1_015));
+    }
+
+    @Test
+    void testBucketIsResetWhenReused() {
+        var counter = new FailedAuthCounters.SlidingWindowCounter();
+
+        counter.increment(1_000);
+        counter.increment(1_000 + FailedAuthCounters.WINDOW_SECONDS);
+
+        assertEquals(1, counter.count(1_000 + FailedAuthCounters.WINDOW_SECONDS));
+    }
+
+    @Test
+    void testConcurrentIncrements() throws InterruptedException {
+        var counters = new FailedAuthCounters(100);
+        var executor = Executors.newFixedThreadPool(8);
+
+        for (var i = 0; i < 1_000; i++) {
+            executor.execute(() -> counters.increment("1.2.3.4"));
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // all increments fall in the window unless the test straddles it
+        assertTrue(counters.count("1.2.3.4") > 0);
+        assertTrue(counters.count("1.2.3.4") <= 1_000);
+    }
+
+    @Test
+    void testTableIsBounded() {
+        var counters = new FailedAuthCounters(100);
+
+        for (var i = 0; i < 10_000; i++) {
+            counters.increment("10.0." + (i / 256) + "." + (i % 256));
+        }
+
+        assertTrue(counters.size() <= 100);
+    }
+
+    @Test
+    void testDrainPending() {
+        var counters = new FailedAuthCounters(100);
+        counters.enableSharing();
+
+        counters.increment("a");
+        counters.increment("a");
+        counters.increment("b");
+
+        var pending = counters.drainPending();
+
+        assertEquals(2L, pending.get("a"));
+        assertEquals(1L, pending.get("b"));
+        assertTrue(counters.drainPending().isEmpty());
+    }
+}
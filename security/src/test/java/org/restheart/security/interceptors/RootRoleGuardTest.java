@@ -0,0 +1,91 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.interceptors;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.junit.jupiter.api.Test;
+import org.restheart.exchange.BadRequestException;
+import org.restheart.exchange.MongoRequest;
+import org.restheart.exchange.MongoResponse;
+import org.restheart.exchange.StreamedDocumentChecks;
+import org.restheart.utils.HttpStatus;
+
+import io.undertow.server.HttpServerExchange;
+
+public class RootRoleGuardTest {
+    private static RootRoleGuard guard() {
+        var guard = new RootRoleGuard();
+        guard.rootRole = "root";
+        guard.usersCollection = "users";
+        guard.jsonPathRoles = "$.roles";
+        return guard;
+    }
+
+    private static MongoRequest request(boolean streaming, BsonValue content) {
+        var request = mock(MongoRequest.class);
+        when(request.isStreamingIngest()).thenReturn(streaming);
+        when(request.isPost()).thenReturn(true);
+        when(request.getContent()).thenReturn(content);
+        when(request.getExchange()).thenReturn(new HttpServerExchange());
+        when(request.getDBName()).thenReturn("restheart");
+        return request;
+    }
+
+    @Test
+    void testForbidsRootRoleInContent() throws Exception {
+        var request = request(false, BsonArray.parse("[{ '_id': 'a', 'roles': ['user'] }, { '_id': 'b', 'roles': ['root'] }]"));
+        var response = mock(MongoResponse.class);
+
+        guard().handle(request, response);
+
+        verify(response).setInError(HttpStatus.SC_FORBIDDEN, "Forbidden. The request has been logged.");
+    }
+
+    @Test
+    void testForbidsRootRoleInStreamedDocuments() throws Exception {
+        var request = request(true, new BsonArray());
+        var response = mock(MongoResponse.class);
+
+        guard().handle(request, response);
+
+        // the streamed documents are not in the request content, they are checked one by one
+        verify(response, never()).setInError(anyInt(), anyString());
+
+        var root = BsonDocument.parse("{ '_id': 'b', 'roles': ['user', 'root'] }");
+        var bre = assertThrows(BadRequestException.class, () -> StreamedDocumentChecks.check(request, root));
+        assertEquals(HttpStatus.SC_FORBIDDEN, bre.getStatusCode());
+
+        var user = BsonDocument.parse("{ '_id': 'a', 'roles': ['user'] }");
+        assertDoesNotThrow(() -> StreamedDocumentChecks.check(request, user));
+    }
+}
@@ -0,0 +1,155 @@
+/*-
+ * ========================LICENSE_START=================================
+ * restheart-security
+ * %%
+ * Copyright (C) 2018 - 2026 SoftInstigate
+ * %%
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * =========================LICENSE_END==================================
+ */
+package org.restheart.security.tokens;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.restheart.security.PwdCredentialAccount;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.ReplaceOptions;
+
+public class MongoTokenStoreTest {
+    // the documents of the tokens collection shared by the nodes
+    private final Map<String, BsonDocument> docs = new HashMap<>();
+
+    @Test
+    void testCollectionDoesNotHoldTokens() {
+        var store = store();
+        var token = "s3cr3t-t0ken".toCharArray();
+
+        store.put("user", new PwdCredentialAccount("user", token, Set.of("admin")));
+
+        assertEquals(1, docs.size());
+        var doc = docs.values().iterator().next();
+
+        assertEquals(MongoTokenStore.hash(token), doc.getString("_id").getValue());
+        assertEquals("user", doc.getString("account").getValue());
+        assertFalse(doc.toJson().contains("s3cr3t-t0ken"));
+    }
+
+    @Test
+    void testTokenIsVerifiedByHashOnOtherNodes() {
+        var issuer = store();
+        var other = store();
+        var token = "s3cr3t-t0ken".toCharArray();
+
+        issuer.put("user", new PwdCredentialAccount("user", token, Set.of("admin")));
+
+        // the other node cannot return the token, it only has its hash
+        assertTrue(other.get("user").isEmpty());
+
+        assertTrue(other.verify("user", "wrong".toCharArray()).isEmpty());
+        assertTrue(other.verify("another", token).isEmpty());
+
+        var verified = other.verify("user", token);
+        assertTrue(verified.isPresent());
+        assertEquals("user", verified.get().getPrincipal().getName());
+        assertEquals(Set.of("admin"), verified.get().getRoles());
+        assertArrayEquals(token, verified.get().getCredentials().getPassword());
+
+        // once verified, the token is in the near-cache of the other node
+        assertTrue(other.get("user").isPresent());
+    }
+
+    @Test
+    void testInvalidateRemovesAllTokensOfAccount() {
+        var node1 = store();
+        var node2 = store();
+
+        node1.put("user", new PwdCredentialAccount("user", "token1".toCharArray(), Set.of("user")));
+        node2.put("user", new PwdCredentialAccount("user", "token2".toCharArray(), Set.of("user")));
+        node2.put("other", new PwdCredentialAccount("other", "token3".toCharArray(), Set.of("user")));
+
+        assertEquals(3, docs.size());
+
+        node1.invalidate("user");
+
+        assertEquals(1, docs.size());
+        assertTrue(node1.verify("user", "token1".toCharArray()).isEmpty());
+        assertTrue(store().verify("user", "token2".toCharArray()).isEmpty());
+        assertTrue(store().verify("other", "token3".toCharArray()).isPresent());
+    }
+
+    @SuppressWarnings("unchecked")
+    private MongoTokenStore store() {
+        var client = mock(MongoClient.class);
+        var db = mock(MongoDatabase.class);
+        MongoCollection<BsonDocument> coll = mock(MongoCollection.class);
+
+        when(client.getDatabase("restheart")).thenReturn(db);
+        when(db.getCollection("_authtokens", BsonDocument.class)).thenReturn(coll);
+
+        when(coll.replaceOne(any(Bson.class), any(BsonDocument.class), any(ReplaceOptions.class))).thenAnswer(i -> {
+            BsonDocument doc = i.getArgument(1);
+            docs.put(doc.getString("_id").getValue(), doc);
+            return null;
+        });
+
+        when(coll.deleteMany(any(Bson.class))).thenAnswer(i -> {
+            var filter = render(i.getArgument(0));
+            docs.values().removeIf(doc -> matches(doc, filter));
+            return null;
+        });
+
+        when(coll.find(any(Bson.class))).thenAnswer(i -> {
+            var filter = render(i.getArgument(0));
+            var found = docs.values().stream().filter(doc -> matches(doc, filter)).findFirst().orElse(null);
+
+            return mock(FindIterable.class, inv -> "first".equals(inv.getMethod().getName()) ? found : null);
+        });
+
+        return new MongoTokenStore(client, "restheart", "_authtokens", 60_000, 100, 10_000);
+    }
+
+    private static BsonDocument render(Bson filter) {
+        var rendered = filter.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+
+        if (rendered.containsKey("$and")) {
+            var flat = new BsonDocument();
+            rendered.getArray("$and").forEach(cond -> flat.putAll(cond.asDocument()));
+            return flat;
+        } else {
+            return rendered;
+        }
+    }
+
+    private static boolean matches(BsonDocument doc, BsonDocument filter) {
+        return filter.entrySet().stream().allMatch(e -> e.getValue().equals(doc.get(e.getKey())));
+    }
+}